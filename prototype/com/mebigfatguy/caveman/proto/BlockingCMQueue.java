@@ -0,0 +1,66 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto;
+
+import java.util.concurrent.TimeUnit;
+
+import com.mebigfatguy.caveman.proto.aux.CM;
+
+/**
+ * a ConcurrentCMQueue whose threads can wait for room to add a <b>CM</b>, or for a <b>CM</b> to
+ * remove, rather than spinning on offer and poll
+ */
+public interface BlockingCMQueue extends ConcurrentCMQueue {
+
+	/**
+	 * adds the <b>CM</b> to the tail of the queue, waiting for room if the queue is full
+	 *
+	 * @param item the <b>CM</b> to add
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	void put(CM item) throws InterruptedException;
+
+	/**
+	 * adds the <b>CM</b> to the tail of the queue, waiting up to the given time for room if the queue is full
+	 *
+	 * @param item the <b>CM</b> to add
+	 * @param timeout how long to wait
+	 * @param unit the unit of the timeout
+	 * @return whether the <b>CM</b> was added
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	boolean offer(CM item, long timeout, TimeUnit unit) throws InterruptedException;
+
+	/**
+	 * removes the <b>CM</b> at the head of the queue, waiting for one if the queue is empty
+	 *
+	 * @return the <b>CM</b> removed
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	CM take() throws InterruptedException;
+
+	/**
+	 * removes the <b>CM</b> at the head of the queue, waiting up to the given time for one if the queue is empty
+	 *
+	 * @param timeout how long to wait
+	 * @param unit the unit of the timeout
+	 * @return the <b>CM</b> removed, or the notFound value if none arrived in time
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	CM poll(long timeout, TimeUnit unit) throws InterruptedException;
+}
@@ -0,0 +1,37 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto;
+
+import com.mebigfatguy.caveman.proto.aux.CM;
+
+/**
+ * An operation on two <b>CM</b>s that produces a <b>CM</b>.
+ * It is passed to the merge methods of maps with <b>CM</b> values to combine an old value with a new one.
+ */
+@FunctionalInterface
+public interface CMBinaryOperator {
+
+	/**
+	 * Applies this operator to the given values.
+	 *
+	 * @param left the value already in the map
+	 * @param right the value being merged in
+	 * @return the combined value
+	 */
+	CM applyAsCM(CM left, CM right);
+}
@@ -18,6 +18,12 @@
 package com.mebigfatguy.caveman.proto;
 
 import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMPrimitiveIterator;
+import com.mebigfatguy.caveman.proto.aux.CMSpliterator;
+import com.mebigfatguy.caveman.proto.aux.CMSpliterators;
+import com.mebigfatguy.caveman.proto.aux.CMStream;
+import com.mebigfatguy.caveman.proto.aux.CMStreamSupport;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
 
 /**
  * The root interface in the <i><b>CM</b> collection hierarchy</i>.  A collection
@@ -188,4 +194,64 @@ public interface CMCollection extends CMIterable {
 	 * @throws IllegalStateException if the collection is empty
 	 */
 	CM getOne() throws IllegalStateException;
+
+	/**
+	 * Performs the given operation on each <b>CM</b> in this collection, in iteration order.
+	 * Implementations loop over their backing storage directly, so no iterator is allocated.
+	 *
+	 * @param consumer the operation to perform on each <b>CM</b>
+	 * @throws java.util.ConcurrentModificationException if the consumer modifies this collection
+	 */
+	default void forEach(CMConsumer consumer) {
+		CMIterator it = iterator();
+		while (it.hasNext()) {
+			consumer.accept(it.next());
+		}
+	}
+
+	/**
+	 * Returns a spliterator over the <b>CM</b>s in this collection. The default implementation
+	 * wraps the iterator, and splits by copying batches of <b>CM</b>s into arrays; implementations
+	 * backed by arrays override it to split their storage directly.
+	 *
+	 * @return a spliterator over the <b>CM</b>s in this collection
+	 */
+	@OnlyFor({"int", "long", "double"})
+	default CMSpliterator spliterator() {
+		CMIterator it = iterator();
+		CMPrimitiveIterator adapter = new CMPrimitiveIterator() {
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public CM nextCM() {
+				return it.next();
+			}
+		};
+
+		return CMSpliterators.spliterator(adapter, size(), 0);
+	}
+
+	/**
+	 * Returns a sequential stream of the <b>CM</b>s in this collection, without boxing them.
+	 *
+	 * @return a sequential stream over this collection
+	 */
+	@OnlyFor({"int", "long", "double"})
+	default CMStream stream() {
+		return CMStreamSupport.cmStream(spliterator(), false);
+	}
+
+	/**
+	 * Returns a parallel stream of the <b>CM</b>s in this collection, without boxing them.
+	 * The collection must not be modified while the stream is running.
+	 *
+	 * @return a possibly parallel stream over this collection
+	 */
+	@OnlyFor({"int", "long", "double"})
+	default CMStream parallelStream() {
+		return CMStreamSupport.cmStream(spliterator(), true);
+	}
 }
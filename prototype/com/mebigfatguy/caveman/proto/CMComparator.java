@@ -0,0 +1,37 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto;
+
+import com.mebigfatguy.caveman.proto.aux.CM;
+
+/**
+ * An ordering of <b>CM</b>s, that compares them without boxing.
+ * It is passed to {@link CMList#sort(CMComparator)}.
+ */
+@FunctionalInterface
+public interface CMComparator {
+
+	/**
+	 * Compares two <b>CM</b>s for order.
+	 *
+	 * @param left the first <b>CM</b> to compare
+	 * @param right the second <b>CM</b> to compare
+	 * @return a negative number, zero or a positive number as left is less than, equal to or greater than right
+	 */
+	int compare(CM left, CM right);
+}
@@ -18,6 +18,8 @@
 package com.mebigfatguy.caveman.proto;
 
 import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMSum;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
 
 /**
  * a linear collection that supports insertions and deletions at both ends.
@@ -127,4 +129,60 @@ public interface CMDeque extends CMQueue {
      * (or equivalently, if this deque changed as a result of the call).
      */
     boolean removeLastOccurrence(CM item);
+
+    /**
+     * Returns the sum of the <b>CM</b>s in this deque, accumulated in a long for the
+     * integral primitives, and in a double for float and double, or 0 if it is empty.
+     *
+     * @return the sum of the <b>CM</b>s
+     */
+    @OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+    CMSum sum();
+    
+    /**
+     * Returns the sum of the squares of the <b>CM</b>s in this deque, accumulated as
+     * sum is, or 0 if it is empty.
+     *
+     * @return the sum of the squares of the <b>CM</b>s
+     */
+    @OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+    CMSum sumOfSquares();
+    
+    /**
+     * Returns the smallest <b>CM</b> in this deque, in the order used by
+     * java.util.Arrays.sort, so -0.0 is less than 0.0, and NaN is greater than
+     * every other value.
+     *
+     * @return the smallest <b>CM</b>
+     * @throws IllegalStateException if the deque is empty
+     */
+    @OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+    CM min();
+    
+    /**
+     * Returns the largest <b>CM</b> in this deque, in the order used by
+     * java.util.Arrays.sort.
+     *
+     * @return the largest <b>CM</b>
+     * @throws IllegalStateException if the deque is empty
+     */
+    @OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+    CM max();
+    
+    /**
+     * Returns the mean of the <b>CM</b>s in this deque, or NaN if it is empty.
+     *
+     * @return the sum divided by the size
+     */
+    @OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+    double average();
+    
+    /**
+     * Returns the number of <b>CM</b>s in this deque that pass the predicate.
+     *
+     * @param predicate the test of each <b>CM</b>
+     * @return the number of <b>CM</b>s that pass
+     */
+    @OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+    int count(CMPredicate predicate);
 }
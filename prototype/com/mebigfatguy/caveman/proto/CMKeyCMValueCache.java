@@ -0,0 +1,114 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto;
+
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+
+/**
+ * A map of <b>CMKey</b> keys to <b>CMValue</b> values that holds at most a fixed number of
+ * entries, for caching values that are slow to fetch. When a new key is added to a full cache,
+ * an entry chosen by the cache's EvictionPolicy is evicted to make room, and passed to the
+ * cache's eviction listener, if it has one. The cache counts its hits, misses and evictions.
+ */
+public interface CMKeyCMValueCache {
+
+	/**
+	 * returns the number of entries in the cache
+	 *
+	 * @return the number of entries
+	 */
+	int size();
+
+	/**
+	 * returns the most entries the cache holds before it evicts
+	 *
+	 * @return the maximum size of the cache
+	 */
+	int maxSize();
+
+	/**
+	 * returns whether a key is in the cache, without counting a hit or miss, or marking the key as used
+	 *
+	 * @param key the key to look for
+	 * @return whether the key is in the cache
+	 */
+	boolean containsKey(CMKey key);
+
+	/**
+	 * returns the value of a key, counting a hit and marking the key as used if it is present,
+	 * or counting a miss if it is not
+	 *
+	 * @param key the key to look up
+	 * @return the value of the key, or the not found value if the key is absent
+	 */
+	CMValue get(CMKey key);
+
+	/**
+	 * returns the value of a key, as get does, or if the key is absent, counts a miss, loads its value
+	 * with a function and adds it, evicting an entry if the cache is full
+	 *
+	 * @param key the key to look up
+	 * @param loader the function to fetch the value of an absent key
+	 * @return the value of the key, either cached or loaded
+	 */
+	CMValue computeIfAbsent(CMKey key, CMKeyCMValueFunction loader);
+
+	/**
+	 * sets the value of a key and marks it as used, evicting an entry if the key is absent and the
+	 * cache is full
+	 *
+	 * @param key the key to set
+	 * @param value the value to set
+	 */
+	void put(CMKey key, CMValue value);
+
+	/**
+	 * removes a key from the cache, which is not an eviction, so is neither counted nor passed
+	 * to the eviction listener
+	 *
+	 * @param key the key to remove
+	 */
+	void remove(CMKey key);
+
+	/**
+	 * removes all the entries of the cache, without evicting them, and leaves the counts as they are
+	 */
+	void clear();
+
+	/**
+	 * returns the number of lookups that found their key
+	 *
+	 * @return the hit count
+	 */
+	long hitCount();
+
+	/**
+	 * returns the number of lookups that didn't find their key
+	 *
+	 * @return the miss count
+	 */
+	long missCount();
+
+	/**
+	 * returns the number of entries evicted to make room for new keys
+	 *
+	 * @return the eviction count
+	 */
+	long evictionCount();
+}
@@ -0,0 +1,64 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto;
+
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.OnlyForValue;
+
+/**
+ * A CMKeyCMValueMap of counts that may be shared between threads, where many threads add to
+ * the same keys at once, in the manner of a map of java.util.concurrent.atomic.LongAdders.
+ * Counts are added to without a lock, and read back by summing, so a read made while other
+ * threads are adding sees some of their additions, but no addition is ever lost.
+ */
+@OnlyForValue({"byte", "char", "short", "int", "long"})
+public interface CMKeyCMValueCounterMap extends CMKeyCMValueMap {
+
+	/**
+	 * adds one to the count of a key, adding the key with a count of one if it is absent
+	 *
+	 * @param key the key to count
+	 */
+	void increment(CMKey key);
+
+	/**
+	 * adds a delta to the count of a key, adding the key with a count of the delta if it is absent
+	 *
+	 * @param key the key to count
+	 * @param delta the amount to add, which may be negative
+	 */
+	void add(CMKey key, CMValue delta);
+
+	/**
+	 * returns the count of a key and sets it to zero, without losing any concurrent additions, which
+	 * are either included in the count returned or left in the key
+	 *
+	 * @param key the key to read and reset
+	 * @return the count of the key, or the not found value if the key is absent
+	 */
+	CMValue sumThenReset(CMKey key);
+
+	/**
+	 * moves the counts of all keys into a new map, setting each to zero but leaving the keys in
+	 * place, so that counts can be flushed periodically without losing additions made meanwhile
+	 *
+	 * @return a map of each key to its count before it was reset
+	 */
+	CMKeyCMValueMap sumThenReset();
+}
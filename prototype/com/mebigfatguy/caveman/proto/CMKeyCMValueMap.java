@@ -21,6 +21,8 @@ import com.mebigfatguy.caveman.proto.aux.CMKey;
 import com.mebigfatguy.caveman.proto.aux.CMKeySet;
 import com.mebigfatguy.caveman.proto.aux.CMValue;
 import com.mebigfatguy.caveman.proto.aux.CMValueBag;
+import com.mebigfatguy.caveman.proto.aux.CMValueBinaryOperator;
+import com.mebigfatguy.caveman.proto.aux.OnlyForValue;
 
 
 /**
@@ -121,6 +123,46 @@ public interface CMKeyCMValueMap {
      *         is not supported by this map
      */
 	void putAll(CMKeyCMValueMap m);
+
+	/**
+	 * Copies a range of parallel <b>CMKey</b> key and <b>CMValue</b> value arrays into this map, as
+	 * if by calling put for each pair in turn. Implementations hash a run of keys before looking any
+	 * of them up, so that the memory accesses of the lookups can overlap.
+	 *
+	 * @param keys the keys to add
+	 * @param values the values to add, where values[i] is associated with keys[i]
+	 * @param off the index of the first pair to add
+	 * @param len the number of pairs to add
+	 * @throws IndexOutOfBoundsException if the range is outside either array
+	 */
+	default void putAll(CMKey[] keys, CMValue[] values, int off, int len) {
+		if ((off < 0) || (len < 0) || (off + len > keys.length) || (off + len > values.length)) {
+			throw new IndexOutOfBoundsException("Range [" + off + ", " + (off + len) + ") is out of bounds");
+		}
+
+		for (int i = off; i < off + len; i++) {
+			put(keys[i], values[i]);
+		}
+	}
+
+	/**
+	 * Looks up an array of <b>CMKey</b> keys, storing the <b>CMValue</b> value of each, or the
+	 * 'not found' value, at the same index of the output array. Implementations hash a run of keys
+	 * before looking any of them up, so that the memory accesses of the lookups can overlap.
+	 *
+	 * @param keys the keys to look up
+	 * @param out the array to store the values in, at least as long as keys
+	 * @throws IndexOutOfBoundsException if out is shorter than keys
+	 */
+	default void getAll(CMKey[] keys, CMValue[] out) {
+		if (out.length < keys.length) {
+			throw new IndexOutOfBoundsException("Output length " + out.length + " is less than " + keys.length);
+		}
+
+		for (int i = 0; i < keys.length; i++) {
+			out[i] = get(keys[i]);
+		}
+	}
 	
     /**
      * Removes all of the mappings from this map (optional operation).
@@ -171,4 +213,126 @@ public interface CMKeyCMValueMap {
 	 * @return an iterator to navigate the map
 	 */
 	CMKeyCMValueMapIterator iterator();
+
+	/**
+	 * Performs the given operation on each <b>CMKey</b>, <b>CMValue</b> pair in the map.
+	 * Implementations loop over their backing storage directly, so no iterator is allocated.
+	 *
+	 * @param consumer the operation to perform on each pair
+	 * @throws java.util.ConcurrentModificationException if the consumer modifies this map
+	 */
+	default void forEach(CMKeyCMValueConsumer consumer) {
+		CMKeyCMValueMapIterator it = iterator();
+		while (it.hasNext()) {
+			it.next();
+			consumer.accept(it.key(), it.value());
+		}
+	}
+
+	/**
+	 * Returns the <b>CMValue</b> value to which the <b>CMKey</b> key is mapped, or the given
+	 * default value if this map contains no mapping for the key.
+	 *
+	 * @param key the key whose associated value is to be returned
+	 * @param defaultValue the value to return if the key is absent
+	 * @return the value of the key, or defaultValue
+	 */
+	default CMValue getOrDefault(CMKey key, CMValue defaultValue) {
+		return containsKey(key) ? get(key) : defaultValue;
+	}
+
+	/**
+	 * Associates the <b>CMValue</b> value with the <b>CMKey</b> key, unless the key is already present.
+	 * Implementations find the key, and the place to add it, with a single lookup.
+	 *
+	 * @param key the key to add
+	 * @param value the value to associate with the key
+	 * @return the value already associated with the key, or the 'not found' value if the value was added
+	 */
+	default CMValue putIfAbsent(CMKey key, CMValue value) {
+		CMValue current = get(key);
+		if (!containsKey(key)) {
+			put(key, value);
+		}
+		return current;
+	}
+
+	/**
+	 * Replaces the <b>CMValue</b> value of a <b>CMKey</b> key, only if the key is present.
+	 *
+	 * @param key the key to replace the value of
+	 * @param value the new value
+	 * @return the previous value, or the 'not found' value if the key was absent and nothing changed
+	 */
+	default CMValue replace(CMKey key, CMValue value) {
+		CMValue current = get(key);
+		if (containsKey(key)) {
+			put(key, value);
+		}
+		return current;
+	}
+
+	/**
+	 * Replaces the <b>CMValue</b> value of a <b>CMKey</b> key, only if the key is currently
+	 * associated with the old value.
+	 *
+	 * @param key the key to replace the value of
+	 * @param oldValue the value the key is expected to have
+	 * @param newValue the new value
+	 * @return whether the value was replaced
+	 */
+	default boolean replace(CMKey key, CMValue oldValue, CMValue newValue) {
+		if (!containsKey(key) || (get(key) != oldValue)) {
+			return false;
+		}
+
+		put(key, newValue);
+		return true;
+	}
+
+	/**
+	 * Returns the <b>CMValue</b> value of a <b>CMKey</b> key, first adding the value made by the
+	 * mapping function if the key is absent.
+	 *
+	 * @param key the key whose value is to be returned
+	 * @param mappingFunction the function to make a value for an absent key
+	 * @return the existing or added value
+	 * @throws java.util.ConcurrentModificationException if the function modifies this map
+	 */
+	default CMValue computeIfAbsent(CMKey key, CMKeyCMValueFunction mappingFunction) {
+		if (containsKey(key)) {
+			return get(key);
+		}
+
+		CMValue value = mappingFunction.applyAsCMValue(key);
+		put(key, value);
+		return value;
+	}
+
+	/**
+	 * Associates the <b>CMValue</b> value with an absent <b>CMKey</b> key, or otherwise replaces
+	 * the key's value with the result of combining it with the given value.
+	 *
+	 * @param key the key to merge the value into
+	 * @param value the value to add, or to combine with the existing value
+	 * @param remappingFunction the function to combine the existing value with the given one
+	 * @return the new value of the key
+	 * @throws java.util.ConcurrentModificationException if the function modifies this map
+	 */
+	default CMValue merge(CMKey key, CMValue value, CMValueBinaryOperator remappingFunction) {
+		CMValue newValue = containsKey(key) ? remappingFunction.applyAsCMValue(get(key), value) : value;
+		put(key, newValue);
+		return newValue;
+	}
+
+	/**
+	 * Adds a delta to the <b>CMValue</b> value of a <b>CMKey</b> key, treating an absent key as
+	 * having the 'not found' value.
+	 *
+	 * @param key the key whose value is adjusted
+	 * @param delta the amount to add
+	 * @return the value before the delta was added
+	 */
+	@OnlyForValue({"byte", "char", "short", "int", "long", "float", "double"})
+	CMValue addTo(CMKey key, CMValue delta);
 }
@@ -18,6 +18,8 @@
 package com.mebigfatguy.caveman.proto;
 
 import java.util.Collection;
+import java.util.Objects;
+import java.util.function.BiFunction;
 
 import com.mebigfatguy.caveman.proto.aux.CM;
 import com.mebigfatguy.caveman.proto.aux.CMKey;
@@ -169,4 +171,123 @@ public interface CMKeyMap<V> {
 	 * @return an iterator to navigate the map
 	 */
 	CMKeyMapIterator<V> iterator();
+
+	/**
+	 * Performs the given operation on each <b>CM</b> key, value pair in the map.
+	 * Implementations loop over their backing storage directly, so no iterator is allocated.
+	 *
+	 * @param consumer the operation to perform on each pair
+	 * @throws java.util.ConcurrentModificationException if the consumer modifies this map
+	 */
+	default void forEach(CMObjectConsumer<V> consumer) {
+		CMKeyMapIterator<V> it = iterator();
+		while (it.hasNext()) {
+			it.next();
+			consumer.accept(it.key(), it.value());
+		}
+	}
+
+	/**
+	 * Returns the value to which the <b>CM</b> key is mapped, or the given default value if this
+	 * map contains no mapping for the key.
+	 *
+	 * @param key the key whose associated value is to be returned
+	 * @param defaultValue the value to return if the key is absent
+	 * @return the value of the key, or defaultValue
+	 */
+	default V getOrDefault(CM key, V defaultValue) {
+		return containsKey(key) ? get(key) : defaultValue;
+	}
+
+	/**
+	 * Associates the value with the <b>CM</b> key, unless the key is already mapped to a non null value.
+	 * Implementations find the key, and the place to add it, with a single lookup.
+	 *
+	 * @param key the key to add
+	 * @param value the value to associate with the key
+	 * @return the value already associated with the key, or null if the value was added
+	 */
+	default V putIfAbsent(CM key, V value) {
+		V current = get(key);
+		if (current == null) {
+			put(key, value);
+		}
+		return current;
+	}
+
+	/**
+	 * Replaces the value of a <b>CM</b> key, only if the key is present.
+	 *
+	 * @param key the key to replace the value of
+	 * @param value the new value
+	 * @return the previous value, or null if the key was absent and nothing changed
+	 */
+	default V replace(CM key, V value) {
+		V current = get(key);
+		if (containsKey(key)) {
+			put(key, value);
+		}
+		return current;
+	}
+
+	/**
+	 * Replaces the value of a <b>CM</b> key, only if the key is currently associated with a value
+	 * equal to the old value.
+	 *
+	 * @param key the key to replace the value of
+	 * @param oldValue the value the key is expected to have
+	 * @param newValue the new value
+	 * @return whether the value was replaced
+	 */
+	default boolean replace(CM key, V oldValue, V newValue) {
+		if (!containsKey(key) || !Objects.equals(get(key), oldValue)) {
+			return false;
+		}
+
+		put(key, newValue);
+		return true;
+	}
+
+	/**
+	 * Returns the value of a <b>CM</b> key, first adding the value made by the mapping function if
+	 * the key is absent or mapped to null. Nothing is added if the function returns null.
+	 *
+	 * @param key the key whose value is to be returned
+	 * @param mappingFunction the function to make a value for an absent key
+	 * @return the existing or added value, or null if there is none
+	 * @throws java.util.ConcurrentModificationException if the function modifies this map
+	 */
+	default V computeIfAbsent(CM key, CMObjectFunction<? extends V> mappingFunction) {
+		V value = get(key);
+		if (value == null) {
+			value = mappingFunction.apply(key);
+			if (value != null) {
+				put(key, value);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Associates the non null value with a <b>CM</b> key that is absent or mapped to null, or otherwise
+	 * replaces the key's value with the result of combining it with the given value. If the result
+	 * is null the key is removed.
+	 *
+	 * @param key the key to merge the value into
+	 * @param value the value to add, or to combine with the existing value
+	 * @param remappingFunction the function to combine the existing value with the given one
+	 * @return the new value of the key, or null if it was removed
+	 * @throws java.util.ConcurrentModificationException if the function modifies this map
+	 */
+	default V merge(CM key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(value);
+		V current = get(key);
+		V newValue = (current == null) ? value : remappingFunction.apply(current, value);
+		if (newValue == null) {
+			remove(key);
+		} else {
+			put(key, newValue);
+		}
+		return newValue;
+	}
 }
@@ -20,6 +20,8 @@ package com.mebigfatguy.caveman.proto;
 import java.io.Serializable;
 
 import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMSum;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
 /**
  * An ordered collection (also known as a <i>sequence</i>).  The user of this
  * interface has precise control over where in the list each <b>CM</b> is
@@ -86,6 +88,18 @@ public interface CMList extends CMCollection {
      */
 	void add(int index, CM item);
 	
+    /**
+     * Appends a range of an array of <b>CM</b>s to the end of this list, in order,
+     * growing the list at most once.
+     *
+     * @param src the array holding the <b>CM</b>s to add
+     * @param off the index in src of the first <b>CM</b> to add
+     * @param len the number of <b>CM</b>s to add
+     * @return <tt>true</tt> if this list changed as a result of the call
+     * @throws IndexOutOfBoundsException if the range is outside the array
+     */
+	boolean addAll(CM[] src, int off, int len);
+	
     /**
      * Returns the index of the first occurrence of the specified <b>CM</b>
      * in this list, or -1 if this list does not contain the <b>CM</b>.
@@ -105,4 +119,143 @@ public interface CMList extends CMCollection {
      *         this list, or -1 if this list does not contain the <b>CM</b>
      */
 	int lastIndexOf(CM item);	
+	
+    /**
+     * Replaces each <b>CM</b> of this list with the result of applying the
+     * operator to it, in order from the first to the last.
+     *
+     * @param operator the transform to apply to each <b>CM</b>
+     */
+	void replaceAll(CMUnaryOperator operator);
+	
+    /**
+     * Adds the specified <b>CM</b> to each <b>CM</b> of this list in place,
+     * wrapping on overflow as the + operator does.
+     *
+     * @param delta the <b>CM</b> to add to each <b>CM</b>
+     */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	void addToAll(CM delta);
+	
+    /**
+     * Multiplies each <b>CM</b> of this list by the specified <b>CM</b> in place,
+     * wrapping on overflow as the * operator does.
+     *
+     * @param factor the <b>CM</b> to multiply each <b>CM</b> by
+     */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	void multiplyAll(CM factor);
+	
+    /**
+     * Sorts this list into ascending order in place, in the order used by
+     * java.util.Arrays.sort.
+     */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	void sort();
+	
+    /**
+     * Sorts this list in place into the order given by the comparator. The sort
+     * is stable, so <b>CM</b>s that compare equal keep their relative order.
+     *
+     * @param comparator the ordering of the <b>CM</b>s
+     */
+	void sort(CMComparator comparator);
+	
+    /**
+     * Sorts this list into ascending order in place, as sort does, but splits
+     * the work of a large list across the common fork join pool.
+     */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	void parallelSort();
+	
+    /**
+     * Searches this list for the specified <b>CM</b>, which must have been sorted
+     * into ascending order by sort or parallelSort. Like indexOf, the index of the
+     * first occurrence is returned when the <b>CM</b> occurs more than once.
+     * Floating point values are matched in the order of sort, so -0.0 does not
+     * match 0.0, and NaN matches NaN.
+     *
+     * @param item <b>CM</b> to search for
+     * @return the index of the first occurrence of the <b>CM</b>, or if it is
+     *         absent, <tt>(-(insertion point) - 1)</tt>, where the insertion point
+     *         is the index at which it would be added to keep the list sorted
+     */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	int binarySearch(CM item);
+	
+    /**
+     * Returns the sum of the <b>CM</b>s in this list, accumulated in a long for the
+     * integral primitives, and in a double for float and double, or 0 if it is empty.
+     *
+     * @return the sum of the <b>CM</b>s
+     */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	CMSum sum();
+	
+    /**
+     * Returns the sum of the squares of the <b>CM</b>s in this list, accumulated as
+     * sum is, or 0 if it is empty.
+     *
+     * @return the sum of the squares of the <b>CM</b>s
+     */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	CMSum sumOfSquares();
+	
+    /**
+     * Returns the smallest <b>CM</b> in this list, in the order used by
+     * java.util.Arrays.sort, so -0.0 is less than 0.0, and NaN is greater than
+     * every other value.
+     *
+     * @return the smallest <b>CM</b>
+     * @throws IllegalStateException if the list is empty
+     */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	CM min();
+	
+    /**
+     * Returns the largest <b>CM</b> in this list, in the order used by
+     * java.util.Arrays.sort.
+     *
+     * @return the largest <b>CM</b>
+     * @throws IllegalStateException if the list is empty
+     */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	CM max();
+	
+    /**
+     * Returns the mean of the <b>CM</b>s in this list, or NaN if it is empty.
+     *
+     * @return the sum divided by the size
+     */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	double average();
+	
+    /**
+     * Returns the number of <b>CM</b>s in this list that pass the predicate.
+     *
+     * @param predicate the test of each <b>CM</b>
+     * @return the number of <b>CM</b>s that pass
+     */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	int count(CMPredicate predicate);
+	
+    /**
+     * Returns the sum of the <b>CM</b>s in this list, as sum does, but splits the
+     * work of a large list across the common fork join pool. A sum of floating
+     * point values may differ in its last bits from the sequential one.
+     *
+     * @return the sum of the <b>CM</b>s
+     */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	CMSum parallelSum();
+	
+    /**
+     * Returns the sum of the squares of the <b>CM</b>s in this list, as
+     * sumOfSquares does, but splits the work of a large list across the common
+     * fork join pool.
+     *
+     * @return the sum of the squares of the <b>CM</b>s
+     */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	CMSum parallelSumOfSquares();
 }
@@ -0,0 +1,38 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto;
+
+import com.mebigfatguy.caveman.proto.aux.CM;
+
+/**
+ * An operation that accepts a <b>CM</b> key and an object value and returns no result.
+ * It is passed to {@link CMKeyMap#forEach} to visit every mapping in a map without an iterator.
+ *
+ * @param <V> the type of the values
+ */
+@FunctionalInterface
+public interface CMObjectConsumer<V> {
+
+	/**
+	 * Performs this operation on the given key and value.
+	 *
+	 * @param key the <b>CM</b> key of a mapping
+	 * @param value the value of a mapping
+	 */
+	void accept(CM key, V value);
+}
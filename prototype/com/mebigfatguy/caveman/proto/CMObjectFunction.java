@@ -0,0 +1,38 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto;
+
+import com.mebigfatguy.caveman.proto.aux.CM;
+
+/**
+ * A function from a <b>CM</b> key to an object value.
+ * It is passed to {@link CMKeyMap#computeIfAbsent} to make the value of a missing key.
+ *
+ * @param <V> the type of the values
+ */
+@FunctionalInterface
+public interface CMObjectFunction<V> {
+
+	/**
+	 * Applies this function to the given key.
+	 *
+	 * @param key the <b>CM</b> key of a mapping
+	 * @return the value to map the key to, or null to leave the key absent
+	 */
+	V apply(CM key);
+}
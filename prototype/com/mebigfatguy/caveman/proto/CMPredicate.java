@@ -0,0 +1,36 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto;
+
+import com.mebigfatguy.caveman.proto.aux.CM;
+
+/**
+ * A test of a single <b>CM</b>. It is passed to the count methods of numeric lists and
+ * deques to count the <b>CM</b>s that pass it, without boxing them.
+ */
+@FunctionalInterface
+public interface CMPredicate {
+
+	/**
+	 * Evaluates this test on the given <b>CM</b>.
+	 *
+	 * @param item the <b>CM</b> to test
+	 * @return whether the <b>CM</b> passes the test
+	 */
+	boolean test(CM item);
+}
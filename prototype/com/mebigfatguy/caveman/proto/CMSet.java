@@ -17,6 +17,7 @@
  */
 package com.mebigfatguy.caveman.proto;
 
+import com.mebigfatguy.caveman.proto.aux.CM;
 
 /** 
  * A collection that contains no duplicate <b>CM</b>s.  More formally, sets
@@ -25,4 +26,23 @@ package com.mebigfatguy.caveman.proto;
  * the mathematical <i>set</i> abstraction.
  */
 public interface CMSet extends CMCollection {
+
+	/**
+	 * Tests each of an array of <b>CM</b>s for membership, storing the answer for each at the same
+	 * index of the output array. Implementations hash a run of items before looking any of them up,
+	 * so that the memory accesses of the lookups can overlap.
+	 *
+	 * @param items the <b>CM</b>s to look for
+	 * @param out the array to store whether each item is in the set, at least as long as items
+	 * @throws IndexOutOfBoundsException if out is shorter than items
+	 */
+	default void containsAll(CM[] items, boolean[] out) {
+		if (out.length < items.length) {
+			throw new IndexOutOfBoundsException("Output length " + out.length + " is less than " + items.length);
+		}
+
+		for (int i = 0; i < items.length; i++) {
+			out[i] = contains(items[i]);
+		}
+	}
 }
@@ -0,0 +1,36 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto;
+
+import com.mebigfatguy.caveman.proto.aux.CM;
+
+/**
+ * An operation on a single <b>CM</b> that produces a <b>CM</b>.
+ * It is passed to {@link CMList#replaceAll} to transform every <b>CM</b> of a list in place.
+ */
+@FunctionalInterface
+public interface CMUnaryOperator {
+
+	/**
+	 * Applies this operator to the given value.
+	 *
+	 * @param item the value to transform
+	 * @return the transformed value
+	 */
+	CM applyAsCM(CM item);
+}
@@ -21,6 +21,7 @@ import java.util.Set;
 
 import com.mebigfatguy.caveman.proto.aux.CM;
 import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
 
 
 /**
@@ -171,4 +172,118 @@ public interface CMValueMap<K> {
 	 * @return an iterator to navigate the map
 	 */
 	CMValueMapIterator<K> iterator();
+
+	/**
+	 * Performs the given operation on each key, <b>CM</b> value pair in the map.
+	 * Implementations loop over their backing storage directly, so no iterator is allocated.
+	 *
+	 * @param consumer the operation to perform on each pair
+	 * @throws java.util.ConcurrentModificationException if the consumer modifies this map
+	 */
+	default void forEach(ObjectCMConsumer<K> consumer) {
+		CMValueMapIterator<K> it = iterator();
+		while (it.hasNext()) {
+			it.next();
+			consumer.accept(it.key(), it.value());
+		}
+	}
+
+	/**
+	 * Returns the <b>CM</b> value to which the key is mapped, or the given default value if this
+	 * map contains no mapping for the key. This is the same as get(key, defaultValue).
+	 *
+	 * @param key the key whose associated value is to be returned
+	 * @param defaultValue the value to return if the key is absent
+	 * @return the value of the key, or defaultValue
+	 */
+	default CM getOrDefault(K key, CM defaultValue) {
+		return get(key, defaultValue);
+	}
+
+	/**
+	 * Associates the <b>CM</b> value with the key, unless the key is already present.
+	 * Implementations find the key, and the place to add it, with a single lookup.
+	 *
+	 * @param key the key to add
+	 * @param value the value to associate with the key
+	 * @return whether the value was added
+	 */
+	default boolean putIfAbsent(K key, CM value) {
+		if (containsKey(key)) {
+			return false;
+		}
+
+		put(key, value);
+		return true;
+	}
+
+	/**
+	 * Replaces the <b>CM</b> value of a key, only if the key is present.
+	 *
+	 * @param key the key to replace the value of
+	 * @param value the new value
+	 * @return whether the value was replaced
+	 */
+	default boolean replace(K key, CM value) {
+		if (!containsKey(key)) {
+			return false;
+		}
+
+		put(key, value);
+		return true;
+	}
+
+	/**
+	 * Replaces the <b>CM</b> value of a key, only if the key is currently associated with the old value.
+	 *
+	 * @param key the key to replace the value of
+	 * @param oldValue the value the key is expected to have
+	 * @param newValue the new value
+	 * @return whether the value was replaced
+	 */
+	default boolean replace(K key, CM oldValue, CM newValue) {
+		if (!containsKey(key) || (get(key, newValue) != oldValue)) {
+			return false;
+		}
+
+		put(key, newValue);
+		return true;
+	}
+
+	/**
+	 * Returns the <b>CM</b> value of a key, first adding the value made by the mapping function if
+	 * the key is absent.
+	 *
+	 * @param key the key whose value is to be returned
+	 * @param mappingFunction the function to make a value for an absent key
+	 * @return the existing or added value
+	 * @throws java.util.ConcurrentModificationException if the function modifies this map
+	 */
+	CM computeIfAbsent(K key, ObjectCMFunction<? super K> mappingFunction);
+
+	/**
+	 * Associates the <b>CM</b> value with an absent key, or otherwise replaces the key's value with
+	 * the result of combining it with the given value.
+	 *
+	 * @param key the key to merge the value into
+	 * @param value the value to add, or to combine with the existing value
+	 * @param remappingFunction the function to combine the existing value with the given one
+	 * @return the new value of the key
+	 * @throws java.util.ConcurrentModificationException if the function modifies this map
+	 */
+	default CM merge(K key, CM value, CMBinaryOperator remappingFunction) {
+		CM newValue = containsKey(key) ? remappingFunction.applyAsCM(get(key, value), value) : value;
+		put(key, newValue);
+		return newValue;
+	}
+
+	/**
+	 * Adds a delta to the <b>CM</b> value of a key, treating an absent key as having a value of zero.
+	 *
+	 * @param key the key whose value is adjusted
+	 * @param delta the amount to add
+	 * @return the value before the delta was added, or zero if the key was absent
+	 */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	CM addTo(K key, CM delta);
 }
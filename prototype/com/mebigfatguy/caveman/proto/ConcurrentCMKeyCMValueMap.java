@@ -0,0 +1,27 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto;
+
+/**
+ * A CMKeyCMValueMap that may be shared between threads, in the manner of
+ * java.util.concurrent.ConcurrentMap. The read-modify-write operations putIfAbsent, replace,
+ * computeIfAbsent, merge and addTo are atomic. The functions given to computeIfAbsent and merge
+ * are called while the key's part of the map is locked, so must be short, and must not use the map.
+ */
+public interface ConcurrentCMKeyCMValueMap extends CMKeyCMValueMap {
+}
@@ -0,0 +1,53 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto;
+
+import com.mebigfatguy.caveman.proto.aux.CM;
+
+/**
+ * a bounded CMQueue that may be shared between threads, that can move many <b>CM</b>s in or
+ * out in one call, so that the cost of coordinating the threads is spread across them all
+ */
+public interface ConcurrentCMQueue extends CMQueue {
+
+	/**
+	 * returns the maximum number of <b>CM</b>s the queue can hold
+	 *
+	 * @return the capacity of the queue
+	 */
+	int capacity();
+
+	/**
+	 * removes as many <b>CM</b>s from the head of the queue as are available, up to the length
+	 * of the array, and copies them into the array in order
+	 *
+	 * @param dst the array to fill from its start
+	 * @return the number of <b>CM</b>s removed
+	 */
+	int drainTo(CM[] dst);
+
+	/**
+	 * adds as many <b>CM</b>s from the array to the tail of the queue as there is room for
+	 *
+	 * @param src the array to copy from
+	 * @param off the index of the first <b>CM</b> to add
+	 * @param len the number of <b>CM</b>s to try to add
+	 * @return the number of <b>CM</b>s added, which is the first that many from off
+	 */
+	int offerAll(CM[] src, int off, int len);
+}
@@ -0,0 +1,37 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto;
+
+/**
+ * How a bounded cache chooses the entry to evict when it is full and a new key is added.
+ */
+public enum EvictionPolicy {
+
+	/**
+	 * evicts the entry that was least recently read or written. Every hit moves its entry to the
+	 * most recent end of a list, so this is exact, but each hit writes to the list.
+	 */
+	LRU,
+
+	/**
+	 * evicts in the manner of the CLOCK, or second chance, algorithm. A hit only marks its entry as
+	 * referenced. A hand sweeps the entries in a circle, clearing marks, and evicts the first entry
+	 * it finds unmarked. This approximates LRU with a cheaper hit.
+	 */
+	CLOCK
+}
@@ -0,0 +1,50 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto;
+
+import java.io.Serializable;
+
+/**
+ * Defines how the object keys of a map are hashed and compared, in place of their own hashCode
+ * and equals. This lets keys that don't define them by content, such as arrays, be used directly,
+ * with no wrapper object allocated per lookup. Maps never pass a null key to a strategy, as a null
+ * key only ever matches itself. A strategy is kept by the map, so is Serializable, as the maps are.
+ * See com.mebigfatguy.caveman.impl.HashingStrategies for strategies for common keys.
+ *
+ * @param <K> the type of key hashed
+ */
+public interface HashingStrategy<K> extends Serializable {
+
+	/**
+	 * Returns the hash code of a key, which must be the same for any two keys that this strategy
+	 * finds equal.
+	 *
+	 * @param key the key to hash, which is not null
+	 * @return the hash code of the key
+	 */
+	int hashCode(K key);
+
+	/**
+	 * Returns whether two keys are equal.
+	 *
+	 * @param key the key being looked up, which is not null
+	 * @param otherKey the key held by the map, which is not null
+	 * @return whether the keys are equal
+	 */
+	boolean equals(K key, K otherKey);
+}
@@ -17,5 +17,5 @@
  */
 package com.mebigfatguy.caveman.proto.aux;
 
-public class CM {
+public class CM extends CMBoxed {
 }
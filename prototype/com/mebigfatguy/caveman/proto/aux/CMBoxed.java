@@ -0,0 +1,36 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.aux;
+
+/**
+ * stands in for the wrapper class of the primitive that CM stands for, such as Integer for int
+ */
+public class CMBoxed implements Comparable<CMBoxed> {
+
+	/**
+	 * stands in for the wrapper's static compare method, such as Integer.compare
+	 */
+	public static int compare(CM x, CM y) {
+		return 0;
+	}
+
+	@Override
+	public int compareTo(CMBoxed other) {
+		return 0;
+	}
+}
@@ -17,6 +17,6 @@
  */
 package com.mebigfatguy.caveman.proto.aux;
 
-public class CMKey {
+public class CMKey extends CMKeyBoxed {
 
 }
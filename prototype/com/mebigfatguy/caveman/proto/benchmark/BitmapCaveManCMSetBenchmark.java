@@ -0,0 +1,177 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.CMSet;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+import com.mebigfatguy.caveman.proto.impl.BitmapCaveManCMSet;
+import com.mebigfatguy.caveman.proto.impl.CaveManCMSet;
+
+/**
+ * compares BitmapCaveManCMSet against the hashed CaveManCMSet. The bitmap is allocated at its full
+ * size up front and never grows, so add into an empty set stands in for resize. Each benchmark works
+ * over all the items, so scores are per pass rather than per item.
+ */
+@OnlyFor({"boolean", "byte", "char", "short"})
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitmapCaveManCMSetBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int size;
+
+	private CM[] items;
+	private CMSet bitmapSet;
+	private CMSet hashedSet;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		items = new CM[size];
+		for (int i = 0; i < size; i++) {
+			int value = random.nextInt();
+			items[i] = toCaveMan(value);
+		}
+
+		bitmapSet = new BitmapCaveManCMSet();
+		hashedSet = new CaveManCMSet();
+		for (CM item : items) {
+			bitmapSet.add(item);
+			hashedSet.add(item);
+		}
+	}
+
+	@Benchmark
+	public CMSet add() {
+		CMSet s = new BitmapCaveManCMSet();
+		for (CM item : items) {
+			s.add(item);
+		}
+		return s;
+	}
+
+	@Benchmark
+	public CMSet addHashed() {
+		CMSet s = new CaveManCMSet();
+		for (CM item : items) {
+			s.add(item);
+		}
+		return s;
+	}
+
+	@Benchmark
+	public int contains() {
+		int found = 0;
+		for (CM item : items) {
+			if (bitmapSet.contains(item)) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int containsHashed() {
+		int found = 0;
+		for (CM item : items) {
+			if (hashedSet.contains(item)) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * removes each item and puts it back, so that the set is the same size on every invocation
+	 */
+	@Benchmark
+	public int remove() {
+		int removed = 0;
+		for (CM item : items) {
+			if (bitmapSet.remove(item)) {
+				++removed;
+				bitmapSet.add(item);
+			}
+		}
+		return removed;
+	}
+
+	@Benchmark
+	public int removeHashed() {
+		int removed = 0;
+		for (CM item : items) {
+			if (hashedSet.remove(item)) {
+				++removed;
+				hashedSet.add(item);
+			}
+		}
+		return removed;
+	}
+
+	@Benchmark
+	public void iterate(Blackhole bh) {
+		CMIterator it = bitmapSet.iterator();
+		while (it.hasNext()) {
+			bh.consume(it.next());
+		}
+	}
+
+	@Benchmark
+	public void iterateHashed(Blackhole bh) {
+		CMIterator it = hashedSet.iterator();
+		while (it.hasNext()) {
+			bh.consume(it.next());
+		}
+	}
+
+	@Benchmark
+	public void forEach(Blackhole bh) {
+		bitmapSet.forEach(bh::consume);
+	}
+
+	@Benchmark
+	public void forEachHashed(Blackhole bh) {
+		hashedSet.forEach(bh::consume);
+	}
+
+
+
+	private static CM toCaveMan(int i) {return null;}
+}
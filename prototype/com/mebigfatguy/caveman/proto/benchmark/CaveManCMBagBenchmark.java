@@ -0,0 +1,243 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.benchmark;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.mebigfatguy.caveman.proto.CMBag;
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMBoxed;
+import com.mebigfatguy.caveman.proto.impl.CaveManCMBag;
+import com.mebigfatguy.caveman.proto.impl.CountingCaveManCMBag;
+
+/**
+ * compares CaveManCMBag, and CountingCaveManCMBag which keeps a count per distinct item, against a
+ * java.util.HashMap of boxed <b>CM</b>s to counts. Items are drawn so that each is added about four
+ * times. Each benchmark works over all the items, so scores are per pass rather than per item.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaveManCMBagBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int size;
+
+	private CM[] items;
+	private CMBag bag;
+	private Map<CMBoxed, Integer> boxedBag;
+	private CMBag countingBag;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		items = new CM[size];
+		for (int i = 0; i < size; i++) {
+			int value = random.nextInt(Math.max(1, size / 4));
+			items[i] = toCaveMan(value);
+		}
+
+		bag = new CaveManCMBag();
+		boxedBag = new HashMap<CMBoxed, Integer>();
+		countingBag = new CountingCaveManCMBag();
+		for (CM item : items) {
+			bag.add(item);
+			boxedBag.merge(item, 1, Integer::sum);
+			countingBag.add(item);
+		}
+	}
+
+	@Benchmark
+	public CMBag add() {
+		CMBag b = new CaveManCMBag(size);
+		for (CM item : items) {
+			b.add(item);
+		}
+		return b;
+	}
+
+	@Benchmark
+	public CMBag addCounting() {
+		CMBag b = new CountingCaveManCMBag(size);
+		for (CM item : items) {
+			b.add(item);
+		}
+		return b;
+	}
+
+	@Benchmark
+	public Map<CMBoxed, Integer> addBoxed() {
+		Map<CMBoxed, Integer> b = new HashMap<CMBoxed, Integer>(size);
+		for (CM item : items) {
+			b.merge(item, 1, Integer::sum);
+		}
+		return b;
+	}
+
+	@Benchmark
+	public CMBag resize() {
+		CMBag b = new CaveManCMBag();
+		for (CM item : items) {
+			b.add(item);
+		}
+		return b;
+	}
+
+	@Benchmark
+	public CMBag resizeCounting() {
+		CMBag b = new CountingCaveManCMBag();
+		for (CM item : items) {
+			b.add(item);
+		}
+		return b;
+	}
+
+	@Benchmark
+	public Map<CMBoxed, Integer> resizeBoxed() {
+		Map<CMBoxed, Integer> b = new HashMap<CMBoxed, Integer>();
+		for (CM item : items) {
+			b.merge(item, 1, Integer::sum);
+		}
+		return b;
+	}
+
+	@Benchmark
+	public int countOf() {
+		int count = 0;
+		for (CM item : items) {
+			count += bag.countOf(item);
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int countOfCounting() {
+		int count = 0;
+		for (CM item : items) {
+			count += countingBag.countOf(item);
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int countOfBoxed() {
+		int count = 0;
+		for (CM item : items) {
+			count += boxedBag.getOrDefault(item, 0);
+		}
+		return count;
+	}
+
+	/**
+	 * removes one copy of each item and puts it back, so that the bag is the same size on every invocation
+	 */
+	@Benchmark
+	public int remove() {
+		int removed = 0;
+		for (CM item : items) {
+			if (bag.removeOne(item)) {
+				++removed;
+				bag.add(item);
+			}
+		}
+		return removed;
+	}
+
+	@Benchmark
+	public int removeCounting() {
+		int removed = 0;
+		for (CM item : items) {
+			if (countingBag.removeOne(item)) {
+				++removed;
+				countingBag.add(item);
+			}
+		}
+		return removed;
+	}
+
+	@Benchmark
+	public int removeBoxed() {
+		int removed = 0;
+		for (CM item : items) {
+			if (boxedBag.computeIfPresent(item, (k, v) -> (v == 1) ? null : v - 1) == null) {
+				boxedBag.put(item, 1);
+			} else {
+				boxedBag.merge(item, 1, Integer::sum);
+			}
+			++removed;
+		}
+		return removed;
+	}
+
+	@Benchmark
+	public void iterate(Blackhole bh) {
+		CMIterator it = bag.iterator();
+		while (it.hasNext()) {
+			bh.consume(it.next());
+		}
+	}
+
+	@Benchmark
+	public void forEach(Blackhole bh) {
+		bag.forEach(bh::consume);
+	}
+
+	@Benchmark
+	public void iterateCounting(Blackhole bh) {
+		CMIterator it = countingBag.iterator();
+		while (it.hasNext()) {
+			bh.consume(it.next());
+		}
+	}
+
+	@Benchmark
+	public void iterateBoxed(Blackhole bh) {
+		Iterator<Map.Entry<CMBoxed, Integer>> it = boxedBag.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<CMBoxed, Integer> entry = it.next();
+			for (int c = entry.getValue(); c > 0; c--) {
+				bh.consume(entry.getKey());
+			}
+		}
+	}
+
+
+
+	private static CM toCaveMan(int i) {return null;}
+}
@@ -0,0 +1,162 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.benchmark;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.mebigfatguy.caveman.proto.CMDeque;
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMBoxed;
+import com.mebigfatguy.caveman.proto.impl.CaveManCMDeque;
+
+/**
+ * compares CaveManCMDeque against a java.util.ArrayDeque of boxed <b>CM</b>s. Each benchmark works
+ * over all the items, so scores are per pass rather than per item.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaveManCMDequeBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int size;
+
+	private CM[] items;
+	private CMDeque deque;
+	private Deque<CMBoxed> boxedDeque;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		items = new CM[size];
+		for (int i = 0; i < size; i++) {
+			int value = random.nextInt();
+			items[i] = toCaveMan(value);
+		}
+
+		deque = new CaveManCMDeque();
+		boxedDeque = new ArrayDeque<CMBoxed>();
+		for (CM item : items) {
+			deque.addLast(item);
+			boxedDeque.addLast(item);
+		}
+	}
+
+	@Benchmark
+	public CMDeque add() {
+		CMDeque d = new CaveManCMDeque(items[0], size);
+		for (CM item : items) {
+			d.addLast(item);
+		}
+		return d;
+	}
+
+	@Benchmark
+	public Deque<CMBoxed> addBoxed() {
+		Deque<CMBoxed> d = new ArrayDeque<CMBoxed>(size);
+		for (CM item : items) {
+			d.addLast(item);
+		}
+		return d;
+	}
+
+	@Benchmark
+	public CMDeque resize() {
+		CMDeque d = new CaveManCMDeque();
+		for (CM item : items) {
+			d.addLast(item);
+		}
+		return d;
+	}
+
+	@Benchmark
+	public Deque<CMBoxed> resizeBoxed() {
+		Deque<CMBoxed> d = new ArrayDeque<CMBoxed>();
+		for (CM item : items) {
+			d.addLast(item);
+		}
+		return d;
+	}
+
+	/**
+	 * takes each item off the front and puts it on the back, so that the deque is the same size on every invocation
+	 */
+	@Benchmark
+	public void remove(Blackhole bh) {
+		for (int i = 0; i < size; i++) {
+			CM item = deque.removeFirst();
+			deque.addLast(item);
+			bh.consume(item);
+		}
+	}
+
+	@Benchmark
+	public void removeBoxed(Blackhole bh) {
+		for (int i = 0; i < size; i++) {
+			CMBoxed item = boxedDeque.removeFirst();
+			boxedDeque.addLast(item);
+			bh.consume(item);
+		}
+	}
+
+	@Benchmark
+	public void iterate(Blackhole bh) {
+		CMIterator it = deque.iterator();
+		while (it.hasNext()) {
+			bh.consume(it.next());
+		}
+	}
+
+	@Benchmark
+	public void forEach(Blackhole bh) {
+		deque.forEach(bh::consume);
+	}
+
+	@Benchmark
+	public void iterateBoxed(Blackhole bh) {
+		Iterator<CMBoxed> it = boxedDeque.iterator();
+		while (it.hasNext()) {
+			bh.consume(it.next());
+		}
+	}
+
+
+
+	private static CM toCaveMan(int i) {return null;}
+}
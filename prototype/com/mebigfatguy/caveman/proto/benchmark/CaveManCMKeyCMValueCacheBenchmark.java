@@ -0,0 +1,171 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mebigfatguy.caveman.proto.CMKeyCMValueCache;
+import com.mebigfatguy.caveman.proto.EvictionPolicy;
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMKeyBoxed;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.CMValueBoxed;
+import com.mebigfatguy.caveman.proto.impl.CaveManCMKeyCMValueCache;
+
+/**
+ * compares CaveManCMKeyCMValueCache, with each eviction policy, against a java.util.LinkedHashMap
+ * of boxed keys to boxed values in access order, that removes its eldest entry when full.
+ * The get benchmarks only hit, and the churn benchmarks use a cache of half the keys, adding each
+ * key that misses. Each benchmark works over all the keys, so scores are per pass rather than per key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaveManCMKeyCMValueCacheBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int size;
+
+	private CMKey[] keys;
+	private CMValue[] values;
+	private CMKeyCMValueCache lruCache;
+	private CMKeyCMValueCache clockCache;
+	private Map<CMKeyBoxed, CMValueBoxed> boxedCache;
+	private CMKeyCMValueCache lruChurnCache;
+	private CMKeyCMValueCache clockChurnCache;
+	private Map<CMKeyBoxed, CMValueBoxed> boxedChurnCache;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		keys = new CMKey[size];
+		values = new CMValue[size];
+		for (int i = 0; i < size; i++) {
+			int value = random.nextInt();
+			keys[i] = toCaveManKey(value);
+			values[i] = toCaveManValue(value);
+		}
+
+		lruCache = new CaveManCMKeyCMValueCache(size, EvictionPolicy.LRU);
+		clockCache = new CaveManCMKeyCMValueCache(size, EvictionPolicy.CLOCK);
+		boxedCache = newBoxedCache(size);
+		for (int i = 0; i < size; i++) {
+			lruCache.put(keys[i], values[i]);
+			clockCache.put(keys[i], values[i]);
+			boxedCache.put(keys[i], values[i]);
+		}
+
+		lruChurnCache = new CaveManCMKeyCMValueCache(Math.max(size / 2, 1), EvictionPolicy.LRU);
+		clockChurnCache = new CaveManCMKeyCMValueCache(Math.max(size / 2, 1), EvictionPolicy.CLOCK);
+		boxedChurnCache = newBoxedCache(Math.max(size / 2, 1));
+	}
+
+	@Benchmark
+	public long getLru() {
+		for (int i = 0; i < size; i++) {
+			lruCache.get(keys[i]);
+		}
+		return lruCache.hitCount();
+	}
+
+	@Benchmark
+	public long getClock() {
+		for (int i = 0; i < size; i++) {
+			clockCache.get(keys[i]);
+		}
+		return clockCache.hitCount();
+	}
+
+	@Benchmark
+	public int getBoxed() {
+		int found = 0;
+		for (int i = 0; i < size; i++) {
+			if (boxedCache.get(keys[i]) != null) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public long churnLru() {
+		return churn(lruChurnCache);
+	}
+
+	@Benchmark
+	public long churnClock() {
+		return churn(clockChurnCache);
+	}
+
+	@Benchmark
+	public int churnBoxed() {
+		int missed = 0;
+		for (int i = 0; i < size; i++) {
+			if (boxedChurnCache.get(keys[i]) == null) {
+				++missed;
+				boxedChurnCache.put(keys[i], values[i]);
+			}
+		}
+		return missed;
+	}
+
+	private long churn(CMKeyCMValueCache cache) {
+		for (int i = 0; i < size; i++) {
+			if (!cache.containsKey(keys[i])) {
+				cache.put(keys[i], values[i]);
+			} else {
+				cache.get(keys[i]);
+			}
+		}
+		return cache.evictionCount();
+	}
+
+	private static Map<CMKeyBoxed, CMValueBoxed> newBoxedCache(final int maxSize) {
+		return new LinkedHashMap<CMKeyBoxed, CMValueBoxed>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CMKeyBoxed, CMValueBoxed> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+
+
+	private static CMKey toCaveManKey(int i) {return null;}
+	private static CMValue toCaveManValue(int i) {return null;}
+}
@@ -0,0 +1,296 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.benchmark;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMapIterator;
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMKeyBoxed;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.CMValueBoxed;
+import com.mebigfatguy.caveman.proto.impl.CaveManCMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.impl.OpenAddressCaveManCMKeyCMValueMap;
+
+/**
+ * compares CaveManCMKeyCMValueMap, and the open addressing OpenAddressCaveManCMKeyCMValueMap, against
+ * a java.util.HashMap of boxed keys to boxed values. Each benchmark works over all the keys, so scores
+ * are per pass rather than per key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaveManCMKeyCMValueMapBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int size;
+
+	private CMKey[] keys;
+	private CMValue[] values;
+	private CMValue[] found;
+	private CMKeyCMValueMap map;
+	private Map<CMKeyBoxed, CMValueBoxed> boxedMap;
+	private CMKeyCMValueMap openMap;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		keys = new CMKey[size];
+		values = new CMValue[size];
+		for (int i = 0; i < size; i++) {
+			int value = random.nextInt();
+			keys[i] = toCaveManKey(value);
+			values[i] = toCaveManValue(value);
+		}
+
+		found = new CMValue[size];
+		map = new CaveManCMKeyCMValueMap();
+		boxedMap = new HashMap<CMKeyBoxed, CMValueBoxed>();
+		openMap = new OpenAddressCaveManCMKeyCMValueMap();
+		for (int i = 0; i < size; i++) {
+			map.put(keys[i], values[i]);
+			boxedMap.put(keys[i], values[i]);
+			openMap.put(keys[i], values[i]);
+		}
+	}
+
+	@Benchmark
+	public CMKeyCMValueMap put() {
+		CMKeyCMValueMap m = new CaveManCMKeyCMValueMap(values[0], size);
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public CMKeyCMValueMap putOpenAddress() {
+		CMKeyCMValueMap m = new OpenAddressCaveManCMKeyCMValueMap(values[0], size);
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public Map<CMKeyBoxed, CMValueBoxed> putBoxed() {
+		Map<CMKeyBoxed, CMValueBoxed> m = new HashMap<CMKeyBoxed, CMValueBoxed>(size);
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public CMKeyCMValueMap resize() {
+		CMKeyCMValueMap m = new CaveManCMKeyCMValueMap();
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public CMKeyCMValueMap resizeOpenAddress() {
+		CMKeyCMValueMap m = new OpenAddressCaveManCMKeyCMValueMap();
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public Map<CMKeyBoxed, CMValueBoxed> resizeBoxed() {
+		Map<CMKeyBoxed, CMValueBoxed> m = new HashMap<CMKeyBoxed, CMValueBoxed>();
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public void get(Blackhole bh) {
+		for (CMKey key : keys) {
+			bh.consume(map.get(key));
+		}
+	}
+
+	@Benchmark
+	public CMValue[] getAll() {
+		map.getAll(keys, found);
+		return found;
+	}
+
+	@Benchmark
+	public void getOpenAddress(Blackhole bh) {
+		for (CMKey key : keys) {
+			bh.consume(openMap.get(key));
+		}
+	}
+
+	@Benchmark
+	public void getBoxed(Blackhole bh) {
+		for (CMKey key : keys) {
+			bh.consume(boxedMap.get(key));
+		}
+	}
+
+	@Benchmark
+	public int containsKey() {
+		int found = 0;
+		for (CMKey key : keys) {
+			if (map.containsKey(key)) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int containsKeyOpenAddress() {
+		int found = 0;
+		for (CMKey key : keys) {
+			if (openMap.containsKey(key)) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int containsKeyBoxed() {
+		int found = 0;
+		for (CMKey key : keys) {
+			if (boxedMap.containsKey(key)) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * removes each key and puts it back, so that the map is the same size on every invocation
+	 */
+	@Benchmark
+	public void remove() {
+		for (int i = 0; i < size; i++) {
+			map.remove(keys[i]);
+			map.put(keys[i], values[i]);
+		}
+	}
+
+	/**
+	 * removing from an open addressing table leaves a tombstone, which the put straight after reuses
+	 */
+	@Benchmark
+	public void removeOpenAddress() {
+		for (int i = 0; i < size; i++) {
+			openMap.remove(keys[i]);
+			openMap.put(keys[i], values[i]);
+		}
+	}
+
+	@Benchmark
+	public void removeBoxed() {
+		for (int i = 0; i < size; i++) {
+			boxedMap.remove(keys[i]);
+			boxedMap.put(keys[i], values[i]);
+		}
+	}
+
+	/**
+	 * merges into keys that are all present, which finds each key once, where get then put finds it twice
+	 */
+	@Benchmark
+	public void merge() {
+		for (int i = 0; i < size; i++) {
+			map.merge(keys[i], values[i], (a, b) -> b);
+		}
+	}
+
+	@Benchmark
+	public void mergeBoxed() {
+		for (int i = 0; i < size; i++) {
+			boxedMap.merge(keys[i], values[i], (a, b) -> b);
+		}
+	}
+
+	@Benchmark
+	public void iterate(Blackhole bh) {
+		CMKeyCMValueMapIterator it = map.iterator();
+		while (it.hasNext()) {
+			it.next();
+			bh.consume(it.key());
+			bh.consume(it.value());
+		}
+	}
+
+	@Benchmark
+	public void forEach(Blackhole bh) {
+		map.forEach((k, v) -> {
+			bh.consume(k);
+			bh.consume(v);
+		});
+	}
+
+	@Benchmark
+	public void iterateOpenAddress(Blackhole bh) {
+		CMKeyCMValueMapIterator it = openMap.iterator();
+		while (it.hasNext()) {
+			it.next();
+			bh.consume(it.key());
+			bh.consume(it.value());
+		}
+	}
+
+	@Benchmark
+	public void iterateBoxed(Blackhole bh) {
+		Iterator<Map.Entry<CMKeyBoxed, CMValueBoxed>> it = boxedMap.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<CMKeyBoxed, CMValueBoxed> entry = it.next();
+			bh.consume(entry.getKey());
+			bh.consume(entry.getValue());
+		}
+	}
+
+
+
+	private static CMKey toCaveManKey(int i) {return null;}
+	private static CMValue toCaveManValue(int i) {return null;}
+}
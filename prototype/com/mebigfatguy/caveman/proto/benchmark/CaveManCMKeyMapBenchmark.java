@@ -0,0 +1,206 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.benchmark;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.mebigfatguy.caveman.proto.CMKeyMap;
+import com.mebigfatguy.caveman.proto.CMKeyMapIterator;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMBoxed;
+import com.mebigfatguy.caveman.proto.impl.CaveManCMKeyMap;
+
+/**
+ * compares CaveManCMKeyMap against a java.util.HashMap keyed by boxed <b>CM</b>s. Each benchmark
+ * works over all the keys, so scores are per pass rather than per key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaveManCMKeyMapBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int size;
+
+	private CM[] keys;
+	private String[] values;
+	private CMKeyMap<String> map;
+	private Map<CMBoxed, String> boxedMap;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		keys = new CM[size];
+		values = new String[size];
+		for (int i = 0; i < size; i++) {
+			int value = random.nextInt();
+			keys[i] = toCaveMan(value);
+			values[i] = String.valueOf(value);
+		}
+
+		map = new CaveManCMKeyMap<String>();
+		boxedMap = new HashMap<CMBoxed, String>();
+		for (int i = 0; i < size; i++) {
+			map.put(keys[i], values[i]);
+			boxedMap.put(keys[i], values[i]);
+		}
+	}
+
+	@Benchmark
+	public CMKeyMap<String> put() {
+		CMKeyMap<String> m = new CaveManCMKeyMap<String>(size);
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public Map<CMBoxed, String> putBoxed() {
+		Map<CMBoxed, String> m = new HashMap<CMBoxed, String>(size);
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public CMKeyMap<String> resize() {
+		CMKeyMap<String> m = new CaveManCMKeyMap<String>();
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public Map<CMBoxed, String> resizeBoxed() {
+		Map<CMBoxed, String> m = new HashMap<CMBoxed, String>();
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public void get(Blackhole bh) {
+		for (CM key : keys) {
+			bh.consume(map.get(key));
+		}
+	}
+
+	@Benchmark
+	public void getBoxed(Blackhole bh) {
+		for (CM key : keys) {
+			bh.consume(boxedMap.get(key));
+		}
+	}
+
+	@Benchmark
+	public int containsKey() {
+		int found = 0;
+		for (CM key : keys) {
+			if (map.containsKey(key)) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int containsKeyBoxed() {
+		int found = 0;
+		for (CM key : keys) {
+			if (boxedMap.containsKey(key)) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * removes each key and puts it back, so that the map is the same size on every invocation
+	 */
+	@Benchmark
+	public void remove() {
+		for (int i = 0; i < size; i++) {
+			map.remove(keys[i]);
+			map.put(keys[i], values[i]);
+		}
+	}
+
+	@Benchmark
+	public void removeBoxed() {
+		for (int i = 0; i < size; i++) {
+			boxedMap.remove(keys[i]);
+			boxedMap.put(keys[i], values[i]);
+		}
+	}
+
+	@Benchmark
+	public void iterate(Blackhole bh) {
+		CMKeyMapIterator<String> it = map.iterator();
+		while (it.hasNext()) {
+			it.next();
+			bh.consume(it.key());
+			bh.consume(it.value());
+		}
+	}
+
+	@Benchmark
+	public void forEach(Blackhole bh) {
+		map.forEach((k, v) -> {
+			bh.consume(k);
+			bh.consume(v);
+		});
+	}
+
+	@Benchmark
+	public void iterateBoxed(Blackhole bh) {
+		Iterator<Map.Entry<CMBoxed, String>> it = boxedMap.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<CMBoxed, String> entry = it.next();
+			bh.consume(entry.getKey());
+			bh.consume(entry.getValue());
+		}
+	}
+
+
+
+	private static CM toCaveMan(int i) {return null;}
+}
@@ -0,0 +1,333 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.CMList;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMBoxed;
+import com.mebigfatguy.caveman.proto.aux.CMSum;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+import com.mebigfatguy.caveman.proto.impl.CaveManCMList;
+
+/**
+ * compares CaveManCMList against a java.util.ArrayList of boxed <b>CM</b>s. Each benchmark works
+ * over all the items, so scores are per pass rather than per item, except contains, which
+ * searches for a sample of the items, as each search is linear.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaveManCMListBenchmark {
+
+	private static final int SEARCHES = 100;
+
+	@Param({ "1000", "100000" })
+	private int size;
+
+	private CM[] items;
+	private CMList list;
+	private List<CMBoxed> boxedList;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		items = new CM[size];
+		for (int i = 0; i < size; i++) {
+			int value = random.nextInt();
+			items[i] = toCaveMan(value);
+		}
+
+		list = new CaveManCMList();
+		boxedList = new ArrayList<CMBoxed>();
+		for (CM item : items) {
+			list.add(item);
+			boxedList.add(item);
+		}
+	}
+
+	@Benchmark
+	public CMList add() {
+		CMList l = new CaveManCMList(size);
+		for (CM item : items) {
+			l.add(item);
+		}
+		return l;
+	}
+
+	@Benchmark
+	public List<CMBoxed> addBoxed() {
+		List<CMBoxed> l = new ArrayList<CMBoxed>(size);
+		for (CM item : items) {
+			l.add(item);
+		}
+		return l;
+	}
+
+	@Benchmark
+	public CMList addAll() {
+		CMList l = new CaveManCMList();
+		l.addAll(list);
+		return l;
+	}
+
+	@Benchmark
+	public List<CMBoxed> addAllBoxed() {
+		List<CMBoxed> l = new ArrayList<CMBoxed>();
+		l.addAll(boxedList);
+		return l;
+	}
+
+	/**
+	 * removes a tenth of the distinct items from a copy, which hashes the removals once rather than
+	 * scanning the list for each one
+	 */
+	@Benchmark
+	public CMList removeAll() {
+		CMList l = new CaveManCMList();
+		l.addAll(list);
+		CMList removals = new CaveManCMList();
+		removals.addAll(items, 0, size / 10);
+		l.removeAll(removals);
+		return l;
+	}
+
+	@Benchmark
+	public List<CMBoxed> removeAllBoxed() {
+		List<CMBoxed> l = new ArrayList<CMBoxed>(boxedList);
+		l.removeAll(new HashSet<CMBoxed>(boxedList.subList(0, size / 10)));
+		return l;
+	}
+
+	/**
+	 * sorts a copy of the unsorted items, so the copy is included in the score, as it is for sortBoxed
+	 */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Benchmark
+	public CMList sort() {
+		CMList l = new CaveManCMList(size);
+		l.addAll(items, 0, size);
+		l.sort();
+		return l;
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Benchmark
+	public CMList parallelSort() {
+		CMList l = new CaveManCMList(size);
+		l.addAll(items, 0, size);
+		l.parallelSort();
+		return l;
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Benchmark
+	public List<CMBoxed> sortBoxed() {
+		List<CMBoxed> l = new ArrayList<CMBoxed>(boxedList);
+		Collections.sort(l);
+		return l;
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Benchmark
+	public CMSum sum() {
+		return list.sum();
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Benchmark
+	public CMSum parallelSum() {
+		return list.parallelSum();
+	}
+
+	/**
+	 * sums the items one at a time through get, as a baseline for the unrolled loop of sum
+	 */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Benchmark
+	public CMSum sumLoop() {
+		CMSum sum = widenCaveMan(0);
+		for (int i = 0; i < size; i++) {
+			CM item = list.get(i);
+			sum = sumCaveMan(sum, item);
+		}
+		return sum;
+	}
+
+	/**
+	 * flips the low bit of every item in place, so the list holds the same items every other invocation
+	 */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Benchmark
+	public CMList replaceAll() {
+		list.replaceAll(item -> {
+			int value = fromCaveMan(item) ^ 1;
+			return toCaveMan(value);
+		});
+		return list;
+	}
+
+	/**
+	 * adds one to every item in place, where replaceAll calls an operator for each item
+	 */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Benchmark
+	public CMList addToAll() {
+		list.addToAll(toCaveMan(1));
+		return list;
+	}
+
+	@Benchmark
+	public CMList resize() {
+		CMList l = new CaveManCMList();
+		for (CM item : items) {
+			l.add(item);
+		}
+		return l;
+	}
+
+	@Benchmark
+	public List<CMBoxed> resizeBoxed() {
+		List<CMBoxed> l = new ArrayList<CMBoxed>();
+		for (CM item : items) {
+			l.add(item);
+		}
+		return l;
+	}
+
+	@Benchmark
+	public void get(Blackhole bh) {
+		for (int i = 0; i < size; i++) {
+			bh.consume(list.get(i));
+		}
+	}
+
+	@Benchmark
+	public void getBoxed(Blackhole bh) {
+		for (int i = 0; i < size; i++) {
+			bh.consume(boxedList.get(i));
+		}
+	}
+
+	@Benchmark
+	public int contains() {
+		int found = 0;
+		for (int i = 0; i < SEARCHES; i++) {
+			if (list.contains(items[(i * 7919) % size])) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int containsBoxed() {
+		int found = 0;
+		for (int i = 0; i < SEARCHES; i++) {
+			if (boxedList.contains(items[(i * 7919) % size])) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * removes the last item and puts it back, so that the list is the same size on every invocation
+	 */
+	@Benchmark
+	public void remove(Blackhole bh) {
+		for (int i = 0; i < size; i++) {
+			CM item = list.removeAt(size - 1);
+			list.add(item);
+			bh.consume(item);
+		}
+	}
+
+	@Benchmark
+	public void removeBoxed(Blackhole bh) {
+		for (int i = 0; i < size; i++) {
+			CMBoxed item = boxedList.remove(size - 1);
+			boxedList.add(item);
+			bh.consume(item);
+		}
+	}
+
+	@Benchmark
+	public void iterate(Blackhole bh) {
+		CMIterator it = list.iterator();
+		while (it.hasNext()) {
+			bh.consume(it.next());
+		}
+	}
+
+	@Benchmark
+	public void forEach(Blackhole bh) {
+		list.forEach(bh::consume);
+	}
+
+	@OnlyFor({"int", "long", "double"})
+	@Benchmark
+	public CM sumStream() {
+		return list.stream().sum();
+	}
+
+	@OnlyFor({"int", "long", "double"})
+	@Benchmark
+	public CM sumParallelStream() {
+		return list.parallelStream().sum();
+	}
+
+	@Benchmark
+	public void iterateBoxed(Blackhole bh) {
+		Iterator<CMBoxed> it = boxedList.iterator();
+		while (it.hasNext()) {
+			bh.consume(it.next());
+		}
+	}
+
+
+
+	private static CM toCaveMan(int i) {return null;}
+	private static int fromCaveMan(CM item) {return 0;}
+	private static CMSum widenCaveMan(int i) {return null;}
+	private static CMSum sumCaveMan(CMSum sum, CM item) {return null;}
+}
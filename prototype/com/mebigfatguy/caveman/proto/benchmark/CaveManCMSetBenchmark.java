@@ -0,0 +1,220 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.benchmark;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.CMSet;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMBoxed;
+import com.mebigfatguy.caveman.proto.impl.CaveManCMSet;
+import com.mebigfatguy.caveman.proto.impl.LinkedCaveManCMSet;
+
+/**
+ * compares CaveManCMSet against a java.util.HashSet of boxed <b>CM</b>s. Each benchmark works
+ * over all the items, so scores are per pass rather than per item.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaveManCMSetBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int size;
+
+	private CM[] items;
+	private CMSet set;
+	private Set<CMBoxed> boxedSet;
+	private CMSet linkedSet;
+	private Set<CMBoxed> linkedBoxedSet;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		items = new CM[size];
+		for (int i = 0; i < size; i++) {
+			int value = random.nextInt();
+			items[i] = toCaveMan(value);
+		}
+
+		set = new CaveManCMSet();
+		boxedSet = new HashSet<CMBoxed>();
+		linkedSet = new LinkedCaveManCMSet();
+		linkedBoxedSet = new LinkedHashSet<CMBoxed>();
+		for (CM item : items) {
+			set.add(item);
+			boxedSet.add(item);
+			linkedSet.add(item);
+			linkedBoxedSet.add(item);
+		}
+	}
+
+	@Benchmark
+	public CMSet add() {
+		CMSet s = new CaveManCMSet(size);
+		for (CM item : items) {
+			s.add(item);
+		}
+		return s;
+	}
+
+	@Benchmark
+	public Set<CMBoxed> addBoxed() {
+		Set<CMBoxed> s = new HashSet<CMBoxed>(size);
+		for (CM item : items) {
+			s.add(item);
+		}
+		return s;
+	}
+
+	@Benchmark
+	public CMSet resize() {
+		CMSet s = new CaveManCMSet();
+		for (CM item : items) {
+			s.add(item);
+		}
+		return s;
+	}
+
+	@Benchmark
+	public Set<CMBoxed> resizeBoxed() {
+		Set<CMBoxed> s = new HashSet<CMBoxed>();
+		for (CM item : items) {
+			s.add(item);
+		}
+		return s;
+	}
+
+	@Benchmark
+	public CMSet resizeLinked() {
+		CMSet s = new LinkedCaveManCMSet();
+		for (CM item : items) {
+			s.add(item);
+		}
+		return s;
+	}
+
+	@Benchmark
+	public int contains() {
+		int found = 0;
+		for (CM item : items) {
+			if (set.contains(item)) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int containsBoxed() {
+		int found = 0;
+		for (CM item : items) {
+			if (boxedSet.contains(item)) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * removes each item and puts it back, so that the set is the same size on every invocation
+	 */
+	@Benchmark
+	public int remove() {
+		int removed = 0;
+		for (CM item : items) {
+			if (set.remove(item)) {
+				++removed;
+				set.add(item);
+			}
+		}
+		return removed;
+	}
+
+	@Benchmark
+	public int removeBoxed() {
+		int removed = 0;
+		for (CM item : items) {
+			if (boxedSet.remove(item)) {
+				++removed;
+				boxedSet.add(item);
+			}
+		}
+		return removed;
+	}
+
+	@Benchmark
+	public void iterate(Blackhole bh) {
+		CMIterator it = set.iterator();
+		while (it.hasNext()) {
+			bh.consume(it.next());
+		}
+	}
+
+	@Benchmark
+	public void forEach(Blackhole bh) {
+		set.forEach(bh::consume);
+	}
+
+	@Benchmark
+	public void iterateBoxed(Blackhole bh) {
+		Iterator<CMBoxed> it = boxedSet.iterator();
+		while (it.hasNext()) {
+			bh.consume(it.next());
+		}
+	}
+
+	@Benchmark
+	public void forEachLinked(Blackhole bh) {
+		linkedSet.forEach(bh::consume);
+	}
+
+	@Benchmark
+	public void iterateLinkedBoxed(Blackhole bh) {
+		Iterator<CMBoxed> it = linkedBoxedSet.iterator();
+		while (it.hasNext()) {
+			bh.consume(it.next());
+		}
+	}
+
+
+
+	private static CM toCaveMan(int i) {return null;}
+}
@@ -0,0 +1,239 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.benchmark;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.mebigfatguy.caveman.proto.CMValueMap;
+import com.mebigfatguy.caveman.proto.CMValueMapIterator;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMBoxed;
+import com.mebigfatguy.caveman.proto.impl.CaveManCMValueMap;
+import com.mebigfatguy.caveman.proto.impl.IdentityCaveManCMValueMap;
+import com.mebigfatguy.caveman.proto.impl.OpenAddressCaveManCMValueMap;
+
+/**
+ * compares CaveManCMValueMap, OpenAddressCaveManCMValueMap and IdentityCaveManCMValueMap against a
+ * java.util.HashMap with boxed <b>CM</b> values. Each benchmark works over all the keys, so scores are per pass rather than per key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaveManCMValueMapBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int size;
+
+	private String[] keys;
+	private CM[] values;
+	private CM notFound;
+	private CMValueMap<String> map;
+	private CMValueMap<String> openAddressMap;
+	private CMValueMap<String> identityMap;
+	private Map<String, CMBoxed> boxedMap;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		keys = new String[size];
+		values = new CM[size];
+		for (int i = 0; i < size; i++) {
+			int value = random.nextInt();
+			keys[i] = String.valueOf(value);
+			values[i] = toCaveMan(value);
+		}
+		notFound = values[0];
+
+		map = new CaveManCMValueMap<String>();
+		openAddressMap = new OpenAddressCaveManCMValueMap<String>();
+		identityMap = new IdentityCaveManCMValueMap<String>();
+		boxedMap = new HashMap<String, CMBoxed>();
+		for (int i = 0; i < size; i++) {
+			map.put(keys[i], values[i]);
+			openAddressMap.put(keys[i], values[i]);
+			identityMap.put(keys[i], values[i]);
+			boxedMap.put(keys[i], values[i]);
+		}
+	}
+
+	@Benchmark
+	public CMValueMap<String> put() {
+		CMValueMap<String> m = new CaveManCMValueMap<String>(size);
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public Map<String, CMBoxed> putBoxed() {
+		Map<String, CMBoxed> m = new HashMap<String, CMBoxed>(size);
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public CMValueMap<String> resize() {
+		CMValueMap<String> m = new CaveManCMValueMap<String>();
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public CMValueMap<String> resizeOpenAddress() {
+		CMValueMap<String> m = new OpenAddressCaveManCMValueMap<String>();
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public Map<String, CMBoxed> resizeBoxed() {
+		Map<String, CMBoxed> m = new HashMap<String, CMBoxed>();
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public void get(Blackhole bh) {
+		for (String key : keys) {
+			bh.consume(map.get(key, notFound));
+		}
+	}
+
+	@Benchmark
+	public void getOpenAddress(Blackhole bh) {
+		for (String key : keys) {
+			bh.consume(openAddressMap.get(key, notFound));
+		}
+	}
+
+	@Benchmark
+	public void getIdentity(Blackhole bh) {
+		for (String key : keys) {
+			bh.consume(identityMap.get(key, notFound));
+		}
+	}
+
+	@Benchmark
+	public void getBoxed(Blackhole bh) {
+		for (String key : keys) {
+			bh.consume(boxedMap.get(key));
+		}
+	}
+
+	@Benchmark
+	public int containsKey() {
+		int found = 0;
+		for (String key : keys) {
+			if (map.containsKey(key)) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int containsKeyBoxed() {
+		int found = 0;
+		for (String key : keys) {
+			if (boxedMap.containsKey(key)) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * removes each key and puts it back, so that the map is the same size on every invocation
+	 */
+	@Benchmark
+	public void remove() {
+		for (int i = 0; i < size; i++) {
+			map.remove(keys[i]);
+			map.put(keys[i], values[i]);
+		}
+	}
+
+	@Benchmark
+	public void removeBoxed() {
+		for (int i = 0; i < size; i++) {
+			boxedMap.remove(keys[i]);
+			boxedMap.put(keys[i], values[i]);
+		}
+	}
+
+	@Benchmark
+	public void iterate(Blackhole bh) {
+		CMValueMapIterator<String> it = map.iterator();
+		while (it.hasNext()) {
+			it.next();
+			bh.consume(it.key());
+			bh.consume(it.value());
+		}
+	}
+
+	@Benchmark
+	public void forEach(Blackhole bh) {
+		map.forEach((k, v) -> {
+			bh.consume(k);
+			bh.consume(v);
+		});
+	}
+
+	@Benchmark
+	public void iterateBoxed(Blackhole bh) {
+		Iterator<Map.Entry<String, CMBoxed>> it = boxedMap.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<String, CMBoxed> entry = it.next();
+			bh.consume(entry.getKey());
+			bh.consume(entry.getValue());
+		}
+	}
+
+
+
+	private static CM toCaveMan(int i) {return null;}
+}
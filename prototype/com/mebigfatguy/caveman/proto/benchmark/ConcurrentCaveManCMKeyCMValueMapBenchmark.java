@@ -0,0 +1,118 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.ConcurrentCMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+import com.mebigfatguy.caveman.proto.aux.OnlyForValue;
+import com.mebigfatguy.caveman.proto.impl.CaveManCMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.impl.ConcurrentCaveManCMKeyCMValueMap;
+
+/**
+ * compares ConcurrentCaveManCMKeyCMValueMap against a CaveManCMKeyCMValueMap guarded by a single
+ * monitor, with several threads incrementing the values of a shared set of keys. Each thread starts
+ * at a random key, so that threads are spread across the map.
+ */
+@OnlyFor({"int", "long"})
+@OnlyForValue({"int", "long"})
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ConcurrentCaveManCMKeyCMValueMapBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int size;
+
+	private CMKey[] keys;
+	private CMValue one;
+	private ConcurrentCMKeyCMValueMap concurrentMap;
+	private CMKeyCMValueMap synchronizedMap;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		keys = new CMKey[size];
+		for (int i = 0; i < size; i++) {
+			int value = random.nextInt();
+			keys[i] = toCaveManKey(value);
+		}
+		one = toCaveManValue(1);
+
+		concurrentMap = new ConcurrentCaveManCMKeyCMValueMap();
+		synchronizedMap = new CaveManCMKeyCMValueMap();
+	}
+
+	@Benchmark
+	public void addTo() {
+		int start = ThreadLocalRandom.current().nextInt(size);
+		for (int i = 0; i < size; i++) {
+			concurrentMap.addTo(keys[(start + i) % size], one);
+		}
+	}
+
+	@Benchmark
+	public void putGet() {
+		int start = ThreadLocalRandom.current().nextInt(size);
+		for (int i = 0; i < size; i++) {
+			CMKey key = keys[(start + i) % size];
+			concurrentMap.put(key, concurrentMap.get(key));
+		}
+	}
+
+	@Benchmark
+	public void synchronizedPutGet() {
+		int start = ThreadLocalRandom.current().nextInt(size);
+		for (int i = 0; i < size; i++) {
+			CMKey key = keys[(start + i) % size];
+			synchronized (synchronizedMap) {
+				CMValue value = synchronizedMap.get(key);
+				synchronizedMap.put(key, addCaveManValues(value, one));
+			}
+		}
+	}
+
+
+
+	private static CMKey toCaveManKey(int i) {return null;}
+	private static CMValue toCaveManValue(int i) {return null;}
+	private static CMValue addCaveManValues(CMValue a, CMValue b) {return null;}
+}
@@ -0,0 +1,182 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMapIterator;
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+import com.mebigfatguy.caveman.proto.impl.CaveManCMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.impl.DirectCaveManCMKeyCMValueMap;
+
+/**
+ * compares DirectCaveManCMKeyCMValueMap against the hashed CaveManCMKeyCMValueMap. The direct map
+ * is allocated at its full size up front and never grows, so put into an empty map stands in for
+ * resize. Each benchmark works over all the keys, so scores are per pass rather than per key.
+ */
+@OnlyFor({"byte", "short"})
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DirectCaveManCMKeyCMValueMapBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int size;
+
+	private CMKey[] keys;
+	private CMValue[] values;
+	private CMKeyCMValueMap directMap;
+	private CMKeyCMValueMap hashedMap;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(size);
+		keys = new CMKey[size];
+		values = new CMValue[size];
+		for (int i = 0; i < size; i++) {
+			int value = random.nextInt();
+			keys[i] = toCaveManKey(value);
+			values[i] = toCaveManValue(value);
+		}
+
+		directMap = new DirectCaveManCMKeyCMValueMap();
+		hashedMap = new CaveManCMKeyCMValueMap();
+		for (int i = 0; i < size; i++) {
+			directMap.put(keys[i], values[i]);
+			hashedMap.put(keys[i], values[i]);
+		}
+	}
+
+	@Benchmark
+	public CMKeyCMValueMap put() {
+		CMKeyCMValueMap m = new DirectCaveManCMKeyCMValueMap();
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public CMKeyCMValueMap putHashed() {
+		CMKeyCMValueMap m = new CaveManCMKeyCMValueMap();
+		for (int i = 0; i < size; i++) {
+			m.put(keys[i], values[i]);
+		}
+		return m;
+	}
+
+	@Benchmark
+	public void get(Blackhole bh) {
+		for (CMKey key : keys) {
+			bh.consume(directMap.get(key));
+		}
+	}
+
+	@Benchmark
+	public void getHashed(Blackhole bh) {
+		for (CMKey key : keys) {
+			bh.consume(hashedMap.get(key));
+		}
+	}
+
+	@Benchmark
+	public int containsKey() {
+		int found = 0;
+		for (CMKey key : keys) {
+			if (directMap.containsKey(key)) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int containsKeyHashed() {
+		int found = 0;
+		for (CMKey key : keys) {
+			if (hashedMap.containsKey(key)) {
+				++found;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * removes each key and puts it back, so that the map is the same size on every invocation
+	 */
+	@Benchmark
+	public void remove() {
+		for (int i = 0; i < size; i++) {
+			directMap.remove(keys[i]);
+			directMap.put(keys[i], values[i]);
+		}
+	}
+
+	@Benchmark
+	public void removeHashed() {
+		for (int i = 0; i < size; i++) {
+			hashedMap.remove(keys[i]);
+			hashedMap.put(keys[i], values[i]);
+		}
+	}
+
+	@Benchmark
+	public void iterate(Blackhole bh) {
+		CMKeyCMValueMapIterator it = directMap.iterator();
+		while (it.hasNext()) {
+			it.next();
+			bh.consume(it.key());
+			bh.consume(it.value());
+		}
+	}
+
+	@Benchmark
+	public void iterateHashed(Blackhole bh) {
+		CMKeyCMValueMapIterator it = hashedMap.iterator();
+		while (it.hasNext()) {
+			it.next();
+			bh.consume(it.key());
+			bh.consume(it.value());
+		}
+	}
+
+
+
+	private static CMKey toCaveManKey(int i) {return null;}
+	private static CMValue toCaveManValue(int i) {return null;}
+}
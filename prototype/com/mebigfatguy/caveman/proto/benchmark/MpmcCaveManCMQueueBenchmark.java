@@ -0,0 +1,123 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mebigfatguy.caveman.proto.ConcurrentCMQueue;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMBoxed;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+import com.mebigfatguy.caveman.proto.impl.MpmcCaveManCMQueue;
+
+/**
+ * compares MpmcCaveManCMQueue against a java.util.concurrent.ArrayBlockingQueue of boxed <b>CM</b>s,
+ * with three threads offering and one thread polling, as when many threads feed one aggregator. Neither
+ * side waits for the other, so each score is the cost of one attempt to move a batch, whether or not
+ * there was room or anything to take.
+ */
+@OnlyFor({"int", "long"})
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MpmcCaveManCMQueueBenchmark {
+
+	@Param({ "1", "64" })
+	private int batch;
+
+	private CM[] items;
+	private CM[] drained;
+	private ConcurrentCMQueue queue;
+	private ArrayBlockingQueue<CMBoxed> boxedQueue;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(batch);
+		items = new CM[batch];
+		for (int i = 0; i < batch; i++) {
+			int value = random.nextInt();
+			items[i] = toCaveMan(value);
+		}
+		drained = new CM[batch];
+
+		queue = new MpmcCaveManCMQueue(1024);
+		boxedQueue = new ArrayBlockingQueue<CMBoxed>(1024);
+	}
+
+	@Benchmark
+	@Group("mpmc")
+	@GroupThreads(3)
+	public int offer() {
+		return queue.offerAll(items, 0, batch);
+	}
+
+	@Benchmark
+	@Group("mpmc")
+	@GroupThreads(1)
+	public int poll() {
+		return queue.drainTo(drained);
+	}
+
+	@Benchmark
+	@Group("boxed")
+	@GroupThreads(3)
+	public int offerBoxed() {
+		int count = 0;
+		for (CM item : items) {
+			if (!boxedQueue.offer(item)) {
+				break;
+			}
+			count++;
+		}
+		return count;
+	}
+
+	@Benchmark
+	@Group("boxed")
+	@GroupThreads(1)
+	public int pollBoxed() {
+		int count = 0;
+		while ((count < batch) && (boxedQueue.poll() != null)) {
+			count++;
+		}
+		return count;
+	}
+
+
+
+	private static CM toCaveMan(int i) {return null;}
+}
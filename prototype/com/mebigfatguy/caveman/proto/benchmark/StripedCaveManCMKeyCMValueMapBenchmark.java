@@ -0,0 +1,106 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mebigfatguy.caveman.proto.CMKeyCMValueCounterMap;
+import com.mebigfatguy.caveman.proto.ConcurrentCMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+import com.mebigfatguy.caveman.proto.aux.OnlyForValue;
+import com.mebigfatguy.caveman.proto.impl.ConcurrentCaveManCMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.impl.StripedCaveManCMKeyCMValueMap;
+
+/**
+ * compares StripedCaveManCMKeyCMValueMap against ConcurrentCaveManCMKeyCMValueMap.addTo, with
+ * several threads counting a shared set of keys. With one key every thread hits the same counter,
+ * which is where striping matters, with more keys the threads are mostly apart.
+ */
+@OnlyFor({"int", "long"})
+@OnlyForValue({"long"})
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class StripedCaveManCMKeyCMValueMapBenchmark {
+
+	private static final int INCREMENTS = 1000;
+
+	@Param({ "1", "1000" })
+	private int keyCount;
+
+	private CMKey[] keys;
+	private CMValue one;
+	private CMKeyCMValueCounterMap stripedMap;
+	private ConcurrentCMKeyCMValueMap concurrentMap;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(keyCount);
+		keys = new CMKey[keyCount];
+		for (int i = 0; i < keyCount; i++) {
+			int value = random.nextInt();
+			keys[i] = toCaveManKey(value);
+		}
+		one = toCaveManValue(1);
+
+		stripedMap = new StripedCaveManCMKeyCMValueMap();
+		concurrentMap = new ConcurrentCaveManCMKeyCMValueMap();
+	}
+
+	@Benchmark
+	public void increment() {
+		int start = ThreadLocalRandom.current().nextInt(keyCount);
+		for (int i = 0; i < INCREMENTS; i++) {
+			stripedMap.increment(keys[(start + i) % keyCount]);
+		}
+	}
+
+	@Benchmark
+	public void addTo() {
+		int start = ThreadLocalRandom.current().nextInt(keyCount);
+		for (int i = 0; i < INCREMENTS; i++) {
+			concurrentMap.addTo(keys[(start + i) % keyCount], one);
+		}
+	}
+
+
+
+	private static CMKey toCaveManKey(int i) {return null;}
+	private static CMValue toCaveManValue(int i) {return null;}
+}
@@ -0,0 +1,328 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+import com.mebigfatguy.caveman.proto.CMCollection;
+import com.mebigfatguy.caveman.proto.CMConsumer;
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.CMSet;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+
+/**
+ * A CMSet for <b>CM</b>s with a small domain, that holds one bit for every possible <b>CM</b>,
+ * so there is no hashing. A set of bytes takes four longs, and a set of chars or shorts takes 8K.
+ * addAll, retainAll, removeAll and containsAll work a word at a time when given another
+ * BitmapCaveManCMSet.
+ */
+@OnlyFor({"boolean", "byte", "char", "short"})
+public class BitmapCaveManCMSet implements CMSet, Serializable {
+	private static final long serialVersionUID = -2467150360946380375L;
+	private static final int DOMAIN_SIZE = 1 << cmBits();
+	private static final int INDEX_MASK = DOMAIN_SIZE - 1;
+
+	private final long[] words;
+	private int size;
+	private int version;
+
+	public BitmapCaveManCMSet() {
+		words = new long[(DOMAIN_SIZE + 63) >>> 6];
+		size = 0;
+		version = 0;
+	}
+
+	public BitmapCaveManCMSet(CMCollection c) {
+		this();
+		addAll(c);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean contains(CM item) {
+		int index = fromCaveMan(item) & INDEX_MASK;
+		return (words[index >>> 6] & (1L << index)) != 0;
+	}
+
+	@Override
+	public CMIterator iterator() {
+		return new BitmapCaveManCMSetIterator(version);
+	}
+
+	@Override
+	public void forEach(CMConsumer consumer) {
+		int startVersion = version;
+		for (int w = 0; w < words.length; w++) {
+			long word = words[w];
+			while (word != 0) {
+				int index = (w << 6) + Long.numberOfTrailingZeros(word);
+				consumer.accept(toCaveMan(index));
+				word &= word - 1;
+			}
+		}
+
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during forEach");
+		}
+	}
+
+	@Override
+	public CM[] toArray() {
+		CM[] array = new CM[size];
+		int pos = 0;
+		for (int w = 0; w < words.length; w++) {
+			long word = words[w];
+			while (word != 0) {
+				int index = (w << 6) + Long.numberOfTrailingZeros(word);
+				array[pos++] = toCaveMan(index);
+				word &= word - 1;
+			}
+		}
+
+		return array;
+	}
+
+	@Override
+	public boolean add(CM item) {
+		int index = fromCaveMan(item) & INDEX_MASK;
+		long bit = 1L << index;
+		if ((words[index >>> 6] & bit) != 0) {
+			return false;
+		}
+
+		++version;
+		words[index >>> 6] |= bit;
+		++size;
+		return true;
+	}
+
+	@Override
+	public boolean remove(CM item) {
+		int index = fromCaveMan(item) & INDEX_MASK;
+		long bit = 1L << index;
+		if ((words[index >>> 6] & bit) == 0) {
+			return false;
+		}
+
+		++version;
+		words[index >>> 6] &= ~bit;
+		--size;
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		++version;
+		Arrays.fill(words, 0L);
+		size = 0;
+	}
+
+	@Override
+	public boolean containsAll(CMCollection c) {
+		if (c instanceof BitmapCaveManCMSet) {
+			long[] otherWords = ((BitmapCaveManCMSet) c).words;
+			for (int w = 0; w < words.length; w++) {
+				if ((otherWords[w] & ~words[w]) != 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		CMIterator it = c.iterator();
+		while (it.hasNext()) {
+			if (!contains(it.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean addAll(CMCollection c) {
+		if (c instanceof BitmapCaveManCMSet) {
+			long[] otherWords = ((BitmapCaveManCMSet) c).words;
+			for (int w = 0; w < words.length; w++) {
+				words[w] |= otherWords[w];
+			}
+			return updateSize();
+		}
+
+		boolean modified = false;
+		CMIterator it = c.iterator();
+		while (it.hasNext()) {
+			modified |= add(it.next());
+		}
+		return modified;
+	}
+
+	@Override
+	public boolean retainAll(CMCollection c) {
+		if (c instanceof BitmapCaveManCMSet) {
+			long[] otherWords = ((BitmapCaveManCMSet) c).words;
+			for (int w = 0; w < words.length; w++) {
+				words[w] &= otherWords[w];
+			}
+			return updateSize();
+		}
+
+		boolean modified = false;
+		CMIterator it = iterator();
+		while (it.hasNext()) {
+			if (!c.contains(it.next())) {
+				it.remove();
+				modified = true;
+			}
+		}
+		return modified;
+	}
+
+	@Override
+	public boolean removeAll(CMCollection c) {
+		if (c instanceof BitmapCaveManCMSet) {
+			long[] otherWords = ((BitmapCaveManCMSet) c).words;
+			for (int w = 0; w < words.length; w++) {
+				words[w] &= ~otherWords[w];
+			}
+			return updateSize();
+		}
+
+		boolean modified = false;
+		CMIterator it = c.iterator();
+		while (it.hasNext()) {
+			modified |= remove(it.next());
+		}
+		return modified;
+	}
+
+	@Override
+	public CM getOne() {
+		for (int w = 0; w < words.length; w++) {
+			if (words[w] != 0) {
+				int index = (w << 6) + Long.numberOfTrailingZeros(words[w]);
+				return toCaveMan(index);
+			}
+		}
+
+		throw new IllegalStateException("set has no items");
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof BitmapCaveManCMSet)) {
+			return false;
+		}
+
+		return Arrays.equals(words, ((BitmapCaveManCMSet) o).words);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(words);
+	}
+
+	private boolean updateSize() {
+		int newSize = 0;
+		for (long word : words) {
+			newSize += Long.bitCount(word);
+		}
+
+		if (newSize == size) {
+			return false;
+		}
+
+		++version;
+		size = newSize;
+		return true;
+	}
+
+	private class BitmapCaveManCMSetIterator implements CMIterator {
+
+		private int iteratorVersion;
+		private int wordIndex;
+		private long word;
+		private int lastIndex;
+
+		BitmapCaveManCMSetIterator(int vers) {
+			iteratorVersion = vers;
+			wordIndex = 0;
+			word = words[0];
+			lastIndex = -1;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			while ((word == 0) && (wordIndex < (words.length - 1))) {
+				word = words[++wordIndex];
+			}
+			return word != 0;
+		}
+
+		@Override
+		public CM next() throws NoSuchElementException {
+			if (!hasNext()) {
+				throw new NoSuchElementException("Iterator has been exhausted");
+			}
+
+			int index = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+			word &= word - 1;
+			lastIndex = index;
+			return toCaveMan(index);
+		}
+
+		@Override
+		public void remove() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			if (lastIndex < 0) {
+				throw new IllegalStateException("next() has not been called since the last remove");
+			}
+
+			words[lastIndex >>> 6] &= ~(1L << lastIndex);
+			--size;
+			lastIndex = -1;
+			++version;
+			++iteratorVersion;
+		}
+	}
+
+
+
+	private static int cmBits() {return 0;}
+	private static int fromCaveMan(CM item) {return 0;}
+	private static CM toCaveMan(int i) {return null;}
+}
@@ -0,0 +1,242 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.mebigfatguy.caveman.proto.BlockingCMQueue;
+import com.mebigfatguy.caveman.proto.aux.CM;
+
+/**
+ * A MpmcCaveManCMQueue whose threads can also wait for room or for <b>CM</b>s. Offers and polls
+ * stay lock free, the lock is only taken by a thread that has to wait, and by a thread that
+ * changes the queue while another is waiting, to wake it up.
+ */
+public class BlockingMpmcCaveManCMQueue extends MpmcCaveManCMQueue implements BlockingCMQueue {
+
+	private static final long serialVersionUID = -7392547361750818265L;
+
+	private final CM notFound;
+	private final ReentrantLock lock;
+	private final Condition notEmpty;
+	private final Condition notFull;
+	private final AtomicInteger waitingConsumers;
+	private final AtomicInteger waitingProducers;
+
+	public BlockingMpmcCaveManCMQueue() {
+		this(DEFAULT_NOT_FOUND_VALUE, DEFAULT_CAPACITY);
+	}
+
+	public BlockingMpmcCaveManCMQueue(int capacity) {
+		this(DEFAULT_NOT_FOUND_VALUE, capacity);
+	}
+
+	public BlockingMpmcCaveManCMQueue(CM notFoundValue, int capacity) {
+		super(notFoundValue, capacity, true);
+		notFound = notFoundValue;
+		lock = new ReentrantLock();
+		notEmpty = lock.newCondition();
+		notFull = lock.newCondition();
+		waitingConsumers = new AtomicInteger();
+		waitingProducers = new AtomicInteger();
+	}
+
+	@Override
+	public boolean offer(CM item) {
+		if (!super.offer(item)) {
+			return false;
+		}
+
+		signalNotEmpty();
+		return true;
+	}
+
+	@Override
+	public int offerAll(CM[] src, int off, int len) {
+		int count = super.offerAll(src, off, len);
+		if (count > 0) {
+			signalNotEmpty();
+		}
+		return count;
+	}
+
+	@Override
+	public void put(CM item) throws InterruptedException {
+		long pos = claimOffer();
+		if (pos < 0) {
+			pos = awaitOffer(false, 0L);
+		}
+
+		publish(pos, item);
+		signalNotEmpty();
+	}
+
+	@Override
+	public boolean offer(CM item, long timeout, TimeUnit unit) throws InterruptedException {
+		long pos = claimOffer();
+		if (pos < 0) {
+			pos = awaitOffer(true, unit.toNanos(timeout));
+			if (pos < 0) {
+				return false;
+			}
+		}
+
+		publish(pos, item);
+		signalNotEmpty();
+		return true;
+	}
+
+	@Override
+	public CM poll() {
+		long pos = claimPoll();
+		if (pos < 0) {
+			return notFound;
+		}
+
+		CM item = consume(pos);
+		signalNotFull();
+		return item;
+	}
+
+	@Override
+	public int drainTo(CM[] dst) {
+		int count = super.drainTo(dst);
+		if (count > 0) {
+			signalNotFull();
+		}
+		return count;
+	}
+
+	@Override
+	public CM take() throws InterruptedException {
+		long pos = claimPoll();
+		if (pos < 0) {
+			pos = awaitPoll(false, 0L);
+		}
+
+		CM item = consume(pos);
+		signalNotFull();
+		return item;
+	}
+
+	@Override
+	public CM poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long pos = claimPoll();
+		if (pos < 0) {
+			pos = awaitPoll(true, unit.toNanos(timeout));
+			if (pos < 0) {
+				return notFound;
+			}
+		}
+
+		CM item = consume(pos);
+		signalNotFull();
+		return item;
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		signalNotFull();
+	}
+
+	/**
+	 * waits until a slot can be claimed to offer into. The waiter is counted before the queue is
+	 * looked at again, and slots are published with a volatile write before the count is read, so
+	 * either this thread sees the slot or the thread that freed it sees this thread waiting.
+	 *
+	 * @return the sequence of the claimed slot, or -1 if the time ran out
+	 */
+	private long awaitOffer(boolean timed, long nanos) throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			waitingProducers.incrementAndGet();
+			try {
+				long pos;
+				while ((pos = claimOffer()) < 0) {
+					if (!timed) {
+						notFull.await();
+					} else if (nanos <= 0L) {
+						return -1;
+					} else {
+						nanos = notFull.awaitNanos(nanos);
+					}
+				}
+				return pos;
+			} finally {
+				waitingProducers.decrementAndGet();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * waits until a slot can be claimed to poll from, in the same way as awaitOffer
+	 *
+	 * @return the sequence of the claimed slot, or -1 if the time ran out
+	 */
+	private long awaitPoll(boolean timed, long nanos) throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			waitingConsumers.incrementAndGet();
+			try {
+				long pos;
+				while ((pos = claimPoll()) < 0) {
+					if (!timed) {
+						notEmpty.await();
+					} else if (nanos <= 0L) {
+						return -1;
+					} else {
+						nanos = notEmpty.awaitNanos(nanos);
+					}
+				}
+				return pos;
+			} finally {
+				waitingConsumers.decrementAndGet();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void signalNotEmpty() {
+		if (waitingConsumers.get() > 0) {
+			lock.lock();
+			try {
+				notEmpty.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private void signalNotFull() {
+		if (waitingProducers.get() > 0) {
+			lock.lock();
+			try {
+				notFull.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.mebigfatguy.caveman.proto.CMPredicate;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMBoxed;
+import com.mebigfatguy.caveman.proto.aux.CMSum;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+
+/**
+ * The aggregate kernels behind the sum, min, max and count methods of the array backed
+ * collections. Each works over a range of a backing array, four <b>CM</b>s at a time into four
+ * separate accumulators, so that the work on neighbouring <b>CM</b>s does not wait on the work
+ * before it. Sums are accumulated in a long for the integral primitives, and a double for float
+ * and double, so a sum of floating point values may differ in its last bits from one added up in
+ * order.
+ */
+@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+final class CaveManCMAggregates {
+
+	/**
+	 * the number of <b>CM</b>s below which a parallel sum is not split across the fork join pool
+	 */
+	static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	private CaveManCMAggregates() {
+	}
+
+	static CMSum sum(CM[] items, int from, int to) {
+		CMSum s0 = widenCaveMan(0);
+		CMSum s1 = widenCaveMan(0);
+		CMSum s2 = widenCaveMan(0);
+		CMSum s3 = widenCaveMan(0);
+		int i = from;
+		for (; i <= (to - 4); i += 4) {
+			s0 = sumCaveMan(s0, items[i]);
+			s1 = sumCaveMan(s1, items[i + 1]);
+			s2 = sumCaveMan(s2, items[i + 2]);
+			s3 = sumCaveMan(s3, items[i + 3]);
+		}
+		for (; i < to; i++) {
+			s0 = sumCaveMan(s0, items[i]);
+		}
+
+		s0 = sumCaveMan(s0, s1);
+		s2 = sumCaveMan(s2, s3);
+		return sumCaveMan(s0, s2);
+	}
+
+	static CMSum sumOfSquares(CM[] items, int from, int to) {
+		CMSum s0 = widenCaveMan(0);
+		CMSum s1 = widenCaveMan(0);
+		CMSum s2 = widenCaveMan(0);
+		CMSum s3 = widenCaveMan(0);
+		int i = from;
+		for (; i <= (to - 4); i += 4) {
+			s0 = sumSquaresCaveMan(s0, items[i]);
+			s1 = sumSquaresCaveMan(s1, items[i + 1]);
+			s2 = sumSquaresCaveMan(s2, items[i + 2]);
+			s3 = sumSquaresCaveMan(s3, items[i + 3]);
+		}
+		for (; i < to; i++) {
+			s0 = sumSquaresCaveMan(s0, items[i]);
+		}
+
+		s0 = sumCaveMan(s0, s1);
+		s2 = sumCaveMan(s2, s3);
+		return sumCaveMan(s0, s2);
+	}
+
+	/**
+	 * returns the smallest <b>CM</b> in a range, which must not be empty, in the order of
+	 * Arrays.sort, so -0.0 is less than 0.0, and NaN is greater than any other value
+	 */
+	static CM min(CM[] items, int from, int to) {
+		CM m0 = items[from];
+		CM m1 = m0;
+		CM m2 = m0;
+		CM m3 = m0;
+		int i = from + 1;
+		for (; i <= (to - 4); i += 4) {
+			if (CMBoxed.compare(items[i], m0) < 0) {
+				m0 = items[i];
+			}
+			if (CMBoxed.compare(items[i + 1], m1) < 0) {
+				m1 = items[i + 1];
+			}
+			if (CMBoxed.compare(items[i + 2], m2) < 0) {
+				m2 = items[i + 2];
+			}
+			if (CMBoxed.compare(items[i + 3], m3) < 0) {
+				m3 = items[i + 3];
+			}
+		}
+		for (; i < to; i++) {
+			if (CMBoxed.compare(items[i], m0) < 0) {
+				m0 = items[i];
+			}
+		}
+
+		if (CMBoxed.compare(m1, m0) < 0) {
+			m0 = m1;
+		}
+		if (CMBoxed.compare(m3, m2) < 0) {
+			m2 = m3;
+		}
+		return (CMBoxed.compare(m2, m0) < 0) ? m2 : m0;
+	}
+
+	/**
+	 * returns the largest <b>CM</b> in a range, which must not be empty, in the order of
+	 * Arrays.sort
+	 */
+	static CM max(CM[] items, int from, int to) {
+		CM m0 = items[from];
+		CM m1 = m0;
+		CM m2 = m0;
+		CM m3 = m0;
+		int i = from + 1;
+		for (; i <= (to - 4); i += 4) {
+			if (CMBoxed.compare(items[i], m0) > 0) {
+				m0 = items[i];
+			}
+			if (CMBoxed.compare(items[i + 1], m1) > 0) {
+				m1 = items[i + 1];
+			}
+			if (CMBoxed.compare(items[i + 2], m2) > 0) {
+				m2 = items[i + 2];
+			}
+			if (CMBoxed.compare(items[i + 3], m3) > 0) {
+				m3 = items[i + 3];
+			}
+		}
+		for (; i < to; i++) {
+			if (CMBoxed.compare(items[i], m0) > 0) {
+				m0 = items[i];
+			}
+		}
+
+		if (CMBoxed.compare(m1, m0) > 0) {
+			m0 = m1;
+		}
+		if (CMBoxed.compare(m3, m2) > 0) {
+			m2 = m3;
+		}
+		return (CMBoxed.compare(m2, m0) > 0) ? m2 : m0;
+	}
+
+	static int count(CM[] items, int from, int to, CMPredicate predicate) {
+		int count = 0;
+		for (int i = from; i < to; i++) {
+			if (predicate.test(items[i])) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * sums a range as sum or sumOfSquares does, but splits a range of PARALLEL_THRESHOLD or more
+	 * <b>CM</b>s in halves, and sums the halves on the common fork join pool
+	 */
+	static CMSum parallelSum(CM[] items, int from, int to, boolean squares) {
+		if ((to - from) < PARALLEL_THRESHOLD) {
+			return squares ? sumOfSquares(items, from, to) : sum(items, from, to);
+		}
+
+		SumTask task = new SumTask(items, from, to, squares);
+		ForkJoinPool.commonPool().invoke(task);
+		return task.result;
+	}
+
+	private static final class SumTask extends RecursiveAction {
+		private static final long serialVersionUID = 3604938577021516893L;
+
+		private final CM[] items;
+		private final int from;
+		private final int to;
+		private final boolean squares;
+		CMSum result;
+
+		SumTask(CM[] items, int from, int to, boolean squares) {
+			this.items = items;
+			this.from = from;
+			this.to = to;
+			this.squares = squares;
+		}
+
+		@Override
+		protected void compute() {
+			if ((to - from) < PARALLEL_THRESHOLD) {
+				result = squares ? sumOfSquares(items, from, to) : sum(items, from, to);
+				return;
+			}
+
+			int mid = (from + to) >>> 1;
+			SumTask left = new SumTask(items, from, mid, squares);
+			SumTask right = new SumTask(items, mid, to, squares);
+			left.fork();
+			right.compute();
+			left.join();
+			result = sumCaveMan(left.result, right.result);
+		}
+	}
+
+
+
+	private static CMSum widenCaveMan(int i) {return null;}
+	private static CMSum sumCaveMan(CMSum sum, CM item) {return null;}
+	private static CMSum sumCaveMan(CMSum left, CMSum right) {return null;}
+	private static CMSum sumSquaresCaveMan(CMSum sum, CM item) {return null;}
+}
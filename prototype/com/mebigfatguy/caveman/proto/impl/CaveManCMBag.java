@@ -21,15 +21,20 @@ import java.io.Serializable;
 import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
 
 import com.mebigfatguy.caveman.proto.CMBag;
 import com.mebigfatguy.caveman.proto.CMCollection;
+import com.mebigfatguy.caveman.proto.CMConsumer;
 import com.mebigfatguy.caveman.proto.CMIterator;
 import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMJavaConsumer;
+import com.mebigfatguy.caveman.proto.aux.CMSpliterator;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
 
 public class CaveManCMBag implements CMBag, Serializable {
     private static final long serialVersionUID = 7198565247030343970L;
-    private static final int DEFAULT_CAPACITY = 31;
+    private static final int DEFAULT_CAPACITY = 32;
 	private static final float DEFAULT_LOAD_FACTOR = 0.80f;
 
 	private CMBucket[] buckets;
@@ -49,7 +54,7 @@ public class CaveManCMBag implements CMBag, Serializable {
 	    if (cmIsBoolean()) {
 	        initialCapacity = 2;
 	    }
-		buckets = new CMBucket[initialCapacity];
+		buckets = new CMBucket[tableSizeFor(initialCapacity)];
 		loadFactor = loadingFactor;
 		size = 0;
 		version = 0;
@@ -67,7 +72,7 @@ public class CaveManCMBag implements CMBag, Serializable {
 
 	@Override
 	public boolean contains(CM item) {
-		int hash = Math.abs(fromCaveMan(item) % buckets.length);
+		int hash = hashCaveMan(item) & (buckets.length - 1);
 		CMBucket b = buckets[hash];
 
 		if (b == null)
@@ -81,6 +86,28 @@ public class CaveManCMBag implements CMBag, Serializable {
 		return new CaveManCMBagIterator(version);
 	}
 
+	@Override
+	public void forEach(CMConsumer consumer) {
+		int startVersion = version;
+		for (CMBucket b : buckets) {
+			if (b != null) {
+				for (int i = 0; i < b.bucketSize; i++) {
+					consumer.accept(b.list[i]);
+				}
+			}
+		}
+
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during forEach");
+		}
+	}
+
+	@OnlyFor({"int", "long", "double"})
+	@Override
+	public CMSpliterator spliterator() {
+		return new CaveManCMBagSpliterator(buckets, 0, buckets.length, 0, size, version);
+	}
+
 	@Override
 	public CM[] toArray() {
 		CM[] array = new CM[size];
@@ -102,7 +129,7 @@ public class CaveManCMBag implements CMBag, Serializable {
 
 		ensureSize(size + 1);
 
-		int hash = Math.abs(fromCaveMan(item) % buckets.length);
+		int hash = hashCaveMan(item) & (buckets.length - 1);
 		CMBucket b = buckets[hash];
 		if (b == null) {
 			b = new CMBucket();
@@ -117,7 +144,7 @@ public class CaveManCMBag implements CMBag, Serializable {
 	@Override
 	public boolean remove(CM item) {
 		++version;
-		int hash = Math.abs(fromCaveMan(item) % buckets.length);
+		int hash = hashCaveMan(item) & (buckets.length - 1);
 		CMBucket b = buckets[hash];
 		if (b == null) {
 			return false;
@@ -137,7 +164,7 @@ public class CaveManCMBag implements CMBag, Serializable {
 	@Override
 	public boolean removeOne(CM item) {
 		++version;
-		int hash = Math.abs(fromCaveMan(item) % buckets.length);
+		int hash = hashCaveMan(item) & (buckets.length - 1);
 		CMBucket b = buckets[hash];
 		if (b == null) {
 			return false;
@@ -153,7 +180,7 @@ public class CaveManCMBag implements CMBag, Serializable {
 
 	@Override
 	public int countOf(CM item) {
-		int hash = Math.abs(fromCaveMan(item) % buckets.length);
+		int hash = hashCaveMan(item) & (buckets.length - 1);
 		CMBucket b = buckets[hash];
 		if (b == null) {
 			return 0;
@@ -235,7 +262,7 @@ public class CaveManCMBag implements CMBag, Serializable {
 
 	private void ensureSize(int newSize) {
 		if (!cmIsBoolean() && (newSize / (double) buckets.length) > loadFactor) {
-			int newBucketSize = (int) (2.0 * newSize);
+			int newBucketSize = tableSizeFor((int) (2.0 * newSize));
 			CMBucket[] newBuckets = new CMBucket[newBucketSize];
 
 			for (CMBucket oldBucket : buckets) {
@@ -243,7 +270,7 @@ public class CaveManCMBag implements CMBag, Serializable {
 					int oldBucketSize = oldBucket.bucketSize;
 					for (int oldBucketIndex = 0; oldBucketIndex < oldBucketSize; ++oldBucketIndex) {
 						CM item = oldBucket.list[oldBucketIndex];
-						int hash = Math.abs(fromCaveMan(item) % newBuckets.length);
+						int hash = hashCaveMan(item) & (newBuckets.length - 1);
 						CMBucket newBucket = newBuckets[hash];
 						if (newBucket == null) {							
 							newBucket = new CMBucket();
@@ -258,6 +285,105 @@ public class CaveManCMBag implements CMBag, Serializable {
 		}
 	}
 
+	private static int tableSizeFor(int capacity) {
+		return (capacity <= 1) ? 1 : (Integer.highestOneBit(capacity - 1) << 1);
+	}
+
+	/**
+	 * splits by ranges of buckets, counting the items in the buckets split off, so that every
+	 * split knows its exact size
+	 */
+	@OnlyFor({"int", "long", "double"})
+	private class CaveManCMBagSpliterator implements CMSpliterator {
+
+		private final CMBucket[] table;
+		private int bucketIndex;
+		private final int bucketFence;
+		private int itemIndex;
+		private long remaining;
+		private final int expectedVersion;
+
+		CaveManCMBagSpliterator(CMBucket[] spliteratorBuckets, int fromBucket, int toBucket, int fromItem, long count, int vers) {
+			table = spliteratorBuckets;
+			bucketIndex = fromBucket;
+			bucketFence = toBucket;
+			itemIndex = fromItem;
+			remaining = count;
+			expectedVersion = vers;
+		}
+
+		@Override
+		public boolean tryAdvance(CMJavaConsumer action) {
+			while (bucketIndex < bucketFence) {
+				CMBucket b = table[bucketIndex];
+				if ((b != null) && (itemIndex < b.bucketSize)) {
+					action.accept(b.list[itemIndex++]);
+					--remaining;
+					checkVersion();
+					return true;
+				}
+				++bucketIndex;
+				itemIndex = 0;
+			}
+
+			return false;
+		}
+
+		@Override
+		public void forEachRemaining(CMJavaConsumer action) {
+			for (int i = bucketIndex; i < bucketFence; i++) {
+				CMBucket b = table[i];
+				if (b != null) {
+					for (int j = (i == bucketIndex) ? itemIndex : 0; j < b.bucketSize; j++) {
+						action.accept(b.list[j]);
+					}
+				}
+			}
+			bucketIndex = bucketFence;
+			itemIndex = 0;
+			remaining = 0;
+			checkVersion();
+		}
+
+		@Override
+		public CMSpliterator trySplit() {
+			int mid = (bucketIndex + bucketFence) >>> 1;
+			if (mid <= bucketIndex) {
+				return null;
+			}
+
+			long prefixCount = -itemIndex;
+			for (int i = bucketIndex; i < mid; i++) {
+				CMBucket b = table[i];
+				if (b != null) {
+					prefixCount += b.bucketSize;
+				}
+			}
+
+			CaveManCMBagSpliterator prefix = new CaveManCMBagSpliterator(table, bucketIndex, mid, itemIndex, prefixCount, expectedVersion);
+			bucketIndex = mid;
+			itemIndex = 0;
+			remaining -= prefixCount;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return remaining;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+
+		private void checkVersion() {
+			if (expectedVersion != version) {
+				throw new ConcurrentModificationException((version - expectedVersion) + " changes have been made since the spliterator was created");
+			}
+		}
+	}
+
 	private static class CMBucket implements Serializable {
         private static final long serialVersionUID = 728274660754681617L;
         
@@ -413,6 +539,6 @@ public class CaveManCMBag implements CMBag, Serializable {
 
 
 
-	private int fromCaveMan(CM item) {return 0;}
+	private static int hashCaveMan(CM item) {return 0;}
 	private boolean cmIsBoolean() {return false;}
 }
\ No newline at end of file
@@ -22,9 +22,14 @@ import java.util.ConcurrentModificationException;
 import java.util.NoSuchElementException;
 
 import com.mebigfatguy.caveman.proto.CMCollection;
+import com.mebigfatguy.caveman.proto.CMConsumer;
 import com.mebigfatguy.caveman.proto.CMDeque;
 import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.CMPredicate;
 import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMBoxed;
+import com.mebigfatguy.caveman.proto.aux.CMSum;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
 
 public class CaveManCMDeque implements CMDeque, Serializable {
 
@@ -122,6 +127,21 @@ public class CaveManCMDeque implements CMDeque, Serializable {
         return new CaveManCMDequeIterator(version);
     }
 
+    @Override
+    public void forEach(CMConsumer consumer) {
+        int startVersion = version;
+        CM[] data = items;
+        // bounds taken up front, as a consumer that adds items may grow the deque, which moves tail
+        int end = tail;
+        for (int i = head; i != end; i = (i + 1 == data.length) ? 0 : i + 1) {
+            consumer.accept(data[i]);
+        }
+
+        if (version != startVersion) {
+            throw new ConcurrentModificationException((version - startVersion) + " changes have been made during forEach");
+        }
+    }
+
     @Override
     public CM[] toArray() {
         CM[] copy = new CM[size()];
@@ -191,6 +211,80 @@ public class CaveManCMDeque implements CMDeque, Serializable {
         return removed;
     }
 
+    @OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+    @Override
+    public CMSum sum() {
+        CMSum sum = CaveManCMAggregates.sum(items, head, (head <= tail) ? tail : items.length);
+        if (head > tail) {
+            CMSum wrapped = CaveManCMAggregates.sum(items, 0, tail);
+            sum = sumCaveMan(sum, wrapped);
+        }
+        return sum;
+    }
+
+    @OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+    @Override
+    public CMSum sumOfSquares() {
+        CMSum sum = CaveManCMAggregates.sumOfSquares(items, head, (head <= tail) ? tail : items.length);
+        if (head > tail) {
+            CMSum wrapped = CaveManCMAggregates.sumOfSquares(items, 0, tail);
+            sum = sumCaveMan(sum, wrapped);
+        }
+        return sum;
+    }
+
+    @OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+    @Override
+    public CM min() {
+        if (head == tail) {
+            throw new IllegalStateException("This deque is empty");
+        }
+
+        CM min = CaveManCMAggregates.min(items, head, (head < tail) ? tail : items.length);
+        if ((head > tail) && (tail > 0)) {
+            CM wrapped = CaveManCMAggregates.min(items, 0, tail);
+            if (CMBoxed.compare(wrapped, min) < 0) {
+                min = wrapped;
+            }
+        }
+        return min;
+    }
+
+    @OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+    @Override
+    public CM max() {
+        if (head == tail) {
+            throw new IllegalStateException("This deque is empty");
+        }
+
+        CM max = CaveManCMAggregates.max(items, head, (head < tail) ? tail : items.length);
+        if ((head > tail) && (tail > 0)) {
+            CM wrapped = CaveManCMAggregates.max(items, 0, tail);
+            if (CMBoxed.compare(wrapped, max) > 0) {
+                max = wrapped;
+            }
+        }
+        return max;
+    }
+
+    @OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+    @Override
+    public double average() {
+        CMSum sum = sum();
+        int count = size();
+        return averageCaveMan(sum, count);
+    }
+
+    @OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+    @Override
+    public int count(CMPredicate predicate) {
+        int count = CaveManCMAggregates.count(items, head, (head <= tail) ? tail : items.length, predicate);
+        if (head > tail) {
+            count += CaveManCMAggregates.count(items, 0, tail, predicate);
+        }
+        return count;
+    }
+
     @Override
     public CM getOne() throws IllegalStateException {
         if (size() == 0)
@@ -261,7 +355,13 @@ public class CaveManCMDeque implements CMDeque, Serializable {
             return notFound;
         }
         
-        return removeFirst();
+        CM item = items[head];
+        head++;
+        if (head >= items.length) {
+            head = 0;
+        }
+        version++;
+        return item;
     }
 
     @Override
@@ -270,8 +370,13 @@ public class CaveManCMDeque implements CMDeque, Serializable {
             return notFound;
         }
         
-        return removeLast();
-   }
+        tail--;
+        if (tail < 0) {
+            tail = items.length - 1;
+        }
+        version++;
+        return items[tail];
+    }
 
     @Override
     public CM getFirst() {
@@ -306,7 +411,7 @@ public class CaveManCMDeque implements CMDeque, Serializable {
             return notFound;
         }
         
-        return items[--tail];
+        return items[(tail == 0) ? items.length - 1 : tail - 1];
     }
 
     @Override
@@ -448,4 +553,6 @@ public class CaveManCMDeque implements CMDeque, Serializable {
     
     
     private static CM toCaveMan(int i) {return null;}
+    private static CMSum sumCaveMan(CMSum left, CMSum right) {return null;}
+    private static double averageCaveMan(CMSum sum, int count) {return 0;}
 }
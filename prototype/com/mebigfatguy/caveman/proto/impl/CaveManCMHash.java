@@ -0,0 +1,48 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import com.mebigfatguy.caveman.proto.aux.CM;
+
+/**
+ * hashing used by the hashed <b>CM</b> collections. All the bits of a <b>CM</b> are folded
+ * into an int, which is then run through the murmur3 finalizer, so that every bit of the item
+ * has an effect on the low order bits used to pick a bucket.
+ */
+final class CaveManCMHash {
+
+	private CaveManCMHash() {
+	}
+
+	static int hash(CM item) {
+		return mix(foldCaveMan(item));
+	}
+
+	static int mix(int h) {
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+
+
+	private static int foldCaveMan(CM item) {return 0;}
+}
@@ -0,0 +1,79 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMSum;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+
+/**
+ * The array kernels behind the searches, sum and element wise arithmetic of CaveManCMList, each
+ * over a range of a backing array. These are plain loops; the jar also holds a java 16 version
+ * of this class for int, long, float and double, under META-INF/versions/16, that uses the
+ * incubating vector api when the jdk.incubator.vector module has been added to the vm, and these
+ * loops when it hasn't.
+ */
+final class CaveManCMKernels {
+
+	private CaveManCMKernels() {
+	}
+
+	static int indexOf(CM[] items, int from, int to, CM item) {
+		for (int i = from; i < to; i++) {
+			if (item == items[i]) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	static int lastIndexOf(CM[] items, int from, int to, CM item) {
+		for (int i = to - 1; i >= from; i--) {
+			if (item == items[i]) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	static CMSum sum(CM[] items, int from, int to) {
+		return CaveManCMAggregates.sum(items, from, to);
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	static void add(CM[] items, int from, int to, CM delta) {
+		for (int i = from; i < to; i++) {
+			items[i] = addCaveMan(items[i], delta);
+		}
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	static void multiply(CM[] items, int from, int to, CM factor) {
+		for (int i = from; i < to; i++) {
+			items[i] = multiplyCaveMan(items[i], factor);
+		}
+	}
+
+
+
+	private static CM addCaveMan(CM item, CM delta) {return null;}
+	private static CM multiplyCaveMan(CM item, CM factor) {return null;}
+}
@@ -0,0 +1,345 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.util.Arrays;
+
+import com.mebigfatguy.caveman.proto.CMKeyCMValueCache;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueConsumer;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueFunction;
+import com.mebigfatguy.caveman.proto.EvictionPolicy;
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+
+/**
+ * A CMKeyCMValueCache that allocates all its storage up front, for its maximum size, and never
+ * grows. Each entry has a slot in flat parallel arrays, chained to the other entries in its bucket
+ * by an int index. For LRU, the slots are also linked in order of use by int[] before and after
+ * arrays. For CLOCK, each slot has a referenced flag, swept by a hand. A hit only updates these
+ * arrays and a counter, so allocates nothing. This class is not thread safe.
+ */
+public class CaveManCMKeyCMValueCache implements CMKeyCMValueCache {
+	public static final CMValue DEFAULT_NOT_FOUND_VALUE = toCaveManValue(0);
+	private static final float LOAD_FACTOR = 0.80f;
+	private static final int NONE = -1;
+
+	private final CMValue notFound;
+	private final int maxSize;
+	private final EvictionPolicy policy;
+	private final CMKeyCMValueConsumer evictionListener;
+	private final int[] table;
+	private final CMKey[] keys;
+	private final CMValue[] values;
+	private final int[] chain;
+	private final int[] before;
+	private final int[] after;
+	private final boolean[] referenced;
+	private int head;
+	private int tail;
+	private int hand;
+	private int freeSlot;
+	private int usedSlots;
+	private int size;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public CaveManCMKeyCMValueCache(int maximumSize) {
+		this(maximumSize, EvictionPolicy.LRU);
+	}
+
+	public CaveManCMKeyCMValueCache(int maximumSize, EvictionPolicy evictionPolicy) {
+		this(DEFAULT_NOT_FOUND_VALUE, maximumSize, evictionPolicy, null);
+	}
+
+	/**
+	 * creates a cache that passes each entry it evicts to a listener, once the new entry that
+	 * displaced it has been added
+	 *
+	 * @param notFoundValue the value returned by get for an absent key
+	 * @param maximumSize the most entries the cache holds
+	 * @param evictionPolicy how the entry to evict is chosen
+	 * @param listener the consumer of evicted entries, or null for none
+	 */
+	public CaveManCMKeyCMValueCache(CMValue notFoundValue, int maximumSize, EvictionPolicy evictionPolicy, CMKeyCMValueConsumer listener) {
+		if (maximumSize <= 0) {
+			throw new IllegalArgumentException("Maximum size: " + maximumSize + " is not positive");
+		}
+
+		notFound = notFoundValue;
+		maxSize = maximumSize;
+		policy = evictionPolicy;
+		evictionListener = listener;
+
+		table = new int[tableSizeFor((int) Math.min(Math.ceil(maximumSize / (double) LOAD_FACTOR), 1 << 30))];
+		Arrays.fill(table, NONE);
+		keys = new CMKey[maximumSize];
+		values = new CMValue[maximumSize];
+		chain = new int[maximumSize];
+		if (policy == EvictionPolicy.LRU) {
+			before = new int[maximumSize];
+			after = new int[maximumSize];
+			referenced = null;
+		} else {
+			before = null;
+			after = null;
+			referenced = new boolean[maximumSize];
+		}
+
+		head = NONE;
+		tail = NONE;
+		hand = 0;
+		freeSlot = NONE;
+		usedSlots = 0;
+		size = 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int maxSize() {
+		return maxSize;
+	}
+
+	@Override
+	public boolean containsKey(CMKey key) {
+		return find(key) != NONE;
+	}
+
+	@Override
+	public CMValue get(CMKey key) {
+		int slot = find(key);
+		if (slot == NONE) {
+			++misses;
+			return notFound;
+		}
+
+		++hits;
+		touch(slot);
+		return values[slot];
+	}
+
+	@Override
+	public CMValue computeIfAbsent(CMKey key, CMKeyCMValueFunction loader) {
+		int slot = find(key);
+		if (slot != NONE) {
+			++hits;
+			touch(slot);
+			return values[slot];
+		}
+
+		++misses;
+		CMValue value = loader.applyAsCMValue(key);
+		// looked up again, as the loader may have added the key, or evicted entries, itself
+		put(key, value);
+		return value;
+	}
+
+	@Override
+	public void put(CMKey key, CMValue value) {
+		int slot = find(key);
+		if (slot != NONE) {
+			values[slot] = value;
+			touch(slot);
+			return;
+		}
+
+		if (size < maxSize) {
+			link(takeSlot(), key, value);
+			return;
+		}
+
+		int victim = (policy == EvictionPolicy.LRU) ? head : sweep();
+		CMKey evictedKey = keys[victim];
+		CMValue evictedValue = values[victim];
+		removeSlot(victim);
+		++evictions;
+
+		link(takeSlot(), key, value);
+
+		if (evictionListener != null) {
+			evictionListener.accept(evictedKey, evictedValue);
+		}
+	}
+
+	@Override
+	public void remove(CMKey key) {
+		int slot = find(key);
+		if (slot != NONE) {
+			removeSlot(slot);
+		}
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(table, NONE);
+		if (policy == EvictionPolicy.CLOCK) {
+			Arrays.fill(referenced, false);
+		}
+		head = NONE;
+		tail = NONE;
+		hand = 0;
+		freeSlot = NONE;
+		usedSlots = 0;
+		size = 0;
+	}
+
+	@Override
+	public long hitCount() {
+		return hits;
+	}
+
+	@Override
+	public long missCount() {
+		return misses;
+	}
+
+	@Override
+	public long evictionCount() {
+		return evictions;
+	}
+
+	private int find(CMKey key) {
+		for (int slot = table[hashCaveManKey(key) & (table.length - 1)]; slot != NONE; slot = chain[slot]) {
+			if (keys[slot] == key) {
+				return slot;
+			}
+		}
+
+		return NONE;
+	}
+
+	/**
+	 * marks a slot as used, by moving it to the most recent end of the LRU list, or by setting its
+	 * referenced flag for CLOCK
+	 */
+	private void touch(int slot) {
+		if (policy == EvictionPolicy.CLOCK) {
+			referenced[slot] = true;
+		} else if (slot != tail) {
+			unlinkOrder(slot);
+			linkOrder(slot);
+		}
+	}
+
+	/**
+	 * advances the CLOCK hand past referenced slots, clearing their flags, to the first unreferenced
+	 * slot, which is returned. Only called when the cache is full, so every slot holds an entry, and
+	 * after at most one full turn every flag is clear.
+	 */
+	private int sweep() {
+		while (true) {
+			int slot = hand;
+			hand = (hand + 1 == maxSize) ? 0 : (hand + 1);
+			if (!referenced[slot]) {
+				return slot;
+			}
+			referenced[slot] = false;
+		}
+	}
+
+	/**
+	 * returns a slot to put a new entry in, reusing a slot freed by a remove or an eviction before
+	 * one never used
+	 */
+	private int takeSlot() {
+		if (freeSlot == NONE) {
+			return usedSlots++;
+		}
+
+		int slot = freeSlot;
+		freeSlot = chain[slot];
+		return slot;
+	}
+
+	/**
+	 * puts an entry in a slot, at the head of its bucket's chain, and for LRU, at the most recent end
+	 * of the list. For CLOCK a new entry starts unreferenced, so gets no second chance until it is hit.
+	 */
+	private void link(int slot, CMKey key, CMValue value) {
+		int bucket = hashCaveManKey(key) & (table.length - 1);
+		keys[slot] = key;
+		values[slot] = value;
+		chain[slot] = table[bucket];
+		table[bucket] = slot;
+
+		if (policy == EvictionPolicy.LRU) {
+			linkOrder(slot);
+		}
+		++size;
+	}
+
+	private void removeSlot(int slot) {
+		int bucket = hashCaveManKey(keys[slot]) & (table.length - 1);
+		if (table[bucket] == slot) {
+			table[bucket] = chain[slot];
+		} else {
+			int prev = table[bucket];
+			while (chain[prev] != slot) {
+				prev = chain[prev];
+			}
+			chain[prev] = chain[slot];
+		}
+
+		if (policy == EvictionPolicy.LRU) {
+			unlinkOrder(slot);
+		} else {
+			referenced[slot] = false;
+		}
+
+		chain[slot] = freeSlot;
+		freeSlot = slot;
+		--size;
+	}
+
+	private void linkOrder(int slot) {
+		before[slot] = tail;
+		after[slot] = NONE;
+		if (tail == NONE) {
+			head = slot;
+		} else {
+			after[tail] = slot;
+		}
+		tail = slot;
+	}
+
+	private void unlinkOrder(int slot) {
+		if (before[slot] == NONE) {
+			head = after[slot];
+		} else {
+			after[before[slot]] = after[slot];
+		}
+		if (after[slot] == NONE) {
+			tail = before[slot];
+		} else {
+			before[after[slot]] = before[slot];
+		}
+	}
+
+	private static int tableSizeFor(int capacity) {
+		return (capacity <= 1) ? 1 : (Integer.highestOneBit(capacity - 1) << 1);
+	}
+
+
+
+	private static int hashCaveManKey(CMKey key) {return 0;}
+	private static CMValue toCaveManValue(int i) {return null;}
+}
@@ -21,6 +21,8 @@ import java.io.Serializable;
 import java.util.ConcurrentModificationException;
 import java.util.NoSuchElementException;
 
+import com.mebigfatguy.caveman.proto.CMKeyCMValueConsumer;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueFunction;
 import com.mebigfatguy.caveman.proto.CMKeyCMValueMap;
 import com.mebigfatguy.caveman.proto.CMKeyCMValueMapIterator;
 import com.mebigfatguy.caveman.proto.aux.CMKey;
@@ -29,14 +31,17 @@ import com.mebigfatguy.caveman.proto.aux.CMKeyIterator;
 import com.mebigfatguy.caveman.proto.aux.CMKeySet;
 import com.mebigfatguy.caveman.proto.aux.CMValue;
 import com.mebigfatguy.caveman.proto.aux.CMValueBag;
+import com.mebigfatguy.caveman.proto.aux.CMValueBinaryOperator;
 import com.mebigfatguy.caveman.proto.aux.CMValueCollection;
 import com.mebigfatguy.caveman.proto.aux.CMValueIterator;
+import com.mebigfatguy.caveman.proto.aux.OnlyForValue;
 
 public class CaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
     private static final long serialVersionUID = 3426594697002329831L;
     public static final CMValue DEFAULT_NOT_FOUND_VALUE = toCaveManValue(0);
-	private static final int DEFAULT_CAPACITY = 31;
+	private static final int DEFAULT_CAPACITY = 32;
 	private static final float DEFAULT_LOAD_FACTOR = 0.80f;
+	private static final int BATCH_SIZE = 64;
 
 	private final CMValue notFound;
 	private CMBucket[] buckets;
@@ -56,7 +61,7 @@ public class CaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
 		notFound = notFoundValue;
 		loadFactor = loadingFactor;
 		size = 0;
-		buckets = new CMBucket[initialCapacity];
+		buckets = new CMBucket[tableSizeFor(initialCapacity)];
 	}
 
 	@Override
@@ -71,7 +76,7 @@ public class CaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
 
 	@Override
 	public boolean containsKey(CMKey key) {
-		int hash = Math.abs(fromCaveManKey(key) % buckets.length);
+		int hash = hashCaveManKey(key) & (buckets.length - 1);
 		CMBucket b = buckets[hash];
 
 		if (b == null)
@@ -98,7 +103,7 @@ public class CaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
 	@Override
 	public CMValue get(CMKey key) {
 
-		int hash = Math.abs(fromCaveManKey(key) % buckets.length);
+		int hash = hashCaveManKey(key) & (buckets.length - 1);
 		CMBucket b = buckets[hash];
 
 		if (b != null) {
@@ -114,7 +119,7 @@ public class CaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
 
 		ensureSize(size + 1);
 
-		int hash = Math.abs(fromCaveManKey(key) % buckets.length);
+		int hash = hashCaveManKey(key) & (buckets.length - 1);
 		CMBucket b = buckets[hash];
 
 		if (b == null) {
@@ -131,7 +136,7 @@ public class CaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
 	public void remove(CMKey key) {
 		++version;
 
-		int hash = Math.abs(fromCaveManKey(key) % buckets.length);
+		int hash = hashCaveManKey(key) & (buckets.length - 1);
 		CMBucket b = buckets[hash];
 
 		if (b != null) {
@@ -155,6 +160,67 @@ public class CaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
 		}
 	}
 
+	/**
+	 * hashes a run of keys before adding any of them, so that the bucket loads that follow are
+	 * independent of each other, and the processor can have several cache misses outstanding at once
+	 */
+	@Override
+	public void putAll(CMKey[] batchKeys, CMValue[] batchValues, int off, int len) {
+		if ((off < 0) || (len < 0) || (off + len > batchKeys.length) || (off + len > batchValues.length)) {
+			throw new IndexOutOfBoundsException("Range [" + off + ", " + (off + len) + ") is out of bounds");
+		}
+
+		++version;
+
+		ensureSize(size + len);
+
+		int mask = buckets.length - 1;
+		int[] slots = new int[Math.min(len, BATCH_SIZE)];
+		for (int start = off; start < (off + len); start += BATCH_SIZE) {
+			int count = Math.min(BATCH_SIZE, (off + len) - start);
+			for (int i = 0; i < count; i++) {
+				slots[i] = hashCaveManKey(batchKeys[start + i]) & mask;
+			}
+
+			for (int i = 0; i < count; i++) {
+				CMBucket b = buckets[slots[i]];
+				if (b == null) {
+					b = new CMBucket();
+					buckets[slots[i]] = b;
+				}
+
+				if (b.add(batchKeys[start + i], batchValues[start + i])) {
+					++size;
+				}
+			}
+		}
+	}
+
+	/**
+	 * hashes a run of keys before looking any of them up, so that the bucket loads that follow are
+	 * independent of each other, and the processor can have several cache misses outstanding at once
+	 */
+	@Override
+	public void getAll(CMKey[] batchKeys, CMValue[] out) {
+		if (out.length < batchKeys.length) {
+			throw new IndexOutOfBoundsException("Output length " + out.length + " is less than " + batchKeys.length);
+		}
+
+		int mask = buckets.length - 1;
+		int[] slots = new int[Math.min(batchKeys.length, BATCH_SIZE)];
+		for (int start = 0; start < batchKeys.length; start += BATCH_SIZE) {
+			int count = Math.min(BATCH_SIZE, batchKeys.length - start);
+			for (int i = 0; i < count; i++) {
+				slots[i] = hashCaveManKey(batchKeys[start + i]) & mask;
+			}
+
+			for (int i = 0; i < count; i++) {
+				CMBucket b = buckets[slots[i]];
+				out[start + i] = (b == null) ? notFound : b.get(batchKeys[start + i], notFound);
+			}
+		}
+	}
+
 	@Override
 	public void clear() {
 		++version;
@@ -172,6 +238,22 @@ public class CaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
 		return new CaveManCMKeyCMValueMapIterator(version);
 	}
 
+	@Override
+	public void forEach(CMKeyCMValueConsumer consumer) {
+		int startVersion = version;
+		for (CMBucket b : buckets) {
+			if (b != null) {
+				for (int i = 0; i < b.bucketSize; i++) {
+					consumer.accept(b.keys[i], b.values[i]);
+				}
+			}
+		}
+
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during forEach");
+		}
+	}
+
 	@Override
 	public CMKeySet keySet() {
 		return new CaveManCMKeyCMValueKeySet();
@@ -182,35 +264,152 @@ public class CaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
 		return new CaveManCMKeyCMValueValuesBag();
 	}
 
+	@Override
+	public CMValue getOrDefault(CMKey key, CMValue defaultValue) {
+		int hash = hashCaveManKey(key) & (buckets.length - 1);
+		CMBucket b = buckets[hash];
+
+		if (b != null) {
+			return b.get(key, defaultValue);
+		}
+
+		return defaultValue;
+	}
+
+	@Override
+	public CMValue putIfAbsent(CMKey key, CMValue value) {
+		int hash = hashCaveManKey(key);
+		CMBucket b = buckets[hash & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key);
+		if (index >= 0) {
+			return b.values[index];
+		}
+
+		insertAbsent(key, hash, value);
+		return notFound;
+	}
+
+	@Override
+	public CMValue replace(CMKey key, CMValue value) {
+		CMBucket b = buckets[hashCaveManKey(key) & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key);
+		if (index < 0) {
+			return notFound;
+		}
+
+		++version;
+		CMValue oldValue = b.values[index];
+		b.values[index] = value;
+		return oldValue;
+	}
+
+	@Override
+	public boolean replace(CMKey key, CMValue oldValue, CMValue newValue) {
+		CMBucket b = buckets[hashCaveManKey(key) & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key);
+		if ((index < 0) || (b.values[index] != oldValue)) {
+			return false;
+		}
+
+		++version;
+		b.values[index] = newValue;
+		return true;
+	}
+
+	@Override
+	public CMValue computeIfAbsent(CMKey key, CMKeyCMValueFunction mappingFunction) {
+		int hash = hashCaveManKey(key);
+		CMBucket b = buckets[hash & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key);
+		if (index >= 0) {
+			return b.values[index];
+		}
+
+		int startVersion = version;
+		CMValue value = mappingFunction.applyAsCMValue(key);
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during computeIfAbsent");
+		}
+
+		insertAbsent(key, hash, value);
+		return value;
+	}
+
+	@Override
+	public CMValue merge(CMKey key, CMValue value, CMValueBinaryOperator remappingFunction) {
+		int hash = hashCaveManKey(key);
+		CMBucket b = buckets[hash & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key);
+		if (index < 0) {
+			insertAbsent(key, hash, value);
+			return value;
+		}
+
+		int startVersion = version;
+		CMValue newValue = remappingFunction.applyAsCMValue(b.values[index], value);
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during merge");
+		}
+
+		++version;
+		b.values[index] = newValue;
+		return newValue;
+	}
+
+	@OnlyForValue({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public CMValue addTo(CMKey key, CMValue delta) {
+		int hash = hashCaveManKey(key);
+		CMBucket b = buckets[hash & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key);
+		if (index < 0) {
+			insertAbsent(key, hash, addCaveManValues(notFound, delta));
+			return notFound;
+		}
+
+		++version;
+		CMValue oldValue = b.values[index];
+		b.values[index] = addCaveManValues(oldValue, delta);
+		return oldValue;
+	}
+
+	/**
+	 * adds a key that is known to be absent, reusing the hash that the caller looked it up with
+	 */
+	private void insertAbsent(CMKey key, int hash, CMValue value) {
+		++version;
+
+		ensureSize(size + 1);
+
+		int index = hash & (buckets.length - 1);
+		CMBucket b = buckets[index];
+		if (b == null) {
+			b = new CMBucket();
+			buckets[index] = b;
+		}
+
+		b.append(key, value);
+		++size;
+	}
+
 	private void ensureSize(int newSize) {
 		if ((newSize / (double) buckets.length) > loadFactor) {
-			int newBucketSize = (int) (2.0 * newSize);
+			int newBucketSize = tableSizeFor((int) (2.0 * newSize));
 			CMBucket[] newBuckets = new CMBucket[newBucketSize];
 
 			for (CMBucket oldBucket : buckets) {
 				if (oldBucket != null) {
 					int oldBucketSize = oldBucket.bucketSize;
-					CMBucket reusableBucket = oldBucket;
-					boolean reusedBucket = false;
 					for (int oldBucketIndex = 0; oldBucketIndex < oldBucketSize; ++oldBucketIndex) {
 						CMKey key = oldBucket.keys[oldBucketIndex];
-						int hash = Math.abs(fromCaveManKey(key) % newBuckets.length);
+						int hash = hashCaveManKey(key) & (newBuckets.length - 1);
 						CMBucket newBucket = newBuckets[hash];
 						if (newBucket == null) {
-							if (reusableBucket != null) {
-								newBuckets[hash] = reusableBucket;
-								reusableBucket.bucketSize = 1;
-								reusedBucket = true;
-							} else {
-								newBucket = new CMBucket();
-								newBuckets[hash] = newBucket;
-							}
+							newBucket = new CMBucket();
+							newBuckets[hash] = newBucket;
 						}
-						reusableBucket = null;
 
-						if (!reusedBucket) {
-							newBucket.add(key, oldBucket.values[oldBucketIndex]);
-						}
+						newBucket.add(key, oldBucket.values[oldBucketIndex]);
 					}
 				}
 			}
@@ -218,6 +417,10 @@ public class CaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
 		}
 	}
 
+	private static int tableSizeFor(int capacity) {
+		return (capacity <= 1) ? 1 : (Integer.highestOneBit(capacity - 1) << 1);
+	}
+
 	private static class CMBucket implements Serializable {
         private static final long serialVersionUID = -1971035400552543174L;
         
@@ -232,6 +435,11 @@ public class CaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
 				return false;
 			}
 
+			append(key, value);
+			return true;
+		}
+
+		public void append(CMKey key, CMValue value) {
 			if (bucketSize >= keys.length) {
 				CMKey[] newKeys = new CMKey[keys.length + 4];
 				System.arraycopy(keys,  0, newKeys, 0, bucketSize);
@@ -243,7 +451,6 @@ public class CaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
 
 			keys[bucketSize] = key;
 			values[bucketSize++] = value;
-			return true;
 		}
 
 		public boolean remove(CMKey key) {
@@ -722,6 +929,7 @@ public class CaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
 
 
 
-	private static int fromCaveManKey(CMKey key) {return 0;}
+	private static int hashCaveManKey(CMKey key) {return 0;}
 	private static CMValue toCaveManValue(int i) {return null;}
+	private static CMValue addCaveManValues(CMValue a, CMValue b) {return null;}
 }
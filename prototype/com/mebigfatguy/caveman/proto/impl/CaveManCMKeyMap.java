@@ -23,24 +23,29 @@ import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiFunction;
 
 import com.mebigfatguy.caveman.proto.CMCollection;
 import com.mebigfatguy.caveman.proto.CMIterator;
 import com.mebigfatguy.caveman.proto.CMKeyMap;
 import com.mebigfatguy.caveman.proto.CMKeyMapIterator;
+import com.mebigfatguy.caveman.proto.CMObjectFunction;
+import com.mebigfatguy.caveman.proto.CMObjectConsumer;
 import com.mebigfatguy.caveman.proto.CMSet;
 import com.mebigfatguy.caveman.proto.aux.CM;
 
 
 public class CaveManCMKeyMap<V> implements CMKeyMap<V>, Serializable {
     private static final long serialVersionUID = -9031895132759387101L;
-    private static final int DEFAULT_CAPACITY = 31;
-	private static final float DEFAULT_LOAD_FACTOR = 0.80f;
+    static final int DEFAULT_CAPACITY = 32;
+	static final float DEFAULT_LOAD_FACTOR = 0.80f;
 
 	private CMBucket<V>[] buckets;
 	private int size;
 	private float loadFactor;
 	private int version;
+	private final boolean identityValues;
 
 	public CaveManCMKeyMap() {
 		this(DEFAULT_CAPACITY);
@@ -50,11 +55,20 @@ public class CaveManCMKeyMap<V> implements CMKeyMap<V>, Serializable {
 		this(initialCapacity, DEFAULT_LOAD_FACTOR);
 	}
 
-	@SuppressWarnings("unchecked")
 	public CaveManCMKeyMap(int initialCapacity, float loadingFactor) {
+		this(initialCapacity, loadingFactor, false);
+	}
+
+	/**
+	 * creates a map that compares values with ==, if identityValues is set, rather than calling
+	 * their equals
+	 */
+	@SuppressWarnings("unchecked")
+	CaveManCMKeyMap(int initialCapacity, float loadingFactor, boolean identityValues) {
 		loadFactor = loadingFactor;
+		this.identityValues = identityValues;
 		size = 0;
-		buckets = new CMBucket[initialCapacity];
+		buckets = new CMBucket[tableSizeFor(initialCapacity)];
 	}
 
 	@Override
@@ -69,7 +83,7 @@ public class CaveManCMKeyMap<V> implements CMKeyMap<V>, Serializable {
 
 	@Override
 	public boolean containsKey(CM key) {
-		int hash = Math.abs(fromCaveMan(key) % buckets.length);
+		int hash = hashCaveMan(key) & (buckets.length - 1);
 		CMBucket<V> b = buckets[hash];
 
 		if (b == null)
@@ -83,10 +97,7 @@ public class CaveManCMKeyMap<V> implements CMKeyMap<V>, Serializable {
 		for (CMBucket<V> bucket : buckets) {
 			if (bucket != null) {
 				for (int i = 0; i < bucket.bucketSize; ++i) {
-					if (value == null) {
-						if (bucket.values[i] == null)
-							return true;
-					} else if (value.equals(bucket.values[i])) {
+					if (valueEquals(value, bucket.values[i])) {
 						return true;
 					}
 				}
@@ -99,7 +110,7 @@ public class CaveManCMKeyMap<V> implements CMKeyMap<V>, Serializable {
 	@Override
 	public V get(CM key) {
 
-		int hash = Math.abs(fromCaveMan(key) % buckets.length);
+		int hash = hashCaveMan(key) & (buckets.length - 1);
 		CMBucket<V> b = buckets[hash];
 		V value = null;
 		if (b != null) {
@@ -115,7 +126,7 @@ public class CaveManCMKeyMap<V> implements CMKeyMap<V>, Serializable {
 
 		ensureSize(size + 1);
 
-		int hash = Math.abs(fromCaveMan(key) % buckets.length);
+		int hash = hashCaveMan(key) & (buckets.length - 1);
 		CMBucket<V> b = buckets[hash];
 
 		if (b == null) {
@@ -132,7 +143,7 @@ public class CaveManCMKeyMap<V> implements CMKeyMap<V>, Serializable {
 	public void remove(CM key) {
 		++version;
 
-		int hash = Math.abs(fromCaveMan(key) % buckets.length);
+		int hash = hashCaveMan(key) & (buckets.length - 1);
 		CMBucket<V> b = buckets[hash];
 
 		if (b != null) {
@@ -173,6 +184,22 @@ public class CaveManCMKeyMap<V> implements CMKeyMap<V>, Serializable {
 		return new CaveManCMKeyMapIterator(version);
 	}
 
+	@Override
+	public void forEach(CMObjectConsumer<V> consumer) {
+		int startVersion = version;
+		for (CMBucket<V> b : buckets) {
+			if (b != null) {
+				for (int i = 0; i < b.bucketSize; i++) {
+					consumer.accept(b.keys[i], b.values[i]);
+				}
+			}
+		}
+
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during forEach");
+		}
+	}
+
 	@Override
 	public CMSet keySet() {
 		return new CaveManCMKeySet();
@@ -183,36 +210,152 @@ public class CaveManCMKeyMap<V> implements CMKeyMap<V>, Serializable {
 		return new CavemanCollection();
 	}
 
+	@Override
+	public V getOrDefault(CM key, V defaultValue) {
+		CMBucket<V> b = buckets[hashCaveMan(key) & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key);
+		return (index >= 0) ? b.values[index] : defaultValue;
+	}
+
+	@Override
+	public V putIfAbsent(CM key, V value) {
+		int hash = hashCaveMan(key);
+		CMBucket<V> b = buckets[hash & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key);
+		if (index < 0) {
+			insertAbsent(key, hash, value);
+			return null;
+		}
+
+		V current = b.values[index];
+		if (current == null) {
+			++version;
+			b.values[index] = value;
+		}
+		return current;
+	}
+
+	@Override
+	public V replace(CM key, V value) {
+		CMBucket<V> b = buckets[hashCaveMan(key) & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key);
+		if (index < 0) {
+			return null;
+		}
+
+		++version;
+		V oldValue = b.values[index];
+		b.values[index] = value;
+		return oldValue;
+	}
+
+	@Override
+	public boolean replace(CM key, V oldValue, V newValue) {
+		CMBucket<V> b = buckets[hashCaveMan(key) & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key);
+		if ((index < 0) || !valueEquals(oldValue, b.values[index])) {
+			return false;
+		}
+
+		++version;
+		b.values[index] = newValue;
+		return true;
+	}
+
+	@Override
+	public V computeIfAbsent(CM key, CMObjectFunction<? extends V> mappingFunction) {
+		int hash = hashCaveMan(key);
+		CMBucket<V> b = buckets[hash & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key);
+		if ((index >= 0) && (b.values[index] != null)) {
+			return b.values[index];
+		}
+
+		int startVersion = version;
+		V value = mappingFunction.apply(key);
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during computeIfAbsent");
+		}
+
+		if (value != null) {
+			if (index >= 0) {
+				++version;
+				b.values[index] = value;
+			} else {
+				insertAbsent(key, hash, value);
+			}
+		}
+		return value;
+	}
+
+	@Override
+	public V merge(CM key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(value);
+		int hash = hashCaveMan(key);
+		CMBucket<V> b = buckets[hash & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key);
+		if (index < 0) {
+			insertAbsent(key, hash, value);
+			return value;
+		}
+
+		V newValue = value;
+		if (b.values[index] != null) {
+			int startVersion = version;
+			newValue = remappingFunction.apply(b.values[index], value);
+			if (version != startVersion) {
+				throw new ConcurrentModificationException((version - startVersion) + " changes have been made during merge");
+			}
+		}
+
+		++version;
+		if (newValue == null) {
+			b.removeAt(index);
+			--size;
+		} else {
+			b.values[index] = newValue;
+		}
+		return newValue;
+	}
+
+	/**
+	 * adds a key that is known to be absent, reusing the hash that the caller looked it up with
+	 */
+	private void insertAbsent(CM key, int hash, V value) {
+		++version;
+
+		ensureSize(size + 1);
+
+		int index = hash & (buckets.length - 1);
+		CMBucket<V> b = buckets[index];
+		if (b == null) {
+			b = new CMBucket<V>();
+			buckets[index] = b;
+		}
+
+		b.append(key, value);
+		++size;
+	}
+
 	@SuppressWarnings("unchecked")
 	private void ensureSize(int newSize) {
 		if ((newSize / (double) buckets.length) > loadFactor) {
-			int newBucketSize = (int) (2.0 * newSize);
+			int newBucketSize = tableSizeFor((int) (2.0 * newSize));
 			CMBucket<V>[] newBuckets = new CMBucket[newBucketSize];
 
 			for (CMBucket<V> oldBucket : buckets) {
 				if (oldBucket != null) {
 					int oldBucketSize = oldBucket.bucketSize;
-					CMBucket<V> reusableBucket = oldBucket;
-					boolean reusedBucket = false;
 					for (int oldBucketIndex = 0; oldBucketIndex < oldBucketSize; ++oldBucketIndex) {
 						CM key = oldBucket.keys[oldBucketIndex];
-						int hash = Math.abs(fromCaveMan(key) % newBuckets.length);
+						int hash = hashCaveMan(key) & (newBuckets.length - 1);
 						CMBucket<V> newBucket = newBuckets[hash];
 						if (newBucket == null) {
-							if (reusableBucket != null) {
-								newBuckets[hash] = reusableBucket;
-								reusableBucket.bucketSize = 1;
-								reusedBucket = true;
-							} else {
-								newBucket = new CMBucket<V>();
-								newBuckets[hash] = newBucket;
-							}
+							newBucket = new CMBucket<V>();
+							newBuckets[hash] = newBucket;
 						}
-						reusableBucket = null;
 
-						if (!reusedBucket) {
-							newBucket.add(key, oldBucket.values[oldBucketIndex]);
-						}
+						newBucket.add(key, oldBucket.values[oldBucketIndex]);
 					}
 				}
 			}
@@ -220,6 +363,14 @@ public class CaveManCMKeyMap<V> implements CMKeyMap<V>, Serializable {
 		}
 	}
 
+	private static int tableSizeFor(int capacity) {
+		return (capacity <= 1) ? 1 : (Integer.highestOneBit(capacity - 1) << 1);
+	}
+
+	private boolean valueEquals(Object value, Object storedValue) {
+		return (value == storedValue) || (!identityValues && (value != null) && value.equals(storedValue));
+	}
+
 	@SuppressWarnings("unchecked")
 	private static class CMBucket<V> implements Serializable {
         private static final long serialVersionUID = -3661300489343005766L;
@@ -235,6 +386,11 @@ public class CaveManCMKeyMap<V> implements CMKeyMap<V>, Serializable {
 				return false;
 			}
 
+			append(key, value);
+			return true;
+		}
+
+		public void append(CM key, V value) {
 			if (bucketSize >= keys.length) {
 				CM[] newKeys = new CM[keys.length + 4];
 				System.arraycopy(keys,  0, newKeys, 0, bucketSize);
@@ -246,22 +402,25 @@ public class CaveManCMKeyMap<V> implements CMKeyMap<V>, Serializable {
 
 			keys[bucketSize] = key;
 			values[bucketSize++] = value;
-
-			return true;
 		}
 
 		public boolean remove(CM key) {
 			for (int i = 0; i < bucketSize; i++) {
 				if (key == keys[i]) {
-					--bucketSize;
-					System.arraycopy(keys, i + 1, keys, i, bucketSize - i);
-					System.arraycopy(values, i + 1, values, i, bucketSize - i);
+					removeAt(i);
 					return true;
 				}
 			}
 			return false;
 		}
 
+		public void removeAt(int i) {
+			--bucketSize;
+			System.arraycopy(keys, i + 1, keys, i, bucketSize - i);
+			System.arraycopy(values, i + 1, values, i, bucketSize - i);
+			values[bucketSize] = null;
+		}
+
 		public int indexOf(CM key) {
 			for (int i = 0; i < bucketSize; i++) {
 				if (key == keys[i])
@@ -608,7 +767,7 @@ public class CaveManCMKeyMap<V> implements CMKeyMap<V>, Serializable {
 			for (CMBucket<V> bucket : buckets) {
 				if (bucket != null) {
 					for (int i = 0; i < bucket.bucketSize; ++i) {
-						if (((o == null) && (bucket.values[i] == null)) || ((o != null) && o.equals(bucket.values[i]))) {
+						if (valueEquals(o, bucket.values[i])) {
 							--bucket.bucketSize;
 							System.arraycopy(bucket.keys, i + 1, bucket.keys, i, bucket.bucketSize - i);
 							System.arraycopy(bucket.values, i + 1, bucket.values, i, bucket.bucketSize - i);
@@ -696,5 +855,5 @@ public class CaveManCMKeyMap<V> implements CMKeyMap<V>, Serializable {
 
 
 
-	private int fromCaveMan(CM key) {return 0;}
+	private static int hashCaveMan(CM key) {return 0;}
 }
\ No newline at end of file
@@ -18,17 +18,31 @@
 package com.mebigfatguy.caveman.proto.impl;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
 
 import com.mebigfatguy.caveman.proto.CMCollection;
+import com.mebigfatguy.caveman.proto.CMComparator;
+import com.mebigfatguy.caveman.proto.CMConsumer;
 import com.mebigfatguy.caveman.proto.CMIterator;
 import com.mebigfatguy.caveman.proto.CMList;
+import com.mebigfatguy.caveman.proto.CMPredicate;
+import com.mebigfatguy.caveman.proto.CMSet;
+import com.mebigfatguy.caveman.proto.CMUnaryOperator;
 import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMBoxed;
+import com.mebigfatguy.caveman.proto.aux.CMJavaConsumer;
+import com.mebigfatguy.caveman.proto.aux.CMSpliterator;
+import com.mebigfatguy.caveman.proto.aux.CMSum;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
 
 public class CaveManCMList implements CMList, Serializable {
     private static final long serialVersionUID = -4847042274014370360L;
     private static final int DEFAULT_SIZE = 20;
+    private static final int MAX_SCANNED_COLLECTION_SIZE = 8;
+    private static final int INSERTION_SORT_THRESHOLD = 32;
 	private static final CaveManCMListExpander DEFAULT_EXPANDER = new CaveManCMListExpander();
 
 	private final CMListExpander expander;
@@ -63,12 +77,7 @@ public class CaveManCMList implements CMList, Serializable {
 
 	@Override
 	public boolean contains(CM item) {
-		for (int i = 0; i < size; i++) {
-			if (item == list[i])
-				return true;
-		}
-
-		return false;
+		return CaveManCMKernels.indexOf(list, 0, size, item) >= 0;
 	}
 
 	@Override
@@ -76,6 +85,27 @@ public class CaveManCMList implements CMList, Serializable {
 		return new CaveManCMListIterator(version);
 	}
 
+	@Override
+	public void forEach(CMConsumer consumer) {
+		int startVersion = version;
+		CM[] items = list;
+		// bounds taken up front, as a consumer that adds items may grow the list past the array read
+		int end = size;
+		for (int i = 0; i < end; i++) {
+			consumer.accept(items[i]);
+		}
+
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during forEach");
+		}
+	}
+
+	@OnlyFor({"int", "long", "double"})
+	@Override
+	public CMSpliterator spliterator() {
+		return new CaveManCMListSpliterator(0, size, version);
+	}
+
 	@Override
 	public CM[] toArray() {
 		CM[] array = new CM[size];
@@ -131,44 +161,59 @@ public class CaveManCMList implements CMList, Serializable {
 
 	@Override
 	public boolean addAll(CMCollection c) {
+		if (c instanceof CaveManCMList) {
+			CaveManCMList other = (CaveManCMList) c;
+			return addAll(other.list, 0, other.size);
+		}
+
+		int count = c.size();
+		if (count == 0) {
+			return false;
+		}
+
 		++version;
-		int newSize = size + c.size();
-		ensureSize(newSize);
+		ensureSize(size + count);
 
 		CMIterator it = c.iterator();
 		while (it.hasNext()) {
-			add(it.next());
+			list[size++] = it.next();
 		}
 
-		return c.size() > 0;
+		return true;
 	}
 
 	@Override
-	public boolean removeAll(CMCollection c) {
-		++version;
-		int startSize = size;
+	public boolean addAll(CM[] src, int off, int len) {
+		if ((off < 0) || (len < 0) || (off + len > src.length)) {
+			throw new IndexOutOfBoundsException("Range [" + off + ", " + (off + len) + ") is out of bounds [0, " + src.length + "]");
+		}
 
-		CMIterator it = c.iterator();
-		while (it.hasNext()) {
-			remove(it.next());
+		if (len == 0) {
+			return false;
 		}
 
+		++version;
+		ensureSize(size + len);
 
-		return startSize != size;
+		System.arraycopy(src, off, list, size, len);
+		size += len;
+		return true;
 	}
 
+	/**
+	 * removes every occurrence of each item of the collection, in one compacting pass
+	 */
 	@Override
-	public boolean retainAll(CMCollection c) {
-		++version;
-		int startSize = size;
-
-		for (int i = 0; i < size; i++) {
-			if (!c.contains(list[i])) {
-				removeAt(i);
-			}
-		}
+	public boolean removeAll(CMCollection c) {
+		return removeMembers(c, true);
+	}
 
-		return startSize != size;
+	/**
+	 * removes every item that is not in the collection, in one compacting pass
+	 */
+	@Override
+	public boolean retainAll(CMCollection c) {
+		return removeMembers(c, false);
 	}
 
 	@Override
@@ -210,24 +255,146 @@ public class CaveManCMList implements CMList, Serializable {
 
 	@Override
 	public int indexOf(CM item) {
-		for (int i = 0; i < size; i++) {
-			if (item == list[i]) {
-				return i;
-			}
+		return CaveManCMKernels.indexOf(list, 0, size, item);
+	}
+
+	@Override
+	public int lastIndexOf(CM item) {
+		return CaveManCMKernels.lastIndexOf(list, 0, size, item);
+	}
+
+	@Override
+	public void replaceAll(CMUnaryOperator operator) {
+		int startVersion = version;
+		CM[] items = list;
+		int end = size;
+		for (int i = 0; i < end; i++) {
+			items[i] = operator.applyAsCM(items[i]);
 		}
 
-		return -1;
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during replaceAll");
+		}
+		++version;
 	}
 
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
 	@Override
-	public int lastIndexOf(CM item) {
-		for (int i = size - 1; i >= 0; i--) {
-			if (item == list[i]) {
-				return i;
+	public void addToAll(CM delta) {
+		CaveManCMKernels.add(list, 0, size, delta);
+		++version;
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public void multiplyAll(CM factor) {
+		CaveManCMKernels.multiply(list, 0, size, factor);
+		++version;
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public void sort() {
+		++version;
+		Arrays.sort(list, 0, size);
+	}
+
+	/**
+	 * a merge sort, as the jdk only sorts primitives in their natural order, which insertion sorts
+	 * short runs and skips the merge of runs that are already in order
+	 */
+	@Override
+	public void sort(CMComparator comparator) {
+		++version;
+		if (size > 1) {
+			CM[] scratch = new CM[size];
+			mergeSort(list, scratch, 0, size, comparator);
+		}
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public void parallelSort() {
+		++version;
+		Arrays.parallelSort(list, 0, size);
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public int binarySearch(CM item) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (CMBoxed.compare(list[mid], item) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
 			}
 		}
 
-		return -1;
+		if ((low < size) && (CMBoxed.compare(list[low], item) == 0)) {
+			return low;
+		}
+
+		return -(low + 1);
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public CMSum sum() {
+		return CaveManCMKernels.sum(list, 0, size);
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public CMSum sumOfSquares() {
+		return CaveManCMAggregates.sumOfSquares(list, 0, size);
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public CMSum parallelSum() {
+		return CaveManCMAggregates.parallelSum(list, 0, size, false);
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public CMSum parallelSumOfSquares() {
+		return CaveManCMAggregates.parallelSum(list, 0, size, true);
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public CM min() {
+		if (size == 0) {
+			throw new IllegalStateException("The list has no items");
+		}
+
+		return CaveManCMAggregates.min(list, 0, size);
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public CM max() {
+		if (size == 0) {
+			throw new IllegalStateException("The list has no items");
+		}
+
+		return CaveManCMAggregates.max(list, 0, size);
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public double average() {
+		CMSum sum = CaveManCMKernels.sum(list, 0, size);
+		return averageCaveMan(sum, size);
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public int count(CMPredicate predicate) {
+		return CaveManCMAggregates.count(list, 0, size, predicate);
 	}
 
 	@Override
@@ -239,6 +406,74 @@ public class CaveManCMList implements CMList, Serializable {
 	    throw new IllegalStateException("The list has no items");
 	}
 
+	/**
+	 * keeps the items whose membership of the collection differs from the given flag, sliding them
+	 * down over the removed ones. Unless the collection is a set, or small enough to scan, its items
+	 * are first copied into a set, so each test is a hash lookup rather than a scan.
+	 */
+	private boolean removeMembers(CMCollection c, boolean members) {
+		CMCollection lookup = c;
+		if (!(c instanceof CMSet) && (c.size() > MAX_SCANNED_COLLECTION_SIZE)) {
+			CMSet set = new CaveManCMSet(c.size());
+			set.addAll(c);
+			lookup = set;
+		}
+
+		CM[] items = list;
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			CM item = items[i];
+			if (lookup.contains(item) != members) {
+				items[kept++] = item;
+			}
+		}
+
+		if (kept == size) {
+			return false;
+		}
+
+		++version;
+		size = kept;
+		return true;
+	}
+
+	/**
+	 * sorts items[from, to) using scratch[from, to) as working space
+	 */
+	private static void mergeSort(CM[] items, CM[] scratch, int from, int to, CMComparator comparator) {
+		if ((to - from) <= INSERTION_SORT_THRESHOLD) {
+			for (int i = from + 1; i < to; i++) {
+				CM item = items[i];
+				int j = i - 1;
+				while ((j >= from) && (comparator.compare(items[j], item) > 0)) {
+					items[j + 1] = items[j];
+					--j;
+				}
+				items[j + 1] = item;
+			}
+			return;
+		}
+
+		int mid = (from + to) >>> 1;
+		mergeSort(items, scratch, from, mid, comparator);
+		mergeSort(items, scratch, mid, to, comparator);
+
+		if (comparator.compare(items[mid - 1], items[mid]) <= 0) {
+			return;
+		}
+
+		System.arraycopy(items, from, scratch, from, to - from);
+		int left = from;
+		int right = mid;
+		for (int i = from; i < to; i++) {
+			if ((right >= to) || ((left < mid) && (comparator.compare(scratch[left], scratch[right]) <= 0))) {
+				items[i] = scratch[left++];
+			} else {
+				items[i] = scratch[right++];
+			}
+		}
+	}
+
 	private void ensureSize(int newSize) {
 
 		if (newSize > list.length) {
@@ -297,6 +532,69 @@ public class CaveManCMList implements CMList, Serializable {
 		}
 	}
 
+	@OnlyFor({"int", "long", "double"})
+	private class CaveManCMListSpliterator implements CMSpliterator {
+
+		private int index;
+		private final int fence;
+		private final int expectedVersion;
+
+		CaveManCMListSpliterator(int from, int to, int vers) {
+			index = from;
+			fence = to;
+			expectedVersion = vers;
+		}
+
+		@Override
+		public boolean tryAdvance(CMJavaConsumer action) {
+			if (index >= fence) {
+				return false;
+			}
+
+			action.accept(list[index++]);
+			checkVersion();
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(CMJavaConsumer action) {
+			CM[] items = list;
+			for (int i = index; i < fence; i++) {
+				action.accept(items[i]);
+			}
+			index = fence;
+			checkVersion();
+		}
+
+		@Override
+		public CMSpliterator trySplit() {
+			int mid = (index + fence) >>> 1;
+			if (mid <= index) {
+				return null;
+			}
+
+			CaveManCMListSpliterator prefix = new CaveManCMListSpliterator(index, mid, expectedVersion);
+			index = mid;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return fence - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+
+		private void checkVersion() {
+			if (expectedVersion != version) {
+				throw new ConcurrentModificationException((version - expectedVersion) + " changes have been made since the spliterator was created");
+			}
+		}
+	}
+
 	private static final class CaveManCMListExpander implements CMListExpander, Serializable {
         private static final long serialVersionUID = -512021696178141491L;
 
@@ -305,5 +603,8 @@ public class CaveManCMList implements CMList, Serializable {
 			return (int)(oldSize + newSize * 1.4);
 		}
 	}
-}
 
+
+
+	private static double averageCaveMan(CMSum sum, int count) {return 0;}
+}
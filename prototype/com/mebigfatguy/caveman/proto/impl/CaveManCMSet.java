@@ -20,16 +20,22 @@ package com.mebigfatguy.caveman.proto.impl;
 import java.io.Serializable;
 import java.util.ConcurrentModificationException;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
 
 import com.mebigfatguy.caveman.proto.CMCollection;
+import com.mebigfatguy.caveman.proto.CMConsumer;
 import com.mebigfatguy.caveman.proto.CMIterator;
 import com.mebigfatguy.caveman.proto.CMSet;
 import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMJavaConsumer;
+import com.mebigfatguy.caveman.proto.aux.CMSpliterator;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
 
 public class CaveManCMSet implements CMSet, Serializable {
     private static final long serialVersionUID = 2206411569130634386L;
-    private static final int DEFAULT_CAPACITY = 31;
+    private static final int DEFAULT_CAPACITY = 32;
 	private static final float DEFAULT_LOAD_FACTOR = 0.80f;
+	private static final int BATCH_SIZE = 64;
 
 	private CMBucket[] buckets;
 	private int size;
@@ -45,7 +51,7 @@ public class CaveManCMSet implements CMSet, Serializable {
 	}
 
 	public CaveManCMSet(int initialCapacity, float loadingFactor) {
-		buckets = new CMBucket[initialCapacity];
+		buckets = new CMBucket[tableSizeFor(initialCapacity)];
 		loadFactor = loadingFactor;
 		size = 0;
 		version = 0;
@@ -63,7 +69,7 @@ public class CaveManCMSet implements CMSet, Serializable {
 
 	@Override
 	public boolean contains(CM item) {
-		int hash = Math.abs(fromCaveMan(item) % buckets.length);
+		int hash = hashCaveMan(item) & (buckets.length - 1);
 		CMBucket b = buckets[hash];
 
 		if (b == null)
@@ -77,6 +83,28 @@ public class CaveManCMSet implements CMSet, Serializable {
 		return new CaveManCMSetIterator(version);
 	}
 
+	@Override
+	public void forEach(CMConsumer consumer) {
+		int startVersion = version;
+		for (CMBucket b : buckets) {
+			if (b != null) {
+				for (int i = 0; i < b.bucketSize; i++) {
+					consumer.accept(b.list[i]);
+				}
+			}
+		}
+
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during forEach");
+		}
+	}
+
+	@OnlyFor({"int", "long", "double"})
+	@Override
+	public CMSpliterator spliterator() {
+		return new CaveManCMSetSpliterator(buckets, 0, buckets.length, 0, size, version);
+	}
+
 	@Override
 	public CM[] toArray() {
 		CM[] array = new CM[size];
@@ -98,7 +126,7 @@ public class CaveManCMSet implements CMSet, Serializable {
 
 		ensureSize(size+1);
 
-		int hash = Math.abs(fromCaveMan(item) % buckets.length);
+		int hash = hashCaveMan(item) & (buckets.length - 1);
 		CMBucket b = buckets[hash];
 		if (b == null) {
 			b = new CMBucket();
@@ -115,7 +143,7 @@ public class CaveManCMSet implements CMSet, Serializable {
 	@Override
 	public boolean remove(CM item) {
 		++version;
-		int hash = Math.abs(fromCaveMan(item) % buckets.length);
+		int hash = hashCaveMan(item) & (buckets.length - 1);
 		CMBucket b = buckets[hash];
 		if (b == null) {
 			return false;
@@ -139,6 +167,31 @@ public class CaveManCMSet implements CMSet, Serializable {
 		return true;
 	}
 
+	/**
+	 * hashes a run of items before looking any of them up, so that the bucket loads that follow are
+	 * independent of each other, and the processor can have several cache misses outstanding at once
+	 */
+	@Override
+	public void containsAll(CM[] items, boolean[] out) {
+		if (out.length < items.length) {
+			throw new IndexOutOfBoundsException("Output length " + out.length + " is less than " + items.length);
+		}
+
+		int mask = buckets.length - 1;
+		int[] slots = new int[Math.min(items.length, BATCH_SIZE)];
+		for (int start = 0; start < items.length; start += BATCH_SIZE) {
+			int count = Math.min(BATCH_SIZE, items.length - start);
+			for (int i = 0; i < count; i++) {
+				slots[i] = hashCaveMan(items[start + i]) & mask;
+			}
+
+			for (int i = 0; i < count; i++) {
+				CMBucket b = buckets[slots[i]];
+				out[start + i] = (b != null) && b.contains(items[start + i]);
+			}
+		}
+	}
+
 	@Override
 	public boolean addAll(CMCollection c) {
 		++version;
@@ -202,33 +255,22 @@ public class CaveManCMSet implements CMSet, Serializable {
 
 	private void ensureSize(int newSize) {
 		if ((newSize / (double) buckets.length) > loadFactor) {
-			int newBucketSize = (int) (2.0 * newSize);
+			int newBucketSize = tableSizeFor((int) (2.0 * newSize));
 			CMBucket[] newBuckets = new CMBucket[newBucketSize];
 
 			for (CMBucket oldBucket : buckets) {
 				if (oldBucket != null) {
 					int oldBucketSize = oldBucket.bucketSize;
-					CMBucket reusableBucket = oldBucket;
-					boolean reusedBucket = false;
 					for (int oldBucketIndex = 0; oldBucketIndex < oldBucketSize; ++oldBucketIndex) {
 						CM item = oldBucket.list[oldBucketIndex];
-						int hash = Math.abs(fromCaveMan(item) % newBuckets.length);
+						int hash = hashCaveMan(item) & (newBuckets.length - 1);
 						CMBucket newBucket = newBuckets[hash];
 						if (newBucket == null) {
-							if (reusableBucket != null) {
-								newBuckets[hash] = reusableBucket;
-								reusableBucket.bucketSize = 1;
-								reusedBucket = true;
-							} else {
-								newBucket = new CMBucket();
-								newBuckets[hash] = newBucket;
-							}
+							newBucket = new CMBucket();
+							newBuckets[hash] = newBucket;
 						}
-						reusableBucket = null;
 
-						if (!reusedBucket) {
-							newBucket.add(item);
-						}
+						newBucket.add(item);
 					}
 				}
 			}
@@ -236,6 +278,105 @@ public class CaveManCMSet implements CMSet, Serializable {
 		}
 	}
 
+	private static int tableSizeFor(int capacity) {
+		return (capacity <= 1) ? 1 : (Integer.highestOneBit(capacity - 1) << 1);
+	}
+
+	/**
+	 * splits by ranges of buckets, counting the items in the buckets split off, so that every
+	 * split knows its exact size
+	 */
+	@OnlyFor({"int", "long", "double"})
+	private class CaveManCMSetSpliterator implements CMSpliterator {
+
+		private final CMBucket[] table;
+		private int bucketIndex;
+		private final int bucketFence;
+		private int itemIndex;
+		private long remaining;
+		private final int expectedVersion;
+
+		CaveManCMSetSpliterator(CMBucket[] spliteratorBuckets, int fromBucket, int toBucket, int fromItem, long count, int vers) {
+			table = spliteratorBuckets;
+			bucketIndex = fromBucket;
+			bucketFence = toBucket;
+			itemIndex = fromItem;
+			remaining = count;
+			expectedVersion = vers;
+		}
+
+		@Override
+		public boolean tryAdvance(CMJavaConsumer action) {
+			while (bucketIndex < bucketFence) {
+				CMBucket b = table[bucketIndex];
+				if ((b != null) && (itemIndex < b.bucketSize)) {
+					action.accept(b.list[itemIndex++]);
+					--remaining;
+					checkVersion();
+					return true;
+				}
+				++bucketIndex;
+				itemIndex = 0;
+			}
+
+			return false;
+		}
+
+		@Override
+		public void forEachRemaining(CMJavaConsumer action) {
+			for (int i = bucketIndex; i < bucketFence; i++) {
+				CMBucket b = table[i];
+				if (b != null) {
+					for (int j = (i == bucketIndex) ? itemIndex : 0; j < b.bucketSize; j++) {
+						action.accept(b.list[j]);
+					}
+				}
+			}
+			bucketIndex = bucketFence;
+			itemIndex = 0;
+			remaining = 0;
+			checkVersion();
+		}
+
+		@Override
+		public CMSpliterator trySplit() {
+			int mid = (bucketIndex + bucketFence) >>> 1;
+			if (mid <= bucketIndex) {
+				return null;
+			}
+
+			long prefixCount = -itemIndex;
+			for (int i = bucketIndex; i < mid; i++) {
+				CMBucket b = table[i];
+				if (b != null) {
+					prefixCount += b.bucketSize;
+				}
+			}
+
+			CaveManCMSetSpliterator prefix = new CaveManCMSetSpliterator(table, bucketIndex, mid, itemIndex, prefixCount, expectedVersion);
+			bucketIndex = mid;
+			itemIndex = 0;
+			remaining -= prefixCount;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return remaining;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.DISTINCT | Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+
+		private void checkVersion() {
+			if (expectedVersion != version) {
+				throw new ConcurrentModificationException((version - expectedVersion) + " changes have been made since the spliterator was created");
+			}
+		}
+	}
+
 	private static class CMBucket implements Serializable {
         private static final long serialVersionUID = 7608069521020561888L;
 
@@ -364,6 +505,6 @@ public class CaveManCMSet implements CMSet, Serializable {
 	}
 
 
-	private int fromCaveMan(CM item) {return 0;}
+	private static int hashCaveMan(CM item) {return 0;}
 }
 
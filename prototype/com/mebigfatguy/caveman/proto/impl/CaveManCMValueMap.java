@@ -26,21 +26,27 @@ import java.util.NoSuchElementException;
 import java.util.Set;
 
 import com.mebigfatguy.caveman.proto.CMBag;
+import com.mebigfatguy.caveman.proto.CMBinaryOperator;
 import com.mebigfatguy.caveman.proto.CMCollection;
 import com.mebigfatguy.caveman.proto.CMIterator;
 import com.mebigfatguy.caveman.proto.CMValueMap;
 import com.mebigfatguy.caveman.proto.CMValueMapIterator;
+import com.mebigfatguy.caveman.proto.HashingStrategy;
+import com.mebigfatguy.caveman.proto.ObjectCMConsumer;
+import com.mebigfatguy.caveman.proto.ObjectCMFunction;
 import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
 
 public class CaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
     private static final long serialVersionUID = 8548358962822912724L;
-    private static final int DEFAULT_CAPACITY = 31;
+    private static final int DEFAULT_CAPACITY = 32;
 	private static final float DEFAULT_LOAD_FACTOR = 0.80f;
 
 	private CMBucket<K>[] buckets;
 	private int size;
 	private float loadFactor;
 	private int version;
+	private final HashingStrategy<? super K> strategy;
 
 	public CaveManCMValueMap() {
 		this(DEFAULT_CAPACITY);
@@ -50,11 +56,26 @@ public class CaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
 		this(initialCapacity, DEFAULT_LOAD_FACTOR);
 	}
 
-	@SuppressWarnings("unchecked")
 	public CaveManCMValueMap(int initialCapacity, float loadingFactor) {
+		this(initialCapacity, loadingFactor, null);
+	}
+
+	/**
+	 * creates a map that hashes and compares its keys with a strategy, rather than with their own
+	 * hashCode and equals, such as HashingStrategies.BYTE_ARRAY for byte[] keys
+	 *
+	 * @param hashingStrategy the strategy for the keys, or null to use their hashCode and equals
+	 */
+	public CaveManCMValueMap(HashingStrategy<? super K> hashingStrategy) {
+		this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, hashingStrategy);
+	}
+
+	@SuppressWarnings("unchecked")
+	public CaveManCMValueMap(int initialCapacity, float loadingFactor, HashingStrategy<? super K> hashingStrategy) {
 		loadFactor = loadingFactor;
 		size = 0;
-		buckets = new CMBucket[initialCapacity];
+		buckets = new CMBucket[tableSizeFor(initialCapacity)];
+		strategy = hashingStrategy;
 	}
 
 	@Override
@@ -69,13 +90,13 @@ public class CaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
 
 	@Override
 	public boolean containsKey(K key) {
-		int hash = Math.abs((key == null) ? 0 : (key.hashCode() % buckets.length));
+		int hash = hashOf(key) & (buckets.length - 1);
 		CMBucket<K> b = buckets[hash];
 
 		if (b == null)
 			return false;
 
-		return b.indexOf(key) >= 0;
+		return b.indexOf(key, strategy) >= 0;
 	}
 
 	@Override
@@ -95,11 +116,11 @@ public class CaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
 
 	@Override
 	public CM get(K key, CM notFoundValue) {
-		int hash = Math.abs((key == null) ? 0 : (key.hashCode() % buckets.length));
+		int hash = hashOf(key) & (buckets.length - 1);
 		CMBucket<K> b = buckets[hash];
 
 		if (b != null) {
-			return b.get(key, notFoundValue);
+			return b.get(key, strategy, notFoundValue);
 		}
 
 		return notFoundValue;
@@ -112,7 +133,7 @@ public class CaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
 		ensureSize(size + 1);
 
 
-		int hash = Math.abs((key == null) ? 0 : (key.hashCode() % buckets.length));
+		int hash = hashOf(key) & (buckets.length - 1);
 		CMBucket<K> b = buckets[hash];
 
 		if (b == null) {
@@ -120,7 +141,7 @@ public class CaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
 			buckets[hash] = b;
 		}
 
-		if (b.add(key, value)) {
+		if (b.add(key, value, strategy)) {
 			++size;
 		}
 	}
@@ -129,11 +150,11 @@ public class CaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
 	public void remove(K key) {
 		++version;
 
-		int hash = Math.abs((key == null) ? 0 : (key.hashCode() % buckets.length));
+		int hash = hashOf(key) & (buckets.length - 1);
 		CMBucket<K> b = buckets[hash];
 
 		if (b != null) {
-			if (b.remove(key)) {
+			if (b.remove(key, strategy)) {
 				--size;
 			}
 		}
@@ -170,6 +191,22 @@ public class CaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
 		return new CaveManCMValueMapIterator(version);
 	}
 
+	@Override
+	public void forEach(ObjectCMConsumer<K> consumer) {
+		int startVersion = version;
+		for (CMBucket<K> b : buckets) {
+			if (b != null) {
+				for (int i = 0; i < b.bucketSize; i++) {
+					consumer.accept(b.keys[i], b.values[i]);
+				}
+			}
+		}
+
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during forEach");
+		}
+	}
+
 	@Override
 	public Set<K> keySet() {
 		return new CaveManCMValueKeySet();
@@ -180,36 +217,162 @@ public class CaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
 		return new CaveManCMValuesBag();
 	}
 
+	@Override
+	public boolean putIfAbsent(K key, CM value) {
+		int hash = hashOf(key);
+		CMBucket<K> b = buckets[hash & (buckets.length - 1)];
+		if ((b != null) && (b.indexOf(key, strategy) >= 0)) {
+			return false;
+		}
+
+		insertAbsent(key, hash, value);
+		return true;
+	}
+
+	@Override
+	public boolean replace(K key, CM value) {
+		CMBucket<K> b = buckets[hashOf(key) & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key, strategy);
+		if (index < 0) {
+			return false;
+		}
+
+		++version;
+		b.values[index] = value;
+		return true;
+	}
+
+	@Override
+	public boolean replace(K key, CM oldValue, CM newValue) {
+		CMBucket<K> b = buckets[hashOf(key) & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key, strategy);
+		if ((index < 0) || (b.values[index] != oldValue)) {
+			return false;
+		}
+
+		++version;
+		b.values[index] = newValue;
+		return true;
+	}
+
+	@Override
+	public CM computeIfAbsent(K key, ObjectCMFunction<? super K> mappingFunction) {
+		int hash = hashOf(key);
+		CMBucket<K> b = buckets[hash & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key, strategy);
+		if (index >= 0) {
+			return b.values[index];
+		}
+
+		int startVersion = version;
+		CM value = mappingFunction.applyAsCM(key);
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during computeIfAbsent");
+		}
+
+		insertAbsent(key, hash, value);
+		return value;
+	}
+
+	@Override
+	public CM merge(K key, CM value, CMBinaryOperator remappingFunction) {
+		int hash = hashOf(key);
+		CMBucket<K> b = buckets[hash & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key, strategy);
+		if (index < 0) {
+			insertAbsent(key, hash, value);
+			return value;
+		}
+
+		int startVersion = version;
+		CM newValue = remappingFunction.applyAsCM(b.values[index], value);
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during merge");
+		}
+
+		++version;
+		b.values[index] = newValue;
+		return newValue;
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public CM addTo(K key, CM delta) {
+		int hash = hashOf(key);
+		CMBucket<K> b = buckets[hash & (buckets.length - 1)];
+		int index = (b == null) ? -1 : b.indexOf(key, strategy);
+		if (index < 0) {
+			CM zero = toCaveMan(0);
+			insertAbsent(key, hash, addCaveMan(zero, delta));
+			return zero;
+		}
+
+		++version;
+		CM oldValue = b.values[index];
+		b.values[index] = addCaveMan(oldValue, delta);
+		return oldValue;
+	}
+
+	/**
+	 * returns the spread hash of a key, so that it is computed once however many times the key's
+	 * bucket is looked up, as calling hashCode on some keys is costly
+	 */
+	private int hashOf(K key) {
+		if (key == null) {
+			return 0;
+		}
+		return CaveManCMHash.mix((strategy == null) ? key.hashCode() : strategy.hashCode(key));
+	}
+
+	/**
+	 * returns whether a key matches a key held by the map, with the strategy if there is one.
+	 * A null key only matches itself, so a strategy never sees null
+	 */
+	private static <K> boolean keysEqual(HashingStrategy<? super K> strategy, K key, K storedKey) {
+		if ((key == null) || (storedKey == null)) {
+			return key == storedKey;
+		}
+		return (strategy == null) ? key.equals(storedKey) : strategy.equals(key, storedKey);
+	}
+
+	/**
+	 * adds a key that is known to be absent, reusing the hash that the caller looked it up with
+	 */
+	private void insertAbsent(K key, int hash, CM value) {
+		++version;
+
+		ensureSize(size + 1);
+
+		int index = hash & (buckets.length - 1);
+		CMBucket<K> b = buckets[index];
+		if (b == null) {
+			b = new CMBucket<K>();
+			buckets[index] = b;
+		}
+
+		b.append(key, value);
+		++size;
+	}
+
 	@SuppressWarnings("unchecked")
 	private void ensureSize(int newSize) {
 		if ((newSize / (double) buckets.length) > loadFactor) {
-			int newBucketSize = (int) (2.0 * newSize);
+			int newBucketSize = tableSizeFor((int) (2.0 * newSize));
 			CMBucket<K>[] newBuckets = new CMBucket[newBucketSize];
 
 			for (CMBucket<K> oldBucket : buckets) {
 				if (oldBucket != null) {
 					int oldBucketSize = oldBucket.bucketSize;
-					CMBucket<K> reusableBucket = oldBucket;
-					boolean reusedBucket = false;
 					for (int oldBucketIndex = 0; oldBucketIndex < oldBucketSize; ++oldBucketIndex) {
 						K key = oldBucket.keys[oldBucketIndex];
-						int hash = Math.abs((key == null) ? 0 : (key.hashCode() % buckets.length));
+						int hash = hashOf(key) & (newBuckets.length - 1);
 						CMBucket<K> newBucket = newBuckets[hash];
 						if (newBucket == null) {
-							if (reusableBucket != null) {
-								newBuckets[hash] = reusableBucket;
-								reusableBucket.bucketSize = 1;
-								reusedBucket = true;
-							} else {
-								newBucket = new CMBucket<K>();
-								newBuckets[hash] = newBucket;
-							}
+							newBucket = new CMBucket<K>();
+							newBuckets[hash] = newBucket;
 						}
-						reusableBucket = null;
 
-						if (!reusedBucket) {
-							newBucket.add(key, oldBucket.values[oldBucketIndex]);
-						}
+						newBucket.append(key, oldBucket.values[oldBucketIndex]);
 					}
 				}
 			}
@@ -217,6 +380,10 @@ public class CaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
 		}
 	}
 
+	private static int tableSizeFor(int capacity) {
+		return (capacity <= 1) ? 1 : (Integer.highestOneBit(capacity - 1) << 1);
+	}
+
 	private static class CMBucket<K> implements Serializable {
         private static final long serialVersionUID = -8946557186111832432L;
         
@@ -225,13 +392,18 @@ public class CaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
 		CM[] values = new CM[2];
 		int bucketSize;
 
-		public boolean add(K key, CM value) {
-			int existingIndex = indexOf(key);
+		public boolean add(K key, CM value, HashingStrategy<? super K> strategy) {
+			int existingIndex = indexOf(key, strategy);
 			if (existingIndex >= 0) {
 				values[existingIndex] = value;
 				return false;
 			}
 
+			append(key, value);
+			return true;
+		}
+
+		public void append(K key, CM value) {
 			if (bucketSize >= keys.length) {
 				@SuppressWarnings("unchecked")
 				K[] newKeys = (K[])new Object[keys.length + 4];
@@ -244,13 +416,11 @@ public class CaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
 
 			keys[bucketSize] = key;
 			values[bucketSize++] = value;
-
-			return true;
 		}
 
-		public boolean remove(K key) {
+		public boolean remove(K key, HashingStrategy<? super K> strategy) {
 			for (int i = 0; i < bucketSize; i++) {
-				if (((key == null) && (keys[i] == null)) || ((key != null) && key.equals(keys[i]))) {
+				if (keysEqual(strategy, key, keys[i])) {
 					--bucketSize;
 					System.arraycopy(keys, i + 1, keys, i, bucketSize - i);
 					System.arraycopy(values, i + 1, values, i, bucketSize - i);
@@ -273,9 +443,9 @@ public class CaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
 			return removeCount;
 		}
 
-		public int indexOf(K key) {
+		public int indexOf(K key, HashingStrategy<? super K> strategy) {
 			for (int i = 0; i < bucketSize; i++) {
-				if (((key == null) && (keys[i] == null)) || ((key != null) && key.equals(keys[i]))) {
+				if (keysEqual(strategy, key, keys[i])) {
 					return i;
 				}
 			}
@@ -283,9 +453,9 @@ public class CaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
 			return -1;
 		}
 
-		public CM get(K key, CM notFoundValue) {
+		public CM get(K key, HashingStrategy<? super K> strategy, CM notFoundValue) {
 			for (int i = 0; i < bucketSize; i++) {
-				if (((key == null) && (keys[i] == null)) || ((key != null) && key.equals(keys[i]))) {
+				if (keysEqual(strategy, key, keys[i])) {
 					return values[i];
 				}
 			}
@@ -735,4 +905,9 @@ public class CaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
 			}
 		}
 	}
+
+
+
+	private static CM toCaveMan(int i) {return null;}
+	private static CM addCaveMan(CM a, CM b) {return null;}
 }
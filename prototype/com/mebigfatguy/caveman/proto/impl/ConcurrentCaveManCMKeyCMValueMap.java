@@ -0,0 +1,976 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+import com.mebigfatguy.caveman.proto.CMKeyCMValueConsumer;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueFunction;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMapIterator;
+import com.mebigfatguy.caveman.proto.ConcurrentCMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMKeyCollection;
+import com.mebigfatguy.caveman.proto.aux.CMKeyIterator;
+import com.mebigfatguy.caveman.proto.aux.CMKeySet;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.CMValueBag;
+import com.mebigfatguy.caveman.proto.aux.CMValueBinaryOperator;
+import com.mebigfatguy.caveman.proto.aux.CMValueCollection;
+import com.mebigfatguy.caveman.proto.aux.CMValueIterator;
+import com.mebigfatguy.caveman.proto.aux.OnlyForValue;
+
+/**
+ * A thread safe CMKeyCMValueMap, that splits its entries by key hash across a fixed number of
+ * segments. Each segment is an open addressed table guarded by its own lock, so writers only
+ * contend when they hit the same segment. Reads take no lock: they read the segment's volatile
+ * published table under an optimistic stamp, and only retry under the read lock if a writer
+ * changed the segment in the meantime. Iterators, forEach and the key set and values views are
+ * weakly consistent: they copy each segment as they reach it, and never throw
+ * ConcurrentModificationException.
+ */
+public class ConcurrentCaveManCMKeyCMValueMap implements ConcurrentCMKeyCMValueMap, Serializable {
+	private static final long serialVersionUID = -5412067326349902317L;
+	public static final CMValue DEFAULT_NOT_FOUND_VALUE = toCaveManValue(0);
+	private static final int DEFAULT_CAPACITY = 32;
+	private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+	private static final float DEFAULT_LOAD_FACTOR = 0.65f;
+	private static final int MAXIMUM_SEGMENTS = 1 << 16;
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	private static final byte FREE = 0;
+	private static final byte FULL = 1;
+	private static final byte REMOVED = 2;
+
+	private final CMValue notFound;
+	private final float loadFactor;
+	private final int segmentShift;
+	private final int segmentMask;
+	private transient Segment[] segments;
+
+	public ConcurrentCaveManCMKeyCMValueMap() {
+		this(DEFAULT_NOT_FOUND_VALUE, DEFAULT_CAPACITY, DEFAULT_CONCURRENCY_LEVEL);
+	}
+
+	public ConcurrentCaveManCMKeyCMValueMap(CMValue notFoundValue, int initialCapacity, int concurrencyLevel) {
+		this(notFoundValue, initialCapacity, concurrencyLevel, DEFAULT_LOAD_FACTOR);
+	}
+
+	public ConcurrentCaveManCMKeyCMValueMap(CMValue notFoundValue, int initialCapacity, int concurrencyLevel, float loadingFactor) {
+		if ((loadingFactor <= 0.0f) || (loadingFactor >= 1.0f)) {
+			throw new IllegalArgumentException("Load factor: " + loadingFactor + " is out of bounds (0.0, 1.0)");
+		}
+
+		notFound = notFoundValue;
+		loadFactor = loadingFactor;
+
+		int segmentBits = 0;
+		while (((1 << segmentBits) < concurrencyLevel) && ((1 << segmentBits) < MAXIMUM_SEGMENTS)) {
+			++segmentBits;
+		}
+		segmentShift = 32 - segmentBits;
+		segmentMask = (1 << segmentBits) - 1;
+
+		allocateSegments(initialCapacity);
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.count;
+		}
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		for (Segment segment : segments) {
+			if (segment.count != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean containsKey(CMKey key) {
+		int hash = hashCaveManKey(key);
+		Segment segment = segmentFor(hash);
+		long stamp = segment.lock.tryOptimisticRead();
+		boolean found = segment.table.find(key, hash) >= 0;
+		if (!segment.lock.validate(stamp)) {
+			stamp = segment.lock.readLock();
+			try {
+				found = segment.table.find(key, hash) >= 0;
+			} finally {
+				segment.lock.unlockRead(stamp);
+			}
+		}
+
+		return found;
+	}
+
+	@Override
+	public boolean containsValue(CMValue value) {
+		for (Segment segment : segments) {
+			long stamp = segment.lock.readLock();
+			try {
+				Table table = segment.table;
+				for (int i = 0; i < table.states.length; i++) {
+					if ((table.states[i] == FULL) && (table.values[i] == value)) {
+						return true;
+					}
+				}
+			} finally {
+				segment.lock.unlockRead(stamp);
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public CMValue get(CMKey key) {
+		int hash = hashCaveManKey(key);
+		Segment segment = segmentFor(hash);
+		long stamp = segment.lock.tryOptimisticRead();
+		CMValue value = segment.table.get(key, hash, notFound);
+		if (!segment.lock.validate(stamp)) {
+			stamp = segment.lock.readLock();
+			try {
+				value = segment.table.get(key, hash, notFound);
+			} finally {
+				segment.lock.unlockRead(stamp);
+			}
+		}
+
+		return value;
+	}
+
+	@Override
+	public void put(CMKey key, CMValue value) {
+		int hash = hashCaveManKey(key);
+		Segment segment = segmentFor(hash);
+		long stamp = segment.lock.writeLock();
+		try {
+			int slot = segment.table.find(key, hash);
+			if (slot >= 0) {
+				segment.table.values[slot] = value;
+			} else {
+				segment.insert(key, hash, value);
+			}
+		} finally {
+			segment.lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public CMValue putIfAbsent(CMKey key, CMValue value) {
+		int hash = hashCaveManKey(key);
+		Segment segment = segmentFor(hash);
+		long stamp = segment.lock.writeLock();
+		try {
+			int slot = segment.table.find(key, hash);
+			if (slot >= 0) {
+				return segment.table.values[slot];
+			}
+
+			segment.insert(key, hash, value);
+			return notFound;
+		} finally {
+			segment.lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public CMValue replace(CMKey key, CMValue value) {
+		int hash = hashCaveManKey(key);
+		Segment segment = segmentFor(hash);
+		long stamp = segment.lock.writeLock();
+		try {
+			int slot = segment.table.find(key, hash);
+			if (slot < 0) {
+				return notFound;
+			}
+
+			CMValue oldValue = segment.table.values[slot];
+			segment.table.values[slot] = value;
+			return oldValue;
+		} finally {
+			segment.lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public boolean replace(CMKey key, CMValue oldValue, CMValue newValue) {
+		int hash = hashCaveManKey(key);
+		Segment segment = segmentFor(hash);
+		long stamp = segment.lock.writeLock();
+		try {
+			int slot = segment.table.find(key, hash);
+			if ((slot < 0) || (segment.table.values[slot] != oldValue)) {
+				return false;
+			}
+
+			segment.table.values[slot] = newValue;
+			return true;
+		} finally {
+			segment.lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public CMValue getOrDefault(CMKey key, CMValue defaultValue) {
+		int hash = hashCaveManKey(key);
+		Segment segment = segmentFor(hash);
+		long stamp = segment.lock.tryOptimisticRead();
+		CMValue value = segment.table.get(key, hash, defaultValue);
+		if (!segment.lock.validate(stamp)) {
+			stamp = segment.lock.readLock();
+			try {
+				value = segment.table.get(key, hash, defaultValue);
+			} finally {
+				segment.lock.unlockRead(stamp);
+			}
+		}
+
+		return value;
+	}
+
+	@Override
+	public CMValue computeIfAbsent(CMKey key, CMKeyCMValueFunction mappingFunction) {
+		int hash = hashCaveManKey(key);
+		Segment segment = segmentFor(hash);
+		long stamp = segment.lock.writeLock();
+		try {
+			int slot = segment.table.find(key, hash);
+			if (slot >= 0) {
+				return segment.table.values[slot];
+			}
+
+			CMValue value = mappingFunction.applyAsCMValue(key);
+			segment.insert(key, hash, value);
+			return value;
+		} finally {
+			segment.lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public CMValue merge(CMKey key, CMValue value, CMValueBinaryOperator remappingFunction) {
+		int hash = hashCaveManKey(key);
+		Segment segment = segmentFor(hash);
+		long stamp = segment.lock.writeLock();
+		try {
+			int slot = segment.table.find(key, hash);
+			if (slot < 0) {
+				segment.insert(key, hash, value);
+				return value;
+			}
+
+			CMValue newValue = remappingFunction.applyAsCMValue(segment.table.values[slot], value);
+			segment.table.values[slot] = newValue;
+			return newValue;
+		} finally {
+			segment.lock.unlockWrite(stamp);
+		}
+	}
+
+	@OnlyForValue({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public CMValue addTo(CMKey key, CMValue delta) {
+		int hash = hashCaveManKey(key);
+		Segment segment = segmentFor(hash);
+		long stamp = segment.lock.writeLock();
+		try {
+			int slot = segment.table.find(key, hash);
+			if (slot < 0) {
+				segment.insert(key, hash, addCaveManValues(notFound, delta));
+				return notFound;
+			}
+
+			CMValue oldValue = segment.table.values[slot];
+			segment.table.values[slot] = addCaveManValues(oldValue, delta);
+			return oldValue;
+		} finally {
+			segment.lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public void remove(CMKey key) {
+		removeEntry(key);
+	}
+
+	@Override
+	public void putAll(CMKeyCMValueMap m) {
+		CMKeyCMValueMapIterator iterator = m.iterator();
+
+		while (iterator.hasNext()) {
+			iterator.next();
+			put(iterator.key(), iterator.value());
+		}
+	}
+
+	@Override
+	public void clear() {
+		for (Segment segment : segments) {
+			long stamp = segment.lock.writeLock();
+			try {
+				segment.clear();
+			} finally {
+				segment.lock.unlockWrite(stamp);
+			}
+		}
+	}
+
+	@Override
+	public CMKeyCMValueMapIterator iterator() {
+		return new ConcurrentCaveManCMKeyCMValueMapIterator();
+	}
+
+	@Override
+	public void forEach(CMKeyCMValueConsumer consumer) {
+		for (Segment segment : segments) {
+			Table table = segment.snapshot();
+			for (int i = 0; i < table.states.length; i++) {
+				if (table.states[i] == FULL) {
+					consumer.accept(table.keys[i], table.values[i]);
+				}
+			}
+		}
+	}
+
+	@Override
+	public CMKeySet keySet() {
+		return new ConcurrentCaveManCMKeyCMValueKeySet();
+	}
+
+	@Override
+	public CMValueBag values() {
+		return new ConcurrentCaveManCMKeyCMValueValuesBag();
+	}
+
+	private Segment segmentFor(int hash) {
+		return segments[(hash >>> segmentShift) & segmentMask];
+	}
+
+	private boolean removeEntry(CMKey key) {
+		int hash = hashCaveManKey(key);
+		Segment segment = segmentFor(hash);
+		long stamp = segment.lock.writeLock();
+		try {
+			int slot = segment.table.find(key, hash);
+			if (slot < 0) {
+				return false;
+			}
+
+			segment.removeSlot(slot);
+			return true;
+		} finally {
+			segment.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * removes the key only if it is still associated with the value, so that the views don't remove
+	 * an entry whose value another thread has just changed
+	 */
+	private boolean removeEntry(CMKey key, CMValue value) {
+		int hash = hashCaveManKey(key);
+		Segment segment = segmentFor(hash);
+		long stamp = segment.lock.writeLock();
+		try {
+			int slot = segment.table.find(key, hash);
+			if ((slot < 0) || (segment.table.values[slot] != value)) {
+				return false;
+			}
+
+			segment.removeSlot(slot);
+			return true;
+		} finally {
+			segment.lock.unlockWrite(stamp);
+		}
+	}
+
+	private void allocateSegments(int initialCapacity) {
+		segments = new Segment[segmentMask + 1];
+		int segmentCapacity = 2;
+		while (((segmentCapacity * segments.length) < initialCapacity) && (segmentCapacity < MAXIMUM_CAPACITY)) {
+			segmentCapacity <<= 1;
+		}
+
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new Segment(segmentCapacity, loadFactor);
+		}
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		for (Segment segment : segments) {
+			Table table = segment.snapshot();
+			out.writeObject(table.keys);
+			out.writeObject(table.values);
+			out.writeObject(table.states);
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		allocateSegments(DEFAULT_CAPACITY);
+		for (int s = 0; s < segments.length; s++) {
+			CMKey[] segmentKeys = (CMKey[]) in.readObject();
+			CMValue[] segmentValues = (CMValue[]) in.readObject();
+			byte[] segmentStates = (byte[]) in.readObject();
+			for (int i = 0; i < segmentStates.length; i++) {
+				if (segmentStates[i] == FULL) {
+					put(segmentKeys[i], segmentValues[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * one independently locked part of the map. The table is only modified under the write lock,
+	 * and is replaced, rather than modified, when it grows, so that lock free readers always see
+	 * a table whose arrays are consistent in length.
+	 */
+	private static final class Segment {
+		final StampedLock lock;
+		final float loadFactor;
+		volatile Table table;
+		volatile int count;
+		int usedSlots;
+
+		Segment(int capacity, float loadingFactor) {
+			lock = new StampedLock();
+			loadFactor = loadingFactor;
+			table = new Table(capacity);
+			count = 0;
+			usedSlots = 0;
+		}
+
+		void insert(CMKey key, int hash, CMValue value) {
+			ensureSize(count + 1);
+
+			Table t = table;
+			int mask = t.states.length - 1;
+			int slot = hash & mask;
+			while (t.states[slot] == FULL) {
+				slot = (slot + 1) & mask;
+			}
+
+			if (t.states[slot] == FREE) {
+				++usedSlots;
+			}
+			t.keys[slot] = key;
+			t.values[slot] = value;
+			t.states[slot] = FULL;
+			count = count + 1;
+		}
+
+		void removeSlot(int slot) {
+			Table t = table;
+			// a slot followed by a free slot can't be in the middle of a probe sequence, so needs no tombstone
+			if (t.states[(slot + 1) & (t.states.length - 1)] == FREE) {
+				t.states[slot] = FREE;
+				--usedSlots;
+			} else {
+				t.states[slot] = REMOVED;
+			}
+			count = count - 1;
+		}
+
+		void clear() {
+			Arrays.fill(table.states, FREE);
+			count = 0;
+			usedSlots = 0;
+		}
+
+		Table snapshot() {
+			long stamp = lock.readLock();
+			try {
+				return new Table(table);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		private void ensureSize(int newSize) {
+			Table t = table;
+			int capacity = t.states.length;
+			if ((Math.max(newSize, usedSlots + 1) > (capacity * loadFactor)) && (capacity < MAXIMUM_CAPACITY)) {
+				while ((newSize > (capacity * loadFactor)) && (capacity < MAXIMUM_CAPACITY)) {
+					capacity <<= 1;
+				}
+
+				Table newTable = new Table(capacity);
+				int mask = capacity - 1;
+				for (int i = 0; i < t.states.length; i++) {
+					if (t.states[i] == FULL) {
+						int slot = hashCaveManKey(t.keys[i]) & mask;
+						while (newTable.states[slot] != FREE) {
+							slot = (slot + 1) & mask;
+						}
+						newTable.keys[slot] = t.keys[i];
+						newTable.values[slot] = t.values[i];
+						newTable.states[slot] = FULL;
+					}
+				}
+				usedSlots = count;
+				table = newTable;
+			}
+		}
+	}
+
+	private static final class Table {
+		final CMKey[] keys;
+		final CMValue[] values;
+		final byte[] states;
+
+		Table(int capacity) {
+			keys = new CMKey[capacity];
+			values = new CMValue[capacity];
+			states = new byte[capacity];
+		}
+
+		Table(Table t) {
+			keys = t.keys.clone();
+			values = t.values.clone();
+			states = t.states.clone();
+		}
+
+		/**
+		 * returns the slot holding the key, or -1. The probe is bounded by the table length, as a lock free
+		 * reader may be looking at a table that a writer is changing, and so may never see a free slot.
+		 */
+		int find(CMKey key, int hash) {
+			int mask = states.length - 1;
+			int slot = hash & mask;
+			for (int probes = 0; probes <= mask; probes++) {
+				byte state = states[slot];
+				if (state == FREE) {
+					return -1;
+				}
+				if ((state == FULL) && (keys[slot] == key)) {
+					return slot;
+				}
+				slot = (slot + 1) & mask;
+			}
+
+			return -1;
+		}
+
+		CMValue get(CMKey key, int hash, CMValue notFoundValue) {
+			int slot = find(key, hash);
+			return (slot >= 0) ? values[slot] : notFoundValue;
+		}
+	}
+
+	private class ConcurrentCaveManCMKeyCMValueMapIterator implements CMKeyCMValueMapIterator {
+
+		private int segmentIndex;
+		private Table table;
+		private int nextSlot;
+		private boolean hasCurrent;
+		private CMKey key;
+		private CMValue value;
+
+		ConcurrentCaveManCMKeyCMValueMapIterator() {
+			segmentIndex = -1;
+			table = null;
+			nextSlot = 0;
+			hasCurrent = false;
+			advance();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return table != null;
+		}
+
+		@Override
+		public void next() throws NoSuchElementException {
+			if (table == null) {
+				throw new NoSuchElementException("Iterator has been exhausted");
+			}
+
+			key = table.keys[nextSlot];
+			value = table.values[nextSlot];
+			hasCurrent = true;
+			++nextSlot;
+			advance();
+		}
+
+		@Override
+		public CMKey key() {
+			return key;
+		}
+
+		@Override
+		public CMValue value() {
+			return value;
+		}
+
+		@Override
+		public void remove() {
+			if (!hasCurrent) {
+				throw new IllegalStateException("next() has not been called since the last remove");
+			}
+
+			removeEntry(key);
+			hasCurrent = false;
+		}
+
+		/**
+		 * moves nextSlot to the next full slot, copying the following segments until one has an entry
+		 */
+		private void advance() {
+			while (true) {
+				if (table != null) {
+					while ((nextSlot < table.states.length) && (table.states[nextSlot] != FULL)) {
+						++nextSlot;
+					}
+					if (nextSlot < table.states.length) {
+						return;
+					}
+				}
+
+				if (++segmentIndex >= segments.length) {
+					table = null;
+					return;
+				}
+				table = segments[segmentIndex].snapshot();
+				nextSlot = 0;
+			}
+		}
+	}
+
+	private class ConcurrentCaveManCMKeyCMValueKeySet implements CMKeySet {
+
+		@Override
+		public int size() {
+			return ConcurrentCaveManCMKeyCMValueMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return ConcurrentCaveManCMKeyCMValueMap.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(CMKey item) {
+			return ConcurrentCaveManCMKeyCMValueMap.this.containsKey(item);
+		}
+
+		@Override
+		public CMKeyIterator iterator() {
+			return new ConcurrentCaveManCMKeyCMValueKeySetIterator();
+		}
+
+		@Override
+		public CMKey[] toArray() {
+			CMKey[] data = new CMKey[size()];
+
+			int pos = 0;
+			CMKeyCMValueMapIterator it = ConcurrentCaveManCMKeyCMValueMap.this.iterator();
+			while (it.hasNext()) {
+				it.next();
+				if (pos == data.length) {
+					data = Arrays.copyOf(data, (pos * 2) + 1);
+				}
+				data[pos++] = it.key();
+			}
+
+			return (pos == data.length) ? data : Arrays.copyOf(data, pos);
+		}
+
+		@Override
+		public boolean add(CMKey item) {
+			throw new UnsupportedOperationException("add is not supported from the key set of a ConcurrentCaveManCMKeyCMValueMap as there's no obvious value");
+		}
+
+		@Override
+		public boolean remove(CMKey item) {
+			return removeEntry(item);
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentCaveManCMKeyCMValueMap.this.clear();
+		}
+
+		@Override
+		public boolean containsAll(CMKeyCollection c) {
+			CMKeyIterator it = c.iterator();
+			while (it.hasNext()) {
+				if (!ConcurrentCaveManCMKeyCMValueMap.this.containsKey(it.next())) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		@Override
+		public boolean addAll(CMKeyCollection c) {
+			throw new UnsupportedOperationException("addAll is not supported from the key set of a ConcurrentCaveManCMKeyCMValueMap as there's no obvious values");
+		}
+
+		@Override
+		public boolean retainAll(CMKeyCollection c) {
+			boolean modified = false;
+
+			CMKeyCMValueMapIterator it = ConcurrentCaveManCMKeyCMValueMap.this.iterator();
+			while (it.hasNext()) {
+				it.next();
+				if (!c.contains(it.key())) {
+					modified |= removeEntry(it.key());
+				}
+			}
+
+			return modified;
+		}
+
+		@Override
+		public boolean removeAll(CMKeyCollection c) {
+			boolean modified = false;
+
+			CMKeyIterator it = c.iterator();
+			while (it.hasNext()) {
+				modified |= removeEntry(it.next());
+			}
+
+			return modified;
+		}
+
+		@Override
+		public CMKey getOne() {
+			CMKeyCMValueMapIterator it = ConcurrentCaveManCMKeyCMValueMap.this.iterator();
+			if (it.hasNext()) {
+				it.next();
+				return it.key();
+			}
+
+			throw new IllegalStateException("map key set has no items");
+		}
+
+		private class ConcurrentCaveManCMKeyCMValueKeySetIterator implements CMKeyIterator {
+
+			private final CMKeyCMValueMapIterator iterator = ConcurrentCaveManCMKeyCMValueMap.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public CMKey next() throws NoSuchElementException {
+				iterator.next();
+				return iterator.key();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+			}
+		}
+	}
+
+	private class ConcurrentCaveManCMKeyCMValueValuesBag implements CMValueBag {
+
+		@Override
+		public int size() {
+			return ConcurrentCaveManCMKeyCMValueMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return ConcurrentCaveManCMKeyCMValueMap.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(CMValue item) {
+			return ConcurrentCaveManCMKeyCMValueMap.this.containsValue(item);
+		}
+
+		@Override
+		public CMValueIterator iterator() {
+			return new ConcurrentCaveManCMKeyCMValueValuesBagIterator();
+		}
+
+		@Override
+		public CMValue[] toArray() {
+			CMValue[] data = new CMValue[size()];
+
+			int pos = 0;
+			CMKeyCMValueMapIterator it = ConcurrentCaveManCMKeyCMValueMap.this.iterator();
+			while (it.hasNext()) {
+				it.next();
+				if (pos == data.length) {
+					data = Arrays.copyOf(data, (pos * 2) + 1);
+				}
+				data[pos++] = it.value();
+			}
+
+			return (pos == data.length) ? data : Arrays.copyOf(data, pos);
+		}
+
+		@Override
+		public boolean add(CMValue item) {
+			throw new UnsupportedOperationException("add is not supported from the values bag of a ConcurrentCaveManCMKeyCMValueMap as there's no obvious key");
+		}
+
+		@Override
+		public boolean remove(CMValue item) {
+			boolean modified = false;
+
+			CMKeyCMValueMapIterator it = ConcurrentCaveManCMKeyCMValueMap.this.iterator();
+			while (it.hasNext()) {
+				it.next();
+				if (it.value() == item) {
+					modified |= removeEntry(it.key(), item);
+				}
+			}
+
+			return modified;
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentCaveManCMKeyCMValueMap.this.clear();
+		}
+
+		@Override
+		public boolean containsAll(CMValueCollection c) {
+			CMValueIterator it = c.iterator();
+			while (it.hasNext()) {
+				if (!ConcurrentCaveManCMKeyCMValueMap.this.containsValue(it.next())) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		@Override
+		public boolean addAll(CMValueCollection c) {
+			throw new UnsupportedOperationException("addAll is not supported from the values bag of a ConcurrentCaveManCMKeyCMValueMap as there's no obvious keys");
+		}
+
+		@Override
+		public boolean retainAll(CMValueCollection c) {
+			boolean modified = false;
+
+			CMKeyCMValueMapIterator it = ConcurrentCaveManCMKeyCMValueMap.this.iterator();
+			while (it.hasNext()) {
+				it.next();
+				if (!c.contains(it.value())) {
+					modified |= removeEntry(it.key(), it.value());
+				}
+			}
+
+			return modified;
+		}
+
+		@Override
+		public boolean removeAll(CMValueCollection c) {
+			boolean modified = false;
+
+			CMValueIterator it = c.iterator();
+			while (it.hasNext()) {
+				modified |= remove(it.next());
+			}
+
+			return modified;
+		}
+
+		@Override
+		public boolean removeOne(CMValue item) {
+			CMKeyCMValueMapIterator it = ConcurrentCaveManCMKeyCMValueMap.this.iterator();
+			while (it.hasNext()) {
+				it.next();
+				if ((it.value() == item) && removeEntry(it.key(), item)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public int countOf(CMValue item) {
+			int count = 0;
+
+			CMKeyCMValueMapIterator it = ConcurrentCaveManCMKeyCMValueMap.this.iterator();
+			while (it.hasNext()) {
+				it.next();
+				if (it.value() == item) {
+					++count;
+				}
+			}
+
+			return count;
+		}
+
+		@Override
+		public CMValue getOne() {
+			CMKeyCMValueMapIterator it = ConcurrentCaveManCMKeyCMValueMap.this.iterator();
+			if (it.hasNext()) {
+				it.next();
+				return it.value();
+			}
+
+			throw new IllegalStateException("map value collection has no items");
+		}
+
+		private class ConcurrentCaveManCMKeyCMValueValuesBagIterator implements CMValueIterator {
+
+			private final CMKeyCMValueMapIterator iterator = ConcurrentCaveManCMKeyCMValueMap.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public CMValue next() throws NoSuchElementException {
+				iterator.next();
+				return iterator.value();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+			}
+		}
+	}
+
+
+
+	private static int hashCaveManKey(CMKey key) {return 0;}
+	private static CMValue toCaveManValue(int i) {return null;}
+	private static CMValue addCaveManValues(CMValue a, CMValue b) {return null;}
+}
@@ -0,0 +1,413 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+import com.mebigfatguy.caveman.proto.CMBag;
+import com.mebigfatguy.caveman.proto.CMCollection;
+import com.mebigfatguy.caveman.proto.CMConsumer;
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.aux.CM;
+
+/**
+ * A CMBag that stores each distinct <b>CM</b> only once, along with a count of how many copies
+ * of it are in the bag, so that memory use grows with the number of distinct items rather than
+ * the number of items added. Items are held in a flat open addressing table, and add, removeOne
+ * and countOf run in constant time.
+ */
+public class CountingCaveManCMBag implements CMBag, Serializable {
+	private static final long serialVersionUID = 4803517743093657728L;
+	private static final int DEFAULT_CAPACITY = 32;
+	private static final float DEFAULT_LOAD_FACTOR = 0.65f;
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	private static final int FREE = 0;
+	private static final int REMOVED = -1;
+
+	private CM[] items;
+	private int[] counts;
+	private int size;
+	private int distinctSize;
+	private int usedSlots;
+	private final float loadFactor;
+	private int version;
+
+	public CountingCaveManCMBag() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public CountingCaveManCMBag(int initialCapacity) {
+		this(initialCapacity, DEFAULT_LOAD_FACTOR);
+	}
+
+	public CountingCaveManCMBag(int initialCapacity, float loadingFactor) {
+		if ((loadingFactor <= 0.0f) || (loadingFactor >= 1.0f)) {
+			throw new IllegalArgumentException("Load factor: " + loadingFactor + " is out of bounds (0.0, 1.0)");
+		}
+
+		loadFactor = loadingFactor;
+		size = 0;
+		distinctSize = 0;
+		usedSlots = 0;
+		version = 0;
+
+		int capacity = 2;
+		while ((capacity < initialCapacity) && (capacity < MAXIMUM_CAPACITY)) {
+			capacity <<= 1;
+		}
+		items = new CM[capacity];
+		counts = new int[capacity];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean contains(CM item) {
+		return find(item) >= 0;
+	}
+
+	@Override
+	public CMIterator iterator() {
+		return new CountingCaveManCMBagIterator(version);
+	}
+
+	@Override
+	public void forEach(CMConsumer consumer) {
+		int startVersion = version;
+		for (int i = 0; i < counts.length; i++) {
+			for (int c = counts[i]; c > 0; c--) {
+				consumer.accept(items[i]);
+			}
+		}
+
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during forEach");
+		}
+	}
+
+	@Override
+	public CM[] toArray() {
+		CM[] array = new CM[size];
+		int index = 0;
+		for (int i = 0; i < counts.length; i++) {
+			for (int c = counts[i]; c > 0; c--) {
+				array[index++] = items[i];
+			}
+		}
+
+		return array;
+	}
+
+	@Override
+	public boolean add(CM item) {
+		++version;
+
+		addCopies(item, 1);
+		return true;
+	}
+
+	@Override
+	public boolean remove(CM item) {
+		++version;
+
+		int slot = find(item);
+		if (slot < 0) {
+			return false;
+		}
+
+		size -= counts[slot];
+		removeSlot(slot);
+		return true;
+	}
+
+	@Override
+	public boolean removeOne(CM item) {
+		++version;
+
+		int slot = find(item);
+		if (slot < 0) {
+			return false;
+		}
+
+		removeCopyAt(slot);
+		return true;
+	}
+
+	@Override
+	public int countOf(CM item) {
+		int slot = find(item);
+		if (slot < 0) {
+			return 0;
+		}
+
+		return counts[slot];
+	}
+
+	@Override
+	public boolean containsAll(CMCollection c) {
+		CMIterator it = c.iterator();
+		while (it.hasNext()) {
+			if (!contains(it.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean addAll(CMCollection c) {
+		++version;
+
+		int startSize = size;
+		if (c instanceof CountingCaveManCMBag) {
+			CountingCaveManCMBag bag = (CountingCaveManCMBag) c;
+			ensureSize(distinctSize + bag.distinctSize);
+			for (int i = 0; i < bag.counts.length; i++) {
+				if (bag.counts[i] > 0) {
+					addCopies(bag.items[i], bag.counts[i]);
+				}
+			}
+		} else {
+			CMIterator it = c.iterator();
+			while (it.hasNext()) {
+				addCopies(it.next(), 1);
+			}
+		}
+		return startSize != size;
+	}
+
+	@Override
+	public boolean retainAll(CMCollection c) {
+		++version;
+		int startSize = size;
+		for (int i = 0; i < counts.length; i++) {
+			if ((counts[i] > 0) && !c.contains(items[i])) {
+				size -= counts[i];
+				removeSlot(i);
+			}
+		}
+		return startSize != size;
+	}
+
+	@Override
+	public boolean removeAll(CMCollection c) {
+		++version;
+		int startSize = size;
+		CMIterator it = c.iterator();
+		while (it.hasNext()) {
+			int slot = find(it.next());
+			if (slot >= 0) {
+				size -= counts[slot];
+				removeSlot(slot);
+			}
+		}
+		return startSize != size;
+	}
+
+	@Override
+	public void clear() {
+		++version;
+		Arrays.fill(counts, FREE);
+		size = 0;
+		distinctSize = 0;
+		usedSlots = 0;
+	}
+
+	@Override
+	public CM getOne() {
+		if (size > 0) {
+			return items[nextFullSlot(0)];
+		}
+
+		throw new IllegalStateException("bag has no items");
+	}
+
+	private int find(CM item) {
+		int mask = items.length - 1;
+		int slot = hashCaveMan(item) & mask;
+
+		while (counts[slot] != FREE) {
+			if ((counts[slot] > 0) && (items[slot] == item)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	private void addCopies(CM item, int copies) {
+		ensureSize(distinctSize + 1);
+
+		int mask = items.length - 1;
+		int slot = hashCaveMan(item) & mask;
+		int removedSlot = -1;
+
+		while (counts[slot] != FREE) {
+			if (counts[slot] > 0) {
+				if (items[slot] == item) {
+					counts[slot] += copies;
+					size += copies;
+					return;
+				}
+			} else if (removedSlot < 0) {
+				removedSlot = slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		if (removedSlot >= 0) {
+			slot = removedSlot;
+		} else {
+			++usedSlots;
+		}
+
+		items[slot] = item;
+		counts[slot] = copies;
+		size += copies;
+		++distinctSize;
+	}
+
+	private void removeCopyAt(int slot) {
+		--size;
+		if (--counts[slot] == 0) {
+			removeSlot(slot);
+		}
+	}
+
+	private void removeSlot(int slot) {
+		// a slot followed by a free slot can't be in the middle of a probe sequence, so needs no tombstone
+		if (counts[(slot + 1) & (items.length - 1)] == FREE) {
+			counts[slot] = FREE;
+			--usedSlots;
+		} else {
+			counts[slot] = REMOVED;
+		}
+		--distinctSize;
+	}
+
+	private void ensureSize(int newDistinctSize) {
+		if ((Math.max(newDistinctSize, usedSlots + 1) > (items.length * loadFactor)) && (items.length < MAXIMUM_CAPACITY)) {
+			int newCapacity = items.length;
+			while ((newDistinctSize > (newCapacity * loadFactor)) && (newCapacity < MAXIMUM_CAPACITY)) {
+				newCapacity <<= 1;
+			}
+
+			CM[] oldItems = items;
+			int[] oldCounts = counts;
+
+			items = new CM[newCapacity];
+			counts = new int[newCapacity];
+			int mask = newCapacity - 1;
+			for (int i = 0; i < oldCounts.length; i++) {
+				if (oldCounts[i] > 0) {
+					int slot = hashCaveMan(oldItems[i]) & mask;
+					while (counts[slot] != FREE) {
+						slot = (slot + 1) & mask;
+					}
+					items[slot] = oldItems[i];
+					counts[slot] = oldCounts[i];
+				}
+			}
+			usedSlots = distinctSize;
+		}
+	}
+
+	private int nextFullSlot(int slot) {
+		while ((slot < counts.length) && (counts[slot] <= 0)) {
+			++slot;
+		}
+		return slot;
+	}
+
+	private class CountingCaveManCMBagIterator implements CMIterator {
+
+		private int iteratorVersion;
+		private int slot;
+		private int remaining;
+		private int visitedSlot;
+
+		CountingCaveManCMBagIterator(int vers) {
+			iteratorVersion = vers;
+			slot = nextFullSlot(0);
+			remaining = (slot < counts.length) ? counts[slot] : 0;
+			visitedSlot = -1;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			return remaining > 0;
+		}
+
+		@Override
+		public CM next() throws NoSuchElementException {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			if (remaining <= 0) {
+				throw new NoSuchElementException("Iterator has been exhausted");
+			}
+
+			visitedSlot = slot;
+			CM item = items[slot];
+			if (--remaining == 0) {
+				slot = nextFullSlot(slot + 1);
+				remaining = (slot < counts.length) ? counts[slot] : 0;
+			}
+
+			return item;
+		}
+
+		@Override
+		public void remove() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			if (visitedSlot < 0) {
+				throw new IllegalStateException("next() has not been called since the last remove");
+			}
+
+			removeCopyAt(visitedSlot);
+			visitedSlot = -1;
+			++version;
+			++iteratorVersion;
+		}
+	}
+
+
+
+	private static int hashCaveMan(CM item) {return 0;}
+}
@@ -0,0 +1,709 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+import com.mebigfatguy.caveman.proto.CMKeyCMValueConsumer;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueFunction;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMapIterator;
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMKeyCollection;
+import com.mebigfatguy.caveman.proto.aux.CMKeyIterator;
+import com.mebigfatguy.caveman.proto.aux.CMKeySet;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.CMValueBag;
+import com.mebigfatguy.caveman.proto.aux.CMValueBinaryOperator;
+import com.mebigfatguy.caveman.proto.aux.CMValueCollection;
+import com.mebigfatguy.caveman.proto.aux.CMValueIterator;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+import com.mebigfatguy.caveman.proto.aux.OnlyForValue;
+
+/**
+ * A CMKeyCMValueMap for small <b>CMKey</b> domains, that holds a value slot for every possible
+ * <b>CMKey</b>, along with a bitmap of which keys are present. get and put are a single array
+ * index, with no hashing or probing. A map keyed by bytes holds 256 slots, and one keyed by
+ * shorts holds 65536.
+ */
+@OnlyFor({"byte", "short"})
+public class DirectCaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
+	private static final long serialVersionUID = 6419384712537605011L;
+	public static final CMValue DEFAULT_NOT_FOUND_VALUE = toCaveManValue(0);
+	private static final int DOMAIN_SIZE = 1 << cmKeyBits();
+	private static final int INDEX_MASK = DOMAIN_SIZE - 1;
+
+	private final CMValue notFound;
+	private final CMValue[] values;
+	private final long[] present;
+	private int size;
+	private int version;
+
+	public DirectCaveManCMKeyCMValueMap() {
+		this(DEFAULT_NOT_FOUND_VALUE);
+	}
+
+	public DirectCaveManCMKeyCMValueMap(CMValue notFoundValue) {
+		notFound = notFoundValue;
+		values = new CMValue[DOMAIN_SIZE];
+		present = new long[DOMAIN_SIZE >>> 6];
+		size = 0;
+		version = 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean containsKey(CMKey key) {
+		return isPresent(indexOf(key));
+	}
+
+	@Override
+	public boolean containsValue(CMValue value) {
+		for (int i = nextPresentIndex(0); i < DOMAIN_SIZE; i = nextPresentIndex(i + 1)) {
+			if (values[i] == value) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public CMValue get(CMKey key) {
+		int index = indexOf(key);
+		if (!isPresent(index)) {
+			return notFound;
+		}
+
+		return values[index];
+	}
+
+	@Override
+	public void put(CMKey key, CMValue value) {
+		++version;
+
+		int index = indexOf(key);
+		if (!isPresent(index)) {
+			present[index >>> 6] |= 1L << index;
+			++size;
+		}
+		values[index] = value;
+	}
+
+	@Override
+	public void remove(CMKey key) {
+		++version;
+
+		int index = indexOf(key);
+		if (isPresent(index)) {
+			removeIndex(index);
+		}
+	}
+
+	@Override
+	public void putAll(CMKeyCMValueMap m) {
+		++version;
+
+		if (m instanceof DirectCaveManCMKeyCMValueMap) {
+			DirectCaveManCMKeyCMValueMap dm = (DirectCaveManCMKeyCMValueMap) m;
+			for (int i = dm.nextPresentIndex(0); i < DOMAIN_SIZE; i = dm.nextPresentIndex(i + 1)) {
+				values[i] = dm.values[i];
+			}
+
+			size = 0;
+			for (int w = 0; w < present.length; w++) {
+				present[w] |= dm.present[w];
+				size += Long.bitCount(present[w]);
+			}
+		} else {
+			CMKeyCMValueMapIterator iterator = m.iterator();
+
+			while (iterator.hasNext()) {
+				iterator.next();
+				put(iterator.key(), iterator.value());
+			}
+		}
+	}
+
+	@Override
+	public void clear() {
+		++version;
+
+		Arrays.fill(present, 0L);
+		size = 0;
+	}
+
+	@Override
+	public CMKeyCMValueMapIterator iterator() {
+		return new DirectCaveManCMKeyCMValueMapIterator(version);
+	}
+
+	@Override
+	public void forEach(CMKeyCMValueConsumer consumer) {
+		int startVersion = version;
+		for (int w = 0; w < present.length; w++) {
+			long word = present[w];
+			while (word != 0) {
+				int index = (w << 6) + Long.numberOfTrailingZeros(word);
+				CMKey key = toCaveManKey(index);
+				consumer.accept(key, values[index]);
+				word &= word - 1;
+			}
+		}
+
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during forEach");
+		}
+	}
+
+	@Override
+	public CMKeySet keySet() {
+		return new DirectCaveManCMKeyCMValueKeySet();
+	}
+
+	@Override
+	public CMValueBag values() {
+		return new DirectCaveManCMKeyCMValueValuesBag();
+	}
+
+	@Override
+	public CMValue getOrDefault(CMKey key, CMValue defaultValue) {
+		int index = indexOf(key);
+		return isPresent(index) ? values[index] : defaultValue;
+	}
+
+	@Override
+	public CMValue putIfAbsent(CMKey key, CMValue value) {
+		int index = indexOf(key);
+		if (isPresent(index)) {
+			return values[index];
+		}
+
+		insertAt(index, value);
+		return notFound;
+	}
+
+	@Override
+	public CMValue replace(CMKey key, CMValue value) {
+		int index = indexOf(key);
+		if (!isPresent(index)) {
+			return notFound;
+		}
+
+		++version;
+		CMValue oldValue = values[index];
+		values[index] = value;
+		return oldValue;
+	}
+
+	@Override
+	public boolean replace(CMKey key, CMValue oldValue, CMValue newValue) {
+		int index = indexOf(key);
+		if (!isPresent(index) || (values[index] != oldValue)) {
+			return false;
+		}
+
+		++version;
+		values[index] = newValue;
+		return true;
+	}
+
+	@Override
+	public CMValue computeIfAbsent(CMKey key, CMKeyCMValueFunction mappingFunction) {
+		int index = indexOf(key);
+		if (isPresent(index)) {
+			return values[index];
+		}
+
+		int startVersion = version;
+		CMValue value = mappingFunction.applyAsCMValue(key);
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during computeIfAbsent");
+		}
+
+		insertAt(index, value);
+		return value;
+	}
+
+	@Override
+	public CMValue merge(CMKey key, CMValue value, CMValueBinaryOperator remappingFunction) {
+		int index = indexOf(key);
+		if (!isPresent(index)) {
+			insertAt(index, value);
+			return value;
+		}
+
+		int startVersion = version;
+		CMValue newValue = remappingFunction.applyAsCMValue(values[index], value);
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during merge");
+		}
+
+		++version;
+		values[index] = newValue;
+		return newValue;
+	}
+
+	@OnlyForValue({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public CMValue addTo(CMKey key, CMValue delta) {
+		int index = indexOf(key);
+		if (!isPresent(index)) {
+			insertAt(index, addCaveManValues(notFound, delta));
+			return notFound;
+		}
+
+		++version;
+		CMValue oldValue = values[index];
+		values[index] = addCaveManValues(oldValue, delta);
+		return oldValue;
+	}
+
+	private static int indexOf(CMKey key) {
+		return fromCaveManKey(key) & INDEX_MASK;
+	}
+
+	private void insertAt(int index, CMValue value) {
+		++version;
+		present[index >>> 6] |= 1L << index;
+		values[index] = value;
+		++size;
+	}
+
+	private boolean isPresent(int index) {
+		return (present[index >>> 6] & (1L << index)) != 0;
+	}
+
+	private void removeIndex(int index) {
+		present[index >>> 6] &= ~(1L << index);
+		--size;
+	}
+
+	private int nextPresentIndex(int index) {
+		int w = index >>> 6;
+		if (w >= present.length) {
+			return DOMAIN_SIZE;
+		}
+
+		long word = present[w] & (-1L << index);
+		while (word == 0) {
+			if (++w == present.length) {
+				return DOMAIN_SIZE;
+			}
+			word = present[w];
+		}
+
+		return (w << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	private class DirectCaveManCMKeyCMValueMapIterator implements CMKeyCMValueMapIterator {
+
+		private int iteratorVersion;
+		private int nextIndex;
+		private int currentIndex;
+		private CMKey key;
+		private CMValue value;
+
+		public DirectCaveManCMKeyCMValueMapIterator(int version) {
+			iteratorVersion = version;
+			nextIndex = nextPresentIndex(0);
+			currentIndex = -1;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			return nextIndex < DOMAIN_SIZE;
+		}
+
+		@Override
+		public void next() throws NoSuchElementException {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			if (nextIndex >= DOMAIN_SIZE) {
+				throw new NoSuchElementException("Iterator has been exhausted");
+			}
+
+			currentIndex = nextIndex;
+			key = toCaveManKey(currentIndex);
+			value = values[currentIndex];
+			nextIndex = nextPresentIndex(currentIndex + 1);
+		}
+
+		@Override
+		public CMKey key() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			return key;
+		}
+
+		@Override
+		public CMValue value() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			return value;
+		}
+
+		@Override
+		public void remove() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			if (currentIndex < 0) {
+				throw new IllegalStateException("next() has not been called since the last remove");
+			}
+
+			removeIndex(currentIndex);
+			currentIndex = -1;
+			++version;
+			++iteratorVersion;
+		}
+	}
+
+	private class DirectCaveManCMKeyCMValueKeySet implements CMKeySet {
+
+		@Override
+		public int size() {
+			return DirectCaveManCMKeyCMValueMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return DirectCaveManCMKeyCMValueMap.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(CMKey item) {
+			return DirectCaveManCMKeyCMValueMap.this.containsKey(item);
+		}
+
+		@Override
+		public CMKeyIterator iterator() {
+			return new DirectCaveManCMKeyCMValueKeySetIterator();
+		}
+
+		@Override
+		public CMKey[] toArray() {
+			CMKey[] data = new CMKey[size];
+
+			int pos = 0;
+			for (int i = nextPresentIndex(0); i < DOMAIN_SIZE; i = nextPresentIndex(i + 1)) {
+				data[pos++] = toCaveManKey(i);
+			}
+
+			return data;
+		}
+
+		@Override
+		public boolean add(CMKey item) {
+			int originalSize = size;
+
+			DirectCaveManCMKeyCMValueMap.this.put(item, notFound);
+			return originalSize != size;
+		}
+
+		@Override
+		public boolean remove(CMKey item) {
+			int originalSize = size;
+
+			DirectCaveManCMKeyCMValueMap.this.remove(item);
+			return originalSize != size;
+		}
+
+		@Override
+		public void clear() {
+			DirectCaveManCMKeyCMValueMap.this.clear();
+		}
+
+		@Override
+		public boolean containsAll(CMKeyCollection c) {
+			CMKeyIterator it = c.iterator();
+			while (it.hasNext()) {
+				if (!DirectCaveManCMKeyCMValueMap.this.containsKey(it.next())) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		@Override
+		public boolean addAll(CMKeyCollection c) {
+			int originalSize = size;
+
+			CMKeyIterator it = c.iterator();
+			while (it.hasNext()) {
+				DirectCaveManCMKeyCMValueMap.this.put(it.next(), notFound);
+			}
+
+			return originalSize != size;
+		}
+
+		@Override
+		public boolean retainAll(CMKeyCollection c) {
+			int originalSize = size;
+
+			for (int i = nextPresentIndex(0); i < DOMAIN_SIZE; i = nextPresentIndex(i + 1)) {
+				if (!c.contains(toCaveManKey(i))) {
+					removeIndex(i);
+				}
+			}
+
+			if (originalSize != size) {
+				++version;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public boolean removeAll(CMKeyCollection c) {
+			int originalSize = size;
+
+			CMKeyIterator it = c.iterator();
+			while (it.hasNext()) {
+				DirectCaveManCMKeyCMValueMap.this.remove(it.next());
+			}
+
+			return originalSize != size;
+		}
+
+		@Override
+		public CMKey getOne() {
+			if (size > 0) {
+				return toCaveManKey(nextPresentIndex(0));
+			}
+
+			throw new IllegalStateException("map key set has no items");
+		}
+
+		private class DirectCaveManCMKeyCMValueKeySetIterator implements CMKeyIterator {
+
+			private final CMKeyCMValueMapIterator iterator = DirectCaveManCMKeyCMValueMap.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public CMKey next() throws NoSuchElementException {
+				iterator.next();
+				return iterator.key();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+			}
+		}
+	}
+
+	private class DirectCaveManCMKeyCMValueValuesBag implements CMValueBag {
+
+		@Override
+		public int size() {
+			return DirectCaveManCMKeyCMValueMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return DirectCaveManCMKeyCMValueMap.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(CMValue item) {
+			return DirectCaveManCMKeyCMValueMap.this.containsValue(item);
+		}
+
+		@Override
+		public CMValueIterator iterator() {
+			return new DirectCaveManCMKeyCMValueValuesBagIterator();
+		}
+
+		@Override
+		public CMValue[] toArray() {
+			CMValue[] data = new CMValue[size];
+
+			int pos = 0;
+			for (int i = nextPresentIndex(0); i < DOMAIN_SIZE; i = nextPresentIndex(i + 1)) {
+				data[pos++] = values[i];
+			}
+
+			return data;
+		}
+
+		@Override
+		public boolean add(CMValue item) {
+			throw new UnsupportedOperationException("add is not supported from the values bag of a DirectCaveManCMKeyCMValueMap as there's no obvious key");
+		}
+
+		@Override
+		public boolean remove(CMValue item) {
+			int originalSize = size;
+
+			for (int i = nextPresentIndex(0); i < DOMAIN_SIZE; i = nextPresentIndex(i + 1)) {
+				if (values[i] == item) {
+					removeIndex(i);
+				}
+			}
+
+			if (originalSize != size) {
+				++version;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public void clear() {
+			DirectCaveManCMKeyCMValueMap.this.clear();
+		}
+
+		@Override
+		public boolean containsAll(CMValueCollection c) {
+			CMValueIterator it = c.iterator();
+			while (it.hasNext()) {
+				if (!DirectCaveManCMKeyCMValueMap.this.containsValue(it.next())) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		@Override
+		public boolean addAll(CMValueCollection c) {
+			throw new UnsupportedOperationException("addAll is not supported from the values bag of a DirectCaveManCMKeyCMValueMap as there's no obvious keys");
+		}
+
+		@Override
+		public boolean retainAll(CMValueCollection c) {
+			int originalSize = size;
+
+			for (int i = nextPresentIndex(0); i < DOMAIN_SIZE; i = nextPresentIndex(i + 1)) {
+				if (!c.contains(values[i])) {
+					removeIndex(i);
+				}
+			}
+
+			if (originalSize != size) {
+				++version;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public boolean removeAll(CMValueCollection c) {
+			int originalSize = size;
+
+			CMValueIterator it = c.iterator();
+			while (it.hasNext()) {
+				remove(it.next());
+			}
+
+			return originalSize != size;
+		}
+
+		@Override
+		public boolean removeOne(CMValue item) {
+			for (int i = nextPresentIndex(0); i < DOMAIN_SIZE; i = nextPresentIndex(i + 1)) {
+				if (values[i] == item) {
+					removeIndex(i);
+					++version;
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public int countOf(CMValue item) {
+			int count = 0;
+			for (int i = nextPresentIndex(0); i < DOMAIN_SIZE; i = nextPresentIndex(i + 1)) {
+				if (values[i] == item) {
+					++count;
+				}
+			}
+
+			return count;
+		}
+
+		@Override
+		public CMValue getOne() {
+			if (size > 0) {
+				return values[nextPresentIndex(0)];
+			}
+
+			throw new IllegalStateException("map value collection has no items");
+		}
+
+		private class DirectCaveManCMKeyCMValueValuesBagIterator implements CMValueIterator {
+
+			private final CMKeyCMValueMapIterator iterator = DirectCaveManCMKeyCMValueMap.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public CMValue next() throws NoSuchElementException {
+				iterator.next();
+				return iterator.value();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+			}
+		}
+	}
+
+
+
+	private static int cmKeyBits() {return 0;}
+	private static int fromCaveManKey(CMKey key) {return 0;}
+	private static CMKey toCaveManKey(int i) {return null;}
+	private static CMValue toCaveManValue(int i) {return null;}
+	private static CMValue addCaveManValues(CMValue a, CMValue b) {return null;}
+}
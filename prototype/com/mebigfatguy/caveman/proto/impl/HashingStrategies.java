@@ -0,0 +1,136 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.util.Arrays;
+
+import com.mebigfatguy.caveman.proto.HashingStrategy;
+
+/**
+ * HashingStrategys for common keys that don't define hashCode and equals by content, or that
+ * should be compared in another way, such as ignoring case. Each is a stateless singleton.
+ */
+public final class HashingStrategies {
+
+	/**
+	 * hashes and compares byte arrays by content, as Arrays.hashCode and Arrays.equals do
+	 */
+	public static final HashingStrategy<byte[]> BYTE_ARRAY = ByteArrayStrategy.INSTANCE;
+
+	/**
+	 * hashes and compares char arrays by content, as Arrays.hashCode and Arrays.equals do
+	 */
+	public static final HashingStrategy<char[]> CHAR_ARRAY = CharArrayStrategy.INSTANCE;
+
+	/**
+	 * hashes and compares int arrays by content, as Arrays.hashCode and Arrays.equals do
+	 */
+	public static final HashingStrategy<int[]> INT_ARRAY = IntArrayStrategy.INSTANCE;
+
+	/**
+	 * hashes and compares CharSequences, such as Strings and StringBuilders, by their characters,
+	 * ignoring case in the way String.equalsIgnoreCase does, so a String and a StringBuilder with the
+	 * same characters are equal, without either being copied
+	 */
+	public static final HashingStrategy<CharSequence> CASE_INSENSITIVE = CaseInsensitiveStrategy.INSTANCE;
+
+	private HashingStrategies() {
+	}
+
+	private enum ByteArrayStrategy implements HashingStrategy<byte[]> {
+		INSTANCE;
+
+		@Override
+		public int hashCode(byte[] key) {
+			return Arrays.hashCode(key);
+		}
+
+		@Override
+		public boolean equals(byte[] key, byte[] otherKey) {
+			return Arrays.equals(key, otherKey);
+		}
+	}
+
+	private enum CharArrayStrategy implements HashingStrategy<char[]> {
+		INSTANCE;
+
+		@Override
+		public int hashCode(char[] key) {
+			return Arrays.hashCode(key);
+		}
+
+		@Override
+		public boolean equals(char[] key, char[] otherKey) {
+			return Arrays.equals(key, otherKey);
+		}
+	}
+
+	private enum IntArrayStrategy implements HashingStrategy<int[]> {
+		INSTANCE;
+
+		@Override
+		public int hashCode(int[] key) {
+			return Arrays.hashCode(key);
+		}
+
+		@Override
+		public boolean equals(int[] key, int[] otherKey) {
+			return Arrays.equals(key, otherKey);
+		}
+	}
+
+	private enum CaseInsensitiveStrategy implements HashingStrategy<CharSequence> {
+		INSTANCE;
+
+		@Override
+		public int hashCode(CharSequence key) {
+			int hash = 0;
+			int length = key.length();
+			for (int i = 0; i < length; i++) {
+				hash = (31 * hash) + fold(key.charAt(i));
+			}
+			return hash;
+		}
+
+		@Override
+		public boolean equals(CharSequence key, CharSequence otherKey) {
+			int length = key.length();
+			if (length != otherKey.length()) {
+				return false;
+			}
+
+			for (int i = 0; i < length; i++) {
+				char c = key.charAt(i);
+				char otherC = otherKey.charAt(i);
+				if ((c != otherC) && (fold(c) != fold(otherC))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * maps a char to the same value as any char it equals ignoring case, going through upper case
+		 * and back to lower case as String.equalsIgnoreCase does, for alphabets such as Georgian whose
+		 * case mappings are not symmetric
+		 */
+		private static char fold(char c) {
+			return Character.toLowerCase(Character.toUpperCase(c));
+		}
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+/**
+ * A CaveManCMKeyMap that, like java.util.IdentityHashMap, compares its values with == rather than
+ * equals, in containsValue, replace and the values collection, so two equal values are told apart,
+ * and no value's equals is called.
+ */
+public class IdentityCaveManCMKeyMap<V> extends CaveManCMKeyMap<V> {
+	private static final long serialVersionUID = 4470165532963210987L;
+
+	public IdentityCaveManCMKeyMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public IdentityCaveManCMKeyMap(int initialCapacity) {
+		this(initialCapacity, DEFAULT_LOAD_FACTOR);
+	}
+
+	public IdentityCaveManCMKeyMap(int initialCapacity, float loadingFactor) {
+		super(initialCapacity, loadingFactor, true);
+	}
+}
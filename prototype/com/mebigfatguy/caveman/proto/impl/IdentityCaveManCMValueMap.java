@@ -0,0 +1,40 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+/**
+ * An OpenAddressCaveManCMValueMap that, like java.util.IdentityHashMap, hashes its keys with
+ * System.identityHashCode and compares them with ==, and never calls their hashCode or equals.
+ * This suits keys that are canonical instances, such as interned or cached objects, where equals
+ * is identity anyway, or keys that must be told apart even when they are equal.
+ */
+public class IdentityCaveManCMValueMap<K> extends OpenAddressCaveManCMValueMap<K> {
+	private static final long serialVersionUID = -6203581974021847345L;
+
+	public IdentityCaveManCMValueMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public IdentityCaveManCMValueMap(int initialCapacity) {
+		this(initialCapacity, DEFAULT_LOAD_FACTOR);
+	}
+
+	public IdentityCaveManCMValueMap(int initialCapacity, float loadingFactor) {
+		super(initialCapacity, loadingFactor, true);
+	}
+}
@@ -0,0 +1,831 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+import com.mebigfatguy.caveman.proto.CMKeyCMValueConsumer;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueFunction;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMapIterator;
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMKeyCollection;
+import com.mebigfatguy.caveman.proto.aux.CMKeyIterator;
+import com.mebigfatguy.caveman.proto.aux.CMKeySet;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.CMValueBag;
+import com.mebigfatguy.caveman.proto.aux.CMValueBinaryOperator;
+import com.mebigfatguy.caveman.proto.aux.CMValueCollection;
+import com.mebigfatguy.caveman.proto.aux.CMValueIterator;
+import com.mebigfatguy.caveman.proto.aux.OnlyForValue;
+
+/**
+ * A CMKeyCMValueMap that iterates in the order its keys were added, which doesn't change when the
+ * map grows. Each entry has a slot in flat parallel arrays, chained to the other entries in its bucket,
+ * and to the entries added before and after it, by int indexes rather than by node objects. Iteration
+ * follows the insertion chain, so never visits empty buckets. Putting a key that is already present
+ * replaces its value but leaves it in its place, so removing the eldest key gives FIFO eviction.
+ * Growing the map compacts the slots into insertion order.
+ */
+public class LinkedCaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
+	private static final long serialVersionUID = 4391627640186305412L;
+	public static final CMValue DEFAULT_NOT_FOUND_VALUE = toCaveManValue(0);
+	private static final int DEFAULT_CAPACITY = 32;
+	private static final float DEFAULT_LOAD_FACTOR = 0.80f;
+	private static final int NONE = -1;
+
+	private final CMValue notFound;
+	private int[] table;
+	private CMKey[] keys;
+	private CMValue[] values;
+	private int[] chain;
+	private int[] before;
+	private int[] after;
+	private int head;
+	private int tail;
+	private int freeSlot;
+	private int usedSlots;
+	private int size;
+	private final float loadFactor;
+	private int version;
+
+	public LinkedCaveManCMKeyCMValueMap() {
+		this(DEFAULT_NOT_FOUND_VALUE, DEFAULT_CAPACITY);
+	}
+
+	public LinkedCaveManCMKeyCMValueMap(CMValue notFoundValue, int initialCapacity) {
+		this(notFoundValue, initialCapacity, DEFAULT_LOAD_FACTOR);
+	}
+
+	public LinkedCaveManCMKeyCMValueMap(CMValue notFoundValue, int initialCapacity, float loadingFactor) {
+		if (loadingFactor <= 0.0f) {
+			throw new IllegalArgumentException("Load factor: " + loadingFactor + " is not positive");
+		}
+
+		notFound = notFoundValue;
+		loadFactor = loadingFactor;
+		size = 0;
+		allocate(Math.max(initialCapacity, 1));
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean containsKey(CMKey key) {
+		return find(key) != NONE;
+	}
+
+	@Override
+	public boolean containsValue(CMValue value) {
+		for (int slot = head; slot != NONE; slot = after[slot]) {
+			if (values[slot] == value) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public CMValue get(CMKey key) {
+		int slot = find(key);
+		return (slot == NONE) ? notFound : values[slot];
+	}
+
+	@Override
+	public void put(CMKey key, CMValue value) {
+		++version;
+
+		int slot = find(key);
+		if (slot != NONE) {
+			values[slot] = value;
+			return;
+		}
+
+		insert(key, value);
+	}
+
+	@Override
+	public void remove(CMKey key) {
+		++version;
+
+		int slot = find(key);
+		if (slot != NONE) {
+			removeSlot(slot);
+		}
+	}
+
+	@Override
+	public void putAll(CMKeyCMValueMap m) {
+		++version;
+
+		ensureSize(size + m.size());
+
+		CMKeyCMValueMapIterator iterator = m.iterator();
+
+		while (iterator.hasNext()) {
+			iterator.next();
+			put(iterator.key(), iterator.value());
+		}
+	}
+
+	@Override
+	public void clear() {
+		++version;
+
+		Arrays.fill(table, NONE);
+		head = NONE;
+		tail = NONE;
+		freeSlot = NONE;
+		usedSlots = 0;
+		size = 0;
+	}
+
+	@Override
+	public CMKeyCMValueMapIterator iterator() {
+		return new LinkedCaveManCMKeyCMValueMapIterator(version);
+	}
+
+	@Override
+	public void forEach(CMKeyCMValueConsumer consumer) {
+		int startVersion = version;
+		for (int slot = head; slot != NONE; slot = after[slot]) {
+			consumer.accept(keys[slot], values[slot]);
+		}
+
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during forEach");
+		}
+	}
+
+	@Override
+	public CMKeySet keySet() {
+		return new LinkedCaveManCMKeyCMValueKeySet();
+	}
+
+	@Override
+	public CMValueBag values() {
+		return new LinkedCaveManCMKeyCMValueValuesBag();
+	}
+
+	@Override
+	public CMValue getOrDefault(CMKey key, CMValue defaultValue) {
+		int slot = find(key);
+		return (slot == NONE) ? defaultValue : values[slot];
+	}
+
+	@Override
+	public CMValue putIfAbsent(CMKey key, CMValue value) {
+		int slot = find(key);
+		if (slot != NONE) {
+			return values[slot];
+		}
+
+		++version;
+		insert(key, value);
+		return notFound;
+	}
+
+	@Override
+	public CMValue replace(CMKey key, CMValue value) {
+		int slot = find(key);
+		if (slot == NONE) {
+			return notFound;
+		}
+
+		++version;
+		CMValue oldValue = values[slot];
+		values[slot] = value;
+		return oldValue;
+	}
+
+	@Override
+	public boolean replace(CMKey key, CMValue oldValue, CMValue newValue) {
+		int slot = find(key);
+		if ((slot == NONE) || (values[slot] != oldValue)) {
+			return false;
+		}
+
+		++version;
+		values[slot] = newValue;
+		return true;
+	}
+
+	@Override
+	public CMValue computeIfAbsent(CMKey key, CMKeyCMValueFunction mappingFunction) {
+		int slot = find(key);
+		if (slot != NONE) {
+			return values[slot];
+		}
+
+		int startVersion = version;
+		CMValue value = mappingFunction.applyAsCMValue(key);
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during computeIfAbsent");
+		}
+
+		++version;
+		insert(key, value);
+		return value;
+	}
+
+	@Override
+	public CMValue merge(CMKey key, CMValue value, CMValueBinaryOperator remappingFunction) {
+		int slot = find(key);
+		if (slot == NONE) {
+			++version;
+			insert(key, value);
+			return value;
+		}
+
+		int startVersion = version;
+		CMValue newValue = remappingFunction.applyAsCMValue(values[slot], value);
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during merge");
+		}
+
+		++version;
+		values[slot] = newValue;
+		return newValue;
+	}
+
+	@OnlyForValue({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public CMValue addTo(CMKey key, CMValue delta) {
+		++version;
+
+		int slot = find(key);
+		if (slot == NONE) {
+			insert(key, addCaveManValues(notFound, delta));
+			return notFound;
+		}
+
+		CMValue oldValue = values[slot];
+		values[slot] = addCaveManValues(oldValue, delta);
+		return oldValue;
+	}
+
+	/**
+	 * returns the key that has been in the map the longest, which is the one a FIFO eviction policy
+	 * removes next
+	 *
+	 * @return the eldest key
+	 * @throws IllegalStateException if the map is empty
+	 */
+	public CMKey firstKey() {
+		if (size == 0) {
+			throw new IllegalStateException("map has no items");
+		}
+
+		return keys[head];
+	}
+
+	/**
+	 * returns the key that was added most recently
+	 *
+	 * @return the youngest key
+	 * @throws IllegalStateException if the map is empty
+	 */
+	public CMKey lastKey() {
+		if (size == 0) {
+			throw new IllegalStateException("map has no items");
+		}
+
+		return keys[tail];
+	}
+
+	private int find(CMKey key) {
+		for (int slot = table[hashCaveManKey(key) & (table.length - 1)]; slot != NONE; slot = chain[slot]) {
+			if (keys[slot] == key) {
+				return slot;
+			}
+		}
+
+		return NONE;
+	}
+
+	/**
+	 * adds a key that is known to be absent, growing the map first if need be
+	 */
+	private void insert(CMKey key, CMValue value) {
+		ensureSize(size + 1);
+		link(takeSlot(), key, value);
+	}
+
+	/**
+	 * returns a slot to put a new entry in, reusing a slot freed by a remove before one never used.
+	 * The caller must have made room for one more entry first.
+	 */
+	private int takeSlot() {
+		if (freeSlot == NONE) {
+			return usedSlots++;
+		}
+
+		int slot = freeSlot;
+		freeSlot = chain[slot];
+		return slot;
+	}
+
+	/**
+	 * puts an entry in a slot, at the head of its bucket's chain and the tail of the insertion chain
+	 */
+	private void link(int slot, CMKey key, CMValue value) {
+		int bucket = hashCaveManKey(key) & (table.length - 1);
+		keys[slot] = key;
+		values[slot] = value;
+		chain[slot] = table[bucket];
+		table[bucket] = slot;
+
+		before[slot] = tail;
+		after[slot] = NONE;
+		if (tail == NONE) {
+			head = slot;
+		} else {
+			after[tail] = slot;
+		}
+		tail = slot;
+		++size;
+	}
+
+	private void removeSlot(int slot) {
+		int bucket = hashCaveManKey(keys[slot]) & (table.length - 1);
+		if (table[bucket] == slot) {
+			table[bucket] = chain[slot];
+		} else {
+			int prev = table[bucket];
+			while (chain[prev] != slot) {
+				prev = chain[prev];
+			}
+			chain[prev] = chain[slot];
+		}
+
+		if (before[slot] == NONE) {
+			head = after[slot];
+		} else {
+			after[before[slot]] = after[slot];
+		}
+		if (after[slot] == NONE) {
+			tail = before[slot];
+		} else {
+			before[after[slot]] = before[slot];
+		}
+
+		chain[slot] = freeSlot;
+		freeSlot = slot;
+		--size;
+	}
+
+	private void allocate(int capacity) {
+		table = new int[tableSizeFor((int) Math.min(Math.ceil(capacity / (double) loadFactor), 1 << 30))];
+		Arrays.fill(table, NONE);
+		keys = new CMKey[capacity];
+		values = new CMValue[capacity];
+		chain = new int[capacity];
+		before = new int[capacity];
+		after = new int[capacity];
+		head = NONE;
+		tail = NONE;
+		freeSlot = NONE;
+		usedSlots = 0;
+	}
+
+	/**
+	 * grows the slot arrays to hold at least newSize entries, copying the entries across in insertion
+	 * order, so that the slots are compacted and a walk of the insertion chain reads them sequentially
+	 */
+	private void ensureSize(int newSize) {
+		if (newSize > keys.length) {
+			CMKey[] oldKeys = keys;
+			CMValue[] oldValues = values;
+			int[] oldAfter = after;
+			int oldHead = head;
+
+			allocate(Math.max(newSize, keys.length * 2));
+			size = 0;
+			for (int slot = oldHead; slot != NONE; slot = oldAfter[slot]) {
+				link(usedSlots++, oldKeys[slot], oldValues[slot]);
+			}
+		}
+	}
+
+	private static int tableSizeFor(int capacity) {
+		return (capacity <= 1) ? 1 : (Integer.highestOneBit(capacity - 1) << 1);
+	}
+
+	private class LinkedCaveManCMKeyCMValueMapIterator implements CMKeyCMValueMapIterator {
+
+		private int iteratorVersion;
+		private int nextSlot;
+		private int currentSlot;
+		private CMKey key;
+		private CMValue value;
+
+		public LinkedCaveManCMKeyCMValueMapIterator(int version) {
+			iteratorVersion = version;
+			nextSlot = head;
+			currentSlot = NONE;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			return nextSlot != NONE;
+		}
+
+		@Override
+		public void next() throws NoSuchElementException {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			if (nextSlot == NONE) {
+				throw new NoSuchElementException("Iterator has been exhausted");
+			}
+
+			currentSlot = nextSlot;
+			key = keys[currentSlot];
+			value = values[currentSlot];
+			nextSlot = after[currentSlot];
+		}
+
+		@Override
+		public CMKey key() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			return key;
+		}
+
+		@Override
+		public CMValue value() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			return value;
+		}
+
+		@Override
+		public void remove() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			if (currentSlot == NONE) {
+				throw new IllegalStateException("next() has not been called since the last remove");
+			}
+
+			removeSlot(currentSlot);
+			currentSlot = NONE;
+			++version;
+			++iteratorVersion;
+		}
+	}
+
+	private class LinkedCaveManCMKeyCMValueKeySet implements CMKeySet {
+
+		@Override
+		public int size() {
+			return LinkedCaveManCMKeyCMValueMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return LinkedCaveManCMKeyCMValueMap.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(CMKey item) {
+			return LinkedCaveManCMKeyCMValueMap.this.containsKey(item);
+		}
+
+		@Override
+		public CMKeyIterator iterator() {
+			return new LinkedCaveManCMKeyCMValueKeySetIterator();
+		}
+
+		@Override
+		public CMKey[] toArray() {
+			CMKey[] data = new CMKey[size];
+
+			int pos = 0;
+			for (int slot = head; slot != NONE; slot = after[slot]) {
+				data[pos++] = keys[slot];
+			}
+
+			return data;
+		}
+
+		@Override
+		public boolean add(CMKey item) {
+			int originalSize = size;
+
+			LinkedCaveManCMKeyCMValueMap.this.put(item, notFound);
+			return originalSize != size;
+		}
+
+		@Override
+		public boolean remove(CMKey item) {
+			int originalSize = size;
+
+			LinkedCaveManCMKeyCMValueMap.this.remove(item);
+			return originalSize != size;
+		}
+
+		@Override
+		public void clear() {
+			LinkedCaveManCMKeyCMValueMap.this.clear();
+		}
+
+		@Override
+		public boolean containsAll(CMKeyCollection c) {
+			CMKeyIterator it = c.iterator();
+			while (it.hasNext()) {
+				if (!LinkedCaveManCMKeyCMValueMap.this.containsKey(it.next())) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		@Override
+		public boolean addAll(CMKeyCollection c) {
+			int originalSize = size;
+
+			CMKeyIterator it = c.iterator();
+			while (it.hasNext()) {
+				LinkedCaveManCMKeyCMValueMap.this.put(it.next(), notFound);
+			}
+
+			return originalSize != size;
+		}
+
+		@Override
+		public boolean retainAll(CMKeyCollection c) {
+			int originalSize = size;
+
+			int slot = head;
+			while (slot != NONE) {
+				int nextSlot = after[slot];
+				if (!c.contains(keys[slot])) {
+					removeSlot(slot);
+				}
+				slot = nextSlot;
+			}
+
+			if (originalSize != size) {
+				++version;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public boolean removeAll(CMKeyCollection c) {
+			int originalSize = size;
+
+			CMKeyIterator it = c.iterator();
+			while (it.hasNext()) {
+				LinkedCaveManCMKeyCMValueMap.this.remove(it.next());
+			}
+
+			return originalSize != size;
+		}
+
+		@Override
+		public CMKey getOne() {
+			if (size > 0) {
+				return keys[head];
+			}
+
+			throw new IllegalStateException("map key set has no items");
+		}
+
+		private class LinkedCaveManCMKeyCMValueKeySetIterator implements CMKeyIterator {
+
+			private final CMKeyCMValueMapIterator iterator = LinkedCaveManCMKeyCMValueMap.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public CMKey next() throws NoSuchElementException {
+				iterator.next();
+				return iterator.key();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+			}
+		}
+	}
+
+	private class LinkedCaveManCMKeyCMValueValuesBag implements CMValueBag {
+
+		@Override
+		public int size() {
+			return LinkedCaveManCMKeyCMValueMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return LinkedCaveManCMKeyCMValueMap.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(CMValue item) {
+			return LinkedCaveManCMKeyCMValueMap.this.containsValue(item);
+		}
+
+		@Override
+		public CMValueIterator iterator() {
+			return new LinkedCaveManCMKeyCMValueValuesBagIterator();
+		}
+
+		@Override
+		public CMValue[] toArray() {
+			CMValue[] data = new CMValue[size];
+
+			int pos = 0;
+			for (int slot = head; slot != NONE; slot = after[slot]) {
+				data[pos++] = values[slot];
+			}
+
+			return data;
+		}
+
+		@Override
+		public boolean add(CMValue item) {
+			throw new UnsupportedOperationException("add is not supported from the values bag of a LinkedCaveManCMKeyCMValueMap as there's no obvious key");
+		}
+
+		@Override
+		public boolean remove(CMValue item) {
+			int originalSize = size;
+
+			int slot = head;
+			while (slot != NONE) {
+				int nextSlot = after[slot];
+				if (values[slot] == item) {
+					removeSlot(slot);
+				}
+				slot = nextSlot;
+			}
+
+			if (originalSize != size) {
+				++version;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public void clear() {
+			LinkedCaveManCMKeyCMValueMap.this.clear();
+		}
+
+		@Override
+		public boolean containsAll(CMValueCollection c) {
+			CMValueIterator it = c.iterator();
+			while (it.hasNext()) {
+				if (!LinkedCaveManCMKeyCMValueMap.this.containsValue(it.next())) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		@Override
+		public boolean addAll(CMValueCollection c) {
+			throw new UnsupportedOperationException("addAll is not supported from the values bag of a LinkedCaveManCMKeyCMValueMap as there's no obvious keys");
+		}
+
+		@Override
+		public boolean retainAll(CMValueCollection c) {
+			int originalSize = size;
+
+			int slot = head;
+			while (slot != NONE) {
+				int nextSlot = after[slot];
+				if (!c.contains(values[slot])) {
+					removeSlot(slot);
+				}
+				slot = nextSlot;
+			}
+
+			if (originalSize != size) {
+				++version;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public boolean removeAll(CMValueCollection c) {
+			int originalSize = size;
+
+			CMValueIterator it = c.iterator();
+			while (it.hasNext()) {
+				remove(it.next());
+			}
+
+			return originalSize != size;
+		}
+
+		@Override
+		public boolean removeOne(CMValue item) {
+			for (int slot = head; slot != NONE; slot = after[slot]) {
+				if (values[slot] == item) {
+					removeSlot(slot);
+					++version;
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public int countOf(CMValue item) {
+			int count = 0;
+			for (int slot = head; slot != NONE; slot = after[slot]) {
+				if (values[slot] == item) {
+					++count;
+				}
+			}
+
+			return count;
+		}
+
+		@Override
+		public CMValue getOne() {
+			if (size > 0) {
+				return values[head];
+			}
+
+			throw new IllegalStateException("map value collection has no items");
+		}
+
+		private class LinkedCaveManCMKeyCMValueValuesBagIterator implements CMValueIterator {
+
+			private final CMKeyCMValueMapIterator iterator = LinkedCaveManCMKeyCMValueMap.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public CMValue next() throws NoSuchElementException {
+				iterator.next();
+				return iterator.value();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+			}
+		}
+	}
+
+
+
+	private static int hashCaveManKey(CMKey key) {return 0;}
+	private static CMValue toCaveManValue(int i) {return null;}
+	private static CMValue addCaveManValues(CMValue a, CMValue b) {return null;}
+}
@@ -0,0 +1,406 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+import com.mebigfatguy.caveman.proto.CMCollection;
+import com.mebigfatguy.caveman.proto.CMConsumer;
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.CMSet;
+import com.mebigfatguy.caveman.proto.aux.CM;
+
+/**
+ * A CMSet that iterates in the order its items were added, which doesn't change when the set grows.
+ * Each item has a slot in flat parallel arrays, chained to the other items in its bucket, and to the
+ * items added before and after it, by int indexes rather than by node objects. Iteration follows the
+ * insertion chain, so never visits empty buckets. Adding an item that is already present leaves it
+ * in its place. Growing the set compacts the slots into insertion order.
+ */
+public class LinkedCaveManCMSet implements CMSet, Serializable {
+	private static final long serialVersionUID = -6104585263318723021L;
+	private static final int DEFAULT_CAPACITY = 32;
+	private static final float DEFAULT_LOAD_FACTOR = 0.80f;
+	private static final int NONE = -1;
+
+	private int[] table;
+	private CM[] items;
+	private int[] chain;
+	private int[] before;
+	private int[] after;
+	private int head;
+	private int tail;
+	private int freeSlot;
+	private int usedSlots;
+	private int size;
+	private final float loadFactor;
+	private int version;
+
+	public LinkedCaveManCMSet() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LinkedCaveManCMSet(int initialCapacity) {
+		this(initialCapacity, DEFAULT_LOAD_FACTOR);
+	}
+
+	public LinkedCaveManCMSet(int initialCapacity, float loadingFactor) {
+		if (loadingFactor <= 0.0f) {
+			throw new IllegalArgumentException("Load factor: " + loadingFactor + " is not positive");
+		}
+
+		loadFactor = loadingFactor;
+		size = 0;
+		version = 0;
+		allocate(Math.max(initialCapacity, 1));
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean contains(CM item) {
+		return find(item) != NONE;
+	}
+
+	@Override
+	public CMIterator iterator() {
+		return new LinkedCaveManCMSetIterator(version);
+	}
+
+	@Override
+	public void forEach(CMConsumer consumer) {
+		int startVersion = version;
+		for (int slot = head; slot != NONE; slot = after[slot]) {
+			consumer.accept(items[slot]);
+		}
+
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during forEach");
+		}
+	}
+
+	@Override
+	public CM[] toArray() {
+		CM[] array = new CM[size];
+		int index = 0;
+		for (int slot = head; slot != NONE; slot = after[slot]) {
+			array[index++] = items[slot];
+		}
+
+		return array;
+	}
+
+	@Override
+	public boolean add(CM item) {
+		++version;
+
+		if (find(item) != NONE) {
+			return false;
+		}
+
+		ensureSize(size + 1);
+		link(takeSlot(), item);
+		return true;
+	}
+
+	@Override
+	public boolean remove(CM item) {
+		++version;
+
+		int slot = find(item);
+		if (slot == NONE) {
+			return false;
+		}
+
+		removeSlot(slot);
+		return true;
+	}
+
+	@Override
+	public boolean containsAll(CMCollection c) {
+		CMIterator it = c.iterator();
+		while (it.hasNext()) {
+			if (!contains(it.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean addAll(CMCollection c) {
+		++version;
+
+		ensureSize(size + c.size());
+
+		int startSize = size;
+		CMIterator it = c.iterator();
+		while (it.hasNext()) {
+			add(it.next());
+		}
+		return startSize != size;
+	}
+
+	@Override
+	public boolean retainAll(CMCollection c) {
+		++version;
+		int startSize = size;
+		int slot = head;
+		while (slot != NONE) {
+			int nextSlot = after[slot];
+			if (!c.contains(items[slot])) {
+				removeSlot(slot);
+			}
+			slot = nextSlot;
+		}
+		return startSize != size;
+	}
+
+	@Override
+	public boolean removeAll(CMCollection c) {
+		++version;
+		int startSize = size;
+		CMIterator it = c.iterator();
+		while (it.hasNext()) {
+			remove(it.next());
+		}
+		return startSize != size;
+	}
+
+	@Override
+	public void clear() {
+		++version;
+		Arrays.fill(table, NONE);
+		head = NONE;
+		tail = NONE;
+		freeSlot = NONE;
+		usedSlots = 0;
+		size = 0;
+	}
+
+	/**
+	 * returns the item that was added first, which is the one a FIFO eviction policy removes next
+	 */
+	@Override
+	public CM getOne() {
+		return first();
+	}
+
+	/**
+	 * returns the item that has been in the set the longest
+	 *
+	 * @return the eldest item
+	 * @throws IllegalStateException if the set is empty
+	 */
+	public CM first() {
+		if (size == 0) {
+			throw new IllegalStateException("set has no items");
+		}
+
+		return items[head];
+	}
+
+	/**
+	 * returns the item that was added most recently
+	 *
+	 * @return the youngest item
+	 * @throws IllegalStateException if the set is empty
+	 */
+	public CM last() {
+		if (size == 0) {
+			throw new IllegalStateException("set has no items");
+		}
+
+		return items[tail];
+	}
+
+	private int find(CM item) {
+		for (int slot = table[hashCaveMan(item) & (table.length - 1)]; slot != NONE; slot = chain[slot]) {
+			if (items[slot] == item) {
+				return slot;
+			}
+		}
+
+		return NONE;
+	}
+
+	/**
+	 * returns a slot to put a new item in, reusing a slot freed by a remove before one never used.
+	 * The caller must have made room for one more item first.
+	 */
+	private int takeSlot() {
+		if (freeSlot == NONE) {
+			return usedSlots++;
+		}
+
+		int slot = freeSlot;
+		freeSlot = chain[slot];
+		return slot;
+	}
+
+	/**
+	 * puts an item in a slot, at the head of its bucket's chain and the tail of the insertion chain
+	 */
+	private void link(int slot, CM item) {
+		int bucket = hashCaveMan(item) & (table.length - 1);
+		items[slot] = item;
+		chain[slot] = table[bucket];
+		table[bucket] = slot;
+
+		before[slot] = tail;
+		after[slot] = NONE;
+		if (tail == NONE) {
+			head = slot;
+		} else {
+			after[tail] = slot;
+		}
+		tail = slot;
+		++size;
+	}
+
+	private void removeSlot(int slot) {
+		int bucket = hashCaveMan(items[slot]) & (table.length - 1);
+		if (table[bucket] == slot) {
+			table[bucket] = chain[slot];
+		} else {
+			int prev = table[bucket];
+			while (chain[prev] != slot) {
+				prev = chain[prev];
+			}
+			chain[prev] = chain[slot];
+		}
+
+		if (before[slot] == NONE) {
+			head = after[slot];
+		} else {
+			after[before[slot]] = after[slot];
+		}
+		if (after[slot] == NONE) {
+			tail = before[slot];
+		} else {
+			before[after[slot]] = before[slot];
+		}
+
+		chain[slot] = freeSlot;
+		freeSlot = slot;
+		--size;
+	}
+
+	private void allocate(int capacity) {
+		table = new int[tableSizeFor((int) Math.min(Math.ceil(capacity / (double) loadFactor), 1 << 30))];
+		Arrays.fill(table, NONE);
+		items = new CM[capacity];
+		chain = new int[capacity];
+		before = new int[capacity];
+		after = new int[capacity];
+		head = NONE;
+		tail = NONE;
+		freeSlot = NONE;
+		usedSlots = 0;
+	}
+
+	/**
+	 * grows the slot arrays to hold at least newSize items, copying the items across in insertion
+	 * order, so that the slots are compacted and a walk of the insertion chain reads them sequentially
+	 */
+	private void ensureSize(int newSize) {
+		if (newSize > items.length) {
+			CM[] oldItems = items;
+			int[] oldAfter = after;
+			int oldHead = head;
+
+			allocate(Math.max(newSize, items.length * 2));
+			size = 0;
+			for (int slot = oldHead; slot != NONE; slot = oldAfter[slot]) {
+				link(usedSlots++, oldItems[slot]);
+			}
+		}
+	}
+
+	private static int tableSizeFor(int capacity) {
+		return (capacity <= 1) ? 1 : (Integer.highestOneBit(capacity - 1) << 1);
+	}
+
+	private class LinkedCaveManCMSetIterator implements CMIterator {
+
+		private int iteratorVersion;
+		private int nextSlot;
+		private int currentSlot;
+
+		LinkedCaveManCMSetIterator(int vers) {
+			iteratorVersion = vers;
+			nextSlot = head;
+			currentSlot = NONE;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			return nextSlot != NONE;
+		}
+
+		@Override
+		public CM next() throws NoSuchElementException {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			if (nextSlot == NONE) {
+				throw new NoSuchElementException("Iterator has been exhausted");
+			}
+
+			currentSlot = nextSlot;
+			nextSlot = after[currentSlot];
+			return items[currentSlot];
+		}
+
+		@Override
+		public void remove() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			if (currentSlot == NONE) {
+				throw new IllegalStateException("next() has not been called since the last remove");
+			}
+
+			removeSlot(currentSlot);
+			currentSlot = NONE;
+			++version;
+			++iteratorVersion;
+		}
+	}
+
+
+
+	private static int hashCaveMan(CM item) {return 0;}
+}
@@ -0,0 +1,423 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.mebigfatguy.caveman.proto.CMCollection;
+import com.mebigfatguy.caveman.proto.CMConsumer;
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.ConcurrentCMQueue;
+import com.mebigfatguy.caveman.proto.aux.CM;
+
+/**
+ * A lock free, bounded ConcurrentCMQueue that any number of threads may offer to and poll from,
+ * held in a ring of <b>CM</b>s whose size is a power of two. Each slot has a sequence number saying
+ * which lap of the ring it is ready for, so producers claim a slot by a compare and set of the tail,
+ * fill it and then bump its sequence, and consumers do the same with the head. offerAll and drainTo
+ * claim a run of slots with one compare and set.
+ * <p>
+ * size, contains, iterator, forEach and toArray are weakly consistent, they see the <b>CM</b>s that
+ * were in the queue at some point while they ran, and the iterator works over a copy. Removing
+ * <b>CM</b>s from the middle of the queue isn't supported.
+ */
+public class MpmcCaveManCMQueue implements ConcurrentCMQueue, Serializable {
+
+	private static final long serialVersionUID = 3068215936431874012L;
+	public static final CM DEFAULT_NOT_FOUND_VALUE = toCaveMan(0);
+	static final int DEFAULT_CAPACITY = 1024;
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	/** the number of longs between counters, two 64 byte lines so the adjacent line prefetch doesn't pair them */
+	private static final int PAD = 16;
+	private static final int HEAD = PAD;
+	private static final int TAIL = PAD * 2;
+
+	private final CM[] items;
+	private final int mask;
+	private final CM notFound;
+	/** the sequence of the next CM to poll at HEAD, and of the next CM to offer at TAIL */
+	private final AtomicLongArray counters;
+	/** for each slot, the sequence it may next be offered at, or one more than the sequence it may next be polled at */
+	private final AtomicLongArray slotSequences;
+	/** whether slot sequences are published with a full volatile write, which waiting threads need to not miss a change */
+	private final boolean fenced;
+
+	public MpmcCaveManCMQueue() {
+		this(DEFAULT_NOT_FOUND_VALUE, DEFAULT_CAPACITY);
+	}
+
+	public MpmcCaveManCMQueue(int capacity) {
+		this(DEFAULT_NOT_FOUND_VALUE, capacity);
+	}
+
+	public MpmcCaveManCMQueue(CM notFoundValue, int capacity) {
+		this(notFoundValue, capacity, false);
+	}
+
+	MpmcCaveManCMQueue(CM notFoundValue, int capacity, boolean fencedPublish) {
+		if (capacity < 1) {
+			capacity = 1;
+		} else if (capacity > MAXIMUM_CAPACITY) {
+			capacity = MAXIMUM_CAPACITY;
+		}
+
+		int ringSize = Integer.highestOneBit(capacity);
+		if (ringSize < capacity) {
+			ringSize <<= 1;
+		}
+
+		items = new CM[ringSize];
+		mask = ringSize - 1;
+		notFound = notFoundValue;
+		counters = new AtomicLongArray(PAD * 3);
+		slotSequences = new AtomicLongArray(ringSize);
+		for (int i = 0; i < ringSize; i++) {
+			slotSequences.set(i, i);
+		}
+		fenced = fencedPublish;
+	}
+
+	@Override
+	public int capacity() {
+		return items.length;
+	}
+
+	@Override
+	public boolean offer(CM item) {
+		long pos = claimOffer();
+		if (pos < 0) {
+			return false;
+		}
+
+		publish(pos, item);
+		return true;
+	}
+
+	@Override
+	public int offerAll(CM[] src, int off, int len) {
+		if ((off < 0) || (len < 0) || (len > (src.length - off))) {
+			throw new IndexOutOfBoundsException("offset " + off + " and length " + len + " do not fit an array of " + src.length);
+		}
+
+		if (len == 0) {
+			return 0;
+		}
+
+		for (;;) {
+			long tail = counters.get(TAIL);
+			int count = 0;
+			while ((count < len) && (slotSequences.get((int) (tail + count) & mask) == (tail + count))) {
+				count++;
+			}
+
+			if (count == 0) {
+				if (slotSequences.get((int) tail & mask) < tail) {
+					return 0;
+				}
+			} else if (counters.compareAndSet(TAIL, tail, tail + count)) {
+				for (int i = 0; i < count; i++) {
+					publish(tail + i, src[off + i]);
+				}
+				return count;
+			}
+		}
+	}
+
+	@Override
+	public CM poll() {
+		long pos = claimPoll();
+		if (pos < 0) {
+			return notFound;
+		}
+
+		return consume(pos);
+	}
+
+	@Override
+	public int drainTo(CM[] dst) {
+		if (dst.length == 0) {
+			return 0;
+		}
+
+		for (;;) {
+			long head = counters.get(HEAD);
+			int count = 0;
+			while ((count < dst.length) && (slotSequences.get((int) (head + count) & mask) == (head + count + 1))) {
+				count++;
+			}
+
+			if (count == 0) {
+				if (slotSequences.get((int) head & mask) < (head + 1)) {
+					return 0;
+				}
+			} else if (counters.compareAndSet(HEAD, head, head + count)) {
+				for (int i = 0; i < count; i++) {
+					dst[i] = consume(head + i);
+				}
+				return count;
+			}
+		}
+	}
+
+	@Override
+	public CM element() {
+		CM[] first = new CM[1];
+		if (copyTo(first) == 0) {
+			throw new NoSuchElementException();
+		}
+
+		return first[0];
+	}
+
+	@Override
+	public CM peek() {
+		CM[] first = new CM[1];
+		if (copyTo(first) == 0) {
+			return notFound;
+		}
+
+		return first[0];
+	}
+
+	@Override
+	public int size() {
+		long head = counters.get(HEAD);
+		long tail = counters.get(TAIL);
+		return (int) Math.max(0, Math.min(items.length, tail - head));
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public boolean contains(CM item) {
+		CM[] snapshot = toArray();
+		for (CM s : snapshot) {
+			if (item == s) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public CMIterator iterator() {
+		return new MpmcCaveManCMQueueIterator(toArray());
+	}
+
+	@Override
+	public void forEach(CMConsumer consumer) {
+		CM[] snapshot = toArray();
+		for (CM item : snapshot) {
+			consumer.accept(item);
+		}
+	}
+
+	@Override
+	public CM[] toArray() {
+		CM[] snapshot = new CM[size()];
+		int count = copyTo(snapshot);
+		return (count == snapshot.length) ? snapshot : Arrays.copyOf(snapshot, count);
+	}
+
+	@Override
+	public boolean add(CM item) {
+		if (!offer(item)) {
+			throw new IllegalStateException("Queue is full at " + items.length + " items");
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean remove(CM item) {
+		throw new UnsupportedOperationException("Items can only be removed from the head of the queue");
+	}
+
+	@Override
+	public void clear() {
+		long pos;
+		while ((pos = claimPoll()) >= 0) {
+			consume(pos);
+		}
+	}
+
+	@Override
+	public boolean containsAll(CMCollection c) {
+		CMIterator it = c.iterator();
+		while (it.hasNext()) {
+			if (!contains(it.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean addAll(CMCollection c) {
+		boolean modified = false;
+		CMIterator it = c.iterator();
+		while (it.hasNext()) {
+			modified |= add(it.next());
+		}
+		return modified;
+	}
+
+	@Override
+	public boolean retainAll(CMCollection c) {
+		throw new UnsupportedOperationException("Items can only be removed from the head of the queue");
+	}
+
+	@Override
+	public boolean removeAll(CMCollection c) {
+		throw new UnsupportedOperationException("Items can only be removed from the head of the queue");
+	}
+
+	@Override
+	public CM getOne() {
+		CM[] first = new CM[1];
+		if (copyTo(first) == 0) {
+			throw new IllegalStateException("This queue is empty");
+		}
+
+		return first[0];
+	}
+
+	/**
+	 * claims the slot at the tail for the caller to publish into
+	 *
+	 * @return the sequence of the claimed slot, or -1 if the queue is full
+	 */
+	final long claimOffer() {
+		for (;;) {
+			long tail = counters.get(TAIL);
+			long available = slotSequences.get((int) tail & mask) - tail;
+			if (available == 0) {
+				if (counters.compareAndSet(TAIL, tail, tail + 1)) {
+					return tail;
+				}
+			} else if (available < 0) {
+				return -1;
+			}
+		}
+	}
+
+	final void publish(long pos, CM item) {
+		int index = (int) pos & mask;
+		items[index] = item;
+		if (fenced) {
+			slotSequences.set(index, pos + 1);
+		} else {
+			slotSequences.lazySet(index, pos + 1);
+		}
+	}
+
+	/**
+	 * claims the slot at the head for the caller to consume
+	 *
+	 * @return the sequence of the claimed slot, or -1 if the queue is empty
+	 */
+	final long claimPoll() {
+		for (;;) {
+			long head = counters.get(HEAD);
+			long available = slotSequences.get((int) head & mask) - (head + 1);
+			if (available == 0) {
+				if (counters.compareAndSet(HEAD, head, head + 1)) {
+					return head;
+				}
+			} else if (available < 0) {
+				return -1;
+			}
+		}
+	}
+
+	final CM consume(long pos) {
+		int index = (int) pos & mask;
+		CM item = items[index];
+		if (fenced) {
+			slotSequences.set(index, pos + items.length);
+		} else {
+			slotSequences.lazySet(index, pos + items.length);
+		}
+		return item;
+	}
+
+	/**
+	 * copies the published CMs from the head, without removing them, stopping at the first slot
+	 * that isn't published yet
+	 */
+	private int copyTo(CM[] dst) {
+		long pos = counters.get(HEAD);
+		int count = 0;
+		while (count < dst.length) {
+			int index = (int) pos & mask;
+			if (slotSequences.get(index) != (pos + 1)) {
+				break;
+			}
+			CM item = items[index];
+			if (slotSequences.get(index) != (pos + 1)) {
+				break;
+			}
+			dst[count++] = item;
+			pos++;
+		}
+
+		return count;
+	}
+
+	private static class MpmcCaveManCMQueueIterator implements CMIterator {
+
+		private final CM[] snapshot;
+		private int pos;
+
+		MpmcCaveManCMQueueIterator(CM[] items) {
+			snapshot = items;
+			pos = 0;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return pos < snapshot.length;
+		}
+
+		@Override
+		public CM next() throws NoSuchElementException {
+			if (pos >= snapshot.length) {
+				throw new NoSuchElementException("Iterator has been exhausted");
+			}
+
+			return snapshot[pos++];
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Items can only be removed from the head of the queue");
+		}
+	}
+
+
+
+	private static CM toCaveMan(int i) {return null;}
+}
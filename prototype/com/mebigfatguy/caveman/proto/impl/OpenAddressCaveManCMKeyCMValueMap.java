@@ -0,0 +1,886 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+import com.mebigfatguy.caveman.proto.CMKeyCMValueConsumer;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueFunction;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMapIterator;
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMKeyCollection;
+import com.mebigfatguy.caveman.proto.aux.CMKeyIterator;
+import com.mebigfatguy.caveman.proto.aux.CMKeySet;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.CMValueBag;
+import com.mebigfatguy.caveman.proto.aux.CMValueBinaryOperator;
+import com.mebigfatguy.caveman.proto.aux.CMValueCollection;
+import com.mebigfatguy.caveman.proto.aux.CMValueIterator;
+import com.mebigfatguy.caveman.proto.aux.OnlyForValue;
+
+/**
+ * A CMKeyCMValueMap that stores its keys and values in flat parallel arrays, rather than
+ * in per bucket objects. Collisions are resolved by linear probing, and removed entries are
+ * left as tombstones until the table is next rebuilt. The table length is always a power of two.
+ */
+public class OpenAddressCaveManCMKeyCMValueMap implements CMKeyCMValueMap, Serializable {
+	private static final long serialVersionUID = -2250271826413805592L;
+	public static final CMValue DEFAULT_NOT_FOUND_VALUE = toCaveManValue(0);
+	private static final int DEFAULT_CAPACITY = 32;
+	private static final float DEFAULT_LOAD_FACTOR = 0.65f;
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+	private static final int BATCH_SIZE = 64;
+
+	private static final byte FREE = 0;
+	private static final byte FULL = 1;
+	private static final byte REMOVED = 2;
+
+	private final CMValue notFound;
+	private CMKey[] keys;
+	private CMValue[] values;
+	private byte[] states;
+	private int size;
+	private int usedSlots;
+	private final float loadFactor;
+	private int version;
+
+	public OpenAddressCaveManCMKeyCMValueMap() {
+		this(DEFAULT_NOT_FOUND_VALUE, DEFAULT_CAPACITY);
+	}
+
+	public OpenAddressCaveManCMKeyCMValueMap(CMValue notFoundValue, int initialCapacity) {
+		this(notFoundValue, initialCapacity, DEFAULT_LOAD_FACTOR);
+	}
+
+	public OpenAddressCaveManCMKeyCMValueMap(CMValue notFoundValue, int initialCapacity, float loadingFactor) {
+		if ((loadingFactor <= 0.0f) || (loadingFactor >= 1.0f)) {
+			throw new IllegalArgumentException("Load factor: " + loadingFactor + " is out of bounds (0.0, 1.0)");
+		}
+
+		notFound = notFoundValue;
+		loadFactor = loadingFactor;
+		size = 0;
+		usedSlots = 0;
+
+		int capacity = 2;
+		while ((capacity < initialCapacity) && (capacity < MAXIMUM_CAPACITY)) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean containsKey(CMKey key) {
+		return find(key) >= 0;
+	}
+
+	@Override
+	public boolean containsValue(CMValue value) {
+		for (int i = 0; i < states.length; i++) {
+			if ((states[i] == FULL) && (values[i] == value)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public CMValue get(CMKey key) {
+		int slot = find(key);
+		if (slot < 0) {
+			return notFound;
+		}
+
+		return values[slot];
+	}
+
+	@Override
+	public void put(CMKey key, CMValue value) {
+		++version;
+
+		ensureSize(size + 1);
+
+		int mask = keys.length - 1;
+		int slot = slotFor(key);
+		int removedSlot = -1;
+
+		while (states[slot] != FREE) {
+			if (states[slot] == FULL) {
+				if (keys[slot] == key) {
+					values[slot] = value;
+					return;
+				}
+			} else if (removedSlot < 0) {
+				removedSlot = slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		if (removedSlot >= 0) {
+			slot = removedSlot;
+		} else {
+			++usedSlots;
+		}
+
+		keys[slot] = key;
+		values[slot] = value;
+		states[slot] = FULL;
+		++size;
+	}
+
+	@Override
+	public void remove(CMKey key) {
+		++version;
+
+		int slot = find(key);
+		if (slot >= 0) {
+			removeSlot(slot);
+		}
+	}
+
+	@Override
+	public void putAll(CMKeyCMValueMap m) {
+		++version;
+
+		ensureSize(size + m.size());
+
+		CMKeyCMValueMapIterator iterator = m.iterator();
+
+		while (iterator.hasNext()) {
+			iterator.next();
+			put(iterator.key(), iterator.value());
+		}
+	}
+
+	/**
+	 * hashes a run of keys before adding any of them, so that the probes that follow are independent
+	 * of each other, and the processor can have several cache misses outstanding at once
+	 */
+	@Override
+	public void putAll(CMKey[] batchKeys, CMValue[] batchValues, int off, int len) {
+		if ((off < 0) || (len < 0) || (off + len > batchKeys.length) || (off + len > batchValues.length)) {
+			throw new IndexOutOfBoundsException("Range [" + off + ", " + (off + len) + ") is out of bounds");
+		}
+
+		++version;
+
+		ensureSize(size + len);
+
+		int mask = keys.length - 1;
+		int[] slots = new int[Math.min(len, BATCH_SIZE)];
+		for (int start = off; start < (off + len); start += BATCH_SIZE) {
+			int count = Math.min(BATCH_SIZE, (off + len) - start);
+			for (int i = 0; i < count; i++) {
+				slots[i] = hashCaveManKey(batchKeys[start + i]) & mask;
+			}
+
+			for (int i = 0; i < count; i++) {
+				// only clears out tombstones, as the table has already grown to hold every key, so the slots stay valid
+				ensureSize(size + 1);
+
+				int slot = probe(batchKeys[start + i], slots[i]);
+				if (slot >= 0) {
+					values[slot] = batchValues[start + i];
+				} else {
+					insertAt(-1 - slot, batchKeys[start + i], batchValues[start + i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * hashes a run of keys before looking any of them up, so that the probes that follow are
+	 * independent of each other, and the processor can have several cache misses outstanding at once
+	 */
+	@Override
+	public void getAll(CMKey[] batchKeys, CMValue[] out) {
+		if (out.length < batchKeys.length) {
+			throw new IndexOutOfBoundsException("Output length " + out.length + " is less than " + batchKeys.length);
+		}
+
+		int mask = keys.length - 1;
+		int[] slots = new int[Math.min(batchKeys.length, BATCH_SIZE)];
+		for (int start = 0; start < batchKeys.length; start += BATCH_SIZE) {
+			int count = Math.min(BATCH_SIZE, batchKeys.length - start);
+			for (int i = 0; i < count; i++) {
+				slots[i] = hashCaveManKey(batchKeys[start + i]) & mask;
+			}
+
+			for (int i = 0; i < count; i++) {
+				int slot = find(batchKeys[start + i], slots[i]);
+				out[start + i] = (slot >= 0) ? values[slot] : notFound;
+			}
+		}
+	}
+
+	@Override
+	public void clear() {
+		++version;
+
+		Arrays.fill(states, FREE);
+		size = 0;
+		usedSlots = 0;
+	}
+
+	@Override
+	public CMKeyCMValueMapIterator iterator() {
+		return new OpenAddressCaveManCMKeyCMValueMapIterator(version);
+	}
+
+	@Override
+	public void forEach(CMKeyCMValueConsumer consumer) {
+		int startVersion = version;
+		for (int i = 0; i < states.length; i++) {
+			if (states[i] == FULL) {
+				consumer.accept(keys[i], values[i]);
+			}
+		}
+
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during forEach");
+		}
+	}
+
+	@Override
+	public CMKeySet keySet() {
+		return new OpenAddressCaveManCMKeyCMValueKeySet();
+	}
+
+	@Override
+	public CMValueBag values() {
+		return new OpenAddressCaveManCMKeyCMValueValuesBag();
+	}
+
+	@Override
+	public CMValue getOrDefault(CMKey key, CMValue defaultValue) {
+		int slot = find(key);
+		return (slot >= 0) ? values[slot] : defaultValue;
+	}
+
+	@Override
+	public CMValue putIfAbsent(CMKey key, CMValue value) {
+		ensureSize(size + 1);
+
+		int slot = probe(key);
+		if (slot >= 0) {
+			return values[slot];
+		}
+
+		insertAt(-1 - slot, key, value);
+		return notFound;
+	}
+
+	@Override
+	public CMValue replace(CMKey key, CMValue value) {
+		int slot = find(key);
+		if (slot < 0) {
+			return notFound;
+		}
+
+		++version;
+		CMValue oldValue = values[slot];
+		values[slot] = value;
+		return oldValue;
+	}
+
+	@Override
+	public boolean replace(CMKey key, CMValue oldValue, CMValue newValue) {
+		int slot = find(key);
+		if ((slot < 0) || (values[slot] != oldValue)) {
+			return false;
+		}
+
+		++version;
+		values[slot] = newValue;
+		return true;
+	}
+
+	@Override
+	public CMValue computeIfAbsent(CMKey key, CMKeyCMValueFunction mappingFunction) {
+		ensureSize(size + 1);
+
+		int slot = probe(key);
+		if (slot >= 0) {
+			return values[slot];
+		}
+
+		int startVersion = version;
+		CMValue value = mappingFunction.applyAsCMValue(key);
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during computeIfAbsent");
+		}
+
+		insertAt(-1 - slot, key, value);
+		return value;
+	}
+
+	@Override
+	public CMValue merge(CMKey key, CMValue value, CMValueBinaryOperator remappingFunction) {
+		ensureSize(size + 1);
+
+		int slot = probe(key);
+		if (slot < 0) {
+			insertAt(-1 - slot, key, value);
+			return value;
+		}
+
+		int startVersion = version;
+		CMValue newValue = remappingFunction.applyAsCMValue(values[slot], value);
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during merge");
+		}
+
+		++version;
+		values[slot] = newValue;
+		return newValue;
+	}
+
+	@OnlyForValue({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public CMValue addTo(CMKey key, CMValue delta) {
+		ensureSize(size + 1);
+
+		int slot = probe(key);
+		if (slot < 0) {
+			insertAt(-1 - slot, key, addCaveManValues(notFound, delta));
+			return notFound;
+		}
+
+		++version;
+		CMValue oldValue = values[slot];
+		values[slot] = addCaveManValues(oldValue, delta);
+		return oldValue;
+	}
+
+	private int slotFor(CMKey key) {
+		return hashCaveManKey(key) & (keys.length - 1);
+	}
+
+	private int find(CMKey key) {
+		return find(key, slotFor(key));
+	}
+
+	private int find(CMKey key, int startSlot) {
+		int mask = keys.length - 1;
+		int slot = startSlot;
+
+		while (states[slot] != FREE) {
+			if ((states[slot] == FULL) && (keys[slot] == key)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * returns the slot holding the key, or if the key is absent, -1 minus the slot to add it at, which
+	 * is the first tombstone passed, or else the free slot that ended the probe. The caller must have
+	 * made room for one more key first.
+	 */
+	private int probe(CMKey key) {
+		return probe(key, slotFor(key));
+	}
+
+	private int probe(CMKey key, int startSlot) {
+		int mask = keys.length - 1;
+		int slot = startSlot;
+		int removedSlot = -1;
+
+		while (states[slot] != FREE) {
+			if (states[slot] == FULL) {
+				if (keys[slot] == key) {
+					return slot;
+				}
+			} else if (removedSlot < 0) {
+				removedSlot = slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return -1 - ((removedSlot >= 0) ? removedSlot : slot);
+	}
+
+	private void insertAt(int slot, CMKey key, CMValue value) {
+		++version;
+
+		if (states[slot] == FREE) {
+			++usedSlots;
+		}
+
+		keys[slot] = key;
+		values[slot] = value;
+		states[slot] = FULL;
+		++size;
+	}
+
+	private void removeSlot(int slot) {
+		// a slot followed by a free slot can't be in the middle of a probe sequence, so needs no tombstone
+		if (states[(slot + 1) & (keys.length - 1)] == FREE) {
+			states[slot] = FREE;
+			--usedSlots;
+		} else {
+			states[slot] = REMOVED;
+		}
+		--size;
+	}
+
+	private void allocate(int capacity) {
+		keys = new CMKey[capacity];
+		values = new CMValue[capacity];
+		states = new byte[capacity];
+	}
+
+	private void ensureSize(int newSize) {
+		if ((Math.max(newSize, usedSlots + 1) > (keys.length * loadFactor)) && (keys.length < MAXIMUM_CAPACITY)) {
+			int newCapacity = keys.length;
+			while ((newSize > (newCapacity * loadFactor)) && (newCapacity < MAXIMUM_CAPACITY)) {
+				newCapacity <<= 1;
+			}
+
+			++version;
+			CMKey[] oldKeys = keys;
+			CMValue[] oldValues = values;
+			byte[] oldStates = states;
+
+			allocate(newCapacity);
+			int mask = newCapacity - 1;
+			for (int i = 0; i < oldStates.length; i++) {
+				if (oldStates[i] == FULL) {
+					int slot = slotFor(oldKeys[i]);
+					while (states[slot] != FREE) {
+						slot = (slot + 1) & mask;
+					}
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+					states[slot] = FULL;
+				}
+			}
+			usedSlots = size;
+		}
+	}
+
+	private int nextFullSlot(int slot) {
+		while ((slot < states.length) && (states[slot] != FULL)) {
+			++slot;
+		}
+		return slot;
+	}
+
+	private class OpenAddressCaveManCMKeyCMValueMapIterator implements CMKeyCMValueMapIterator {
+
+		private int iteratorVersion;
+		private int nextSlot;
+		private int currentSlot;
+		private CMKey key;
+		private CMValue value;
+
+		public OpenAddressCaveManCMKeyCMValueMapIterator(int version) {
+			iteratorVersion = version;
+			nextSlot = nextFullSlot(0);
+			currentSlot = -1;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			return nextSlot < states.length;
+		}
+
+		@Override
+		public void next() throws NoSuchElementException {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			if (nextSlot >= states.length) {
+				throw new NoSuchElementException("Iterator has been exhausted");
+			}
+
+			currentSlot = nextSlot;
+			key = keys[currentSlot];
+			value = values[currentSlot];
+			nextSlot = nextFullSlot(currentSlot + 1);
+		}
+
+		@Override
+		public CMKey key() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			return key;
+		}
+
+		@Override
+		public CMValue value() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			return value;
+		}
+
+		@Override
+		public void remove() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			if (currentSlot < 0) {
+				throw new IllegalStateException("next() has not been called since the last remove");
+			}
+
+			removeSlot(currentSlot);
+			currentSlot = -1;
+			++version;
+			++iteratorVersion;
+		}
+	}
+
+	private class OpenAddressCaveManCMKeyCMValueKeySet implements CMKeySet {
+
+		@Override
+		public int size() {
+			return OpenAddressCaveManCMKeyCMValueMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return OpenAddressCaveManCMKeyCMValueMap.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(CMKey item) {
+			return OpenAddressCaveManCMKeyCMValueMap.this.containsKey(item);
+		}
+
+		@Override
+		public CMKeyIterator iterator() {
+			return new OpenAddressCaveManCMKeyCMValueKeySetIterator();
+		}
+
+		@Override
+		public CMKey[] toArray() {
+			CMKey[] data = new CMKey[size];
+
+			int pos = 0;
+			for (int i = 0; i < states.length; i++) {
+				if (states[i] == FULL) {
+					data[pos++] = keys[i];
+				}
+			}
+
+			return data;
+		}
+
+		@Override
+		public boolean add(CMKey item) {
+			int originalSize = size;
+
+			OpenAddressCaveManCMKeyCMValueMap.this.put(item, notFound);
+			return originalSize != size;
+		}
+
+		@Override
+		public boolean remove(CMKey item) {
+			int originalSize = size;
+
+			OpenAddressCaveManCMKeyCMValueMap.this.remove(item);
+			return originalSize != size;
+		}
+
+		@Override
+		public void clear() {
+			OpenAddressCaveManCMKeyCMValueMap.this.clear();
+		}
+
+		@Override
+		public boolean containsAll(CMKeyCollection c) {
+			CMKeyIterator it = c.iterator();
+			while (it.hasNext()) {
+				if (!OpenAddressCaveManCMKeyCMValueMap.this.containsKey(it.next())) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		@Override
+		public boolean addAll(CMKeyCollection c) {
+			int originalSize = size;
+
+			CMKeyIterator it = c.iterator();
+			while (it.hasNext()) {
+				OpenAddressCaveManCMKeyCMValueMap.this.put(it.next(), notFound);
+			}
+
+			return originalSize != size;
+		}
+
+		@Override
+		public boolean retainAll(CMKeyCollection c) {
+			int originalSize = size;
+
+			for (int i = 0; i < states.length; i++) {
+				if ((states[i] == FULL) && !c.contains(keys[i])) {
+					removeSlot(i);
+				}
+			}
+
+			if (originalSize != size) {
+				++version;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public boolean removeAll(CMKeyCollection c) {
+			int originalSize = size;
+
+			CMKeyIterator it = c.iterator();
+			while (it.hasNext()) {
+				OpenAddressCaveManCMKeyCMValueMap.this.remove(it.next());
+			}
+
+			return originalSize != size;
+		}
+
+		@Override
+		public CMKey getOne() {
+			if (size > 0) {
+				return keys[nextFullSlot(0)];
+			}
+
+			throw new IllegalStateException("map key set has no items");
+		}
+
+		private class OpenAddressCaveManCMKeyCMValueKeySetIterator implements CMKeyIterator {
+
+			private final CMKeyCMValueMapIterator iterator = OpenAddressCaveManCMKeyCMValueMap.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public CMKey next() throws NoSuchElementException {
+				iterator.next();
+				return iterator.key();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+			}
+		}
+	}
+
+	private class OpenAddressCaveManCMKeyCMValueValuesBag implements CMValueBag {
+
+		@Override
+		public int size() {
+			return OpenAddressCaveManCMKeyCMValueMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return OpenAddressCaveManCMKeyCMValueMap.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(CMValue item) {
+			return OpenAddressCaveManCMKeyCMValueMap.this.containsValue(item);
+		}
+
+		@Override
+		public CMValueIterator iterator() {
+			return new OpenAddressCaveManCMKeyCMValueValuesBagIterator();
+		}
+
+		@Override
+		public CMValue[] toArray() {
+			CMValue[] data = new CMValue[size];
+
+			int pos = 0;
+			for (int i = 0; i < states.length; i++) {
+				if (states[i] == FULL) {
+					data[pos++] = values[i];
+				}
+			}
+
+			return data;
+		}
+
+		@Override
+		public boolean add(CMValue item) {
+			throw new UnsupportedOperationException("add is not supported from the values bag of a OpenAddressCaveManCMKeyCMValueMap as there's no obvious key");
+		}
+
+		@Override
+		public boolean remove(CMValue item) {
+			int originalSize = size;
+
+			for (int i = 0; i < states.length; i++) {
+				if ((states[i] == FULL) && (values[i] == item)) {
+					removeSlot(i);
+				}
+			}
+
+			if (originalSize != size) {
+				++version;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public void clear() {
+			OpenAddressCaveManCMKeyCMValueMap.this.clear();
+		}
+
+		@Override
+		public boolean containsAll(CMValueCollection c) {
+			CMValueIterator it = c.iterator();
+			while (it.hasNext()) {
+				if (!OpenAddressCaveManCMKeyCMValueMap.this.containsValue(it.next())) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		@Override
+		public boolean addAll(CMValueCollection c) {
+			throw new UnsupportedOperationException("addAll is not supported from the values bag of a OpenAddressCaveManCMKeyCMValueMap as there's no obvious keys");
+		}
+
+		@Override
+		public boolean retainAll(CMValueCollection c) {
+			int originalSize = size;
+
+			for (int i = 0; i < states.length; i++) {
+				if ((states[i] == FULL) && !c.contains(values[i])) {
+					removeSlot(i);
+				}
+			}
+
+			if (originalSize != size) {
+				++version;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public boolean removeAll(CMValueCollection c) {
+			int originalSize = size;
+
+			CMValueIterator it = c.iterator();
+			while (it.hasNext()) {
+				remove(it.next());
+			}
+
+			return originalSize != size;
+		}
+
+		@Override
+		public boolean removeOne(CMValue item) {
+			for (int i = 0; i < states.length; i++) {
+				if ((states[i] == FULL) && (values[i] == item)) {
+					removeSlot(i);
+					++version;
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public int countOf(CMValue item) {
+			int count = 0;
+			for (int i = 0; i < states.length; i++) {
+				if ((states[i] == FULL) && (values[i] == item)) {
+					++count;
+				}
+			}
+
+			return count;
+		}
+
+		@Override
+		public CMValue getOne() {
+			if (size > 0) {
+				return values[nextFullSlot(0)];
+			}
+
+			throw new IllegalStateException("map value collection has no items");
+		}
+
+		private class OpenAddressCaveManCMKeyCMValueValuesBagIterator implements CMValueIterator {
+
+			private final CMKeyCMValueMapIterator iterator = OpenAddressCaveManCMKeyCMValueMap.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public CMValue next() throws NoSuchElementException {
+				iterator.next();
+				return iterator.value();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+			}
+		}
+	}
+
+
+
+	private static int hashCaveManKey(CMKey key) {return 0;}
+	private static CMValue toCaveManValue(int i) {return null;}
+	private static CMValue addCaveManValues(CMValue a, CMValue b) {return null;}
+}
@@ -0,0 +1,768 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.mebigfatguy.caveman.proto.CMBag;
+import com.mebigfatguy.caveman.proto.CMBinaryOperator;
+import com.mebigfatguy.caveman.proto.CMCollection;
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.CMValueMap;
+import com.mebigfatguy.caveman.proto.CMValueMapIterator;
+import com.mebigfatguy.caveman.proto.ObjectCMConsumer;
+import com.mebigfatguy.caveman.proto.ObjectCMFunction;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+
+/**
+ * A CMValueMap that stores its keys, values and the keys' spread hash codes in flat parallel
+ * arrays, rather than in per bucket objects. A probe compares the stored hash before calling
+ * equals, so equals is only called on keys that are very likely to match, and the table is
+ * rebuilt from the stored hashes, so hashCode is called once per key, when it is added, however
+ * many times the table grows. This suits keys whose hashCode or equals is costly, such as long
+ * Strings. Collisions are resolved by linear probing, and removed entries are left as tombstones
+ * until the table is next rebuilt. The table length is always a power of two.
+ */
+public class OpenAddressCaveManCMValueMap<K> implements CMValueMap<K>, Serializable {
+	private static final long serialVersionUID = 3154620768301979212L;
+	static final int DEFAULT_CAPACITY = 32;
+	static final float DEFAULT_LOAD_FACTOR = 0.65f;
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	private static final byte FREE = 0;
+	private static final byte FULL = 1;
+	private static final byte REMOVED = 2;
+
+	private Object[] keys;
+	private CM[] values;
+	private int[] hashes;
+	private byte[] states;
+	private int size;
+	private int usedSlots;
+	private final float loadFactor;
+	private int version;
+	private final boolean identityKeys;
+
+	public OpenAddressCaveManCMValueMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public OpenAddressCaveManCMValueMap(int initialCapacity) {
+		this(initialCapacity, DEFAULT_LOAD_FACTOR);
+	}
+
+	public OpenAddressCaveManCMValueMap(int initialCapacity, float loadingFactor) {
+		this(initialCapacity, loadingFactor, false);
+	}
+
+	/**
+	 * creates a map that hashes keys with System.identityHashCode and compares them with ==, if
+	 * identityKeys is set, rather than calling their hashCode and equals
+	 */
+	OpenAddressCaveManCMValueMap(int initialCapacity, float loadingFactor, boolean identityKeys) {
+		if ((loadingFactor <= 0.0f) || (loadingFactor >= 1.0f)) {
+			throw new IllegalArgumentException("Load factor: " + loadingFactor + " is out of bounds (0.0, 1.0)");
+		}
+
+		loadFactor = loadingFactor;
+		this.identityKeys = identityKeys;
+		size = 0;
+		usedSlots = 0;
+
+		int capacity = 2;
+		while ((capacity < (initialCapacity / loadingFactor)) && (capacity < MAXIMUM_CAPACITY)) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean containsKey(K key) {
+		return find(key, hashOf(key)) >= 0;
+	}
+
+	@Override
+	public boolean containsValue(CM value) {
+		for (int i = 0; i < states.length; i++) {
+			if ((states[i] == FULL) && (values[i] == value)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public CM get(K key, CM notFoundValue) {
+		int slot = find(key, hashOf(key));
+		return (slot >= 0) ? values[slot] : notFoundValue;
+	}
+
+	@Override
+	public void put(K key, CM value) {
+		ensureSize(size + 1);
+
+		int hash = hashOf(key);
+		int slot = probe(key, hash);
+		if (slot >= 0) {
+			++version;
+			values[slot] = value;
+		} else {
+			insertAt(-1 - slot, key, hash, value);
+		}
+	}
+
+	@Override
+	public void remove(K key) {
+		++version;
+
+		int slot = find(key, hashOf(key));
+		if (slot >= 0) {
+			removeSlot(slot);
+		}
+	}
+
+	@Override
+	public void putAll(CMValueMap<K> m) {
+		++version;
+
+		ensureSize(size + m.size());
+
+		CMValueMapIterator<K> iterator = m.iterator();
+		while (iterator.hasNext()) {
+			iterator.next();
+			put(iterator.key(), iterator.value());
+		}
+	}
+
+	@Override
+	public void clear() {
+		++version;
+
+		Arrays.fill(keys, null);
+		Arrays.fill(states, FREE);
+		size = 0;
+		usedSlots = 0;
+	}
+
+	@Override
+	public CMValueMapIterator<K> iterator() {
+		return new OpenAddressCaveManCMValueMapIterator(version);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void forEach(ObjectCMConsumer<K> consumer) {
+		int startVersion = version;
+		for (int i = 0; i < states.length; i++) {
+			if (states[i] == FULL) {
+				consumer.accept((K) keys[i], values[i]);
+			}
+		}
+
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during forEach");
+		}
+	}
+
+	@Override
+	public Set<K> keySet() {
+		return new OpenAddressCaveManCMValueKeySet();
+	}
+
+	@Override
+	public CMBag values() {
+		return new OpenAddressCaveManCMValuesBag();
+	}
+
+	@Override
+	public boolean putIfAbsent(K key, CM value) {
+		ensureSize(size + 1);
+
+		int hash = hashOf(key);
+		int slot = probe(key, hash);
+		if (slot >= 0) {
+			return false;
+		}
+
+		insertAt(-1 - slot, key, hash, value);
+		return true;
+	}
+
+	@Override
+	public boolean replace(K key, CM value) {
+		int slot = find(key, hashOf(key));
+		if (slot < 0) {
+			return false;
+		}
+
+		++version;
+		values[slot] = value;
+		return true;
+	}
+
+	@Override
+	public boolean replace(K key, CM oldValue, CM newValue) {
+		int slot = find(key, hashOf(key));
+		if ((slot < 0) || (values[slot] != oldValue)) {
+			return false;
+		}
+
+		++version;
+		values[slot] = newValue;
+		return true;
+	}
+
+	@Override
+	public CM computeIfAbsent(K key, ObjectCMFunction<? super K> mappingFunction) {
+		ensureSize(size + 1);
+
+		int hash = hashOf(key);
+		int slot = probe(key, hash);
+		if (slot >= 0) {
+			return values[slot];
+		}
+
+		int startVersion = version;
+		CM value = mappingFunction.applyAsCM(key);
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during computeIfAbsent");
+		}
+
+		insertAt(-1 - slot, key, hash, value);
+		return value;
+	}
+
+	@Override
+	public CM merge(K key, CM value, CMBinaryOperator remappingFunction) {
+		ensureSize(size + 1);
+
+		int hash = hashOf(key);
+		int slot = probe(key, hash);
+		if (slot < 0) {
+			insertAt(-1 - slot, key, hash, value);
+			return value;
+		}
+
+		int startVersion = version;
+		CM newValue = remappingFunction.applyAsCM(values[slot], value);
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during merge");
+		}
+
+		++version;
+		values[slot] = newValue;
+		return newValue;
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Override
+	public CM addTo(K key, CM delta) {
+		ensureSize(size + 1);
+
+		int hash = hashOf(key);
+		int slot = probe(key, hash);
+		if (slot < 0) {
+			CM zero = toCaveMan(0);
+			insertAt(-1 - slot, key, hash, addCaveMan(zero, delta));
+			return zero;
+		}
+
+		++version;
+		CM oldValue = values[slot];
+		values[slot] = addCaveMan(oldValue, delta);
+		return oldValue;
+	}
+
+	private int hashOf(Object key) {
+		if (key == null) {
+			return 0;
+		}
+
+		return CaveManCMHash.mix(identityKeys ? System.identityHashCode(key) : key.hashCode());
+	}
+
+	private int find(Object key, int hash) {
+		int mask = states.length - 1;
+		int slot = hash & mask;
+
+		while (states[slot] != FREE) {
+			if ((states[slot] == FULL) && (hashes[slot] == hash) && keyEquals(key, keys[slot])) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * returns the slot holding the key, or if the key is absent, -1 minus the slot to add it at, which
+	 * is the first tombstone passed, or else the free slot that ended the probe. The caller must have
+	 * made room for one more key first.
+	 */
+	private int probe(Object key, int hash) {
+		int mask = states.length - 1;
+		int slot = hash & mask;
+		int removedSlot = -1;
+
+		while (states[slot] != FREE) {
+			if (states[slot] == FULL) {
+				if ((hashes[slot] == hash) && keyEquals(key, keys[slot])) {
+					return slot;
+				}
+			} else if (removedSlot < 0) {
+				removedSlot = slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return -1 - ((removedSlot >= 0) ? removedSlot : slot);
+	}
+
+	private boolean keyEquals(Object key, Object storedKey) {
+		return (key == storedKey) || (!identityKeys && (key != null) && key.equals(storedKey));
+	}
+
+	private void insertAt(int slot, Object key, int hash, CM value) {
+		++version;
+
+		if (states[slot] == FREE) {
+			++usedSlots;
+		}
+
+		keys[slot] = key;
+		values[slot] = value;
+		hashes[slot] = hash;
+		states[slot] = FULL;
+		++size;
+	}
+
+	private void removeSlot(int slot) {
+		keys[slot] = null;
+		// a slot followed by a free slot can't be in the middle of a probe sequence, so needs no tombstone
+		if (states[(slot + 1) & (states.length - 1)] == FREE) {
+			states[slot] = FREE;
+			--usedSlots;
+		} else {
+			states[slot] = REMOVED;
+		}
+		--size;
+	}
+
+	private void allocate(int capacity) {
+		keys = new Object[capacity];
+		values = new CM[capacity];
+		hashes = new int[capacity];
+		states = new byte[capacity];
+	}
+
+	/**
+	 * grows the table, or rebuilds it in place to clear out tombstones, placing each key by its
+	 * stored hash, so no key's hashCode is called
+	 */
+	private void ensureSize(int newSize) {
+		if ((Math.max(newSize, usedSlots + 1) > (states.length * loadFactor)) && (states.length < MAXIMUM_CAPACITY)) {
+			int newCapacity = states.length;
+			while ((newSize > (newCapacity * loadFactor)) && (newCapacity < MAXIMUM_CAPACITY)) {
+				newCapacity <<= 1;
+			}
+
+			++version;
+			Object[] oldKeys = keys;
+			CM[] oldValues = values;
+			int[] oldHashes = hashes;
+			byte[] oldStates = states;
+
+			allocate(newCapacity);
+			int mask = newCapacity - 1;
+			for (int i = 0; i < oldStates.length; i++) {
+				if (oldStates[i] == FULL) {
+					int hash = oldHashes[i];
+					int slot = hash & mask;
+					while (states[slot] != FREE) {
+						slot = (slot + 1) & mask;
+					}
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+					hashes[slot] = hash;
+					states[slot] = FULL;
+				}
+			}
+			usedSlots = size;
+		}
+	}
+
+	/**
+	 * recomputes the stored hashes, and so the table, as identity hashes, and the hashCodes of some
+	 * keys, such as enums, differ from one JVM to the next
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+
+		Object[] oldKeys = keys;
+		CM[] oldValues = values;
+		byte[] oldStates = states;
+
+		allocate(oldStates.length);
+		int mask = oldStates.length - 1;
+		for (int i = 0; i < oldStates.length; i++) {
+			if (oldStates[i] == FULL) {
+				int hash = hashOf(oldKeys[i]);
+				int slot = hash & mask;
+				while (states[slot] != FREE) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+				hashes[slot] = hash;
+				states[slot] = FULL;
+			}
+		}
+		usedSlots = size;
+	}
+
+	private int nextFullSlot(int slot) {
+		while ((slot < states.length) && (states[slot] != FULL)) {
+			++slot;
+		}
+		return slot;
+	}
+
+	private class OpenAddressCaveManCMValueMapIterator implements CMValueMapIterator<K> {
+
+		private int iteratorVersion;
+		private int nextSlot;
+		private int currentSlot;
+		private K key;
+		private CM value;
+
+		public OpenAddressCaveManCMValueMapIterator(int version) {
+			iteratorVersion = version;
+			nextSlot = nextFullSlot(0);
+			currentSlot = -1;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			return nextSlot < states.length;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void next() throws NoSuchElementException {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			if (nextSlot >= states.length) {
+				throw new NoSuchElementException("Iterator has been exhausted");
+			}
+
+			currentSlot = nextSlot;
+			key = (K) keys[currentSlot];
+			value = values[currentSlot];
+			nextSlot = nextFullSlot(currentSlot + 1);
+		}
+
+		@Override
+		public K key() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			return key;
+		}
+
+		@Override
+		public CM value() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			return value;
+		}
+
+		@Override
+		public void remove() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			if (currentSlot < 0) {
+				throw new IllegalStateException("next() has not been called since the last remove");
+			}
+
+			removeSlot(currentSlot);
+			currentSlot = -1;
+			++version;
+			++iteratorVersion;
+		}
+	}
+
+	private class OpenAddressCaveManCMValueKeySet extends AbstractSet<K> {
+
+		@Override
+		public int size() {
+			return OpenAddressCaveManCMValueMap.this.size();
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean contains(Object o) {
+			return OpenAddressCaveManCMValueMap.this.containsKey((K) o);
+		}
+
+		@Override
+		public Iterator<K> iterator() {
+			return new OpenAddressCaveManCMValueKeySetIterator();
+		}
+
+		@Override
+		public boolean add(K e) {
+			throw new UnsupportedOperationException("add from the KeySet of a OpenAddressCaveManCMValueMap is not supported, as there is no default value");
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean remove(Object o) {
+			int originalSize = size;
+			OpenAddressCaveManCMValueMap.this.remove((K) o);
+			return size != originalSize;
+		}
+
+		@Override
+		public void clear() {
+			OpenAddressCaveManCMValueMap.this.clear();
+		}
+
+		private class OpenAddressCaveManCMValueKeySetIterator implements Iterator<K> {
+
+			private final CMValueMapIterator<K> iterator = OpenAddressCaveManCMValueMap.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public K next() {
+				iterator.next();
+				return iterator.key();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+			}
+		}
+	}
+
+	private class OpenAddressCaveManCMValuesBag implements CMBag {
+
+		@Override
+		public int size() {
+			return OpenAddressCaveManCMValueMap.this.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return OpenAddressCaveManCMValueMap.this.isEmpty();
+		}
+
+		@Override
+		public boolean contains(CM item) {
+			return OpenAddressCaveManCMValueMap.this.containsValue(item);
+		}
+
+		@Override
+		public CMIterator iterator() {
+			return new OpenAddressCaveManCMValuesBagIterator();
+		}
+
+		@Override
+		public CM[] toArray() {
+			CM[] data = new CM[size];
+
+			int pos = 0;
+			for (int i = 0; i < states.length; i++) {
+				if (states[i] == FULL) {
+					data[pos++] = values[i];
+				}
+			}
+
+			return data;
+		}
+
+		@Override
+		public boolean add(CM item) {
+			throw new UnsupportedOperationException("add is not supported from the values bag of a OpenAddressCaveManCMValueMap as there's no obvious key");
+		}
+
+		@Override
+		public boolean remove(CM item) {
+			int originalSize = size;
+
+			for (int i = 0; i < states.length; i++) {
+				if ((states[i] == FULL) && (values[i] == item)) {
+					removeSlot(i);
+				}
+			}
+
+			if (originalSize != size) {
+				++version;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public void clear() {
+			OpenAddressCaveManCMValueMap.this.clear();
+		}
+
+		@Override
+		public boolean containsAll(CMCollection c) {
+			CMIterator it = c.iterator();
+			while (it.hasNext()) {
+				if (!OpenAddressCaveManCMValueMap.this.containsValue(it.next())) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		@Override
+		public boolean addAll(CMCollection c) {
+			throw new UnsupportedOperationException("addAll is not supported from the values bag of a OpenAddressCaveManCMValueMap as there's no obvious keys");
+		}
+
+		@Override
+		public boolean retainAll(CMCollection c) {
+			int originalSize = size;
+
+			for (int i = 0; i < states.length; i++) {
+				if ((states[i] == FULL) && !c.contains(values[i])) {
+					removeSlot(i);
+				}
+			}
+
+			if (originalSize != size) {
+				++version;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public boolean removeAll(CMCollection c) {
+			int originalSize = size;
+
+			CMIterator it = c.iterator();
+			while (it.hasNext()) {
+				remove(it.next());
+			}
+
+			return originalSize != size;
+		}
+
+		@Override
+		public boolean removeOne(CM item) {
+			for (int i = 0; i < states.length; i++) {
+				if ((states[i] == FULL) && (values[i] == item)) {
+					removeSlot(i);
+					++version;
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public int countOf(CM item) {
+			int count = 0;
+			for (int i = 0; i < states.length; i++) {
+				if ((states[i] == FULL) && (values[i] == item)) {
+					++count;
+				}
+			}
+
+			return count;
+		}
+
+		@Override
+		public CM getOne() {
+			if (size > 0) {
+				return values[nextFullSlot(0)];
+			}
+
+			throw new IllegalStateException("map value collection has no items");
+		}
+
+		private class OpenAddressCaveManCMValuesBagIterator implements CMIterator {
+
+			private final CMValueMapIterator<K> iterator = OpenAddressCaveManCMValueMap.this.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public CM next() throws NoSuchElementException {
+				iterator.next();
+				return iterator.value();
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+			}
+		}
+	}
+
+
+
+	private static CM toCaveMan(int i) {return null;}
+	private static CM addCaveMan(CM a, CM b) {return null;}
+}
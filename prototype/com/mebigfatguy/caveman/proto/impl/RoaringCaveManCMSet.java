@@ -0,0 +1,1030 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+import com.mebigfatguy.caveman.proto.CMCollection;
+import com.mebigfatguy.caveman.proto.CMConsumer;
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.CMSet;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+
+/**
+ * A compressed CMSet for large, sparse sets of <b>CM</b>s, in the style of roaring bitmaps.
+ * Each item is split into a high and a low 16 bit chunk, and the low chunks of all the items
+ * that share a high chunk are held in one container. A container is a sorted array when it
+ * holds few items, a 64K bitmap when it holds many, and a list of runs when that is smaller
+ * still, which costs well under 4 bytes per item for most sets.
+ * <p>
+ * addAll, retainAll, removeAll and containsAll work a container at a time when given another
+ * RoaringCaveManCMSet, and the serialized form writes each container in its smallest form.
+ * Items are iterated in unsigned order.
+ */
+@OnlyFor({"int"})
+public class RoaringCaveManCMSet implements CMSet, Serializable {
+	private static final long serialVersionUID = -7804962458195305307L;
+	private static final int DEFAULT_CAPACITY = 4;
+	private static final int ARRAY_MAX = 4096;
+	private static final int CHUNK_SIZE = 1 << 16;
+	private static final int BITMAP_WORDS = CHUNK_SIZE >>> 6;
+
+	private static final byte ARRAY_CONTAINER = 0;
+	private static final byte BITMAP_CONTAINER = 1;
+	private static final byte RUN_CONTAINER = 2;
+
+	private transient char[] keys;
+	private transient Container[] containers;
+	private transient int containerCount;
+	private transient int size;
+	private transient int version;
+
+	public RoaringCaveManCMSet() {
+		keys = new char[DEFAULT_CAPACITY];
+		containers = new Container[DEFAULT_CAPACITY];
+		containerCount = 0;
+		size = 0;
+		version = 0;
+	}
+
+	public RoaringCaveManCMSet(CMCollection c) {
+		this();
+		addAll(c);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean contains(CM item) {
+		int value = fromCaveMan(item);
+		int index = findContainer((char) (value >>> 16));
+		return (index >= 0) && containers[index].contains((char) value);
+	}
+
+	@Override
+	public CMIterator iterator() {
+		return new RoaringCaveManCMSetIterator(version);
+	}
+
+	@Override
+	public void forEach(CMConsumer consumer) {
+		int startVersion = version;
+		for (int i = 0; i < containerCount; i++) {
+			containers[i].forEach(keys[i] << 16, consumer);
+		}
+
+		if (version != startVersion) {
+			throw new ConcurrentModificationException((version - startVersion) + " changes have been made during forEach");
+		}
+	}
+
+	@Override
+	public CM[] toArray() {
+		CM[] array = new CM[size];
+		int pos = 0;
+		for (int i = 0; i < containerCount; i++) {
+			int high = keys[i] << 16;
+			Container c = containers[i];
+			for (int low = c.nextValue(0); low >= 0; low = c.nextValue(low + 1)) {
+				int value = high | low;
+				array[pos++] = toCaveMan(value);
+			}
+		}
+
+		return array;
+	}
+
+	@Override
+	public boolean add(CM item) {
+		int value = fromCaveMan(item);
+		char high = (char) (value >>> 16);
+		int index = findContainer(high);
+		if (index < 0) {
+			ArrayContainer c = new ArrayContainer(DEFAULT_CAPACITY);
+			c.add((char) value);
+			insertContainer(-index - 1, high, c);
+		} else {
+			Container c = containers[index];
+			int cardinality = c.cardinality;
+			containers[index] = c.add((char) value);
+			if (containers[index].cardinality == cardinality) {
+				return false;
+			}
+		}
+
+		++size;
+		++version;
+		return true;
+	}
+
+	@Override
+	public boolean remove(CM item) {
+		int value = fromCaveMan(item);
+		int index = findContainer((char) (value >>> 16));
+		if (index < 0) {
+			return false;
+		}
+
+		Container c = containers[index];
+		int cardinality = c.cardinality;
+		c = c.remove((char) value);
+		if (c.cardinality == cardinality) {
+			return false;
+		}
+
+		if (c.cardinality == 0) {
+			removeContainer(index);
+		} else {
+			containers[index] = c;
+		}
+		--size;
+		++version;
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		++version;
+		Arrays.fill(containers, 0, containerCount, null);
+		containerCount = 0;
+		size = 0;
+	}
+
+	@Override
+	public boolean containsAll(CMCollection c) {
+		if (c instanceof RoaringCaveManCMSet) {
+			RoaringCaveManCMSet other = (RoaringCaveManCMSet) c;
+			if (other.size > size) {
+				return false;
+			}
+
+			for (int i = 0; i < other.containerCount; i++) {
+				int index = findContainer(other.keys[i]);
+				if ((index < 0) || !containsAll(containers[index], other.containers[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		CMIterator it = c.iterator();
+		while (it.hasNext()) {
+			if (!contains(it.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean addAll(CMCollection c) {
+		if (c instanceof RoaringCaveManCMSet) {
+			RoaringCaveManCMSet other = (RoaringCaveManCMSet) c;
+			char[] newKeys = new char[Math.max(DEFAULT_CAPACITY, containerCount + other.containerCount)];
+			Container[] newContainers = new Container[newKeys.length];
+			int count = 0;
+			int i = 0;
+			int j = 0;
+			while ((i < containerCount) || (j < other.containerCount)) {
+				if ((j >= other.containerCount) || ((i < containerCount) && (keys[i] < other.keys[j]))) {
+					newKeys[count] = keys[i];
+					newContainers[count++] = containers[i++];
+				} else if ((i >= containerCount) || (other.keys[j] < keys[i])) {
+					newKeys[count] = other.keys[j];
+					newContainers[count++] = other.containers[j++].copy();
+				} else {
+					newKeys[count] = keys[i];
+					newContainers[count++] = or(containers[i++], other.containers[j++]);
+				}
+			}
+
+			return replaceContainers(newKeys, newContainers, count);
+		}
+
+		boolean modified = false;
+		CMIterator it = c.iterator();
+		while (it.hasNext()) {
+			modified |= add(it.next());
+		}
+		return modified;
+	}
+
+	@Override
+	public boolean retainAll(CMCollection c) {
+		if (c instanceof RoaringCaveManCMSet) {
+			RoaringCaveManCMSet other = (RoaringCaveManCMSet) c;
+			char[] newKeys = new char[Math.max(DEFAULT_CAPACITY, containerCount)];
+			Container[] newContainers = new Container[newKeys.length];
+			int count = 0;
+			int i = 0;
+			int j = 0;
+			while ((i < containerCount) && (j < other.containerCount)) {
+				if (keys[i] < other.keys[j]) {
+					++i;
+				} else if (other.keys[j] < keys[i]) {
+					++j;
+				} else {
+					Container result = and(containers[i], other.containers[j]);
+					if (result.cardinality > 0) {
+						newKeys[count] = keys[i];
+						newContainers[count++] = result;
+					}
+					++i;
+					++j;
+				}
+			}
+
+			return replaceContainers(newKeys, newContainers, count);
+		}
+
+		boolean modified = false;
+		CMIterator it = iterator();
+		while (it.hasNext()) {
+			if (!c.contains(it.next())) {
+				it.remove();
+				modified = true;
+			}
+		}
+		return modified;
+	}
+
+	@Override
+	public boolean removeAll(CMCollection c) {
+		if (c instanceof RoaringCaveManCMSet) {
+			RoaringCaveManCMSet other = (RoaringCaveManCMSet) c;
+			char[] newKeys = new char[Math.max(DEFAULT_CAPACITY, containerCount)];
+			Container[] newContainers = new Container[newKeys.length];
+			int count = 0;
+			for (int i = 0; i < containerCount; i++) {
+				Container result = containers[i];
+				int index = other.findContainer(keys[i]);
+				if (index >= 0) {
+					result = andNot(result, other.containers[index]);
+				}
+				if (result.cardinality > 0) {
+					newKeys[count] = keys[i];
+					newContainers[count++] = result;
+				}
+			}
+
+			return replaceContainers(newKeys, newContainers, count);
+		}
+
+		boolean modified = false;
+		CMIterator it = c.iterator();
+		while (it.hasNext()) {
+			modified |= remove(it.next());
+		}
+		return modified;
+	}
+
+	@Override
+	public CM getOne() {
+		if (size > 0) {
+			int value = (keys[0] << 16) | containers[0].nextValue(0);
+			return toCaveMan(value);
+		}
+
+		throw new IllegalStateException("set has no items");
+	}
+
+	/**
+	 * converts each container to whichever of the array, bitmap or run forms is smallest. Sets built
+	 * from long ranges of consecutive items should be optimized once they have been populated, as
+	 * items are otherwise only ever held in array or bitmap containers.
+	 */
+	public void runOptimize() {
+		++version;
+		for (int i = 0; i < containerCount; i++) {
+			containers[i] = optimize(containers[i]);
+		}
+	}
+
+	private int findContainer(char high) {
+		return Arrays.binarySearch(keys, 0, containerCount, high);
+	}
+
+	private void insertContainer(int index, char high, Container c) {
+		if (containerCount == keys.length) {
+			keys = Arrays.copyOf(keys, containerCount * 2);
+			containers = Arrays.copyOf(containers, containerCount * 2);
+		}
+
+		System.arraycopy(keys, index, keys, index + 1, containerCount - index);
+		System.arraycopy(containers, index, containers, index + 1, containerCount - index);
+		keys[index] = high;
+		containers[index] = c;
+		++containerCount;
+	}
+
+	private void removeContainer(int index) {
+		--containerCount;
+		System.arraycopy(keys, index + 1, keys, index, containerCount - index);
+		System.arraycopy(containers, index + 1, containers, index, containerCount - index);
+		containers[containerCount] = null;
+	}
+
+	private boolean replaceContainers(char[] newKeys, Container[] newContainers, int count) {
+		int newSize = 0;
+		for (int i = 0; i < count; i++) {
+			newSize += newContainers[i].cardinality;
+		}
+
+		keys = newKeys;
+		containers = newContainers;
+		containerCount = count;
+		if (newSize == size) {
+			return false;
+		}
+
+		++version;
+		size = newSize;
+		return true;
+	}
+
+	private static Container or(Container a, Container b) {
+		if ((a instanceof ArrayContainer) && (b instanceof ArrayContainer) && ((a.cardinality + b.cardinality) <= ARRAY_MAX)) {
+			return ((ArrayContainer) a).or((ArrayContainer) b);
+		}
+
+		BitmapContainer result = a.toBitmap();
+		if (b instanceof ArrayContainer) {
+			ArrayContainer array = (ArrayContainer) b;
+			for (int i = 0; i < array.cardinality; i++) {
+				result.add(array.content[i]);
+			}
+		} else {
+			long[] words = b.toBitmap().words;
+			for (int w = 0; w < BITMAP_WORDS; w++) {
+				result.words[w] |= words[w];
+			}
+			result.updateCardinality();
+		}
+		return result.toSmallest();
+	}
+
+	private static Container and(Container a, Container b) {
+		if (b instanceof ArrayContainer) {
+			return ((ArrayContainer) b).retain(a);
+		}
+		if (a instanceof ArrayContainer) {
+			return ((ArrayContainer) a).retain(b);
+		}
+
+		BitmapContainer result = a.toBitmap();
+		long[] words = b.toBitmap().words;
+		for (int w = 0; w < BITMAP_WORDS; w++) {
+			result.words[w] &= words[w];
+		}
+		result.updateCardinality();
+		return result.toSmallest();
+	}
+
+	private static Container andNot(Container a, Container b) {
+		if (a instanceof ArrayContainer) {
+			return ((ArrayContainer) a).removeAll(b);
+		}
+
+		BitmapContainer result = a.toBitmap();
+		if (b instanceof ArrayContainer) {
+			ArrayContainer array = (ArrayContainer) b;
+			for (int i = 0; i < array.cardinality; i++) {
+				result.clear(array.content[i]);
+			}
+		} else {
+			long[] words = b.toBitmap().words;
+			for (int w = 0; w < BITMAP_WORDS; w++) {
+				result.words[w] &= ~words[w];
+			}
+			result.updateCardinality();
+		}
+		return result.toSmallest();
+	}
+
+	private static boolean containsAll(Container a, Container b) {
+		if (b.cardinality > a.cardinality) {
+			return false;
+		}
+
+		if (b instanceof ArrayContainer) {
+			ArrayContainer array = (ArrayContainer) b;
+			for (int i = 0; i < array.cardinality; i++) {
+				if (!a.contains(array.content[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		long[] aWords = a.toBitmap().words;
+		long[] bWords = b.toBitmap().words;
+		for (int w = 0; w < BITMAP_WORDS; w++) {
+			if ((bWords[w] & ~aWords[w]) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Container optimize(Container c) {
+		int runs = c.runCount();
+		int runBytes = 4 * runs;
+		int arrayBytes = 2 * c.cardinality;
+		int bitmapBytes = 8 * BITMAP_WORDS;
+
+		if ((runBytes < arrayBytes) && (runBytes < bitmapBytes)) {
+			return (c instanceof RunContainer) ? c : RunContainer.from(c, runs);
+		} else if (arrayBytes <= bitmapBytes) {
+			return (c instanceof ArrayContainer) ? c : ArrayContainer.from(c);
+		}
+		return (c instanceof BitmapContainer) ? c : c.toBitmap();
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+
+		out.writeInt(containerCount);
+		for (int i = 0; i < containerCount; i++) {
+			Container c = optimize(containers[i]);
+			out.writeChar(keys[i]);
+			if (c instanceof ArrayContainer) {
+				ArrayContainer array = (ArrayContainer) c;
+				out.writeByte(ARRAY_CONTAINER);
+				out.writeChar(array.cardinality - 1);
+				for (int j = 0; j < array.cardinality; j++) {
+					out.writeChar(array.content[j]);
+				}
+			} else if (c instanceof BitmapContainer) {
+				BitmapContainer bitmap = (BitmapContainer) c;
+				out.writeByte(BITMAP_CONTAINER);
+				for (int w = 0; w < BITMAP_WORDS; w++) {
+					out.writeLong(bitmap.words[w]);
+				}
+			} else {
+				RunContainer run = (RunContainer) c;
+				out.writeByte(RUN_CONTAINER);
+				out.writeChar(run.runCount - 1);
+				for (int j = 0; j < run.runCount; j++) {
+					out.writeChar(run.starts[j]);
+					out.writeChar(run.lengths[j]);
+				}
+			}
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+
+		containerCount = in.readInt();
+		keys = new char[Math.max(DEFAULT_CAPACITY, containerCount)];
+		containers = new Container[keys.length];
+		size = 0;
+		version = 0;
+		for (int i = 0; i < containerCount; i++) {
+			keys[i] = in.readChar();
+			byte type = in.readByte();
+			if (type == ARRAY_CONTAINER) {
+				ArrayContainer array = new ArrayContainer(in.readChar() + 1);
+				for (int j = 0; j < array.content.length; j++) {
+					array.content[j] = in.readChar();
+				}
+				array.cardinality = array.content.length;
+				containers[i] = array;
+			} else if (type == BITMAP_CONTAINER) {
+				BitmapContainer bitmap = new BitmapContainer();
+				for (int w = 0; w < BITMAP_WORDS; w++) {
+					bitmap.words[w] = in.readLong();
+				}
+				bitmap.updateCardinality();
+				containers[i] = bitmap;
+			} else if (type == RUN_CONTAINER) {
+				int runCount = in.readChar() + 1;
+				char[] starts = new char[runCount];
+				char[] lengths = new char[runCount];
+				for (int j = 0; j < runCount; j++) {
+					starts[j] = in.readChar();
+					lengths[j] = in.readChar();
+				}
+				containers[i] = new RunContainer(starts, lengths, runCount);
+			} else {
+				throw new IOException("Unknown container type: " + type);
+			}
+			size += containers[i].cardinality;
+		}
+	}
+
+	/**
+	 * holds the low 16 bits of the items that share a high 16 bits. add and remove return the
+	 * container that now holds the items, which is not this one if the representation changed.
+	 */
+	private abstract static class Container {
+		int cardinality;
+
+		abstract boolean contains(char low);
+
+		abstract Container add(char low);
+
+		abstract Container remove(char low);
+
+		/**
+		 * returns the smallest low value that is at least from, or -1 if there is none
+		 */
+		abstract int nextValue(int from);
+
+		abstract int runCount();
+
+		/**
+		 * passes each item, rebuilt from high and this container's low values, to the consumer
+		 */
+		abstract void forEach(int high, CMConsumer consumer);
+
+		abstract Container copy();
+
+		/**
+		 * returns a bitmap of this container's items, which may be this container itself
+		 */
+		abstract BitmapContainer toBitmap();
+	}
+
+	private static final class ArrayContainer extends Container {
+		char[] content;
+
+		ArrayContainer(int capacity) {
+			content = new char[capacity];
+			cardinality = 0;
+		}
+
+		static ArrayContainer from(Container c) {
+			ArrayContainer array = new ArrayContainer(c.cardinality);
+			for (int low = c.nextValue(0); low >= 0; low = c.nextValue(low + 1)) {
+				array.content[array.cardinality++] = (char) low;
+			}
+			return array;
+		}
+
+		@Override
+		boolean contains(char low) {
+			return Arrays.binarySearch(content, 0, cardinality, low) >= 0;
+		}
+
+		@Override
+		Container add(char low) {
+			int pos = Arrays.binarySearch(content, 0, cardinality, low);
+			if (pos >= 0) {
+				return this;
+			}
+
+			if (cardinality >= ARRAY_MAX) {
+				BitmapContainer bitmap = toBitmap();
+				return bitmap.add(low);
+			}
+
+			pos = -pos - 1;
+			if (cardinality == content.length) {
+				content = Arrays.copyOf(content, Math.min(ARRAY_MAX, Math.max(DEFAULT_CAPACITY, cardinality * 2)));
+			}
+			System.arraycopy(content, pos, content, pos + 1, cardinality - pos);
+			content[pos] = low;
+			++cardinality;
+			return this;
+		}
+
+		@Override
+		Container remove(char low) {
+			int pos = Arrays.binarySearch(content, 0, cardinality, low);
+			if (pos >= 0) {
+				System.arraycopy(content, pos + 1, content, pos, cardinality - pos - 1);
+				--cardinality;
+			}
+			return this;
+		}
+
+		@Override
+		int nextValue(int from) {
+			if (from >= CHUNK_SIZE) {
+				return -1;
+			}
+
+			int pos = Arrays.binarySearch(content, 0, cardinality, (char) from);
+			if (pos < 0) {
+				pos = -pos - 1;
+			}
+			return (pos < cardinality) ? content[pos] : -1;
+		}
+
+		@Override
+		int runCount() {
+			int runs = 0;
+			for (int i = 0; i < cardinality; i++) {
+				if ((i == 0) || (content[i] != (content[i - 1] + 1))) {
+					++runs;
+				}
+			}
+			return runs;
+		}
+
+		@Override
+		void forEach(int high, CMConsumer consumer) {
+			for (int i = 0; i < cardinality; i++) {
+				int value = high | content[i];
+				consumer.accept(toCaveMan(value));
+			}
+		}
+
+		@Override
+		Container copy() {
+			ArrayContainer array = new ArrayContainer(0);
+			array.content = Arrays.copyOf(content, cardinality);
+			array.cardinality = cardinality;
+			return array;
+		}
+
+		@Override
+		BitmapContainer toBitmap() {
+			BitmapContainer bitmap = new BitmapContainer();
+			for (int i = 0; i < cardinality; i++) {
+				bitmap.add(content[i]);
+			}
+			return bitmap;
+		}
+
+		ArrayContainer or(ArrayContainer other) {
+			ArrayContainer result = new ArrayContainer(cardinality + other.cardinality);
+			int i = 0;
+			int j = 0;
+			while ((i < cardinality) && (j < other.cardinality)) {
+				if (content[i] < other.content[j]) {
+					result.content[result.cardinality++] = content[i++];
+				} else if (other.content[j] < content[i]) {
+					result.content[result.cardinality++] = other.content[j++];
+				} else {
+					result.content[result.cardinality++] = content[i++];
+					++j;
+				}
+			}
+			while (i < cardinality) {
+				result.content[result.cardinality++] = content[i++];
+			}
+			while (j < other.cardinality) {
+				result.content[result.cardinality++] = other.content[j++];
+			}
+			return result;
+		}
+
+		ArrayContainer retain(Container other) {
+			ArrayContainer result = new ArrayContainer(cardinality);
+			for (int i = 0; i < cardinality; i++) {
+				if (other.contains(content[i])) {
+					result.content[result.cardinality++] = content[i];
+				}
+			}
+			return result;
+		}
+
+		ArrayContainer removeAll(Container other) {
+			ArrayContainer result = new ArrayContainer(cardinality);
+			for (int i = 0; i < cardinality; i++) {
+				if (!other.contains(content[i])) {
+					result.content[result.cardinality++] = content[i];
+				}
+			}
+			return result;
+		}
+	}
+
+	private static final class BitmapContainer extends Container {
+		final long[] words;
+
+		BitmapContainer() {
+			words = new long[BITMAP_WORDS];
+			cardinality = 0;
+		}
+
+		@Override
+		boolean contains(char low) {
+			return (words[low >>> 6] & (1L << low)) != 0;
+		}
+
+		@Override
+		Container add(char low) {
+			long bit = 1L << low;
+			if ((words[low >>> 6] & bit) == 0) {
+				words[low >>> 6] |= bit;
+				++cardinality;
+			}
+			return this;
+		}
+
+		@Override
+		Container remove(char low) {
+			clear(low);
+			return (cardinality <= ARRAY_MAX) ? ArrayContainer.from(this) : this;
+		}
+
+		void clear(char low) {
+			long bit = 1L << low;
+			if ((words[low >>> 6] & bit) != 0) {
+				words[low >>> 6] &= ~bit;
+				--cardinality;
+			}
+		}
+
+		void updateCardinality() {
+			int count = 0;
+			for (long word : words) {
+				count += Long.bitCount(word);
+			}
+			cardinality = count;
+		}
+
+		Container toSmallest() {
+			return (cardinality <= ARRAY_MAX) ? ArrayContainer.from(this) : this;
+		}
+
+		@Override
+		int nextValue(int from) {
+			int w = from >>> 6;
+			if (w >= BITMAP_WORDS) {
+				return -1;
+			}
+
+			long word = words[w] & (-1L << from);
+			while (word == 0) {
+				if (++w == BITMAP_WORDS) {
+					return -1;
+				}
+				word = words[w];
+			}
+			return (w << 6) + Long.numberOfTrailingZeros(word);
+		}
+
+		@Override
+		int runCount() {
+			int runs = 0;
+			long previous = 0;
+			for (long word : words) {
+				runs += Long.bitCount(word & ~((word << 1) | (previous >>> 63)));
+				previous = word;
+			}
+			return runs;
+		}
+
+		@Override
+		void forEach(int high, CMConsumer consumer) {
+			for (int w = 0; w < words.length; w++) {
+				long word = words[w];
+				while (word != 0) {
+					int value = high | ((w << 6) + Long.numberOfTrailingZeros(word));
+					consumer.accept(toCaveMan(value));
+					word &= word - 1;
+				}
+			}
+		}
+
+		@Override
+		Container copy() {
+			BitmapContainer bitmap = new BitmapContainer();
+			System.arraycopy(words, 0, bitmap.words, 0, BITMAP_WORDS);
+			bitmap.cardinality = cardinality;
+			return bitmap;
+		}
+
+		@Override
+		BitmapContainer toBitmap() {
+			return (BitmapContainer) copy();
+		}
+	}
+
+	private static final class RunContainer extends Container {
+		final char[] starts;
+		final char[] lengths;
+		final int runCount;
+
+		RunContainer(char[] runStarts, char[] runLengths, int count) {
+			starts = runStarts;
+			lengths = runLengths;
+			runCount = count;
+			int total = 0;
+			for (int i = 0; i < runCount; i++) {
+				total += lengths[i] + 1;
+			}
+			cardinality = total;
+		}
+
+		static RunContainer from(Container c, int runs) {
+			char[] runStarts = new char[runs];
+			char[] runLengths = new char[runs];
+			int run = 0;
+			int low = c.nextValue(0);
+			while (low >= 0) {
+				int end = low;
+				int next = c.nextValue(end + 1);
+				while (next == (end + 1)) {
+					end = next;
+					next = c.nextValue(end + 1);
+				}
+				runStarts[run] = (char) low;
+				runLengths[run++] = (char) (end - low);
+				low = next;
+			}
+			return new RunContainer(runStarts, runLengths, run);
+		}
+
+		@Override
+		boolean contains(char low) {
+			int run = Arrays.binarySearch(starts, 0, runCount, low);
+			if (run >= 0) {
+				return true;
+			}
+
+			run = -run - 2;
+			return (run >= 0) && ((low - starts[run]) <= lengths[run]);
+		}
+
+		@Override
+		Container add(char low) {
+			if (contains(low)) {
+				return this;
+			}
+
+			return toArrayOrBitmap().add(low);
+		}
+
+		@Override
+		Container remove(char low) {
+			if (!contains(low)) {
+				return this;
+			}
+
+			return toArrayOrBitmap().remove(low);
+		}
+
+		@Override
+		int nextValue(int from) {
+			if (from >= CHUNK_SIZE) {
+				return -1;
+			}
+
+			int run = Arrays.binarySearch(starts, 0, runCount, (char) from);
+			if (run >= 0) {
+				return from;
+			}
+
+			run = -run - 2;
+			if ((run >= 0) && ((from - starts[run]) <= lengths[run])) {
+				return from;
+			}
+			++run;
+			return (run < runCount) ? starts[run] : -1;
+		}
+
+		@Override
+		int runCount() {
+			return runCount;
+		}
+
+		@Override
+		void forEach(int high, CMConsumer consumer) {
+			for (int r = 0; r < runCount; r++) {
+				int start = high | starts[r];
+				int end = start + lengths[r];
+				for (int value = start; value <= end; value++) {
+					consumer.accept(toCaveMan(value));
+				}
+			}
+		}
+
+		@Override
+		Container copy() {
+			return this;
+		}
+
+		@Override
+		BitmapContainer toBitmap() {
+			BitmapContainer bitmap = new BitmapContainer();
+			for (int i = 0; i < runCount; i++) {
+				int start = starts[i];
+				int end = start + lengths[i];
+				int startWord = start >>> 6;
+				int endWord = end >>> 6;
+				long startMask = -1L << start;
+				long endMask = -1L >>> (63 - (end & 63));
+				if (startWord == endWord) {
+					bitmap.words[startWord] |= startMask & endMask;
+				} else {
+					bitmap.words[startWord] |= startMask;
+					for (int w = startWord + 1; w < endWord; w++) {
+						bitmap.words[w] = -1L;
+					}
+					bitmap.words[endWord] |= endMask;
+				}
+			}
+			bitmap.cardinality = cardinality;
+			return bitmap;
+		}
+
+		private Container toArrayOrBitmap() {
+			return (cardinality <= ARRAY_MAX) ? ArrayContainer.from(this) : toBitmap();
+		}
+	}
+
+	private class RoaringCaveManCMSetIterator implements CMIterator {
+
+		private int iteratorVersion;
+		private int containerIndex;
+		private int nextLow;
+		private long lastValue;
+
+		RoaringCaveManCMSetIterator(int vers) {
+			iteratorVersion = vers;
+			containerIndex = 0;
+			nextLow = (containerCount > 0) ? containers[0].nextValue(0) : -1;
+			lastValue = -1L;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			return nextLow >= 0;
+		}
+
+		@Override
+		public CM next() throws NoSuchElementException {
+			if (!hasNext()) {
+				throw new NoSuchElementException("Iterator has been exhausted");
+			}
+
+			int value = (keys[containerIndex] << 16) | nextLow;
+			lastValue = value & 0xFFFFFFFFL;
+
+			nextLow = containers[containerIndex].nextValue(nextLow + 1);
+			if ((nextLow < 0) && (++containerIndex < containerCount)) {
+				nextLow = containers[containerIndex].nextValue(0);
+			}
+			return toCaveMan(value);
+		}
+
+		@Override
+		public void remove() {
+			if (iteratorVersion != version) {
+				throw new ConcurrentModificationException((version - iteratorVersion) + " changes have been made since the iterator was created");
+			}
+
+			if (lastValue < 0) {
+				throw new IllegalStateException("next() has not been called since the last remove");
+			}
+
+			char high = (char) (lastValue >>> 16);
+			int index = findContainer(high);
+			Container c = containers[index].remove((char) lastValue);
+			if (c.cardinality == 0) {
+				removeContainer(index);
+				--containerIndex;
+			} else {
+				containers[index] = c;
+			}
+			--size;
+			lastValue = -1L;
+			++version;
+			++iteratorVersion;
+		}
+	}
+
+
+
+	private static int fromCaveMan(CM item) {return 0;}
+	private static CM toCaveMan(int i) {return null;}
+}
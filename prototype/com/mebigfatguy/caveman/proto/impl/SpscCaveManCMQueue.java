@@ -0,0 +1,334 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.io.Serializable;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.mebigfatguy.caveman.proto.CMCollection;
+import com.mebigfatguy.caveman.proto.CMConsumer;
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.ConcurrentCMQueue;
+import com.mebigfatguy.caveman.proto.aux.CM;
+
+/**
+ * A lock free, bounded ConcurrentCMQueue for exactly one producer thread and one consumer thread,
+ * held in a ring of <b>CM</b>s whose size is a power of two. The producer only writes the tail
+ * sequence, and the consumer only writes the head sequence, each with an ordered store rather than
+ * a full fence, and each side remembers the last value it saw of the other's sequence, so it only
+ * reads across when the ring looks full or empty. Both sequences, and both remembered values, sit
+ * in their own cache lines so the two threads don't slow each other down by sharing one.
+ * <p>
+ * offer, add, offerAll and addAll may only be called by the producer, and every other method that
+ * reads or removes <b>CM</b>s may only be called by the consumer. Removing <b>CM</b>s from the
+ * middle of the queue isn't supported.
+ */
+public class SpscCaveManCMQueue implements ConcurrentCMQueue, Serializable {
+
+	private static final long serialVersionUID = -4117862264371928450L;
+	public static final CM DEFAULT_NOT_FOUND_VALUE = toCaveMan(0);
+	private static final int DEFAULT_CAPACITY = 1024;
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	/** the number of longs between counters, two 64 byte lines so the adjacent line prefetch doesn't pair them */
+	private static final int PAD = 16;
+	private static final int HEAD = PAD;
+	private static final int TAIL = PAD * 2;
+
+	private final CM[] items;
+	private final int mask;
+	private final CM notFound;
+	/** the sequence of the next CM to poll at HEAD, and of the next CM to offer at TAIL */
+	private final AtomicLongArray sequences;
+	/** the head the producer last read at HEAD, and the tail the consumer last read at TAIL */
+	private final long[] seen;
+
+	public SpscCaveManCMQueue() {
+		this(DEFAULT_NOT_FOUND_VALUE, DEFAULT_CAPACITY);
+	}
+
+	public SpscCaveManCMQueue(int capacity) {
+		this(DEFAULT_NOT_FOUND_VALUE, capacity);
+	}
+
+	public SpscCaveManCMQueue(CM notFoundValue, int capacity) {
+		if (capacity < 1) {
+			capacity = 1;
+		} else if (capacity > MAXIMUM_CAPACITY) {
+			capacity = MAXIMUM_CAPACITY;
+		}
+
+		int ringSize = Integer.highestOneBit(capacity);
+		if (ringSize < capacity) {
+			ringSize <<= 1;
+		}
+
+		items = new CM[ringSize];
+		mask = ringSize - 1;
+		notFound = notFoundValue;
+		sequences = new AtomicLongArray(PAD * 3);
+		seen = new long[PAD * 3];
+	}
+
+	@Override
+	public int capacity() {
+		return items.length;
+	}
+
+	@Override
+	public boolean offer(CM item) {
+		long tail = sequences.get(TAIL);
+		if ((tail - seen[HEAD]) >= items.length) {
+			seen[HEAD] = sequences.get(HEAD);
+			if ((tail - seen[HEAD]) >= items.length) {
+				return false;
+			}
+		}
+
+		items[(int) tail & mask] = item;
+		sequences.lazySet(TAIL, tail + 1);
+		return true;
+	}
+
+	@Override
+	public int offerAll(CM[] src, int off, int len) {
+		if ((off < 0) || (len < 0) || (len > (src.length - off))) {
+			throw new IndexOutOfBoundsException("offset " + off + " and length " + len + " do not fit an array of " + src.length);
+		}
+
+		long tail = sequences.get(TAIL);
+		int room = items.length - (int) (tail - seen[HEAD]);
+		if (room < len) {
+			seen[HEAD] = sequences.get(HEAD);
+			room = items.length - (int) (tail - seen[HEAD]);
+		}
+
+		int count = Math.min(room, len);
+		if (count == 0) {
+			return 0;
+		}
+
+		int start = (int) tail & mask;
+		int firstPart = Math.min(count, items.length - start);
+		System.arraycopy(src, off, items, start, firstPart);
+		System.arraycopy(src, off + firstPart, items, 0, count - firstPart);
+		sequences.lazySet(TAIL, tail + count);
+		return count;
+	}
+
+	@Override
+	public CM poll() {
+		long head = sequences.get(HEAD);
+		if (head >= seen[TAIL]) {
+			seen[TAIL] = sequences.get(TAIL);
+			if (head >= seen[TAIL]) {
+				return notFound;
+			}
+		}
+
+		CM item = items[(int) head & mask];
+		sequences.lazySet(HEAD, head + 1);
+		return item;
+	}
+
+	@Override
+	public int drainTo(CM[] dst) {
+		long head = sequences.get(HEAD);
+		int available = (int) (seen[TAIL] - head);
+		if (available < dst.length) {
+			seen[TAIL] = sequences.get(TAIL);
+			available = (int) (seen[TAIL] - head);
+		}
+
+		int count = Math.min(available, dst.length);
+		if (count == 0) {
+			return 0;
+		}
+
+		int start = (int) head & mask;
+		int firstPart = Math.min(count, items.length - start);
+		System.arraycopy(items, start, dst, 0, firstPart);
+		System.arraycopy(items, 0, dst, firstPart, count - firstPart);
+		sequences.lazySet(HEAD, head + count);
+		return count;
+	}
+
+	@Override
+	public CM element() {
+		long head = sequences.get(HEAD);
+		if (head == sequences.get(TAIL)) {
+			throw new NoSuchElementException();
+		}
+
+		return items[(int) head & mask];
+	}
+
+	@Override
+	public CM peek() {
+		long head = sequences.get(HEAD);
+		if (head == sequences.get(TAIL)) {
+			return notFound;
+		}
+
+		return items[(int) head & mask];
+	}
+
+	@Override
+	public int size() {
+		long head = sequences.get(HEAD);
+		long tail = sequences.get(TAIL);
+		return (int) Math.max(0, Math.min(items.length, tail - head));
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return sequences.get(HEAD) == sequences.get(TAIL);
+	}
+
+	@Override
+	public boolean contains(CM item) {
+		long tail = sequences.get(TAIL);
+		for (long s = sequences.get(HEAD); s < tail; s++) {
+			if (item == items[(int) s & mask]) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public CMIterator iterator() {
+		return new SpscCaveManCMQueueIterator();
+	}
+
+	@Override
+	public void forEach(CMConsumer consumer) {
+		long tail = sequences.get(TAIL);
+		for (long s = sequences.get(HEAD); s < tail; s++) {
+			consumer.accept(items[(int) s & mask]);
+		}
+	}
+
+	@Override
+	public CM[] toArray() {
+		long head = sequences.get(HEAD);
+		long tail = sequences.get(TAIL);
+		CM[] array = new CM[(int) (tail - head)];
+		int start = (int) head & mask;
+		int firstPart = Math.min(array.length, items.length - start);
+		System.arraycopy(items, start, array, 0, firstPart);
+		System.arraycopy(items, 0, array, firstPart, array.length - firstPart);
+		return array;
+	}
+
+	@Override
+	public boolean add(CM item) {
+		if (!offer(item)) {
+			throw new IllegalStateException("Queue is full at " + items.length + " items");
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean remove(CM item) {
+		throw new UnsupportedOperationException("Items can only be removed from the head of the queue");
+	}
+
+	@Override
+	public void clear() {
+		sequences.lazySet(HEAD, sequences.get(TAIL));
+	}
+
+	@Override
+	public boolean containsAll(CMCollection c) {
+		CMIterator it = c.iterator();
+		while (it.hasNext()) {
+			if (!contains(it.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean addAll(CMCollection c) {
+		boolean modified = false;
+		CMIterator it = c.iterator();
+		while (it.hasNext()) {
+			modified |= add(it.next());
+		}
+		return modified;
+	}
+
+	@Override
+	public boolean retainAll(CMCollection c) {
+		throw new UnsupportedOperationException("Items can only be removed from the head of the queue");
+	}
+
+	@Override
+	public boolean removeAll(CMCollection c) {
+		throw new UnsupportedOperationException("Items can only be removed from the head of the queue");
+	}
+
+	@Override
+	public CM getOne() {
+		long head = sequences.get(HEAD);
+		if (head == sequences.get(TAIL)) {
+			throw new IllegalStateException("This queue is empty");
+		}
+
+		return items[(int) head & mask];
+	}
+
+	private class SpscCaveManCMQueueIterator implements CMIterator {
+
+		private long pos;
+		private final long end;
+
+		SpscCaveManCMQueueIterator() {
+			pos = sequences.get(HEAD);
+			end = sequences.get(TAIL);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return pos < end;
+		}
+
+		@Override
+		public CM next() throws NoSuchElementException {
+			if (pos >= end) {
+				throw new NoSuchElementException("Iterator has been exhausted");
+			}
+
+			return items[(int) pos++ & mask];
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Items can only be removed from the head of the queue");
+		}
+	}
+
+
+
+	private static CM toCaveMan(int i) {return null;}
+}
@@ -0,0 +1,664 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+
+import com.mebigfatguy.caveman.proto.CMKeyCMValueConsumer;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueCounterMap;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMapIterator;
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMKeySet;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.CMValueBag;
+import com.mebigfatguy.caveman.proto.aux.OnlyForValue;
+
+/**
+ * A CMKeyCMValueCounterMap that maps each key to a counter in the style of
+ * java.util.concurrent.atomic.LongAdder. Keys are found as in ConcurrentCaveManCMKeyCMValueMap,
+ * through independently locked segments that are read without a lock, so counting a key that is
+ * already present takes no lock at all. A counter starts as a single atomic long, and only when
+ * two threads collide on it does it grow a set of cells, one per processor, each in its own pair
+ * of cache lines, that threads add to depending on which thread they are. So only hot keys pay
+ * for the cells, and increments from different cores to a hot key don't fight over one line.
+ * <p>
+ * Counts are held as longs, and narrowed to <b>CMValue</b> when read. The iterator works over a
+ * copy of every count, read once when it is created, and keySet and values return copies. The copy
+ * is taken a segment at a time, without resetting anything, so it is not a consistent snapshot of
+ * the whole map, and is not a way to flush counts periodically: additions made while the next flush
+ * is taken would be counted by both. Flush with sumThenReset(), which resets each count as it reads
+ * it, so every addition lands in exactly one flush.
+ * An addition racing with the removal of its key may be lost with the key.
+ */
+@OnlyForValue({"byte", "char", "short", "int", "long"})
+public class StripedCaveManCMKeyCMValueMap implements CMKeyCMValueCounterMap, Serializable {
+	private static final long serialVersionUID = 8835021784590316473L;
+	public static final CMValue DEFAULT_NOT_FOUND_VALUE = toCaveManValue(0);
+	private static final int DEFAULT_CAPACITY = 32;
+	private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+	private static final float DEFAULT_LOAD_FACTOR = 0.65f;
+	private static final int MAXIMUM_SEGMENTS = 1 << 16;
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	private static final byte FREE = 0;
+	private static final byte FULL = 1;
+	private static final byte REMOVED = 2;
+
+	/** the number of longs between cells, two 64 byte lines so the adjacent line prefetch doesn't pair them */
+	private static final int PAD = 16;
+	private static final int STRIPES = Integer.highestOneBit((Runtime.getRuntime().availableProcessors() << 1) - 1);
+
+	private final CMValue notFound;
+	private final float loadFactor;
+	private final int segmentShift;
+	private final int segmentMask;
+	private transient Segment[] segments;
+
+	public StripedCaveManCMKeyCMValueMap() {
+		this(DEFAULT_NOT_FOUND_VALUE, DEFAULT_CAPACITY, DEFAULT_CONCURRENCY_LEVEL);
+	}
+
+	public StripedCaveManCMKeyCMValueMap(CMValue notFoundValue, int initialCapacity, int concurrencyLevel) {
+		this(notFoundValue, initialCapacity, concurrencyLevel, DEFAULT_LOAD_FACTOR);
+	}
+
+	public StripedCaveManCMKeyCMValueMap(CMValue notFoundValue, int initialCapacity, int concurrencyLevel, float loadingFactor) {
+		if ((loadingFactor <= 0.0f) || (loadingFactor >= 1.0f)) {
+			throw new IllegalArgumentException("Load factor: " + loadingFactor + " is out of bounds (0.0, 1.0)");
+		}
+
+		notFound = notFoundValue;
+		loadFactor = loadingFactor;
+
+		int segmentBits = 0;
+		while (((1 << segmentBits) < concurrencyLevel) && ((1 << segmentBits) < MAXIMUM_SEGMENTS)) {
+			++segmentBits;
+		}
+		segmentShift = 32 - segmentBits;
+		segmentMask = (1 << segmentBits) - 1;
+
+		allocateSegments(initialCapacity);
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.count;
+		}
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		for (Segment segment : segments) {
+			if (segment.count != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean containsKey(CMKey key) {
+		return counterFor(key, hashCaveManKey(key)) != null;
+	}
+
+	@Override
+	public boolean containsValue(CMValue value) {
+		for (Segment segment : segments) {
+			Table table = segment.snapshot();
+			for (int i = 0; i < table.states.length; i++) {
+				if (table.states[i] == FULL) {
+					long sum = table.counters[i].sum();
+					CMValue count = narrowCaveManValue(sum);
+					if (count == value) {
+						return true;
+					}
+				}
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public CMValue get(CMKey key) {
+		Counter counter = counterFor(key, hashCaveManKey(key));
+		if (counter == null) {
+			return notFound;
+		}
+
+		long sum = counter.sum();
+		return narrowCaveManValue(sum);
+	}
+
+	/**
+	 * sets the count of the key, keeping any additions made to it at the same time
+	 */
+	@Override
+	public void put(CMKey key, CMValue value) {
+		Counter counter = counterOrCreate(key);
+		long amount = widenCaveManValue(value);
+		counter.sumThenReset();
+		counter.add(amount);
+	}
+
+	@Override
+	public void increment(CMKey key) {
+		counterOrCreate(key).add(1L);
+	}
+
+	@Override
+	public void add(CMKey key, CMValue delta) {
+		Counter counter = counterOrCreate(key);
+		long amount = widenCaveManValue(delta);
+		counter.add(amount);
+	}
+
+	/**
+	 * adds the delta, returning the count read just before it was added, which is inexact if other
+	 * threads add to the key at the same time. As with add, an absent key counts up from zero.
+	 */
+	@Override
+	public CMValue addTo(CMKey key, CMValue delta) {
+		Counter counter = counterOrCreate(key);
+		long before = counter.sum();
+		long amount = widenCaveManValue(delta);
+		counter.add(amount);
+		return narrowCaveManValue(before);
+	}
+
+	@Override
+	public CMValue getOrDefault(CMKey key, CMValue defaultValue) {
+		Counter counter = counterFor(key, hashCaveManKey(key));
+		if (counter == null) {
+			return defaultValue;
+		}
+
+		long sum = counter.sum();
+		return narrowCaveManValue(sum);
+	}
+
+	@Override
+	public CMValue sumThenReset(CMKey key) {
+		Counter counter = counterFor(key, hashCaveManKey(key));
+		if (counter == null) {
+			return notFound;
+		}
+
+		long sum = counter.sumThenReset();
+		return narrowCaveManValue(sum);
+	}
+
+	@Override
+	public CMKeyCMValueMap sumThenReset() {
+		CMKeyCMValueMap counts = new CaveManCMKeyCMValueMap(notFound, size());
+		for (Segment segment : segments) {
+			Table table = segment.snapshot();
+			for (int i = 0; i < table.states.length; i++) {
+				if (table.states[i] == FULL) {
+					long sum = table.counters[i].sumThenReset();
+					CMValue count = narrowCaveManValue(sum);
+					counts.put(table.keys[i], count);
+				}
+			}
+		}
+
+		return counts;
+	}
+
+	@Override
+	public void remove(CMKey key) {
+		int hash = hashCaveManKey(key);
+		Segment segment = segmentFor(hash);
+		long stamp = segment.lock.writeLock();
+		try {
+			int slot = segment.table.find(key, hash);
+			if (slot >= 0) {
+				segment.removeSlot(slot);
+			}
+		} finally {
+			segment.lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public void putAll(CMKeyCMValueMap m) {
+		CMKeyCMValueMapIterator iterator = m.iterator();
+
+		while (iterator.hasNext()) {
+			iterator.next();
+			put(iterator.key(), iterator.value());
+		}
+	}
+
+	@Override
+	public void clear() {
+		for (Segment segment : segments) {
+			long stamp = segment.lock.writeLock();
+			try {
+				segment.clear();
+			} finally {
+				segment.lock.unlockWrite(stamp);
+			}
+		}
+	}
+
+	/**
+	 * returns an iterator over a copy of the counts, read a segment at a time without resetting them,
+	 * so counts added while it is created may or may not be seen. Use sumThenReset() to flush counts
+	 * without counting any addition twice.
+	 */
+	@Override
+	public CMKeyCMValueMapIterator iterator() {
+		return new StripedCaveManCMKeyCMValueMapIterator();
+	}
+
+	@Override
+	public void forEach(CMKeyCMValueConsumer consumer) {
+		for (Segment segment : segments) {
+			Table table = segment.snapshot();
+			for (int i = 0; i < table.states.length; i++) {
+				if (table.states[i] == FULL) {
+					long sum = table.counters[i].sum();
+					CMValue count = narrowCaveManValue(sum);
+					consumer.accept(table.keys[i], count);
+				}
+			}
+		}
+	}
+
+	@Override
+	public CMKeySet keySet() {
+		return copy().keySet();
+	}
+
+	@Override
+	public CMValueBag values() {
+		return copy().values();
+	}
+
+	private CMKeyCMValueMap copy() {
+		CMKeyCMValueMap counts = new CaveManCMKeyCMValueMap(notFound, size());
+		forEach(counts::put);
+		return counts;
+	}
+
+	private Segment segmentFor(int hash) {
+		return segments[(hash >>> segmentShift) & segmentMask];
+	}
+
+	private Counter counterFor(CMKey key, int hash) {
+		Segment segment = segmentFor(hash);
+		long stamp = segment.lock.tryOptimisticRead();
+		Counter counter = segment.table.get(key, hash);
+		if (!segment.lock.validate(stamp)) {
+			stamp = segment.lock.readLock();
+			try {
+				counter = segment.table.get(key, hash);
+			} finally {
+				segment.lock.unlockRead(stamp);
+			}
+		}
+
+		return counter;
+	}
+
+	private Counter counterOrCreate(CMKey key) {
+		int hash = hashCaveManKey(key);
+		Counter counter = counterFor(key, hash);
+		if (counter != null) {
+			return counter;
+		}
+
+		Segment segment = segmentFor(hash);
+		long stamp = segment.lock.writeLock();
+		try {
+			counter = segment.table.get(key, hash);
+			if (counter == null) {
+				counter = new Counter();
+				segment.insert(key, hash, counter);
+			}
+			return counter;
+		} finally {
+			segment.lock.unlockWrite(stamp);
+		}
+	}
+
+	private void allocateSegments(int initialCapacity) {
+		segments = new Segment[segmentMask + 1];
+		int segmentCapacity = 2;
+		while (((segmentCapacity * segments.length) < initialCapacity) && (segmentCapacity < MAXIMUM_CAPACITY)) {
+			segmentCapacity <<= 1;
+		}
+
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new Segment(segmentCapacity, loadFactor);
+		}
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		StripedCaveManCMKeyCMValueMapIterator snapshot = new StripedCaveManCMKeyCMValueMapIterator();
+		out.writeObject(snapshot.keys);
+		out.writeObject(snapshot.counts);
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		allocateSegments(DEFAULT_CAPACITY);
+		CMKey[] snapshotKeys = (CMKey[]) in.readObject();
+		long[] snapshotCounts = (long[]) in.readObject();
+		for (int i = 0; i < snapshotKeys.length; i++) {
+			counterOrCreate(snapshotKeys[i]).add(snapshotCounts[i]);
+		}
+	}
+
+	/**
+	 * the count of one key. Threads add to base until two of them collide, after which each
+	 * thread adds to the cell picked by its id, moving on to the next cell if that one is busy.
+	 */
+	private static final class Counter {
+		final AtomicLong base;
+		volatile AtomicLongArray cells;
+
+		Counter() {
+			base = new AtomicLong();
+		}
+
+		void add(long delta) {
+			AtomicLongArray cs = cells;
+			if (cs == null) {
+				long b = base.get();
+				if (base.compareAndSet(b, b + delta)) {
+					return;
+				}
+				cs = inflate();
+			}
+
+			int mask = STRIPES - 1;
+			long id = Thread.currentThread().getId();
+			int stripe = (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+			while (true) {
+				int index = stripe * PAD;
+				long c = cs.get(index);
+				if (cs.compareAndSet(index, c, c + delta)) {
+					return;
+				}
+				stripe = (stripe + 1) & mask;
+			}
+		}
+
+		long sum() {
+			long sum = base.get();
+			AtomicLongArray cs = cells;
+			if (cs != null) {
+				for (int i = 0; i < STRIPES; i++) {
+					sum += cs.get(i * PAD);
+				}
+			}
+			return sum;
+		}
+
+		long sumThenReset() {
+			long sum = base.getAndSet(0L);
+			AtomicLongArray cs = cells;
+			if (cs != null) {
+				for (int i = 0; i < STRIPES; i++) {
+					sum += cs.getAndSet(i * PAD, 0L);
+				}
+			}
+			return sum;
+		}
+
+		private synchronized AtomicLongArray inflate() {
+			if (cells == null) {
+				cells = new AtomicLongArray(STRIPES * PAD);
+			}
+			return cells;
+		}
+	}
+
+	/**
+	 * one independently locked part of the map. The table is only modified under the write lock,
+	 * and is replaced, rather than modified, when it grows, so that lock free readers always see
+	 * a table whose arrays are consistent in length.
+	 */
+	private static final class Segment {
+		final StampedLock lock;
+		final float loadFactor;
+		volatile Table table;
+		volatile int count;
+		int usedSlots;
+
+		Segment(int capacity, float loadingFactor) {
+			lock = new StampedLock();
+			loadFactor = loadingFactor;
+			table = new Table(capacity);
+			count = 0;
+			usedSlots = 0;
+		}
+
+		void insert(CMKey key, int hash, Counter counter) {
+			ensureSize(count + 1);
+
+			Table t = table;
+			int mask = t.states.length - 1;
+			int slot = hash & mask;
+			while (t.states[slot] == FULL) {
+				slot = (slot + 1) & mask;
+			}
+
+			if (t.states[slot] == FREE) {
+				++usedSlots;
+			}
+			t.keys[slot] = key;
+			t.counters[slot] = counter;
+			t.states[slot] = FULL;
+			count = count + 1;
+		}
+
+		void removeSlot(int slot) {
+			Table t = table;
+			t.counters[slot] = null;
+			// a slot followed by a free slot can't be in the middle of a probe sequence, so needs no tombstone
+			if (t.states[(slot + 1) & (t.states.length - 1)] == FREE) {
+				t.states[slot] = FREE;
+				--usedSlots;
+			} else {
+				t.states[slot] = REMOVED;
+			}
+			count = count - 1;
+		}
+
+		void clear() {
+			Arrays.fill(table.states, FREE);
+			Arrays.fill(table.counters, null);
+			count = 0;
+			usedSlots = 0;
+		}
+
+		Table snapshot() {
+			long stamp = lock.readLock();
+			try {
+				return new Table(table);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		private void ensureSize(int newSize) {
+			Table t = table;
+			int capacity = t.states.length;
+			if ((Math.max(newSize, usedSlots + 1) > (capacity * loadFactor)) && (capacity < MAXIMUM_CAPACITY)) {
+				while ((newSize > (capacity * loadFactor)) && (capacity < MAXIMUM_CAPACITY)) {
+					capacity <<= 1;
+				}
+
+				Table newTable = new Table(capacity);
+				int mask = capacity - 1;
+				for (int i = 0; i < t.states.length; i++) {
+					if (t.states[i] == FULL) {
+						int slot = hashCaveManKey(t.keys[i]) & mask;
+						while (newTable.states[slot] != FREE) {
+							slot = (slot + 1) & mask;
+						}
+						newTable.keys[slot] = t.keys[i];
+						newTable.counters[slot] = t.counters[i];
+						newTable.states[slot] = FULL;
+					}
+				}
+				usedSlots = count;
+				table = newTable;
+			}
+		}
+	}
+
+	private static final class Table {
+		final CMKey[] keys;
+		final Counter[] counters;
+		final byte[] states;
+
+		Table(int capacity) {
+			keys = new CMKey[capacity];
+			counters = new Counter[capacity];
+			states = new byte[capacity];
+		}
+
+		Table(Table t) {
+			keys = t.keys.clone();
+			counters = t.counters.clone();
+			states = t.states.clone();
+		}
+
+		/**
+		 * returns the slot holding the key, or -1. The probe is bounded by the table length, as a lock free
+		 * reader may be looking at a table that a writer is changing, and so may never see a free slot.
+		 */
+		int find(CMKey key, int hash) {
+			int mask = states.length - 1;
+			int slot = hash & mask;
+			for (int probes = 0; probes <= mask; probes++) {
+				byte state = states[slot];
+				if (state == FREE) {
+					return -1;
+				}
+				if ((state == FULL) && (keys[slot] == key)) {
+					return slot;
+				}
+				slot = (slot + 1) & mask;
+			}
+
+			return -1;
+		}
+
+		Counter get(CMKey key, int hash) {
+			int slot = find(key, hash);
+			return (slot >= 0) ? counters[slot] : null;
+		}
+	}
+
+	/**
+	 * reads every count into arrays when created, one segment at a time, with Counter.sum, which
+	 * leaves the counts in place, unlike sumThenReset
+	 */
+	private class StripedCaveManCMKeyCMValueMapIterator implements CMKeyCMValueMapIterator {
+
+		final CMKey[] keys;
+		final long[] counts;
+		private int pos;
+		private boolean hasCurrent;
+
+		StripedCaveManCMKeyCMValueMapIterator() {
+			CMKey[] snapshotKeys = new CMKey[size()];
+			long[] snapshotCounts = new long[snapshotKeys.length];
+			int size = 0;
+			for (Segment segment : segments) {
+				Table table = segment.snapshot();
+				for (int i = 0; i < table.states.length; i++) {
+					if (table.states[i] == FULL) {
+						if (size == snapshotKeys.length) {
+							snapshotKeys = Arrays.copyOf(snapshotKeys, (size * 2) + 1);
+							snapshotCounts = Arrays.copyOf(snapshotCounts, snapshotKeys.length);
+						}
+						snapshotKeys[size] = table.keys[i];
+						snapshotCounts[size++] = table.counters[i].sum();
+					}
+				}
+			}
+
+			keys = (size == snapshotKeys.length) ? snapshotKeys : Arrays.copyOf(snapshotKeys, size);
+			counts = (size == snapshotCounts.length) ? snapshotCounts : Arrays.copyOf(snapshotCounts, size);
+			pos = -1;
+			hasCurrent = false;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (pos + 1) < keys.length;
+		}
+
+		@Override
+		public void next() throws NoSuchElementException {
+			if (!hasNext()) {
+				throw new NoSuchElementException("Iterator has been exhausted");
+			}
+
+			++pos;
+			hasCurrent = true;
+		}
+
+		@Override
+		public CMKey key() {
+			return keys[pos];
+		}
+
+		@Override
+		public CMValue value() {
+			long sum = counts[pos];
+			return narrowCaveManValue(sum);
+		}
+
+		@Override
+		public void remove() {
+			if (!hasCurrent) {
+				throw new IllegalStateException("next() has not been called since the last remove");
+			}
+
+			StripedCaveManCMKeyCMValueMap.this.remove(keys[pos]);
+			hasCurrent = false;
+		}
+	}
+
+
+
+	private static int hashCaveManKey(CMKey key) {return 0;}
+	private static CMValue toCaveManValue(int i) {return null;}
+	private static CMValue narrowCaveManValue(long l) {return null;}
+	private static long widenCaveManValue(CMValue v) {return 0;}
+}
@@ -0,0 +1,168 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mebigfatguy.caveman.proto.CMBag;
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.CMSet;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.IgnoreBoolean;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+import com.mebigfatguy.caveman.proto.impl.BitmapCaveManCMSet;
+import com.mebigfatguy.caveman.proto.impl.CountingCaveManCMBag;
+
+@OnlyFor({"boolean", "byte", "char", "short"})
+public class BitmapCaveManCMSetTest {
+
+	@Test @IgnoreBoolean
+	public void testAddRemoveContains() {
+		CMSet s = new BitmapCaveManCMSet();
+
+		for (int i = -50; i < 50; i++) {
+			Assert.assertTrue(s.add(toCaveMan(i)));
+		}
+		Assert.assertFalse(s.add(toCaveMan(10)));
+		Assert.assertEquals(100, s.size());
+
+		for (int i = -50; i < 50; i++) {
+			Assert.assertTrue(s.contains(toCaveMan(i)));
+		}
+		Assert.assertFalse(s.contains(toCaveMan(50)));
+
+		Assert.assertTrue(s.remove(toCaveMan(10)));
+		Assert.assertFalse(s.remove(toCaveMan(10)));
+		Assert.assertFalse(s.contains(toCaveMan(10)));
+		Assert.assertEquals(99, s.size());
+	}
+
+	@Test @IgnoreBoolean
+	public void testBitmapSetAlgebra() {
+		CMSet evens = new BitmapCaveManCMSet();
+		CMSet all = new BitmapCaveManCMSet();
+		for (int i = 0; i < 100; i++) {
+			all.add(toCaveMan(i));
+			if ((i & 1) == 0) {
+				evens.add(toCaveMan(i));
+			}
+		}
+
+		Assert.assertTrue(all.containsAll(evens));
+		Assert.assertFalse(evens.containsAll(all));
+
+		CMSet s = new BitmapCaveManCMSet();
+		Assert.assertTrue(s.addAll(evens));
+		Assert.assertFalse(s.addAll(evens));
+		Assert.assertEquals(50, s.size());
+
+		Assert.assertTrue(s.addAll(all));
+		Assert.assertEquals(100, s.size());
+
+		Assert.assertTrue(s.removeAll(evens));
+		Assert.assertEquals(50, s.size());
+		Assert.assertFalse(s.contains(toCaveMan(0)));
+		Assert.assertTrue(s.contains(toCaveMan(1)));
+
+		Assert.assertTrue(s.retainAll(evens));
+		Assert.assertTrue(s.isEmpty());
+	}
+
+	@Test @IgnoreBoolean
+	public void testMixedSetAlgebra() {
+		CMBag others = new CountingCaveManCMBag();
+		for (int i = 0; i < 100; i += 3) {
+			others.add(toCaveMan(i));
+		}
+
+		CMSet s = new BitmapCaveManCMSet();
+		Assert.assertTrue(s.addAll(others));
+		Assert.assertEquals(34, s.size());
+		Assert.assertTrue(s.containsAll(others));
+
+		s.add(toCaveMan(1));
+		Assert.assertTrue(s.retainAll(others));
+		Assert.assertEquals(34, s.size());
+
+		Assert.assertTrue(s.removeAll(others));
+		Assert.assertTrue(s.isEmpty());
+	}
+
+	@Test @IgnoreBoolean
+	public void testIterator() {
+		CMSet s = new BitmapCaveManCMSet();
+		for (int i = 0; i < 100; i++) {
+			s.add(toCaveMan(i));
+		}
+
+		int count = 0;
+		CMIterator it = s.iterator();
+		while (it.hasNext()) {
+			int value = fromCaveMan(it.next());
+			++count;
+
+			if ((value & 1) == 0) {
+				it.remove();
+			}
+		}
+
+		Assert.assertEquals(100, count);
+		Assert.assertEquals(50, s.size());
+		Assert.assertEquals(50, s.toArray().length);
+		for (int i = 1; i < 100; i += 2) {
+			Assert.assertTrue(s.contains(toCaveMan(i)));
+		}
+	}
+
+	@Test @IgnoreBoolean
+	public void testForEach() {
+		BitmapCaveManCMSet s = new BitmapCaveManCMSet();
+		for (int i = 0; i < 100; i += 3) {
+			s.add(toCaveMan(i));
+		}
+
+		CountingCaveManCMBag seen = new CountingCaveManCMBag();
+		s.forEach(seen::add);
+
+		Assert.assertEquals(s.size(), seen.size());
+		Assert.assertTrue(s.containsAll(seen));
+	}
+
+	@Test
+	public void testFullDomain() {
+		CMSet s = new BitmapCaveManCMSet();
+
+		s.add(toCaveMan(0));
+		s.add(toCaveMan(1));
+		Assert.assertEquals(2, s.size());
+		Assert.assertTrue(s.contains(toCaveMan(0)));
+		Assert.assertTrue(s.contains(toCaveMan(1)));
+
+		CM[] items = s.toArray();
+		Assert.assertEquals(2, items.length);
+
+		s.clear();
+		Assert.assertTrue(s.isEmpty());
+		Assert.assertFalse(s.contains(toCaveMan(0)));
+	}
+
+
+	private CM toCaveMan(int i) { return null; }
+	private int fromCaveMan(CM item) { return 0; }
+}
@@ -0,0 +1,76 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mebigfatguy.caveman.proto.BlockingCMQueue;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.impl.BlockingMpmcCaveManCMQueue;
+
+public class BlockingMpmcCaveManCMQueueTest {
+
+	@Test
+	public void testTimeouts() throws InterruptedException {
+		CM notFound = toCaveMan(7);
+		BlockingCMQueue q = new BlockingMpmcCaveManCMQueue(notFound, 2);
+
+		Assert.assertTrue(notFound == q.poll(5, TimeUnit.MILLISECONDS));
+		Assert.assertTrue(q.offer(toCaveMan(1), 5, TimeUnit.MILLISECONDS));
+		q.put(toCaveMan(2));
+		Assert.assertFalse(q.offer(toCaveMan(3), 5, TimeUnit.MILLISECONDS));
+
+		CM expected = toCaveMan(1);
+		Assert.assertTrue(expected == q.take());
+		expected = toCaveMan(2);
+		Assert.assertTrue(expected == q.poll(5, TimeUnit.MILLISECONDS));
+		Assert.assertTrue(q.isEmpty());
+	}
+
+	@Test
+	public void testPutTake() throws InterruptedException {
+		final int count = 100000;
+		final BlockingCMQueue q = new BlockingMpmcCaveManCMQueue(4);
+
+		Thread producer = new Thread(() -> {
+			try {
+				for (int i = 0; i < count; i++) {
+					q.put(toCaveMan(i));
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		producer.start();
+
+		for (int i = 0; i < count; i++) {
+			CM expected = toCaveMan(i);
+			Assert.assertTrue(expected == q.take());
+		}
+
+		producer.join();
+		Assert.assertTrue(q.isEmpty());
+	}
+
+
+
+	private CM toCaveMan(int i) { return null; }
+}
@@ -22,6 +22,7 @@ import org.junit.Test;
 
 import com.mebigfatguy.caveman.proto.CMIterator;
 import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.IgnoreBoolean;
 import com.mebigfatguy.caveman.proto.impl.CaveManCMBag;
 
 public class CaveManCMBagTest {
@@ -58,6 +59,20 @@ public class CaveManCMBagTest {
 		}
 	}
 	
+	@Test @IgnoreBoolean
+	public void testGrowFromTinyCapacity() {
+		CaveManCMBag s = new CaveManCMBag(1);
+		for (int i = 0; i < 128; i++) {
+			s.add(toCaveMan(i));
+			s.add(toCaveMan(i));
+		}
+
+		Assert.assertEquals(256, s.size());
+		for (int i = 0; i < 128; i++) {
+			Assert.assertEquals(2, s.countOf(toCaveMan(i)));
+		}
+	}
+
 	@Test
 	public void testCountOf() {
 		CaveManCMBag s = new CaveManCMBag();
@@ -17,11 +17,16 @@
  */
 package com.mebigfatguy.caveman.proto.test;
 
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.mebigfatguy.caveman.proto.CMIterator;
 import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMSum;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
 import com.mebigfatguy.caveman.proto.impl.CaveManCMDeque;
 
 public class CaveManCMDequeTest {
@@ -84,5 +89,107 @@ public class CaveManCMDequeTest {
         
     }
     
+    @Test
+    public void testPollRemoveEnds() {
+        CM notFound = toCaveMan(0);
+        CaveManCMDeque s = new CaveManCMDeque(notFound, 4);
+        for (int i = 0; i < 3; i++) {
+            s.addLast(toCaveMan(1));
+            s.addFirst(toCaveMan(0));
+        }
+
+        Assert.assertTrue(s.peekLast() == toCaveMan(1));
+        Assert.assertEquals(6, s.size());
+        Assert.assertTrue(s.pollFirst() == toCaveMan(0));
+        Assert.assertTrue(s.pollLast() == toCaveMan(1));
+        Assert.assertTrue(s.removeFirst() == toCaveMan(0));
+        Assert.assertTrue(s.removeLast() == toCaveMan(1));
+        Assert.assertEquals(2, s.size());
+        Assert.assertTrue(s.removeFirst() == toCaveMan(0));
+        Assert.assertTrue(s.pollLast() == toCaveMan(1));
+        Assert.assertEquals(0, s.size());
+
+        Assert.assertTrue(s.pollFirst() == notFound);
+        Assert.assertTrue(s.pollLast() == notFound);
+        try {
+            s.removeFirst();
+            Assert.fail("removeFirst should have thrown NoSuchElementException");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+        try {
+            s.removeLast();
+            Assert.fail("removeLast should have thrown NoSuchElementException");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+        Assert.assertEquals(0, s.size());
+    }
+
+    @Test
+    public void testForEachGrowingConsumer() {
+        CaveManCMDeque s = new CaveManCMDeque(toCaveMan(0), 4);
+        for (int i = 0; i < 3; i++) {
+            s.addLast(toCaveMan(1));
+        }
+
+        int[] calls = new int[1];
+        try {
+            s.forEach(item -> {
+                ++calls[0];
+                for (int i = 0; i < 10; i++) {
+                    s.addLast(item);
+                }
+            });
+            Assert.fail("forEach should have thrown ConcurrentModificationException");
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+        Assert.assertEquals(3, calls[0]);
+        Assert.assertEquals(33, s.size());
+    }
+
+    @Test
+    public void testForEachWrapped() {
+        CaveManCMDeque s = new CaveManCMDeque(toCaveMan(0), 8);
+        for (int i = 0; i < 5; i++) {
+            s.addLast(toCaveMan(1));
+            s.addFirst(toCaveMan(0));
+        }
+        
+        CaveManCMDeque seen = new CaveManCMDeque();
+        s.forEach(seen::addLast);
+        
+        Assert.assertEquals(10, seen.size());
+        CMIterator it = s.iterator();
+        CMIterator seenIt = seen.iterator();
+        while (it.hasNext()) {
+            Assert.assertTrue(it.next() == seenIt.next());
+        }
+    }
+    
+    @OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+    @Test
+    public void testAggregatesWrapped() {
+        CaveManCMDeque s = new CaveManCMDeque(toCaveMan(0), 16);
+        for (int i = 1; i <= 5; i++) {
+            int value = i + 5;
+            s.addLast(toCaveMan(i));
+            s.addFirst(toCaveMan(value));
+        }
+
+        CMSum sum = widenCaveMan(55);
+        CMSum sumOfSquares = widenCaveMan(385);
+        Assert.assertTrue(s.sum() == sum);
+        Assert.assertTrue(s.sumOfSquares() == sumOfSquares);
+        Assert.assertTrue(s.min() == toCaveMan(1));
+        Assert.assertTrue(s.max() == toCaveMan(10));
+        Assert.assertEquals(5.5, s.average(), 0.0);
+        Assert.assertEquals(5, s.count(item -> fromCaveMan(item) % 2 == 0));
+    }
+    
+
     private CM toCaveMan(int i) { return null; }
+    private int fromCaveMan(CM item) { return 0; }
+    private CMSum widenCaveMan(int i) { return null; }
 }
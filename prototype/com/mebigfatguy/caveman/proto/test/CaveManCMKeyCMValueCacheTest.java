@@ -0,0 +1,129 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mebigfatguy.caveman.proto.CMKeyCMValueCache;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.EvictionPolicy;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.IgnoreBoolean;
+import com.mebigfatguy.caveman.proto.impl.CaveManCMKeyCMValueCache;
+import com.mebigfatguy.caveman.proto.impl.CaveManCMKeyCMValueMap;
+
+public class CaveManCMKeyCMValueCacheTest {
+
+	@Test @IgnoreBoolean
+	public void testLruEviction() {
+		CMKeyCMValueMap evicted = new CaveManCMKeyCMValueMap();
+		CMValue notFound = toCaveManValue(0);
+		CMKeyCMValueCache c = new CaveManCMKeyCMValueCache(notFound, 3, EvictionPolicy.LRU, evicted::put);
+
+		for (int i = 0; i < 3; i++) {
+			c.put(toCaveManKey(i), toCaveManValue(i));
+		}
+		Assert.assertEquals(toCaveManValue(0), c.get(toCaveManKey(0)));
+
+		c.put(toCaveManKey(3), toCaveManValue(1));
+		Assert.assertEquals(3, c.size());
+		Assert.assertEquals(1, evicted.size());
+		Assert.assertTrue(evicted.containsKey(toCaveManKey(1)));
+		Assert.assertFalse(c.containsKey(toCaveManKey(1)));
+
+		c.put(toCaveManKey(0), toCaveManValue(1));
+		c.put(toCaveManKey(4), toCaveManValue(1));
+		Assert.assertTrue(evicted.containsKey(toCaveManKey(2)));
+		Assert.assertTrue(c.containsKey(toCaveManKey(0)));
+		Assert.assertTrue(c.containsKey(toCaveManKey(3)));
+		Assert.assertTrue(c.containsKey(toCaveManKey(4)));
+
+		Assert.assertEquals(toCaveManValue(0), c.get(toCaveManKey(1)));
+		Assert.assertEquals(1L, c.hitCount());
+		Assert.assertEquals(1L, c.missCount());
+		Assert.assertEquals(2L, c.evictionCount());
+	}
+
+	@Test @IgnoreBoolean
+	public void testClockEviction() {
+		CMKeyCMValueMap evicted = new CaveManCMKeyCMValueMap();
+		CMValue notFound = toCaveManValue(0);
+		CMKeyCMValueCache c = new CaveManCMKeyCMValueCache(notFound, 3, EvictionPolicy.CLOCK, evicted::put);
+
+		for (int i = 0; i < 3; i++) {
+			c.put(toCaveManKey(i), toCaveManValue(i));
+		}
+		c.get(toCaveManKey(0));
+		c.get(toCaveManKey(2));
+
+		c.put(toCaveManKey(3), toCaveManValue(1));
+		Assert.assertTrue(evicted.containsKey(toCaveManKey(1)));
+
+		c.put(toCaveManKey(4), toCaveManValue(1));
+		Assert.assertTrue(evicted.containsKey(toCaveManKey(0)));
+		Assert.assertTrue(c.containsKey(toCaveManKey(2)));
+		Assert.assertTrue(c.containsKey(toCaveManKey(3)));
+		Assert.assertTrue(c.containsKey(toCaveManKey(4)));
+		Assert.assertEquals(2L, c.evictionCount());
+	}
+
+	@Test @IgnoreBoolean
+	public void testComputeIfAbsent() {
+		CMKeyCMValueCache c = new CaveManCMKeyCMValueCache(10, EvictionPolicy.CLOCK);
+		CMValue one = toCaveManValue(1);
+		int[] loads = new int[1];
+
+		for (int i = 0; i < 100; i++) {
+			int key = i % 20;
+			c.computeIfAbsent(toCaveManKey(key), k -> {
+				++loads[0];
+				return one;
+			});
+		}
+
+		Assert.assertEquals(10, c.size());
+		Assert.assertEquals(100L, c.hitCount() + c.missCount());
+		Assert.assertEquals(loads[0], c.missCount());
+		Assert.assertEquals(c.missCount() - 10, c.evictionCount());
+	}
+
+	@Test
+	public void testRemoveClear() {
+		CMKeyCMValueCache c = new CaveManCMKeyCMValueCache(1);
+
+		c.put(toCaveManKey(0), toCaveManValue(1));
+		c.put(toCaveManKey(1), toCaveManValue(1));
+		Assert.assertEquals(1, c.size());
+		Assert.assertEquals(1, c.maxSize());
+		Assert.assertFalse(c.containsKey(toCaveManKey(0)));
+		Assert.assertEquals(1L, c.evictionCount());
+
+		c.remove(toCaveManKey(1));
+		Assert.assertEquals(0, c.size());
+		c.put(toCaveManKey(0), toCaveManValue(1));
+		c.clear();
+		Assert.assertEquals(0, c.size());
+		Assert.assertFalse(c.containsKey(toCaveManKey(0)));
+		Assert.assertEquals(1L, c.evictionCount());
+	}
+
+	private CMKey toCaveManKey(int i) { return null; }
+	private CMValue toCaveManValue(int i) { return null; }
+}
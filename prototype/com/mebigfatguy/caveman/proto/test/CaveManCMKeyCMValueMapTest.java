@@ -17,6 +17,8 @@
  */
 package com.mebigfatguy.caveman.proto.test;
 
+import java.util.ConcurrentModificationException;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -25,6 +27,7 @@ import com.mebigfatguy.caveman.proto.CMKeyCMValueMapIterator;
 import com.mebigfatguy.caveman.proto.aux.CMKey;
 import com.mebigfatguy.caveman.proto.aux.CMValue;
 import com.mebigfatguy.caveman.proto.aux.IgnoreBoolean;
+import com.mebigfatguy.caveman.proto.aux.OnlyForValue;
 import com.mebigfatguy.caveman.proto.impl.CaveManCMKeyCMValueMap;
 
 public class CaveManCMKeyCMValueMapTest {
@@ -45,6 +48,23 @@ public class CaveManCMKeyCMValueMapTest {
 		Assert.assertEquals(toCaveManValue(Integer.MAX_VALUE), m.get(toCaveManKey(501)));
 	}
 	
+	@Test @IgnoreBoolean
+	public void testGrowFromTinyCapacity() {
+		CMValue notFound = toCaveManValue(Integer.MAX_VALUE);
+		CMKeyCMValueMap m = new CaveManCMKeyCMValueMap(notFound, 1);
+		for (int i = 0; i < 128; i++) {
+			m.put(toCaveManKey(i), toCaveManValue(i));
+		}
+
+		Assert.assertEquals(128, m.size());
+		for (int i = 0; i < 128; i++) {
+			CMKey key = toCaveManKey(i);
+			CMValue value = toCaveManValue(i);
+			Assert.assertTrue(m.containsKey(key));
+			Assert.assertTrue(m.get(key) == value);
+		}
+	}
+
 	@Test
 	public void testSizeEmpty() {
 		CMKeyCMValueMap m = new CaveManCMKeyCMValueMap();
@@ -83,6 +103,100 @@ public class CaveManCMKeyCMValueMapTest {
 	}
 	
 	
+	@Test
+	public void testPutIfAbsentReplace() {
+		CMValue notFound = toCaveManValue(0);
+		CMKeyCMValueMap m = new CaveManCMKeyCMValueMap(notFound, 10);
+
+		Assert.assertTrue(m.putIfAbsent(toCaveManKey(1), toCaveManValue(1)) == notFound);
+		Assert.assertTrue(m.putIfAbsent(toCaveManKey(1), toCaveManValue(0)) == toCaveManValue(1));
+		Assert.assertTrue(m.getOrDefault(toCaveManKey(0), toCaveManValue(1)) == toCaveManValue(1));
+		Assert.assertTrue(m.replace(toCaveManKey(0), toCaveManValue(1)) == notFound);
+		Assert.assertFalse(m.containsKey(toCaveManKey(0)));
+		Assert.assertFalse(m.replace(toCaveManKey(1), toCaveManValue(0), toCaveManValue(0)));
+		Assert.assertTrue(m.replace(toCaveManKey(1), toCaveManValue(1), toCaveManValue(0)));
+		Assert.assertTrue(m.get(toCaveManKey(1)) == toCaveManValue(0));
+		Assert.assertEquals(1, m.size());
+	}
+
+	@Test
+	public void testComputeIfAbsentMerge() {
+		CMKeyCMValueMap m = new CaveManCMKeyCMValueMap();
+
+		Assert.assertTrue(m.computeIfAbsent(toCaveManKey(1), k -> toCaveManValue(1)) == toCaveManValue(1));
+		Assert.assertTrue(m.computeIfAbsent(toCaveManKey(1), k -> toCaveManValue(0)) == toCaveManValue(1));
+		Assert.assertTrue(m.merge(toCaveManKey(0), toCaveManValue(1), (a, b) -> toCaveManValue(0)) == toCaveManValue(1));
+		Assert.assertTrue(m.merge(toCaveManKey(0), toCaveManValue(1), (a, b) -> toCaveManValue(0)) == toCaveManValue(0));
+		Assert.assertEquals(2, m.size());
+
+		m.remove(toCaveManKey(0));
+		try {
+			m.computeIfAbsent(toCaveManKey(0), k -> {
+				m.remove(toCaveManKey(1));
+				return toCaveManValue(1);
+			});
+			Assert.fail("computeIfAbsent should have thrown ConcurrentModificationException");
+		} catch (ConcurrentModificationException e) {
+			// expected
+		}
+	}
+
+	@OnlyForValue({"byte", "char", "short", "int", "long", "float", "double"})
+	@Test
+	public void testAddTo() {
+		CMKeyCMValueMap m = new CaveManCMKeyCMValueMap();
+
+		for (int i = 0; i < 10; i++) {
+			m.addTo(toCaveManKey(1), toCaveManValue(2));
+		}
+
+		Assert.assertTrue(m.addTo(toCaveManKey(1), toCaveManValue(1)) == toCaveManValue(20));
+		Assert.assertTrue(m.get(toCaveManKey(1)) == toCaveManValue(21));
+		Assert.assertEquals(1, m.size());
+	}
+
+	@Test
+	public void testBulkPutGet() {
+		CMKey[] keys = new CMKey[200];
+		CMValue[] values = new CMValue[200];
+		for (int i = 0; i < 200; i++) {
+			keys[i] = toCaveManKey(i);
+			values[i] = toCaveManValue(i);
+		}
+
+		CMKeyCMValueMap m = new CaveManCMKeyCMValueMap();
+		CMKeyCMValueMap expected = new CaveManCMKeyCMValueMap();
+		m.putAll(keys, values, 50, 100);
+		for (int i = 50; i < 150; i++) {
+			expected.put(keys[i], values[i]);
+		}
+
+		Assert.assertEquals(expected.size(), m.size());
+		CMValue[] out = new CMValue[200];
+		m.getAll(keys, out);
+		for (int i = 0; i < 200; i++) {
+			Assert.assertTrue(out[i] == expected.get(keys[i]));
+		}
+	}
+
+	@Test
+	public void testForEach() {
+		CMKeyCMValueMap m = new CaveManCMKeyCMValueMap();
+		
+		for (int i = 0; i < 100; i++) {
+			m.put(toCaveManKey(i), toCaveManValue(i));
+		}
+		
+		int[] count = new int[1];
+		m.forEach((k, v) -> {
+			Assert.assertTrue(m.get(k) == v);
+			count[0]++;
+		});
+		
+		Assert.assertEquals(m.size(), count[0]);
+	}
+	
+
 	private int fromCaveManKey(CMKey k) { return 0; }
 	private CMKey toCaveManKey(int i) { return null; }
 	private CMValue toCaveManValue(int i) { return null; }
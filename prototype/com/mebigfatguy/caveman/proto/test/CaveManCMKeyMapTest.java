@@ -23,6 +23,7 @@ import org.junit.Test;
 import com.mebigfatguy.caveman.proto.CMKeyMap;
 import com.mebigfatguy.caveman.proto.CMKeyMapIterator;
 import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.IgnoreBoolean;
 import com.mebigfatguy.caveman.proto.impl.CaveManCMKeyMap;
 
 public class CaveManCMKeyMapTest {
@@ -42,6 +43,19 @@ public class CaveManCMKeyMapTest {
 		Assert.assertEquals(0, m.size());
 	}
 	
+	@Test @IgnoreBoolean
+	public void testGrowFromTinyCapacity() {
+		CMKeyMap<Integer> m = new CaveManCMKeyMap<Integer>(1);
+		for (int i = 0; i < 128; i++) {
+			m.put(toCaveMan(i), Integer.valueOf(i));
+		}
+
+		Assert.assertEquals(128, m.size());
+		for (int i = 0; i < 128; i++) {
+			Assert.assertEquals(Integer.valueOf(i), m.get(toCaveMan(i)));
+		}
+	}
+
 	@Test
 	public void testIteratorRemove() {
 		CMKeyMap<Integer> m = new CaveManCMKeyMap<Integer>();
@@ -63,6 +77,25 @@ public class CaveManCMKeyMapTest {
 			Assert.assertTrue(m.containsKey(toCaveMan(i)));
 		}
 	}
+
+	@Test
+	public void testComputeIfAbsentMerge() {
+		CMKeyMap<String> m = new CaveManCMKeyMap<String>();
+		CM zero = toCaveMan(0);
+		CM one = toCaveMan(1);
+
+		Assert.assertNull(m.putIfAbsent(one, "a"));
+		Assert.assertEquals("a", m.putIfAbsent(one, "b"));
+		Assert.assertEquals("z", m.getOrDefault(zero, "z"));
+		Assert.assertEquals("b", m.computeIfAbsent(zero, k -> "b"));
+		Assert.assertEquals("b", m.computeIfAbsent(zero, k -> "c"));
+		Assert.assertEquals("ac", m.merge(one, "c", String::concat));
+		Assert.assertFalse(m.replace(one, "a", "d"));
+		Assert.assertTrue(m.replace(one, "ac", "d"));
+		Assert.assertNull(m.merge(one, "e", (a, b) -> null));
+		Assert.assertFalse(m.containsKey(one));
+		Assert.assertEquals(1, m.size());
+	}
 	
 	
 	private int fromCaveMan(CM k) { return 0; }
@@ -25,6 +25,10 @@ import org.junit.Test;
 
 import com.mebigfatguy.caveman.proto.CMIterator;
 import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMBoxed;
+import com.mebigfatguy.caveman.proto.aux.CMSpliterator;
+import com.mebigfatguy.caveman.proto.aux.CMSum;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
 import com.mebigfatguy.caveman.proto.impl.CaveManCMList;
 
 public class CaveManCMListTest {
@@ -137,5 +141,345 @@ public class CaveManCMListTest {
 		}
 	}
 	
+	@Test
+	public void testForEach() {
+		CaveManCMList l = new CaveManCMList();
+		for (int i = 0; i < 30; i++) {
+			l.add(toCaveMan(i));
+		}
+
+		CaveManCMList seen = new CaveManCMList();
+		l.forEach(seen::add);
+
+		Assert.assertEquals(30, seen.size());
+		for (int i = 0; i < 30; i++) {
+			Assert.assertTrue(l.get(i) == seen.get(i));
+		}
+	}
+
+	@Test
+	public void testForEachConcurrentModException() {
+		try {
+			CaveManCMList l = new CaveManCMList();
+			for (int i = 0; i < 30; i++) {
+				l.add(toCaveMan(i));
+			}
+
+			l.forEach(item -> l.clear());
+			Assert.assertTrue(false);
+		} catch (ConcurrentModificationException cme) {
+			Assert.assertTrue(true);
+		}
+	}
+	
+
+	@Test
+	public void testForEachGrowingConsumer() {
+		CaveManCMList l = new CaveManCMList();
+		for (int i = 0; i < 20; i++) {
+			l.add(toCaveMan(i));
+		}
+
+		int[] calls = new int[1];
+		try {
+			l.forEach(item -> {
+				++calls[0];
+				l.add(item);
+			});
+			Assert.fail("forEach should have thrown ConcurrentModificationException");
+		} catch (ConcurrentModificationException e) {
+			// expected
+		}
+		Assert.assertEquals(20, calls[0]);
+		Assert.assertEquals(40, l.size());
+	}
+
+	@Test
+	public void testAddAllArray() {
+		CM[] items = new CM[20];
+		for (int i = 0; i < items.length; i++) {
+			items[i] = toCaveMan(i);
+		}
+
+		CaveManCMList l = new CaveManCMList(2);
+		Assert.assertTrue(l.addAll(items, 5, 10));
+		Assert.assertFalse(l.addAll(items, 0, 0));
+		Assert.assertEquals(10, l.size());
+
+		CaveManCMList other = new CaveManCMList();
+		other.addAll(items, 0, 5);
+		Assert.assertTrue(l.addAll(other));
+		Assert.assertTrue(l.addAll(l));
+		Assert.assertEquals(30, l.size());
+
+		for (int i = 0; i < 10; i++) {
+			Assert.assertTrue(l.get(i) == items[i + 5]);
+			Assert.assertTrue(l.get(i + 15) == items[i + 5]);
+		}
+		for (int i = 0; i < 5; i++) {
+			Assert.assertTrue(l.get(i + 10) == items[i]);
+			Assert.assertTrue(l.get(i + 25) == items[i]);
+		}
+
+		try {
+			l.addAll(items, 15, 10);
+			Assert.fail("addAll should have thrown IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testRemoveAllRetainAll() {
+		CaveManCMList l = new CaveManCMList();
+		for (int i = 0; i < 100; i++) {
+			l.add(toCaveMan(i));
+		}
+
+		CaveManCMList removals = new CaveManCMList();
+		for (int i = 0; i < 50; i += 2) {
+			removals.add(toCaveMan(i));
+		}
+
+		CM[] before = l.toArray();
+		l.removeAll(removals);
+		int kept = 0;
+		for (CM item : before) {
+			if (!removals.contains(item)) {
+				Assert.assertTrue(l.get(kept++) == item);
+			}
+		}
+		Assert.assertEquals(kept, l.size());
+
+		CaveManCMList retained = new CaveManCMList();
+		retained.add(toCaveMan(51));
+		retained.add(toCaveMan(53));
+
+		before = l.toArray();
+		l.retainAll(retained);
+		kept = 0;
+		for (CM item : before) {
+			if (retained.contains(item)) {
+				Assert.assertTrue(l.get(kept++) == item);
+			}
+		}
+		Assert.assertEquals(kept, l.size());
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Test
+	public void testSortBinarySearch() {
+		CaveManCMList l = new CaveManCMList();
+		for (int i = 0; i < 200; i++) {
+			int value = (i * 37) % 50;
+			l.add(toCaveMan(value));
+		}
+
+		CaveManCMList copy = new CaveManCMList();
+		copy.addAll(l);
+
+		l.sort();
+		copy.parallelSort();
+		for (int i = 0; i < l.size(); i++) {
+			Assert.assertTrue(l.get(i) == copy.get(i));
+			if (i > 0) {
+				Assert.assertTrue(CMBoxed.compare(l.get(i - 1), l.get(i)) <= 0);
+			}
+		}
+
+		for (int i = 0; i < 50; i++) {
+			CM item = toCaveMan(i);
+			int index = l.binarySearch(item);
+			Assert.assertEquals(l.indexOf(item), index);
+		}
+
+		l.removeAll(copy);
+		l.add(toCaveMan(10));
+		l.add(toCaveMan(20));
+		Assert.assertEquals(-1, l.binarySearch(toCaveMan(5)));
+		Assert.assertEquals(-2, l.binarySearch(toCaveMan(15)));
+		Assert.assertEquals(-3, l.binarySearch(toCaveMan(25)));
+	}
+
+	@Test
+	public void testSortComparator() {
+		CaveManCMList l = new CaveManCMList();
+		for (int i = 0; i < 100; i++) {
+			l.add(toCaveMan(i));
+		}
+
+		CaveManCMList expected = new CaveManCMList();
+		for (int parity = 0; parity < 2; parity++) {
+			for (int i = 0; i < l.size(); i++) {
+				if ((fromCaveMan(l.get(i)) & 1) == parity) {
+					expected.add(l.get(i));
+				}
+			}
+		}
+
+		l.sort((a, b) -> (fromCaveMan(a) & 1) - (fromCaveMan(b) & 1));
+		for (int i = 0; i < l.size(); i++) {
+			Assert.assertTrue(l.get(i) == expected.get(i));
+		}
+
+		l.sort((a, b) -> CMBoxed.compare(b, a));
+		for (int i = 1; i < l.size(); i++) {
+			Assert.assertTrue(CMBoxed.compare(l.get(i - 1), l.get(i)) >= 0);
+		}
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Test
+	public void testReplaceAll() {
+		CaveManCMList l = new CaveManCMList();
+		for (int i = 0; i < 10; i++) {
+			l.add(toCaveMan(i));
+		}
+
+		l.replaceAll(item -> {
+			int value = fromCaveMan(item) * 2;
+			return toCaveMan(value);
+		});
+		for (int i = 0; i < 10; i++) {
+			int value = i * 2;
+			Assert.assertTrue(l.get(i) == toCaveMan(value));
+		}
+	}
+
+	/**
+	 * covers lists shorter than, and not a multiple of, any vector length, so that the items
+	 * found are in the plain loop at the end as well as in the vectors
+	 */
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Test
+	public void testIndexOfEveryLength() {
+		for (int n = 0; n < 70; n++) {
+			CaveManCMList l = new CaveManCMList();
+			for (int copy = 0; copy < 2; copy++) {
+				for (int i = 0; i < n; i++) {
+					l.add(toCaveMan(i));
+				}
+			}
+
+			for (int i = 0; i < n; i++) {
+				CM item = toCaveMan(i);
+				Assert.assertEquals(i, l.indexOf(item));
+				Assert.assertEquals(n + i, l.lastIndexOf(item));
+			}
+
+			CM missing = toCaveMan(n);
+			Assert.assertFalse(l.contains(missing));
+			Assert.assertEquals(-1, l.indexOf(missing));
+			Assert.assertEquals(-1, l.lastIndexOf(missing));
+		}
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Test
+	public void testAddToAllMultiplyAll() {
+		CaveManCMList l = new CaveManCMList();
+		for (int i = 0; i < 100; i++) {
+			l.add(toCaveMan(i));
+		}
+
+		l.addToAll(toCaveMan(3));
+		for (int i = 0; i < 100; i++) {
+			int value = i + 3;
+			Assert.assertTrue(l.get(i) == toCaveMan(value));
+		}
+
+		l.multiplyAll(toCaveMan(2));
+		for (int i = 0; i < 100; i++) {
+			int value = (i + 3) * 2;
+			Assert.assertTrue(l.get(i) == toCaveMan(value));
+		}
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Test
+	public void testSumEveryLength() {
+		CaveManCMList l = new CaveManCMList();
+		for (int n = 0; n < 70; n++) {
+			int total = (n * (n - 1)) / 2;
+			CMSum expected = widenCaveMan(total);
+			Assert.assertTrue(l.sum() == expected);
+			l.add(toCaveMan(n));
+		}
+	}
+
+	@OnlyFor({"int", "long"})
+	@Test
+	public void testSumDoesNotOverflow() {
+		CaveManCMList l = new CaveManCMList();
+		CMSum expected = widenCaveMan(0);
+		for (int i = 0; i < 1003; i++) {
+			int value = Integer.MAX_VALUE - i;
+			CM item = toCaveMan(value);
+			l.add(item);
+			expected = sumCaveMan(expected, item);
+		}
+
+		Assert.assertTrue(l.sum() == expected);
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Test
+	public void testAggregates() {
+		CaveManCMList l = new CaveManCMList();
+		Assert.assertTrue(Double.isNaN(l.average()));
+		for (int i = 99; i >= 0; i--) {
+			l.add(toCaveMan(i));
+		}
+
+		CMSum sum = widenCaveMan(4950);
+		CMSum sumOfSquares = widenCaveMan(328350);
+		Assert.assertTrue(l.sum() == sum);
+		Assert.assertTrue(l.sumOfSquares() == sumOfSquares);
+		Assert.assertTrue(l.min() == toCaveMan(0));
+		Assert.assertTrue(l.max() == toCaveMan(99));
+		Assert.assertEquals(49.5, l.average(), 0.0);
+		Assert.assertEquals(50, l.count(item -> fromCaveMan(item) % 2 == 0));
+		Assert.assertEquals(0, l.count(item -> fromCaveMan(item) > 99));
+
+		l.removeAt(0);
+		Assert.assertTrue(l.max() == toCaveMan(98));
+		l.removeAt(l.size() - 1);
+		Assert.assertTrue(l.min() == toCaveMan(1));
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Test
+	public void testParallelSum() {
+		CaveManCMList l = new CaveManCMList();
+		for (int i = 0; i < 200003; i++) {
+			l.add(toCaveMan(i));
+		}
+
+		Assert.assertTrue(l.parallelSum() == l.sum());
+		Assert.assertTrue(l.parallelSumOfSquares() == l.sumOfSquares());
+	}
+
+	@OnlyFor({"int", "long", "double"})
+	@Test
+	public void testStream() {
+		CaveManCMList l = new CaveManCMList();
+		for (int i = 0; i < 10000; i++) {
+			l.add(toCaveMan(i));
+		}
+
+		Assert.assertEquals(10000, l.stream().count());
+		Assert.assertTrue(l.parallelStream().isParallel());
+		CM sum = l.parallelStream().sum();
+		Assert.assertEquals(49995000, fromCaveMan(sum));
+
+		CMSpliterator right = l.spliterator();
+		CMSpliterator left = right.trySplit();
+		Assert.assertEquals(5000, left.estimateSize());
+		Assert.assertEquals(5000, right.estimateSize());
+	}
+
 	private CM toCaveMan(int i) { return null; }
+	private int fromCaveMan(CM item) { return 0; }
+	private CMSum widenCaveMan(int i) { return null; }
+	private CMSum sumCaveMan(CMSum sum, CM item) { return null; }
 }
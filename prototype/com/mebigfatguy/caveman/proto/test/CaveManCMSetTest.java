@@ -17,10 +17,15 @@
  */
 package com.mebigfatguy.caveman.proto.test;
 
+import java.lang.reflect.Field;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMSpliterator;
+import com.mebigfatguy.caveman.proto.aux.IgnoreBoolean;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
 import com.mebigfatguy.caveman.proto.impl.CaveManCMSet;
 
 public class CaveManCMSetTest {
@@ -58,6 +63,116 @@ public class CaveManCMSetTest {
 		}
 	}
 	
-	
+	@Test @IgnoreBoolean
+	public void testGrowFromTinyCapacity() {
+		CaveManCMSet s = new CaveManCMSet(1);
+		for (int i = 0; i < 128; i++) {
+			Assert.assertTrue(s.add(toCaveMan(i)));
+		}
+
+		Assert.assertEquals(128, s.size());
+		for (int i = 0; i < 128; i++) {
+			Assert.assertTrue(s.contains(toCaveMan(i)));
+		}
+	}
+
+	@Test
+	public void testContainsAllArray() {
+		CaveManCMSet s = new CaveManCMSet();
+		for (int i = 0; i < 100; i += 2) {
+			s.add(toCaveMan(i));
+		}
+
+		CM[] items = new CM[200];
+		for (int i = 0; i < items.length; i++) {
+			items[i] = toCaveMan(i);
+		}
+
+		boolean[] out = new boolean[items.length];
+		s.containsAll(items, out);
+		for (int i = 0; i < items.length; i++) {
+			Assert.assertTrue(out[i] == s.contains(items[i]));
+		}
+	}
+
+	@OnlyFor({"int", "long", "double"})
+	@Test
+	public void testStream() {
+		CaveManCMSet s = new CaveManCMSet();
+		for (int i = 0; i < 1000; i++) {
+			s.add(toCaveMan(i));
+		}
+
+		Assert.assertEquals(1000, s.parallelStream().count());
+		CM sum = s.parallelStream().sum();
+		Assert.assertEquals(499500, fromCaveMan(sum));
+
+		CMSpliterator right = s.spliterator();
+		CMSpliterator left = right.trySplit();
+		Assert.assertEquals(1000, left.estimateSize() + right.estimateSize());
+
+		long[] counted = new long[1];
+		left.forEachRemaining((CM item) -> counted[0]++);
+		Assert.assertEquals(0, left.estimateSize());
+		Assert.assertEquals(1000 - right.estimateSize(), counted[0]);
+	}
+
+	@OnlyFor({"long"})
+	@Test
+	public void testHashSpreadsHighBits() throws ReflectiveOperationException {
+		CaveManCMSet s = new CaveManCMSet();
+		for (int i = 0; i < 10000; i++) {
+			s.add(toCaveMan(i * 4294967296L));
+		}
+
+		assertSpread(s);
+	}
+
+	@OnlyFor({"float"})
+	@Test
+	public void testHashSpreadsUnitFloats() throws ReflectiveOperationException {
+		CaveManCMSet s = new CaveManCMSet();
+		for (int i = 0; i < 10000; i++) {
+			s.add(toCaveMan(i / 10000.0f));
+		}
+
+		assertSpread(s);
+	}
+
+	@OnlyFor({"double"})
+	@Test
+	public void testHashSpreadsUnitDoubles() throws ReflectiveOperationException {
+		CaveManCMSet s = new CaveManCMSet();
+		for (int i = 0; i < 10000; i++) {
+			s.add(toCaveMan(i / 10000.0));
+		}
+
+		assertSpread(s);
+	}
+
+	/**
+	 * the items only differ in bits that a narrowing cast to int throws away, so an unmixed hash puts
+	 * them all in one bucket, where a mixed one uses more buckets than half the items
+	 */
+	private static void assertSpread(CaveManCMSet s) throws ReflectiveOperationException {
+		Field bucketsField = CaveManCMSet.class.getDeclaredField("buckets");
+		bucketsField.setAccessible(true);
+		Object[] buckets = (Object[]) bucketsField.get(s);
+
+		int used = 0;
+		for (Object bucket : buckets) {
+			if (bucket != null) {
+				used++;
+			}
+		}
+
+		Assert.assertEquals(10000, s.size());
+		Assert.assertTrue(used + " of " + buckets.length + " buckets used", used > s.size() / 2);
+	}
+
 	private CM toCaveMan(int i) { return null; }
+	private CM toCaveMan(long l) { return null; }
+	private CM toCaveMan(float f) { return null; }
+	private CM toCaveMan(double d) { return null; }
+	private int fromCaveMan(CM item) { return 0; }
 }
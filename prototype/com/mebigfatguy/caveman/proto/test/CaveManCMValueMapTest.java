@@ -17,13 +17,17 @@
  */
 package com.mebigfatguy.caveman.proto.test;
 
+import java.util.ConcurrentModificationException;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.mebigfatguy.caveman.proto.CMValueMap;
 import com.mebigfatguy.caveman.proto.CMValueMapIterator;
 import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
 import com.mebigfatguy.caveman.proto.impl.CaveManCMValueMap;
+import com.mebigfatguy.caveman.proto.impl.HashingStrategies;
 
 public class CaveManCMValueMapTest {
 
@@ -42,6 +46,20 @@ public class CaveManCMValueMapTest {
 		Assert.assertEquals(0, m.size());
 	}
 	
+	@Test
+	public void testPutGet() {
+		CMValueMap<Integer> m = new CaveManCMValueMap<Integer>(10);
+
+		for (int i = 0; i < 100; i++) {
+			m.put(Integer.valueOf(i), toCaveMan(i));
+		}
+
+		Assert.assertEquals(100, m.size());
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals(toCaveMan(i), m.get(Integer.valueOf(i), toCaveMan(0)));
+		}
+	}
+
 	@Test
 	public void testIteratorRemove() {
 		CMValueMap<Integer> m = new CaveManCMValueMap<Integer>();
@@ -63,6 +81,114 @@ public class CaveManCMValueMapTest {
 			Assert.assertTrue(m.containsKey(Integer.valueOf(i)));
 		}
 	}
+
+	@Test
+	public void testComputeIfAbsentMerge() {
+		CMValueMap<String> m = new CaveManCMValueMap<String>();
+		CM zero = toCaveMan(0);
+		CM one = toCaveMan(1);
+
+		Assert.assertTrue(m.putIfAbsent("a", one));
+		Assert.assertFalse(m.putIfAbsent("a", zero));
+		Assert.assertTrue(m.getOrDefault("b", one) == one);
+		Assert.assertFalse(m.replace("b", one));
+		Assert.assertTrue(m.computeIfAbsent("b", k -> one) == one);
+		Assert.assertTrue(m.computeIfAbsent("b", k -> zero) == one);
+		Assert.assertTrue(m.merge("c", one, (a, b) -> zero) == one);
+		Assert.assertTrue(m.merge("c", one, (a, b) -> zero) == zero);
+		Assert.assertFalse(m.replace("c", one, one));
+		Assert.assertTrue(m.replace("c", zero, one));
+		Assert.assertEquals(3, m.size());
+
+		try {
+			m.computeIfAbsent("d", k -> {
+				m.remove("a");
+				return one;
+			});
+			Assert.fail("computeIfAbsent should have thrown ConcurrentModificationException");
+		} catch (ConcurrentModificationException e) {
+			// expected
+		}
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Test
+	public void testAddTo() {
+		CMValueMap<String> m = new CaveManCMValueMap<String>();
+		CM two = toCaveMan(2);
+
+		for (int i = 0; i < 10; i++) {
+			m.addTo("a", two);
+		}
+
+		CM expected = toCaveMan(20);
+		Assert.assertTrue(m.addTo("a", two) == expected);
+		Assert.assertEquals(1, m.size());
+	}
+
+	@Test
+	public void testSingleHash() {
+		CountedKey key = new CountedKey(1);
+		CMValueMap<CountedKey> m = new CaveManCMValueMap<CountedKey>();
+		CM one = toCaveMan(1);
+
+		m.computeIfAbsent(key, k -> one);
+		m.merge(key, one, (a, b) -> b);
+		m.putIfAbsent(key, one);
+		Assert.assertEquals(3, key.hashCodeCalls);
+	}
+
+	@Test
+	public void testByteArrayKeys() {
+		CMValueMap<byte[]> m = new CaveManCMValueMap<byte[]>(HashingStrategies.BYTE_ARRAY);
+		CM one = toCaveMan(1);
+
+		for (int i = 0; i < 100; i++) {
+			m.put(new byte[] { (byte) i, 7 }, one);
+		}
+		Assert.assertEquals(100, m.size());
+		Assert.assertTrue(m.containsKey(new byte[] { 5, 7 }));
+		Assert.assertTrue(m.get(new byte[] { 5, 7 }, toCaveMan(0)) == one);
+		Assert.assertFalse(m.containsKey(new byte[] { 5 }));
+
+		m.put(new byte[] { 5, 7 }, toCaveMan(0));
+		Assert.assertEquals(100, m.size());
+		Assert.assertTrue(m.get(new byte[] { 5, 7 }, one) == toCaveMan(0));
+
+		m.remove(new byte[] { 5, 7 });
+		Assert.assertEquals(99, m.size());
+		Assert.assertFalse(m.containsKey(new byte[] { 5, 7 }));
+
+		m.put(null, one);
+		Assert.assertTrue(m.containsKey(null));
+		Assert.assertFalse(m.containsKey(new byte[0]));
+	}
+
+	@Test
+	public void testCaseInsensitiveKeys() {
+		CMValueMap<CharSequence> m = new CaveManCMValueMap<CharSequence>(HashingStrategies.CASE_INSENSITIVE);
+		CM one = toCaveMan(1);
+
+		m.put("Hello", one);
+		Assert.assertTrue(m.containsKey("HELLO"));
+		Assert.assertTrue(m.containsKey(new StringBuilder("hello")));
+		Assert.assertFalse(m.containsKey("hello!"));
+
+		m.putIfAbsent("hELLo", toCaveMan(0));
+		Assert.assertEquals(1, m.size());
+		Assert.assertTrue(m.get("hello", toCaveMan(0)) == one);
+	}
+
+	@Test
+	public void testCustomStrategy() {
+		CMValueMap<Integer> m = new CaveManCMValueMap<Integer>(4, 0.5f, new ParityHashingStrategy());
+
+		for (int i = 0; i < 100; i++) {
+			m.put(Integer.valueOf(i), toCaveMan(1));
+		}
+		Assert.assertEquals(2, m.size());
+		Assert.assertTrue(m.containsKey(Integer.valueOf(51)));
+	}
 	
 	
 	private CM toCaveMan(int i) { return null; }
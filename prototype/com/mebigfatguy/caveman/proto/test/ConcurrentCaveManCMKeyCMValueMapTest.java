@@ -0,0 +1,142 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMapIterator;
+import com.mebigfatguy.caveman.proto.ConcurrentCMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.IgnoreBoolean;
+import com.mebigfatguy.caveman.proto.aux.OnlyForValue;
+import com.mebigfatguy.caveman.proto.impl.ConcurrentCaveManCMKeyCMValueMap;
+
+public class ConcurrentCaveManCMKeyCMValueMapTest {
+
+	@Test @IgnoreBoolean
+	public void testPutGetRemove() {
+		ConcurrentCMKeyCMValueMap m = new ConcurrentCaveManCMKeyCMValueMap();
+		for (int i = 0; i < 100; i++) {
+			m.put(toCaveManKey(i), toCaveManValue(i));
+		}
+
+		Assert.assertEquals(100, m.size());
+		for (int i = 0; i < 100; i++) {
+			Assert.assertTrue(m.containsKey(toCaveManKey(i)));
+			Assert.assertEquals(toCaveManValue(i), m.get(toCaveManKey(i)));
+		}
+
+		for (int i = 0; i < 100; i += 2) {
+			m.remove(toCaveManKey(i));
+		}
+
+		Assert.assertEquals(50, m.size());
+		int count = 0;
+		CMKeyCMValueMapIterator it = m.iterator();
+		while (it.hasNext()) {
+			it.next();
+			Assert.assertEquals(1, fromCaveManKey(it.key()) & 1);
+			++count;
+		}
+		Assert.assertEquals(50, count);
+	}
+
+	@Test
+	public void testPutIfAbsentReplace() {
+		CMValue notFound = toCaveManValue(0);
+		ConcurrentCMKeyCMValueMap m = new ConcurrentCaveManCMKeyCMValueMap(notFound, 16, 4);
+
+		Assert.assertTrue(m.putIfAbsent(toCaveManKey(1), toCaveManValue(1)) == toCaveManValue(0));
+		Assert.assertTrue(m.putIfAbsent(toCaveManKey(1), toCaveManValue(0)) == toCaveManValue(1));
+		Assert.assertTrue(m.get(toCaveManKey(1)) == toCaveManValue(1));
+
+		Assert.assertTrue(m.replace(toCaveManKey(0), toCaveManValue(1)) == toCaveManValue(0));
+		Assert.assertFalse(m.containsKey(toCaveManKey(0)));
+
+		Assert.assertFalse(m.replace(toCaveManKey(1), toCaveManValue(0), toCaveManValue(0)));
+		Assert.assertTrue(m.replace(toCaveManKey(1), toCaveManValue(1), toCaveManValue(0)));
+		Assert.assertTrue(m.get(toCaveManKey(1)) == toCaveManValue(0));
+		Assert.assertEquals(1, m.size());
+	}
+
+	@OnlyForValue({"byte", "char", "short", "int", "long", "float", "double"})
+	@Test
+	public void testConcurrentAddTo() throws InterruptedException {
+		ConcurrentCMKeyCMValueMap m = new ConcurrentCaveManCMKeyCMValueMap();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					m.addTo(toCaveManKey(1), toCaveManValue(1));
+					m.addTo(toCaveManKey(1), toCaveManValue(-1));
+				}
+				for (int i = 0; i < 25; i++) {
+					m.addTo(toCaveManKey(1), toCaveManValue(1));
+				}
+			});
+			threads[t].start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		CMKey key = toCaveManKey(1);
+		CMValue total = m.get(key);
+		Assert.assertEquals(100, fromCaveManValue(total));
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		ConcurrentCMKeyCMValueMap m = new ConcurrentCaveManCMKeyCMValueMap();
+		for (int i = 0; i < 100; i++) {
+			m.put(toCaveManKey(i), toCaveManValue(i));
+		}
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+			oos.writeObject(m);
+		}
+
+		ConcurrentCMKeyCMValueMap copy;
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+			copy = (ConcurrentCMKeyCMValueMap) ois.readObject();
+		}
+
+		Assert.assertEquals(m.size(), copy.size());
+		CMKeyCMValueMapIterator it = m.iterator();
+		while (it.hasNext()) {
+			it.next();
+			Assert.assertTrue(copy.get(it.key()) == it.value());
+		}
+	}
+
+
+
+	private int fromCaveManKey(CMKey k) { return 0; }
+	private int fromCaveManValue(CMValue v) { return 0; }
+	private CMKey toCaveManKey(int i) { return null; }
+	private CMValue toCaveManValue(int i) { return null; }
+}
@@ -0,0 +1,49 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.test;
+
+import java.io.Serializable;
+
+/**
+ * a map key that counts the calls made to its hashCode and equals, for tests that check how
+ * often a map hashes and compares its keys. It is a top level class, so that the test runners
+ * don't mistake it for a test.
+ */
+public class CountedKey implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	final int id;
+	int hashCodeCalls;
+	int equalsCalls;
+
+	CountedKey(int id) {
+		this.id = id;
+	}
+
+	@Override
+	public int hashCode() {
+		++hashCodeCalls;
+		return id;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		++equalsCalls;
+		return (o instanceof CountedKey) && (((CountedKey) o).id == id);
+	}
+}
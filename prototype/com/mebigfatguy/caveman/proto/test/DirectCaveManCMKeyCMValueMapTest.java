@@ -0,0 +1,190 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMapIterator;
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+import com.mebigfatguy.caveman.proto.aux.OnlyForValue;
+import com.mebigfatguy.caveman.proto.impl.DirectCaveManCMKeyCMValueMap;
+
+@OnlyFor({"byte", "short"})
+public class DirectCaveManCMKeyCMValueMapTest {
+
+	@Test
+	public void testPutGet() {
+		CMValue notFound = toCaveManValue(Integer.MAX_VALUE);
+		CMKeyCMValueMap m = new DirectCaveManCMKeyCMValueMap(notFound);
+
+		for (int i = 0; i < 100; i++) {
+			m.put(toCaveManKey(i), toCaveManValue(i));
+		}
+
+		Assert.assertEquals(100, m.size());
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals(toCaveManValue(i), m.get(toCaveManKey(i)));
+		}
+
+		Assert.assertEquals(toCaveManValue(Integer.MAX_VALUE), m.get(toCaveManKey(101)));
+	}
+
+	@Test
+	public void testNegativeKeys() {
+		CMKeyCMValueMap m = new DirectCaveManCMKeyCMValueMap();
+
+		for (int i = -100; i < 100; i++) {
+			m.put(toCaveManKey(i), toCaveManValue(i));
+		}
+
+		Assert.assertEquals(200, m.size());
+		for (int i = -100; i < 100; i++) {
+			Assert.assertTrue(m.containsKey(toCaveManKey(i)));
+			Assert.assertEquals(toCaveManValue(i), m.get(toCaveManKey(i)));
+		}
+
+		int count = 0;
+		CMKeyCMValueMapIterator it = m.iterator();
+		while (it.hasNext()) {
+			it.next();
+			Assert.assertTrue(m.get(it.key()) == it.value());
+			++count;
+		}
+		Assert.assertEquals(200, count);
+	}
+
+	@Test
+	public void testRemoveReput() {
+		CMKeyCMValueMap m = new DirectCaveManCMKeyCMValueMap();
+
+		for (int j = 0; j < 5; j++) {
+			for (int i = 0; i < 100; i++) {
+				m.put(toCaveManKey(i), toCaveManValue(i));
+			}
+
+			for (int i = 0; i < 100; i += 2) {
+				m.remove(toCaveManKey(i));
+			}
+
+			Assert.assertEquals(50, m.size());
+			for (int i = 0; i < 100; i++) {
+				Assert.assertEquals((i & 1) == 1, m.containsKey(toCaveManKey(i)));
+			}
+		}
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		CMKeyCMValueMap m = new DirectCaveManCMKeyCMValueMap();
+
+		for (int i = 0; i < 100; i++) {
+			m.put(toCaveManKey(i), toCaveManValue(i));
+		}
+
+		int count = 0;
+		CMKeyCMValueMapIterator it = m.iterator();
+		while (it.hasNext()) {
+			it.next();
+			++count;
+
+			if ((fromCaveManKey(it.key()) & 1) == 0) {
+				it.remove();
+			}
+		}
+
+		Assert.assertEquals(100, count);
+		Assert.assertEquals(50, m.size());
+		for (int i = 1; i < 100; i+=2) {
+			Assert.assertTrue(m.containsKey(toCaveManKey(i)));
+		}
+	}
+
+
+	@Test
+	public void testSizeEmpty() {
+		CMKeyCMValueMap m = new DirectCaveManCMKeyCMValueMap();
+
+		for (int i = 0; i < 100; i++) {
+			m.put(toCaveManKey(i), toCaveManValue(i));
+		}
+
+		for (int i = 0; i < 100; i++) {
+			m.remove(toCaveManKey(i));
+		}
+
+		Assert.assertEquals(0, m.size());
+		Assert.assertTrue(m.isEmpty());
+	}
+
+
+	@Test
+	public void testPutIfAbsentReplace() {
+		CMValue notFound = toCaveManValue(0);
+		CMKeyCMValueMap m = new DirectCaveManCMKeyCMValueMap(notFound);
+
+		Assert.assertTrue(m.putIfAbsent(toCaveManKey(-1), toCaveManValue(1)) == notFound);
+		Assert.assertTrue(m.putIfAbsent(toCaveManKey(-1), toCaveManValue(0)) == toCaveManValue(1));
+		Assert.assertTrue(m.getOrDefault(toCaveManKey(0), toCaveManValue(1)) == toCaveManValue(1));
+		Assert.assertTrue(m.replace(toCaveManKey(0), toCaveManValue(1)) == notFound);
+		Assert.assertFalse(m.containsKey(toCaveManKey(0)));
+		Assert.assertTrue(m.replace(toCaveManKey(-1), toCaveManValue(1), toCaveManValue(0)));
+		Assert.assertTrue(m.merge(toCaveManKey(-1), toCaveManValue(1), (a, b) -> b) == toCaveManValue(1));
+		Assert.assertTrue(m.computeIfAbsent(toCaveManKey(2), k -> toCaveManValue(2)) == toCaveManValue(2));
+		Assert.assertEquals(2, m.size());
+	}
+
+	@OnlyForValue({"byte", "char", "short", "int", "long", "float", "double"})
+	@Test
+	public void testAddTo() {
+		CMKeyCMValueMap m = new DirectCaveManCMKeyCMValueMap();
+
+		for (int i = 0; i < 10; i++) {
+			m.addTo(toCaveManKey(-1), toCaveManValue(2));
+		}
+
+		Assert.assertTrue(m.addTo(toCaveManKey(-1), toCaveManValue(1)) == toCaveManValue(20));
+		Assert.assertTrue(m.get(toCaveManKey(-1)) == toCaveManValue(21));
+		Assert.assertEquals(1, m.size());
+	}
+
+	@Test
+	public void testForEach() {
+		CMKeyCMValueMap m = new DirectCaveManCMKeyCMValueMap();
+		for (int i = 0; i < 100; i++) {
+			int key = i * 2;
+			m.put(toCaveManKey(key), toCaveManValue(i));
+		}
+
+		int[] count = new int[1];
+		m.forEach((k, v) -> {
+			Assert.assertTrue(m.get(k) == v);
+			Assert.assertEquals(0, fromCaveManKey(k) & 1);
+			count[0]++;
+		});
+
+		Assert.assertEquals(100, count[0]);
+	}
+
+	private int fromCaveManKey(CMKey k) { return 0; }
+	private CMKey toCaveManKey(int i) { return null; }
+	private CMValue toCaveManValue(int i) { return null; }
+}
@@ -0,0 +1,70 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.test;
+
+import java.util.Collection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mebigfatguy.caveman.proto.CMKeyMap;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.impl.IdentityCaveManCMKeyMap;
+
+public class IdentityCaveManCMKeyMapTest {
+
+	@Test
+	public void testValuesComparedByIdentity() {
+		CMKeyMap<String> m = new IdentityCaveManCMKeyMap<String>();
+		String value = "value";
+		String equalValue = new String(value);
+
+		m.put(toCaveMan(0), value);
+		m.put(toCaveMan(1), null);
+
+		Assert.assertTrue(m.containsValue(value));
+		Assert.assertFalse(m.containsValue(equalValue));
+		Assert.assertTrue(m.containsValue(null));
+
+		Assert.assertFalse(m.replace(toCaveMan(0), equalValue, "other"));
+		Assert.assertTrue(m.replace(toCaveMan(0), value, equalValue));
+		Assert.assertTrue(m.get(toCaveMan(0)) == equalValue);
+
+		Collection<String> values = m.values();
+		Assert.assertFalse(values.contains(value));
+		Assert.assertFalse(values.remove(value));
+		Assert.assertTrue(values.remove(equalValue));
+		Assert.assertEquals(1, m.size());
+	}
+
+	@Test
+	public void testEqualsNotCalled() {
+		CMKeyMap<CountedValue> m = new IdentityCaveManCMKeyMap<CountedValue>();
+		CountedValue value = new CountedValue();
+		CountedValue otherValue = new CountedValue();
+		m.put(toCaveMan(1), value);
+
+		Assert.assertFalse(m.containsValue(otherValue));
+		Assert.assertTrue(m.containsValue(value));
+		Assert.assertEquals(0, value.equalsCalls);
+		Assert.assertEquals(0, otherValue.equalsCalls);
+	}
+	
+	
+	private CM toCaveMan(int i) { return null; }
+}
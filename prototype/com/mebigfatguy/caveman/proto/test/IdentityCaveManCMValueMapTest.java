@@ -0,0 +1,107 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mebigfatguy.caveman.proto.CMValueMap;
+import com.mebigfatguy.caveman.proto.CMValueMapIterator;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.impl.IdentityCaveManCMValueMap;
+
+public class IdentityCaveManCMValueMapTest {
+
+	@Test
+	public void testEqualKeysAreDistinct() {
+		CMValueMap<String> m = new IdentityCaveManCMValueMap<String>();
+		CM zero = toCaveMan(0);
+		CM one = toCaveMan(1);
+		String key = "key";
+		String equalKey = new String(key);
+
+		m.put(key, zero);
+		m.put(equalKey, one);
+		m.put(null, one);
+
+		Assert.assertEquals(3, m.size());
+		Assert.assertTrue(m.get(key, one) == zero);
+		Assert.assertTrue(m.get(equalKey, zero) == one);
+		Assert.assertTrue(m.containsKey(null));
+		Assert.assertFalse(m.containsKey(new String(key)));
+
+		m.remove(key);
+		Assert.assertFalse(m.containsKey(key));
+		Assert.assertTrue(m.containsKey(equalKey));
+	}
+
+	@Test
+	public void testKeyMethodsNotCalled() {
+		CMValueMap<CountedKey> m = new IdentityCaveManCMValueMap<CountedKey>(2);
+		CountedKey[] keys = new CountedKey[1000];
+		CM one = toCaveMan(1);
+
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = new CountedKey(i);
+			m.put(keys[i], one);
+		}
+
+		for (CountedKey key : keys) {
+			Assert.assertTrue(m.containsKey(key));
+			m.computeIfAbsent(key, k -> one);
+		}
+		Assert.assertEquals(keys.length, m.size());
+		for (CountedKey key : keys) {
+			Assert.assertEquals(0, key.hashCodeCalls);
+			Assert.assertEquals(0, key.equalsCalls);
+		}
+	}
+
+	@Test
+	public void testSerializeRehashes() throws Exception {
+		IdentityCaveManCMValueMap<CountedKey> m = new IdentityCaveManCMValueMap<CountedKey>();
+		for (int i = 0; i < 100; i++) {
+			m.put(new CountedKey(i), toCaveMan(i));
+		}
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(baos);
+		oos.writeObject(m);
+		oos.close();
+
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		@SuppressWarnings("unchecked")
+		IdentityCaveManCMValueMap<CountedKey> copy = (IdentityCaveManCMValueMap<CountedKey>) ois.readObject();
+		ois.close();
+
+		Assert.assertEquals(100, copy.size());
+		CMValueMapIterator<CountedKey> it = copy.iterator();
+		while (it.hasNext()) {
+			it.next();
+			Assert.assertTrue(copy.containsKey(it.key()));
+		}
+	}
+	
+	
+	private CM toCaveMan(int i) { return null; }
+}
@@ -0,0 +1,133 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.test;
+
+import java.util.ConcurrentModificationException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+import com.mebigfatguy.caveman.proto.impl.LinkedCaveManCMSet;
+
+public class LinkedCaveManCMSetTest {
+
+	@Test
+	public void testSizeIsEmpty() {
+		LinkedCaveManCMSet s = new LinkedCaveManCMSet();
+		Assert.assertTrue(s.isEmpty());
+
+		for (int i = 0; i < 10; i++) {
+			s.add(toCaveMan(1));
+			s.add(toCaveMan(0));
+		}
+
+		Assert.assertEquals(2, s.size());
+		Assert.assertTrue(s.first() == toCaveMan(1));
+		Assert.assertTrue(s.last() == toCaveMan(0));
+
+		s.remove(toCaveMan(0));
+		s.remove(toCaveMan(1));
+
+		Assert.assertTrue(s.isEmpty());
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Test
+	public void testInsertionOrder() {
+		LinkedCaveManCMSet s = new LinkedCaveManCMSet(2);
+		for (int i = 0; i < 100; i++) {
+			s.add(toCaveMan((i * 37) % 100));
+		}
+		s.add(toCaveMan(0));
+
+		Assert.assertEquals(100, s.size());
+		CM[] items = s.toArray();
+		for (int i = 0; i < 100; i++) {
+			Assert.assertTrue(items[i] == toCaveMan((i * 37) % 100));
+		}
+
+		for (int i = 0; i < 100; i += 2) {
+			s.remove(toCaveMan(i));
+		}
+		s.add(toCaveMan(0));
+
+		CMIterator it = s.iterator();
+		for (int i = 0; i < 100; i++) {
+			int expected = (i * 37) % 100;
+			if ((expected & 1) == 1) {
+				Assert.assertTrue(it.hasNext());
+				Assert.assertTrue(it.next() == toCaveMan(expected));
+			}
+		}
+		Assert.assertTrue(it.next() == toCaveMan(0));
+		Assert.assertFalse(it.hasNext());
+		Assert.assertTrue(s.first() == toCaveMan(37));
+		Assert.assertTrue(s.last() == toCaveMan(0));
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Test
+	public void testIteratorRemove() {
+		LinkedCaveManCMSet s = new LinkedCaveManCMSet();
+		for (int i = 0; i < 100; i++) {
+			s.add(toCaveMan(i));
+		}
+
+		CMIterator it = s.iterator();
+		while (it.hasNext()) {
+			if ((fromCaveMan(it.next()) % 3) != 0) {
+				it.remove();
+			}
+		}
+
+		Assert.assertEquals(34, s.size());
+		CM[] items = s.toArray();
+		for (int i = 0; i < items.length; i++) {
+			Assert.assertTrue(items[i] == toCaveMan(i * 3));
+		}
+
+		for (int i = 0; i < 100; i++) {
+			s.add(toCaveMan(i));
+		}
+		Assert.assertEquals(100, s.size());
+		Assert.assertTrue(s.last() == toCaveMan(98));
+	}
+
+	@Test
+	public void testConcurrentModification() {
+		LinkedCaveManCMSet s = new LinkedCaveManCMSet();
+		s.add(toCaveMan(0));
+		s.add(toCaveMan(1));
+
+		CMIterator it = s.iterator();
+		it.next();
+		s.remove(toCaveMan(1));
+		try {
+			it.next();
+			Assert.fail("next should have thrown ConcurrentModificationException");
+		} catch (ConcurrentModificationException e) {
+			// expected
+		}
+	}
+
+	private CM toCaveMan(int i) { return null; }
+	private int fromCaveMan(CM item) { return 0; }
+}
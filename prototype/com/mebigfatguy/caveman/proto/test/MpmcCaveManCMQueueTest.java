@@ -0,0 +1,138 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.ConcurrentCMQueue;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.impl.MpmcCaveManCMQueue;
+
+public class MpmcCaveManCMQueueTest {
+
+	@Test
+	public void testOfferPoll() {
+		ConcurrentCMQueue q = new MpmcCaveManCMQueue(5);
+		Assert.assertEquals(8, q.capacity());
+
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 8; i++) {
+				Assert.assertTrue(q.offer(toCaveMan(i)));
+			}
+			Assert.assertFalse(q.offer(toCaveMan(8)));
+			Assert.assertEquals(8, q.size());
+
+			CM first = toCaveMan(0);
+			Assert.assertTrue(first == q.peek());
+			CMIterator it = q.iterator();
+			for (int i = 0; i < 8; i++) {
+				CM expected = toCaveMan(i);
+				Assert.assertTrue(expected == it.next());
+			}
+			Assert.assertFalse(it.hasNext());
+
+			for (int i = 0; i < 5; i++) {
+				CM expected = toCaveMan(i);
+				Assert.assertTrue(expected == q.poll());
+			}
+			Assert.assertEquals(3, q.size());
+			q.clear();
+			Assert.assertTrue(q.isEmpty());
+		}
+	}
+
+	@Test
+	public void testOfferAllDrainTo() {
+		ConcurrentCMQueue q = new MpmcCaveManCMQueue(16);
+		CM[] src = new CM[10];
+		for (int i = 0; i < src.length; i++) {
+			src[i] = toCaveMan(i);
+		}
+
+		Assert.assertEquals(10, q.offerAll(src, 0, 10));
+		Assert.assertEquals(6, q.offerAll(src, 2, 8));
+		Assert.assertEquals(0, q.offerAll(src, 0, 1));
+
+		CM[] dst = new CM[12];
+		Assert.assertEquals(12, q.drainTo(dst));
+		for (int i = 0; i < 10; i++) {
+			Assert.assertTrue(src[i] == dst[i]);
+		}
+		Assert.assertTrue(src[2] == dst[10]);
+		Assert.assertTrue(src[3] == dst[11]);
+
+		Assert.assertEquals(10, q.offerAll(src, 0, 10));
+		Assert.assertEquals(14, q.toArray().length);
+		Assert.assertEquals(14, q.drainTo(new CM[20]));
+		Assert.assertEquals(0, q.drainTo(dst));
+	}
+
+	@Test
+	public void testManyProducersManyConsumers() throws InterruptedException {
+		final int producers = 4;
+		final int perProducer = 50000;
+		final ConcurrentCMQueue q = new MpmcCaveManCMQueue(128);
+		final AtomicInteger consumed = new AtomicInteger();
+
+		Thread[] threads = new Thread[producers + 2];
+		for (int p = 0; p < producers; p++) {
+			final CM value = toCaveMan(p);
+			threads[p] = new Thread(() -> {
+				CM[] batch = new CM[] { value, value, value };
+				int sent = 0;
+				while (sent < perProducer) {
+					int count = ((sent & 1) == 0) ? (q.offer(value) ? 1 : 0) : q.offerAll(batch, 0, Math.min(batch.length, perProducer - sent));
+					if (count == 0) {
+						Thread.yield();
+					}
+					sent += count;
+				}
+			});
+		}
+		for (int c = producers; c < threads.length; c++) {
+			threads[c] = new Thread(() -> {
+				CM[] batch = new CM[4];
+				while (consumed.get() < (producers * perProducer)) {
+					int count = q.drainTo(batch);
+					if (count == 0) {
+						Thread.yield();
+					}
+					consumed.addAndGet(count);
+				}
+			});
+		}
+
+		for (Thread t : threads) {
+			t.start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+
+		Assert.assertEquals(producers * perProducer, consumed.get());
+		Assert.assertTrue(q.isEmpty());
+	}
+
+
+
+	private CM toCaveMan(int i) { return null; }
+}
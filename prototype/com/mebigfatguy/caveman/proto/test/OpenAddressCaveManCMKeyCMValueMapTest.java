@@ -0,0 +1,216 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.test;
+
+import java.util.ConcurrentModificationException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.CMKeyCMValueMapIterator;
+import com.mebigfatguy.caveman.proto.aux.CMKey;
+import com.mebigfatguy.caveman.proto.aux.CMValue;
+import com.mebigfatguy.caveman.proto.aux.IgnoreBoolean;
+import com.mebigfatguy.caveman.proto.aux.OnlyForValue;
+import com.mebigfatguy.caveman.proto.impl.CaveManCMKeyCMValueMap;
+import com.mebigfatguy.caveman.proto.impl.OpenAddressCaveManCMKeyCMValueMap;
+
+public class OpenAddressCaveManCMKeyCMValueMapTest {
+
+	@Test @IgnoreBoolean
+	public void testPutGet() {
+		CMValue notFound = toCaveManValue(Integer.MAX_VALUE);
+		CMKeyCMValueMap m = new OpenAddressCaveManCMKeyCMValueMap(notFound, 10);
+
+		for (int i = 0; i < 100; i++) {
+			m.put(toCaveManKey(i), toCaveManValue(i));
+		}
+
+		Assert.assertEquals(100, m.size());
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals(toCaveManValue(i), m.get(toCaveManKey(i)));
+		}
+
+		Assert.assertEquals(toCaveManValue(Integer.MAX_VALUE), m.get(toCaveManKey(101)));
+	}
+
+	@Test @IgnoreBoolean
+	public void testRemoveReput() {
+		CMKeyCMValueMap m = new OpenAddressCaveManCMKeyCMValueMap();
+
+		for (int j = 0; j < 5; j++) {
+			for (int i = 0; i < 100; i++) {
+				m.put(toCaveManKey(i), toCaveManValue(i));
+			}
+
+			for (int i = 0; i < 100; i += 2) {
+				m.remove(toCaveManKey(i));
+			}
+
+			Assert.assertEquals(50, m.size());
+			for (int i = 0; i < 100; i++) {
+				Assert.assertEquals((i & 1) == 1, m.containsKey(toCaveManKey(i)));
+			}
+		}
+	}
+
+	@Test @IgnoreBoolean
+	public void testIteratorRemove() {
+		CMKeyCMValueMap m = new OpenAddressCaveManCMKeyCMValueMap();
+
+		for (int i = 0; i < 100; i++) {
+			m.put(toCaveManKey(i), toCaveManValue(i));
+		}
+
+		int count = 0;
+		CMKeyCMValueMapIterator it = m.iterator();
+		while (it.hasNext()) {
+			it.next();
+			++count;
+
+			if ((fromCaveManKey(it.key()) & 1) == 0) {
+				it.remove();
+			}
+		}
+
+		Assert.assertEquals(100, count);
+		Assert.assertEquals(50, m.size());
+		for (int i = 1; i < 100; i+=2) {
+			Assert.assertTrue(m.containsKey(toCaveManKey(i)));
+		}
+	}
+
+
+	@Test @IgnoreBoolean
+	public void testPutIfAbsentAfterRemove() {
+		CMValue notFound = toCaveManValue(Integer.MAX_VALUE);
+		CMKeyCMValueMap m = new OpenAddressCaveManCMKeyCMValueMap(notFound, 10);
+
+		for (int i = 0; i < 100; i++) {
+			m.put(toCaveManKey(i), toCaveManValue(i));
+		}
+
+		for (int i = 0; i < 100; i += 2) {
+			m.remove(toCaveManKey(i));
+		}
+
+		for (int i = 0; i < 100; i++) {
+			CMKey key = toCaveManKey(i);
+			int value = i + 1;
+			CMValue previous = m.putIfAbsent(key, toCaveManValue(value));
+			Assert.assertTrue(previous == (((i & 1) == 0) ? notFound : toCaveManValue(i)));
+		}
+
+		Assert.assertEquals(100, m.size());
+		for (int i = 0; i < 100; i += 2) {
+			int value = i + 1;
+			Assert.assertTrue(m.get(toCaveManKey(i)) == toCaveManValue(value));
+		}
+	}
+
+	@Test
+	public void testComputeIfAbsentMerge() {
+		CMKeyCMValueMap m = new OpenAddressCaveManCMKeyCMValueMap();
+
+		Assert.assertTrue(m.computeIfAbsent(toCaveManKey(1), k -> toCaveManValue(1)) == toCaveManValue(1));
+		Assert.assertTrue(m.computeIfAbsent(toCaveManKey(1), k -> toCaveManValue(0)) == toCaveManValue(1));
+		Assert.assertTrue(m.merge(toCaveManKey(0), toCaveManValue(1), (a, b) -> toCaveManValue(0)) == toCaveManValue(1));
+		Assert.assertTrue(m.merge(toCaveManKey(0), toCaveManValue(1), (a, b) -> toCaveManValue(0)) == toCaveManValue(0));
+		Assert.assertEquals(2, m.size());
+
+		m.remove(toCaveManKey(0));
+		try {
+			m.merge(toCaveManKey(1), toCaveManValue(1), (a, b) -> {
+				m.remove(toCaveManKey(1));
+				return b;
+			});
+			Assert.fail("merge should have thrown ConcurrentModificationException");
+		} catch (ConcurrentModificationException e) {
+			// expected
+		}
+	}
+
+	@OnlyForValue({"byte", "char", "short", "int", "long", "float", "double"})
+	@Test
+	public void testAddTo() {
+		CMKeyCMValueMap m = new OpenAddressCaveManCMKeyCMValueMap();
+
+		for (int i = 0; i < 10; i++) {
+			m.addTo(toCaveManKey(1), toCaveManValue(2));
+		}
+
+		Assert.assertTrue(m.addTo(toCaveManKey(1), toCaveManValue(1)) == toCaveManValue(20));
+		Assert.assertTrue(m.get(toCaveManKey(1)) == toCaveManValue(21));
+		Assert.assertEquals(1, m.size());
+	}
+
+	@Test
+	public void testBulkPutGet() {
+		CMKey[] keys = new CMKey[200];
+		CMValue[] values = new CMValue[200];
+		for (int i = 0; i < 200; i++) {
+			keys[i] = toCaveManKey(i);
+			values[i] = toCaveManValue(i);
+		}
+
+		CMKeyCMValueMap m = new OpenAddressCaveManCMKeyCMValueMap();
+		CMKeyCMValueMap expected = new CaveManCMKeyCMValueMap();
+		for (int i = 0; i < 200; i += 2) {
+			m.put(keys[i], values[i]);
+			expected.put(keys[i], values[i]);
+		}
+		for (int i = 0; i < 200; i += 4) {
+			m.remove(keys[i]);
+			expected.remove(keys[i]);
+		}
+
+		m.putAll(keys, values, 50, 100);
+		for (int i = 50; i < 150; i++) {
+			expected.put(keys[i], values[i]);
+		}
+
+		Assert.assertEquals(expected.size(), m.size());
+		CMValue[] out = new CMValue[200];
+		m.getAll(keys, out);
+		for (int i = 0; i < 200; i++) {
+			Assert.assertTrue(out[i] == expected.get(keys[i]));
+		}
+	}
+
+	@Test
+	public void testSizeEmpty() {
+		CMKeyCMValueMap m = new OpenAddressCaveManCMKeyCMValueMap();
+
+		for (int i = 0; i < 100; i++) {
+			m.put(toCaveManKey(i), toCaveManValue(i));
+		}
+
+		for (int i = 0; i < 100; i++) {
+			m.remove(toCaveManKey(i));
+		}
+
+		Assert.assertEquals(0, m.size());
+		Assert.assertTrue(m.isEmpty());
+	}
+
+
+	private int fromCaveManKey(CMKey k) { return 0; }
+	private CMKey toCaveManKey(int i) { return null; }
+	private CMValue toCaveManValue(int i) { return null; }
+}
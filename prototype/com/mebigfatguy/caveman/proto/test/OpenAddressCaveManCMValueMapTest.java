@@ -0,0 +1,164 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.test;
+
+import java.util.ConcurrentModificationException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mebigfatguy.caveman.proto.CMValueMap;
+import com.mebigfatguy.caveman.proto.CMValueMapIterator;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+import com.mebigfatguy.caveman.proto.impl.OpenAddressCaveManCMValueMap;
+
+public class OpenAddressCaveManCMValueMapTest {
+
+	@Test
+	public void testPutGet() {
+		CMValueMap<String> m = new OpenAddressCaveManCMValueMap<String>(10);
+		CM one = toCaveMan(1);
+		CM zero = toCaveMan(0);
+
+		for (int i = 0; i < 1000; i++) {
+			m.put("key" + i, ((i & 1) == 0) ? zero : one);
+		}
+		m.put(null, one);
+
+		Assert.assertEquals(1001, m.size());
+		for (int i = 0; i < 1000; i++) {
+			Assert.assertTrue(m.get("key" + i, one) == (((i & 1) == 0) ? zero : one));
+		}
+		Assert.assertTrue(m.containsKey(null));
+		Assert.assertFalse(m.containsKey("key1000"));
+		Assert.assertTrue(m.get("key1000", zero) == zero);
+	}
+
+	@Test
+	public void testRemoveReput() {
+		CMValueMap<Integer> m = new OpenAddressCaveManCMValueMap<Integer>();
+
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 100; i++) {
+				m.put(Integer.valueOf(i), toCaveMan(i));
+			}
+
+			for (int i = 0; i < 100; i += 2) {
+				m.remove(Integer.valueOf(i));
+			}
+			Assert.assertEquals(50, m.size());
+
+			for (int i = 0; i < 100; i++) {
+				Assert.assertEquals((i & 1) != 0, m.containsKey(Integer.valueOf(i)));
+			}
+		}
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		CMValueMap<Integer> m = new OpenAddressCaveManCMValueMap<Integer>();
+
+		for (int i = 0; i < 100; i++) {
+			m.put(Integer.valueOf(i), toCaveMan(i));
+		}
+
+		int seen = 0;
+		CMValueMapIterator<Integer> it = m.iterator();
+		while (it.hasNext()) {
+			it.next();
+			++seen;
+
+			if (((it.key().intValue()) & 1) == 0) {
+				it.remove();
+			}
+		}
+
+		Assert.assertEquals(100, seen);
+		Assert.assertEquals(50, m.size());
+		Assert.assertEquals(50, m.keySet().size());
+		for (int i = 1; i < 100; i += 2) {
+			Assert.assertTrue(m.containsKey(Integer.valueOf(i)));
+			Assert.assertTrue(m.keySet().contains(Integer.valueOf(i)));
+		}
+	}
+
+	@Test
+	public void testComputeIfAbsentMerge() {
+		CMValueMap<String> m = new OpenAddressCaveManCMValueMap<String>();
+		CM zero = toCaveMan(0);
+		CM one = toCaveMan(1);
+
+		Assert.assertTrue(m.putIfAbsent("a", one));
+		Assert.assertFalse(m.putIfAbsent("a", zero));
+		Assert.assertTrue(m.getOrDefault("b", one) == one);
+		Assert.assertFalse(m.replace("b", one));
+		Assert.assertTrue(m.computeIfAbsent("b", k -> one) == one);
+		Assert.assertTrue(m.computeIfAbsent("b", k -> zero) == one);
+		Assert.assertTrue(m.merge("c", one, (a, b) -> zero) == one);
+		Assert.assertTrue(m.merge("c", one, (a, b) -> zero) == zero);
+		Assert.assertFalse(m.replace("c", one, one));
+		Assert.assertTrue(m.replace("c", zero, one));
+		Assert.assertEquals(3, m.size());
+
+		try {
+			m.computeIfAbsent("d", k -> {
+				m.remove("a");
+				return one;
+			});
+			Assert.fail("computeIfAbsent should have thrown ConcurrentModificationException");
+		} catch (ConcurrentModificationException e) {
+			// expected
+		}
+	}
+
+	@OnlyFor({"byte", "char", "short", "int", "long", "float", "double"})
+	@Test
+	public void testAddTo() {
+		CMValueMap<String> m = new OpenAddressCaveManCMValueMap<String>();
+		CM two = toCaveMan(2);
+
+		for (int i = 0; i < 10; i++) {
+			m.addTo("a", two);
+		}
+
+		CM expected = toCaveMan(20);
+		Assert.assertTrue(m.addTo("a", two) == expected);
+		Assert.assertEquals(1, m.size());
+	}
+
+	@Test
+	public void testHashCodeOncePerKey() {
+		OpenAddressCaveManCMValueMap<CountedKey> m = new OpenAddressCaveManCMValueMap<CountedKey>(2);
+		CountedKey[] keys = new CountedKey[1000];
+		CM one = toCaveMan(1);
+
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = new CountedKey(i);
+			m.put(keys[i], one);
+		}
+
+		for (CountedKey key : keys) {
+			Assert.assertEquals(1, key.hashCodeCalls);
+			Assert.assertEquals(0, key.equalsCalls);
+		}
+	}
+	
+	
+	private CM toCaveMan(int i) { return null; }
+}
@@ -0,0 +1,39 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.test;
+
+import com.mebigfatguy.caveman.proto.HashingStrategy;
+
+/**
+ * a hashing strategy that finds two Integer keys equal when they are both odd or both even, for
+ * tests of maps given a strategy. It is a top level class, so that the test runners don't mistake
+ * it for a test.
+ */
+public class ParityHashingStrategy implements HashingStrategy<Integer> {
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public int hashCode(Integer key) {
+		return key.intValue() & 1;
+	}
+
+	@Override
+	public boolean equals(Integer key, Integer otherKey) {
+		return (key.intValue() & 1) == (otherKey.intValue() & 1);
+	}
+}
@@ -0,0 +1,214 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mebigfatguy.caveman.proto.CMBag;
+import com.mebigfatguy.caveman.proto.CMIterator;
+import com.mebigfatguy.caveman.proto.CMSet;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+import com.mebigfatguy.caveman.proto.impl.CountingCaveManCMBag;
+import com.mebigfatguy.caveman.proto.impl.RoaringCaveManCMSet;
+
+@OnlyFor({"int"})
+public class RoaringCaveManCMSetTest {
+
+	@Test
+	public void testAddRemoveContains() {
+		CMSet s = new RoaringCaveManCMSet();
+
+		for (int i = -500; i < 500; i++) {
+			int value = i * 7919;
+			Assert.assertTrue(s.add(toCaveMan(value)));
+		}
+		Assert.assertFalse(s.add(toCaveMan(7919)));
+		Assert.assertEquals(1000, s.size());
+
+		for (int i = -500; i < 500; i++) {
+			int value = i * 7919;
+			Assert.assertTrue(s.contains(toCaveMan(value)));
+		}
+		Assert.assertFalse(s.contains(toCaveMan(1)));
+
+		for (int i = -500; i < 500; i += 2) {
+			int value = i * 7919;
+			Assert.assertTrue(s.remove(toCaveMan(value)));
+		}
+		Assert.assertFalse(s.remove(toCaveMan(0)));
+		Assert.assertEquals(500, s.size());
+		Assert.assertEquals(500, s.toArray().length);
+	}
+
+	@Test
+	public void testDenseContainers() {
+		CMSet s = new RoaringCaveManCMSet();
+
+		for (int i = 0; i < 20000; i++) {
+			s.add(toCaveMan(i));
+		}
+		Assert.assertEquals(20000, s.size());
+
+		for (int i = 0; i < 20000; i += 2) {
+			s.remove(toCaveMan(i));
+		}
+		Assert.assertEquals(10000, s.size());
+
+		for (int i = 0; i < 20000; i++) {
+			Assert.assertEquals((i & 1) == 1, s.contains(toCaveMan(i)));
+		}
+
+		for (int i = 0; i < 20000; i++) {
+			s.remove(toCaveMan(i));
+		}
+		Assert.assertTrue(s.isEmpty());
+	}
+
+	@Test
+	public void testSetAlgebra() {
+		CMSet evens = new RoaringCaveManCMSet();
+		CMSet all = new RoaringCaveManCMSet();
+		for (int i = 0; i < 200000; i += 3) {
+			all.add(toCaveMan(i));
+			if ((i & 1) == 0) {
+				evens.add(toCaveMan(i));
+			}
+		}
+
+		Assert.assertTrue(all.containsAll(evens));
+		Assert.assertFalse(evens.containsAll(all));
+
+		CMSet s = new RoaringCaveManCMSet();
+		Assert.assertTrue(s.addAll(evens));
+		Assert.assertFalse(s.addAll(evens));
+		Assert.assertEquals(evens.size(), s.size());
+
+		Assert.assertTrue(s.addAll(all));
+		Assert.assertEquals(all.size(), s.size());
+
+		Assert.assertTrue(s.removeAll(evens));
+		Assert.assertEquals(all.size() - evens.size(), s.size());
+		Assert.assertFalse(s.contains(toCaveMan(0)));
+		Assert.assertTrue(s.contains(toCaveMan(3)));
+
+		Assert.assertTrue(s.retainAll(evens));
+		Assert.assertTrue(s.isEmpty());
+
+		CMBag others = new CountingCaveManCMBag();
+		others.add(toCaveMan(6));
+		others.add(toCaveMan(7));
+		Assert.assertFalse(all.containsAll(others));
+		Assert.assertTrue(all.retainAll(others));
+		Assert.assertEquals(1, all.size());
+		Assert.assertTrue(all.contains(toCaveMan(6)));
+	}
+
+	@Test
+	public void testIterator() {
+		CMSet s = new RoaringCaveManCMSet();
+		for (int i = 0; i < 100000; i += 5) {
+			s.add(toCaveMan(i));
+		}
+
+		int count = 0;
+		int last = -1;
+		CMIterator it = s.iterator();
+		while (it.hasNext()) {
+			int value = fromCaveMan(it.next());
+			Assert.assertTrue(value > last);
+			last = value;
+			++count;
+
+			if ((value & 1) == 0) {
+				it.remove();
+			}
+		}
+
+		Assert.assertEquals(20000, count);
+		Assert.assertEquals(10000, s.size());
+		for (int i = 5; i < 100000; i += 10) {
+			Assert.assertTrue(s.contains(toCaveMan(i)));
+		}
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		RoaringCaveManCMSet s = new RoaringCaveManCMSet();
+		for (int i = 0; i < 100000; i++) {
+			s.add(toCaveMan(i));
+		}
+		for (int i = 1000000; i < 1001000; i += 3) {
+			s.add(toCaveMan(i));
+		}
+		s.add(toCaveMan(-1));
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(baos);
+		oos.writeObject(s);
+		oos.close();
+
+		Assert.assertTrue(baos.size() < 4000);
+
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		RoaringCaveManCMSet copy = (RoaringCaveManCMSet) ois.readObject();
+		ois.close();
+
+		Assert.assertEquals(s.size(), copy.size());
+		Assert.assertTrue(copy.containsAll(s));
+		Assert.assertTrue(s.containsAll(copy));
+
+		copy.runOptimize();
+		Assert.assertTrue(copy.contains(toCaveMan(99999)));
+		Assert.assertTrue(copy.remove(toCaveMan(500)));
+		Assert.assertFalse(copy.contains(toCaveMan(500)));
+		Assert.assertTrue(copy.add(toCaveMan(500)));
+		Assert.assertTrue(copy.containsAll(s));
+	}
+
+
+	@Test
+	public void testForEach() {
+		RoaringCaveManCMSet s = new RoaringCaveManCMSet();
+		for (int i = 0; i < 100; i++) {
+			s.add(toCaveMan(i * 7));
+		}
+		for (int i = 0; i < 5000; i++) {
+			s.add(toCaveMan(65536 + (i * 2)));
+		}
+		for (int i = 0; i < 3000; i++) {
+			s.add(toCaveMan(131072 + i));
+		}
+		s.runOptimize();
+
+		CountingCaveManCMBag seen = new CountingCaveManCMBag();
+		s.forEach(seen::add);
+
+		Assert.assertEquals(s.size(), seen.size());
+		Assert.assertTrue(s.containsAll(seen));
+	}
+
+	private CM toCaveMan(int i) { return null; }
+	private int fromCaveMan(CM item) { return 0; }
+}
@@ -0,0 +1,129 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mebigfatguy.caveman.proto.ConcurrentCMQueue;
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.impl.SpscCaveManCMQueue;
+
+public class SpscCaveManCMQueueTest {
+
+	@Test
+	public void testOfferPoll() {
+		ConcurrentCMQueue q = new SpscCaveManCMQueue(6);
+		Assert.assertEquals(8, q.capacity());
+		Assert.assertTrue(q.isEmpty());
+
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 8; i++) {
+				Assert.assertTrue(q.offer(toCaveMan(i)));
+			}
+			Assert.assertFalse(q.offer(toCaveMan(8)));
+			Assert.assertEquals(8, q.size());
+
+			for (int i = 0; i < 5; i++) {
+				CM expected = toCaveMan(i);
+				Assert.assertTrue(expected == q.poll());
+			}
+			Assert.assertEquals(3, q.size());
+			q.clear();
+			Assert.assertTrue(q.isEmpty());
+		}
+	}
+
+	@Test
+	public void testOfferAllDrainTo() {
+		ConcurrentCMQueue q = new SpscCaveManCMQueue(16);
+		CM[] src = new CM[10];
+		for (int i = 0; i < src.length; i++) {
+			src[i] = toCaveMan(i);
+		}
+
+		Assert.assertEquals(10, q.offerAll(src, 0, 10));
+		Assert.assertEquals(6, q.offerAll(src, 2, 8));
+
+		CM[] dst = new CM[12];
+		Assert.assertEquals(12, q.drainTo(dst));
+		for (int i = 0; i < 10; i++) {
+			Assert.assertTrue(src[i] == dst[i]);
+		}
+		Assert.assertTrue(src[2] == dst[10]);
+		Assert.assertTrue(src[3] == dst[11]);
+
+		Assert.assertEquals(10, q.offerAll(src, 0, 10));
+		Assert.assertEquals(14, q.size());
+		Assert.assertEquals(14, q.toArray().length);
+		Assert.assertEquals(14, q.drainTo(new CM[20]));
+		Assert.assertEquals(0, q.drainTo(dst));
+	}
+
+	@Test
+	public void testProducerConsumer() throws InterruptedException {
+		final int count = 100000;
+		final ConcurrentCMQueue q = new SpscCaveManCMQueue(64);
+
+		Thread producer = new Thread(() -> {
+			CM[] batch = new CM[7];
+			int i = 0;
+			while (i < count) {
+				if ((i & 1) == 0) {
+					if (q.offer(toCaveMan(i))) {
+						i++;
+					} else {
+						Thread.yield();
+					}
+				} else {
+					int len = Math.min(batch.length, count - i);
+					for (int b = 0; b < len; b++) {
+						int value = i + b;
+						batch[b] = toCaveMan(value);
+					}
+					int offered = q.offerAll(batch, 0, len);
+					if (offered == 0) {
+						Thread.yield();
+					}
+					i += offered;
+				}
+			}
+		});
+		producer.start();
+
+		CM[] batch = new CM[5];
+		int i = 0;
+		while (i < count) {
+			int drained = q.drainTo(batch);
+			if (drained == 0) {
+				Thread.yield();
+			}
+			for (int b = 0; b < drained; b++) {
+				CM expected = toCaveMan(i++);
+				Assert.assertTrue(expected == batch[b]);
+			}
+		}
+
+		producer.join();
+		Assert.assertTrue(q.isEmpty());
+	}
+
+
+
+	private CM toCaveMan(int i) { return null; }
+}
@@ -0,0 +1,38 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.aux;
+
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * stands in for the vector of the type that sums of CMs are accumulated in,
+ * jdk.incubator.vector.LongVector for int and long, and DoubleVector for float and double
+ */
+public interface CMSumVector {
+
+	VectorSpecies<CMSumBoxed> SPECIES_PREFERRED = null;
+
+	static CMSumVector zero(VectorSpecies<CMSumBoxed> species) {
+		return null;
+	}
+
+	CMSumVector add(CMSumVector v);
+
+	CMSum reduceLanes(VectorOperators.Associative op);
+}
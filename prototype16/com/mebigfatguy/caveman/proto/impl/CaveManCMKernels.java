@@ -0,0 +1,101 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMSum;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+
+/**
+ * The java 16 version of the array kernels behind the searches, sum and element wise arithmetic
+ * of CaveManCMList, which the jar holds under META-INF/versions/16. The vector api is still
+ * incubating, so its module is only resolved when the vm is started with
+ * <code>--add-modules jdk.incubator.vector</code>. When it is, each kernel is handed to
+ * CaveManCMVectorKernels, and otherwise the same plain loops as the java 8 version are run.
+ */
+@OnlyFor({"int", "long", "float", "double"})
+final class CaveManCMKernels {
+
+	private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+	private CaveManCMKernels() {
+	}
+
+	static int indexOf(CM[] items, int from, int to, CM item) {
+		if (VECTORIZED) {
+			return CaveManCMVectorKernels.indexOf(items, from, to, item);
+		}
+
+		for (int i = from; i < to; i++) {
+			if (item == items[i]) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	static int lastIndexOf(CM[] items, int from, int to, CM item) {
+		if (VECTORIZED) {
+			return CaveManCMVectorKernels.lastIndexOf(items, from, to, item);
+		}
+
+		for (int i = to - 1; i >= from; i--) {
+			if (item == items[i]) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	static CMSum sum(CM[] items, int from, int to) {
+		if (VECTORIZED) {
+			return CaveManCMVectorKernels.sum(items, from, to);
+		}
+
+		return CaveManCMAggregates.sum(items, from, to);
+	}
+
+	static void add(CM[] items, int from, int to, CM delta) {
+		if (VECTORIZED) {
+			CaveManCMVectorKernels.add(items, from, to, delta);
+			return;
+		}
+
+		for (int i = from; i < to; i++) {
+			items[i] = addCaveMan(items[i], delta);
+		}
+	}
+
+	static void multiply(CM[] items, int from, int to, CM factor) {
+		if (VECTORIZED) {
+			CaveManCMVectorKernels.multiply(items, from, to, factor);
+			return;
+		}
+
+		for (int i = from; i < to; i++) {
+			items[i] = multiplyCaveMan(items[i], factor);
+		}
+	}
+
+
+
+	private static CM addCaveMan(CM item, CM delta) {return null;}
+	private static CM multiplyCaveMan(CM item, CM factor) {return null;}
+}
@@ -0,0 +1,134 @@
+/*
+ * caveman - A primitive collection library
+ * Copyright 2011-2019 MeBigFatGuy.com
+ * Copyright 2011-2019 Dave Brosius
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package com.mebigfatguy.caveman.proto.impl;
+
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import com.mebigfatguy.caveman.proto.aux.CM;
+import com.mebigfatguy.caveman.proto.aux.CMBoxed;
+import com.mebigfatguy.caveman.proto.aux.CMSum;
+import com.mebigfatguy.caveman.proto.aux.CMSumBoxed;
+import com.mebigfatguy.caveman.proto.aux.CMSumVector;
+import com.mebigfatguy.caveman.proto.aux.CMVector;
+import com.mebigfatguy.caveman.proto.aux.OnlyFor;
+
+/**
+ * The array kernels of CaveManCMKernels written with the incubating vector api, working on as
+ * many <b>CM</b>s at a time as the preferred species of the cpu holds, with a plain loop for the
+ * <b>CM</b>s left over at the end of a range. This class must only be loaded once
+ * CaveManCMKernels has found the jdk.incubator.vector module.
+ */
+@OnlyFor({"int", "long", "float", "double"})
+final class CaveManCMVectorKernels {
+
+	private static final VectorSpecies<CMBoxed> SPECIES = CMVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<CMSumBoxed> SUM_SPECIES = CMSumVector.SPECIES_PREFERRED;
+
+	private CaveManCMVectorKernels() {
+	}
+
+	static int indexOf(CM[] items, int from, int to, CM item) {
+		int lanes = SPECIES.length();
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += lanes) {
+			VectorMask<CMBoxed> hits = CMVector.fromArray(SPECIES, items, i).compare(VectorOperators.EQ, item);
+			if (hits.anyTrue()) {
+				return i + hits.firstTrue();
+			}
+		}
+		for (; i < to; i++) {
+			if (item == items[i]) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	static int lastIndexOf(CM[] items, int from, int to, CM item) {
+		int lanes = SPECIES.length();
+		int i = to;
+		for (; (i - from) >= lanes; i -= lanes) {
+			VectorMask<CMBoxed> hits = CMVector.fromArray(SPECIES, items, i - lanes).compare(VectorOperators.EQ, item);
+			if (hits.anyTrue()) {
+				return (i - lanes) + hits.lastTrue();
+			}
+		}
+		for (i--; i >= from; i--) {
+			if (item == items[i]) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * casts each vector of <b>CM</b>s to as many vectors of the sum type as it takes to hold them,
+	 * so ints are summed in longs and floats in doubles, as the plain loop does, only the lanes are
+	 * added up separately, so a sum of floating point values may differ in its last bits
+	 */
+	static CMSum sum(CM[] items, int from, int to) {
+		int lanes = SPECIES.length();
+		int parts = lanes / SUM_SPECIES.length();
+		CMSumVector sums = CMSumVector.zero(SUM_SPECIES);
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += lanes) {
+			CMVector v = CMVector.fromArray(SPECIES, items, i);
+			for (int part = 0; part < parts; part++) {
+				sums = sums.add((CMSumVector) v.castShape(SUM_SPECIES, part));
+			}
+		}
+
+		CMSum sum = sums.reduceLanes(VectorOperators.ADD);
+		for (; i < to; i++) {
+			sum = sumCaveMan(sum, items[i]);
+		}
+		return sum;
+	}
+
+	static void add(CM[] items, int from, int to, CM delta) {
+		int lanes = SPECIES.length();
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += lanes) {
+			CMVector.fromArray(SPECIES, items, i).add(delta).intoArray(items, i);
+		}
+		for (; i < to; i++) {
+			items[i] = addCaveMan(items[i], delta);
+		}
+	}
+
+	static void multiply(CM[] items, int from, int to, CM factor) {
+		int lanes = SPECIES.length();
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += lanes) {
+			CMVector.fromArray(SPECIES, items, i).mul(factor).intoArray(items, i);
+		}
+		for (; i < to; i++) {
+			items[i] = multiplyCaveMan(items[i], factor);
+		}
+	}
+
+
+
+	private static CMSum sumCaveMan(CMSum sum, CM item) {return null;}
+	private static CM addCaveMan(CM item, CM delta) {return null;}
+	private static CM multiplyCaveMan(CM item, CM factor) {return null;}
+}
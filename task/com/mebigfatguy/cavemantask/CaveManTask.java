@@ -8,8 +8,15 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
@@ -18,6 +25,7 @@ import org.apache.tools.ant.Task;
 public class CaveManTask extends Task {
 
 	private static final String[] PRIMITIVES = new String[] { "boolean", "byte", "char", "short", "int", "long", "float", "double" };
+	private static final Pattern QUOTED_PATTERN = Pattern.compile("\"(\\w+)\"");
 
 	private File srcDir;
 	private File dstDir;
@@ -44,14 +52,19 @@ public class CaveManTask extends Task {
 		File[] cmFiles = srcDir.listFiles();
 		for (File cmf : cmFiles) {
 			if (cmf.isFile()) {
+				Set<String> primitives = getGeneratedPrimitives(cmf, "@OnlyFor");
 				if (cmf.getName().contains("CMKeyCMValue")) {
-					for (String keyPrimitive : PRIMITIVES) {
-						for (String valuePrimitive : PRIMITIVES) {
+					Set<String> valuePrimitives = getGeneratedPrimitives(cmf, "@OnlyForValue");
+					for (String keyPrimitive : primitives) {
+						for (String valuePrimitive : valuePrimitives) {
 							generate(cmf, keyPrimitive, valuePrimitive);
 						}
 					}
+				} else if (!cmf.getName().contains("CM")) {
+					// a prototype that is the same for every primitive, such as HashingStrategy, is copied once
+					generate(cmf, primitives.iterator().next());
 				} else {
-					for (String primitive : PRIMITIVES) {
+					for (String primitive : primitives) {
 						generate(cmf, primitive);
 					}
 				}
@@ -59,6 +72,107 @@ public class CaveManTask extends Task {
 		}
 	}
 
+	/**
+	 * returns the primitives to generate a prototype for, which is all of them, unless the prototype
+	 * is annotated with the given annotation, @OnlyFor or @OnlyForValue
+	 */
+	private Set<String> getGeneratedPrimitives(File cavemanProtoFile, String annotation) {
+		Set<String> primitives = new LinkedHashSet<String>(Arrays.asList(PRIMITIVES));
+
+		BufferedReader br = null;
+		try {
+			br = new BufferedReader(new FileReader(cavemanProtoFile));
+			String line = br.readLine();
+			while (line != null) {
+				if (line.startsWith(annotation + "(")) {
+					primitives.retainAll(parseOnlyFor(line));
+					break;
+				}
+				line = br.readLine();
+			}
+		} catch (IOException ioe) {
+			throw new BuildException("Failed reading file: " + cavemanProtoFile, ioe);
+		} finally {
+			closeQuietly(br);
+		}
+
+		return primitives;
+	}
+
+	private static Set<String> parseOnlyFor(String line) {
+		Set<String> onlyFor = new HashSet<String>();
+		Matcher m = QUOTED_PATTERN.matcher(line);
+		while (m.find()) {
+			onlyFor.add(m.group(1));
+		}
+		return onlyFor;
+	}
+
+	/**
+	 * returns the text of the prototype without the members, and their doc comments, that have an
+	 * indented @OnlyFor that does not list the primitive, or an indented @OnlyForValue that does
+	 * not list the value primitive. Member level annotation lines are removed.
+	 */
+	private String selectMembers(File cavemanProtoFile, String primitive, String valuePrimitive) throws IOException {
+		StringBuilder text = new StringBuilder();
+		List<String> docComment = new ArrayList<String>();
+		boolean inDocComment = false;
+		boolean skipping = false;
+		boolean opened = false;
+		int depth = 0;
+
+		BufferedReader br = null;
+		try {
+			br = new BufferedReader(new FileReader(cavemanProtoFile));
+			String line = br.readLine();
+			while (line != null) {
+				String trimmed = line.trim();
+				if (skipping) {
+					for (char c : line.toCharArray()) {
+						if (c == '{') {
+							++depth;
+							opened = true;
+						} else if (c == '}') {
+							--depth;
+						}
+					}
+					if (opened ? (depth <= 0) : trimmed.endsWith(";")) {
+						skipping = false;
+					}
+				} else if (inDocComment || trimmed.startsWith("/**")) {
+					docComment.add(line);
+					inDocComment = !trimmed.contains("*/");
+				} else if (trimmed.startsWith("@OnlyFor") && !line.startsWith("@OnlyFor")) {
+					String selector = trimmed.startsWith("@OnlyForValue(") ? valuePrimitive : primitive;
+					if (parseOnlyFor(line).contains(selector)) {
+						appendLines(text, docComment);
+					} else {
+						skipping = true;
+						opened = false;
+						depth = 0;
+					}
+					docComment.clear();
+				} else {
+					appendLines(text, docComment);
+					docComment.clear();
+					text.append(line).append('\n');
+				}
+				line = br.readLine();
+			}
+			appendLines(text, docComment);
+		} finally {
+			closeQuietly(br);
+		}
+
+		return text.toString();
+	}
+
+	private static void appendLines(StringBuilder text, List<String> lines) {
+		for (String line : lines) {
+			text.append(line).append('\n');
+		}
+	}
+
 	private void generate(File cavemanProtoFile, String primitive) {
 		String primitiveLabel = Character.toUpperCase(primitive.charAt(0)) + primitive.substring(1);
 
@@ -70,7 +184,7 @@ public class CaveManTask extends Task {
 		BufferedReader br = null;
 		PrintWriter pw = null;
 		try {
-			br = new BufferedReader(new FileReader(cavemanProtoFile));
+			br = new BufferedReader(new StringReader(selectMembers(cavemanProtoFile, primitive, primitive)));
 			pw = new PrintWriter(new BufferedWriter(new FileWriter(f)));
 
 			boolean ignoring = false;
@@ -79,7 +193,9 @@ public class CaveManTask extends Task {
 				if (line.contains("@IgnoreBoolean") && "boolean".equals(primitive)) {
 					ignoring = true;
 				} else {	
-					line = line.replaceAll("\\@IgnoreBoolean", "");
+					line = replaceJdkTypes(line.replaceAll("\\@IgnoreBoolean", "").replaceAll("\\bCMBoxed\\b", boxedClassOf(primitive))
+							.replaceAll("\\bCMSum\\b", sumTypeOf(primitive)),
+							primitive, primitiveLabel);
 					if (ignoring) {
 						if (line.contains("@Test")) {
 							ignoring = false;
@@ -101,6 +217,8 @@ public class CaveManTask extends Task {
 					
 					if (line.trim().startsWith("package ")) {
 						pw.println("package " + dstPackage + ";");
+					} else if (line.trim().startsWith("@OnlyFor")) {
+						// only used to select primitives
 					} else if (line.contains("toCaveMan")) {
 						if (!line.contains("private")) {
 							if ("boolean".equals(primitive)) {
@@ -112,7 +230,7 @@ public class CaveManTask extends Task {
 								
 							} else {
 								pw.println(applyCMReplacements(
-										line.replaceAll("toCaveMan\\(([^\\)]*)\\)", "(" + primitive + ") $1"),
+										line.replaceAll("toCaveMan\\(([^\\)]*)\\)", castTo(primitive, "int") + "$1"),
 										primitive, primitiveLabel, 1));
 							}
 						}
@@ -125,10 +243,39 @@ public class CaveManTask extends Task {
 								
 							} else {
 								pw.println(applyCMReplacements(
-										line.replaceAll("fromCaveMan\\(([^\\)]*)\\)", "(int) $1"),
+										line.replaceAll("fromCaveMan\\(([^\\)]*)\\)", castTo("int", primitive) + "$1"),
 										primitive, primitiveLabel, 1));
 							}
 						}
+					} else if (line.contains("foldCaveMan") || line.contains("hashCaveMan")) {
+						if (!line.contains("private")) {
+							pw.println(applyCMReplacements(
+									line.replaceAll("foldCaveMan\\(([^\\)]*)\\)", foldExpression(primitive))
+									.replaceAll("hashCaveMan\\(([^\\)]*)\\)", "CaveMan" + primitiveLabel + "Hash.hash($1)"),
+									primitive, primitiveLabel, 1));
+						}
+					} else if (line.contains("addCaveMan") || line.contains("multiplyCaveMan")) {
+						if (!line.contains("private")) {
+							pw.println(applyCMReplacements(
+									line.replaceAll("addCaveMan\\(([^,\\)]*), ([^\\)]*)\\)", castTo(primitive, promotedTypeOf(primitive)) + "($1 + $2)")
+									.replaceAll("multiplyCaveMan\\(([^,\\)]*), ([^\\)]*)\\)", castTo(primitive, promotedTypeOf(primitive)) + "($1 * $2)"),
+									primitive, primitiveLabel, 1));
+						}
+					} else if (line.contains("widenCaveMan") || line.contains("sumCaveMan") || line.contains("sumSquaresCaveMan") || line.contains("averageCaveMan")) {
+						if (!line.contains("private")) {
+							String sumType = sumTypeOf(primitive);
+							pw.println(applyCMReplacements(
+									line.replaceAll("widenCaveMan\\(([^\\)]*)\\)", castTo(sumType, primitive) + "$1")
+									.replaceAll("sumSquaresCaveMan\\(([^,\\)]*), ([^\\)]*)\\)", "($1 + " + castTo(sumType, primitive) + "$2 * $2)")
+									.replaceAll("sumCaveMan\\(([^,\\)]*), ([^\\)]*)\\)", "($1 + $2)")
+									.replaceAll("averageCaveMan\\(([^,\\)]*), ([^\\)]*)\\)", "(" + castTo("double", sumType) + "$1 / $2)"),
+									primitive, primitiveLabel, 1));
+						}
+					} else if (line.contains("cmBits()")) {
+						if (!line.contains("int cmBits()")) {
+							pw.println(applyCMReplacements(line.replaceAll("cmBits\\(\\)", String.valueOf(bitsOf(primitive))),
+									primitive, primitiveLabel, 1));
+						}
 	                  } else if (line.contains("cmIsBoolean()")) {
                         if (!line.contains("private")) {
                             line = line.replaceAll("cmIsBoolean\\(\\)", "boolean".equals(primitive) ? "true" : "false");
@@ -156,6 +303,102 @@ public class CaveManTask extends Task {
 		}
 	}
 	
+	/**
+	 * returns a replacement expression that folds all the bits of a primitive into an int, with
+	 * $1 standing for the primitive. Positive and negative zero fold to the same value, as they
+	 * are equal by ==.
+	 */
+	private static String foldExpression(String primitive) {
+		if ("boolean".equals(primitive)) {
+			return "(($1) ? 1231 : 1237)";
+		} else if ("long".equals(primitive)) {
+			return "(int) ($1 ^ ($1 >>> 32))";
+		} else if ("float".equals(primitive)) {
+			return "(($1 == 0.0f) ? 0 : Float.floatToIntBits($1))";
+		} else if ("double".equals(primitive)) {
+			return "(($1 == 0.0) ? 0 : (int) (Double.doubleToLongBits($1) ^ (Double.doubleToLongBits($1) >>> 32)))";
+		}
+
+		return "$1";
+	}
+
+	private static int bitsOf(String primitive) {
+		if ("boolean".equals(primitive)) {
+			return 1;
+		} else if ("byte".equals(primitive)) {
+			return 8;
+		} else if ("char".equals(primitive) || "short".equals(primitive)) {
+			return 16;
+		} else if ("int".equals(primitive) || "float".equals(primitive)) {
+			return 32;
+		}
+
+		return 64;
+	}
+
+	/**
+	 * returns the type that CMSum stands for, the type that sums of a primitive are accumulated in,
+	 * so that long is used for all the integral primitives, and double for float and double
+	 */
+	private static String sumTypeOf(String primitive) {
+		if ("float".equals(primitive) || "double".equals(primitive)) {
+			return "double";
+		}
+
+		return "long";
+	}
+
+	/**
+	 * returns the type that arithmetic on a primitive produces, as byte, short and char are promoted to int
+	 */
+	private static String promotedTypeOf(String primitive) {
+		if ("byte".equals(primitive) || "short".equals(primitive) || "char".equals(primitive)) {
+			return "int";
+		}
+
+		return primitive;
+	}
+
+	/**
+	 * returns a cast to a type, for an expression of another type, or nothing if the types are the
+	 * same, so that the generated sources don't carry redundant casts
+	 */
+	private static String castTo(String type, String expressionType) {
+		return type.equals(expressionType) ? "" : "(" + type + ") ";
+	}
+
+	private static String boxedClassOf(String primitive) {
+		if ("char".equals(primitive)) {
+			return "Character";
+		} else if ("int".equals(primitive)) {
+			return "Integer";
+		}
+
+		return Character.toUpperCase(primitive.charAt(0)) + primitive.substring(1);
+	}
+
+	/**
+	 * replaces the placeholders for the jdk's primitive stream types, which only exist for int, long
+	 * and double, and for the incubating vector types, which don't exist for boolean or char, so
+	 * members that use them should be limited with @OnlyFor
+	 */
+	private static String replaceJdkTypes(String line, String primitive, String primitiveLabel) {
+		if (!line.contains("CM")) {
+			return line;
+		}
+
+		String sumBoxed = boxedClassOf(sumTypeOf(primitive));
+		return line.replaceAll("\\bCMSumVector\\b", "jdk.incubator.vector." + sumBoxed + "Vector")
+				.replaceAll("\\bCMSumBoxed\\b", sumBoxed)
+				.replaceAll("\\bCMVector\\b", "jdk.incubator.vector." + primitiveLabel + "Vector")
+				.replaceAll("\\bCMStreamSupport\\.cmStream\\b", "java.util.stream.StreamSupport." + primitive + "Stream")
+				.replaceAll("\\bCMStream\\b", "java.util.stream." + primitiveLabel + "Stream")
+				.replaceAll("\\bCMSpliterators\\b", "java.util.Spliterators")
+				.replaceAll("\\bCMSpliterator\\b", "java.util.Spliterator.Of" + primitiveLabel)
+				.replaceAll("\\bCMPrimitiveIterator\\b", "java.util.PrimitiveIterator.Of" + primitiveLabel)
+				.replaceAll("\\bCMJavaConsumer\\b", "java.util.function." + primitiveLabel + "Consumer");
+	}
+
 	private String applyCMReplacements(String input, String primitive, String primitiveLabel, int numPrimitiveReplacements) {
 		if (numPrimitiveReplacements == 1) {
 			return input.replaceAll("\\bCM\\b", primitive).replaceAll("CM", primitiveLabel);
@@ -177,7 +420,7 @@ public class CaveManTask extends Task {
 		BufferedReader br = null;
 		PrintWriter pw = null;
 		try {
-			br = new BufferedReader(new FileReader(cavemanProtoFile));
+			br = new BufferedReader(new StringReader(selectMembers(cavemanProtoFile, keyPrimitive, valuePrimitive)));
 			pw = new PrintWriter(new BufferedWriter(new FileWriter(f)));
 
 			Set<String> imports = new HashSet<String>();
@@ -188,7 +431,8 @@ public class CaveManTask extends Task {
 				if (line.contains("@IgnoreBoolean") && "boolean".equals(keyPrimitive)) {
 					ignoring = true;
 				} else {
-					line = line.replaceAll("\\@IgnoreBoolean", "");
+					line = line.replaceAll("\\@IgnoreBoolean", "").replaceAll("\\bCMKeyBoxed\\b", boxedClassOf(keyPrimitive))
+							.replaceAll("\\bCMValueBoxed\\b", boxedClassOf(valuePrimitive));
 					if (ignoring) {
 						if (line.contains("@Test")) {
 							ignoring = false;
@@ -210,6 +454,8 @@ public class CaveManTask extends Task {
 					
 					if (line.trim().startsWith("package ")) {
 						pw.println("package " + dstPackage + ";");
+					} else if (line.trim().startsWith("@OnlyFor")) {
+						// only used to select primitives
 					} else if (line.contains("toCaveMan")) {
 						if (!line.contains("private")) {
 							if (line.contains("toCaveManKey")) {
@@ -218,7 +464,7 @@ public class CaveManTask extends Task {
 											keyPrimitive, keyPrimitiveLabel, 2);
 									
 								} else {
-									line = applyCMReplacements(line.replaceAll("toCaveManKey\\(([^\\)]*)\\)", "(" + keyPrimitive + ") $1"), 
+									line = applyCMReplacements(line.replaceAll("toCaveManKey\\(([^\\)]*)\\)", castTo(keyPrimitive, "int") + "$1"), 
 											keyPrimitive, keyPrimitiveLabel, 2);
 								}
 							} 
@@ -229,13 +475,38 @@ public class CaveManTask extends Task {
 											valuePrimitive, valuePrimitiveLabel, 2);
 									
 								} else {
-									line = applyCMReplacements(line.replaceAll("toCaveManValue\\(([^\\)]*)\\)", "(" + valuePrimitive + ") $1"), 
+									line = applyCMReplacements(line.replaceAll("toCaveManValue\\(([^\\)]*)\\)", castTo(valuePrimitive, "int") + "$1"), 
 											valuePrimitive, valuePrimitiveLabel, 2);
 								}
 							}
 							
 							pw.println(line);
 						}					
+					} else if (line.contains("hashCaveManKey")) {
+						if (!line.contains("private")) {
+							pw.println(applyCMReplacements(
+									line.replaceAll("hashCaveManKey\\(([^\\)]*)\\)", "CaveMan" + keyPrimitiveLabel + "Hash.hash($1)"),
+									keyPrimitive, keyPrimitiveLabel, 2));
+						}
+					} else if (line.contains("addCaveManValues")) {
+						if (!line.contains("private")) {
+							pw.println(line.replaceAll("addCaveManValues\\(([^,\\)]*), ([^\\)]*)\\)", castTo(valuePrimitive, promotedTypeOf(valuePrimitive)) + "($1 + $2)")
+									.replaceAll("\\bCMKey\\b", keyPrimitive).replaceAll("\\bCMValue\\b", valuePrimitive)
+									.replaceAll("CMKey", keyPrimitiveLabel).replaceAll("CMValue", valuePrimitiveLabel));
+						}
+					} else if (line.contains("widenCaveManValue") || line.contains("narrowCaveManValue")) {
+						if (!line.contains("private")) {
+							pw.println(line.replaceAll("widenCaveManValue\\(([^\\)]*)\\)", castTo("long", valuePrimitive) + "$1")
+									.replaceAll("narrowCaveManValue\\(([^\\)]*)\\)", castTo(valuePrimitive, "long") + "$1")
+									.replaceAll("\\bCMKey\\b", keyPrimitive).replaceAll("\\bCMValue\\b", valuePrimitive)
+									.replaceAll("CMKey", keyPrimitiveLabel).replaceAll("CMValue", valuePrimitiveLabel));
+						}
+					} else if (line.contains("cmKeyBits()")) {
+						if (!line.contains("int cmKeyBits()")) {
+							pw.println(line.replaceAll("cmKeyBits\\(\\)", String.valueOf(bitsOf(keyPrimitive)))
+									.replaceAll("\\bCMKey\\b", keyPrimitive).replaceAll("\\bCMValue\\b", valuePrimitive)
+									.replaceAll("CMKey", keyPrimitiveLabel).replaceAll("CMValue", valuePrimitiveLabel));
+						}
 					} else if (line.contains("fromCaveMan")) {
 						if (!line.contains("private")) {
 							if (line.contains("fromCaveManKey")) {
@@ -246,7 +517,7 @@ public class CaveManTask extends Task {
 									
 								} else {
 									line = (applyCMReplacements(
-											line.replaceAll("fromCaveManKey\\(([^\\)]*)\\)", "(int) $1"),
+											line.replaceAll("fromCaveManKey\\(([^\\)]*)\\)", castTo("int", keyPrimitive) + "$1"),
 											keyPrimitive, keyPrimitiveLabel, 2));
 								}
 							}
@@ -259,7 +530,7 @@ public class CaveManTask extends Task {
 									
 								} else {
 									line = (applyCMReplacements(
-											line.replaceAll("fromCaveManValue\\(([^\\)]*)\\)", "(int) $1"),
+											line.replaceAll("fromCaveManValue\\(([^\\)]*)\\)", castTo("int", valuePrimitive) + "$1"),
 											valuePrimitive, valuePrimitiveLabel, 2));
 								}
 							}
@@ -269,7 +540,7 @@ public class CaveManTask extends Task {
 					} else if (!line.trim().startsWith("import") || line.contains("java.") || line.contains("org.")) {
 						pw.println(line.replaceAll("\\bCMKey\\b", keyPrimitive).replaceAll("\\bCMValue\\b", valuePrimitive)
 								.replaceAll("CMKey", keyPrimitiveLabel).replaceAll("CMValue", valuePrimitiveLabel));
-					} else if (line.trim().startsWith("import") && (line.contains("CMKeySet") || line.contains("CMKeyCollection") || line.contains("CMValueCollection") || line.contains("CMValueBag") || line.contains("CMKeyIterator") || line.contains("CMValueIterator"))) {
+					} else if (line.trim().startsWith("import") && (line.contains("CMKeySet") || line.contains("CMKeyCollection") || line.contains("CMValueCollection") || line.contains("CMValueBag") || line.contains("CMValueBinaryOperator") || line.contains("CMKeyIterator") || line.contains("CMValueIterator"))) {
 						String importLine = line.replaceAll("\\.proto\\.aux", "").replaceAll("CMKey", keyPrimitiveLabel).replaceAll("CMValue", valuePrimitiveLabel);
 						if (!imports.contains(importLine)) {
 							pw.println(importLine);
@@ -277,7 +548,7 @@ public class CaveManTask extends Task {
 						} else {
 							pw.println();
 						}
-					} else if (line.trim().startsWith("import") && (line.contains("proto.CMKeyCMValue") || line.contains("proto.impl.CaveManCMKeyCMValue"))) {
+					} else if (line.trim().startsWith("import") && (line.matches(".*proto\\.\\w*CMKeyCMValue.*") || line.matches(".*proto\\.impl\\.\\w*CaveManCMKeyCMValue.*"))) {
 						String importLine = line.replaceAll("\\.proto", "").replaceAll("CMKey", keyPrimitiveLabel).replaceAll("CMValue", valuePrimitiveLabel);
 						if (!imports.contains(importLine)) {
 							pw.println(importLine);
@@ -285,6 +556,9 @@ public class CaveManTask extends Task {
 						} else {
 							pw.println();
 						}
+					} else if (line.trim().startsWith("import") && line.matches(".*proto\\.(impl\\.)?\\w+;.*") && !line.matches(".*\\.\\w*CM\\w*;.*")) {
+						// a prototype that is the same for every primitive, such as EvictionPolicy
+						pw.println(line.replaceAll("\\.proto", ""));
 					}
 				}
 				line = br.readLine();